@@ -0,0 +1,34 @@
+package ru.freeomsk.textanalyzer.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.freeomsk.textanalyzer.model.AnalysisResult;
+import ru.freeomsk.textanalyzer.service.AdvancedTextAnalyzer;
+
+import java.util.concurrent.TimeUnit;
+
+// Анализ от текста до результата всеми проверками, включая деление больших текстов на фрагменты
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class AnalyzerBenchmark {
+
+    @Param({"short", "medium", "book"})
+    public String corpus;
+
+    private AdvancedTextAnalyzer analyzer;
+    private String text;
+
+    @Setup
+    public void setUp() throws Exception {
+        analyzer = BenchmarkContext.get().getBean(AdvancedTextAnalyzer.class);
+        text = BenchmarkTexts.corpus(BenchmarkTexts.length(corpus));
+    }
+
+    @Benchmark
+    public AnalysisResult analyzeText() {
+        return analyzer.analyzeText(text, "ru");
+    }
+}
@@ -0,0 +1,32 @@
+package ru.freeomsk.textanalyzer.benchmark;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.freeomsk.textanalyzer.Application;
+
+import java.io.IOException;
+import java.nio.file.Files;
+
+// Контекст приложения без веб-сервера, один на форк JMH. Кэш результатов отключен:
+// бенчмарки измеряют анализ, а не чтение из кэша
+final class BenchmarkContext {
+
+    private static ConfigurableApplicationContext context;
+
+    private BenchmarkContext() {
+    }
+
+    static synchronized ConfigurableApplicationContext get() throws IOException {
+        if (context == null) {
+            // Аргументы командной строки, а не properties(): те только задают значения по умолчанию
+            context = new SpringApplicationBuilder(Application.class)
+                    .web(WebApplicationType.NONE)
+                    .run("--analysis.cache.max-bytes=0",
+                            "--jobs.dir=" + Files.createTempDirectory("jmh-jobs"),
+                            "--logging.level.root=WARN",
+                            "--spring.main.banner-mode=off");
+        }
+        return context;
+    }
+}
@@ -0,0 +1,51 @@
+package ru.freeomsk.textanalyzer.benchmark;
+
+import java.util.Random;
+
+// Тексты для бенчмарков: предложения с типичными ошибками в случайном, но воспроизводимом порядке
+final class BenchmarkTexts {
+
+    // Короткое сообщение, статья и книга
+    static final int SHORT = 200;
+    static final int MEDIUM = 8_000;
+    static final int BOOK = 500_000;
+
+    private static final String[] SENTENCES = {
+            "Здавствуйте, мне бы хотелось заказать пиццу с ананасами.",
+            "Я буду читатт книгу вечером, если успею закончить работу.",
+            "Он был написан  быстро ,а потом потом переписан заново.",
+            "Мы пошли в магазин и купили хлеб, молоко и сыр!",
+            "Кошка спит на диване; собака лает во дворе.",
+            "Были сделаны выводы и были написаны отчеты для руководства.",
+            "Очень очень важно отметить, что данный вопрос является ключевым.",
+            "\"Кавычка без пары и (скобка без пары.",
+            "Что вы думаете о новом проекте?",
+            "Вообще-то, как бы, в принципе, всё понятно.",
+            "Завтра мы поедем за город, если погода будет хорошей.",
+            "Программа проверяет орфографию, грамматику, пунктуацию и стиль текста.",
+    };
+
+    private BenchmarkTexts() {
+    }
+
+    static String corpus(int length) {
+        Random random = new Random(42);
+        StringBuilder text = new StringBuilder(length + 128);
+        while (text.length() < length) {
+            if (!text.isEmpty()) {
+                text.append(random.nextInt(8) == 0 ? "\n" : " ");
+            }
+            text.append(SENTENCES[random.nextInt(SENTENCES.length)]);
+        }
+        return text.toString();
+    }
+
+    static int length(String corpus) {
+        return switch (corpus) {
+            case "short" -> SHORT;
+            case "medium" -> MEDIUM;
+            case "book" -> BOOK;
+            default -> throw new IllegalArgumentException("Неизвестный корпус: " + corpus);
+        };
+    }
+}
@@ -0,0 +1,58 @@
+package ru.freeomsk.textanalyzer.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.freeomsk.textanalyzer.check.CheckContext;
+import ru.freeomsk.textanalyzer.check.DocumentState;
+import ru.freeomsk.textanalyzer.check.FindingsCollector;
+import ru.freeomsk.textanalyzer.check.TextCheck;
+import ru.freeomsk.textanalyzer.model.TokenizedText;
+import ru.freeomsk.textanalyzer.rules.RuleService;
+import ru.freeomsk.textanalyzer.service.DictionaryService;
+import ru.freeomsk.textanalyzer.util.TextTokenizer;
+
+import java.util.concurrent.TimeUnit;
+
+// Каждая проверка отдельно на уже токенизированном тексте: фрагмент, состояние документа и итог,
+// как при анализе текста одним фрагментом
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CheckBenchmark {
+
+    @Param({"spelling", "grammar", "punctuation", "style", "metrics"})
+    public String check;
+
+    @Param({"medium"})
+    public String corpus;
+
+    private TextCheck textCheck;
+    private TokenizedText text;
+    private CheckContext context;
+
+    @Setup
+    public void setUp() throws Exception {
+        // Бины проверок без замера времени, который добавляет реестр проверок
+        textCheck = BenchmarkContext.get().getBeansOfType(TextCheck.class).values().stream()
+                .filter(candidate -> candidate.name().equals(check))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Неизвестная проверка: " + check));
+        text = TextTokenizer.tokenize(BenchmarkTexts.corpus(BenchmarkTexts.length(corpus)));
+        context = new CheckContext(BenchmarkContext.get().getBean(DictionaryService.class).getDictionarySnapshot(),
+                BenchmarkContext.get().getBean(RuleService.class).getRuleSet(), true);
+    }
+
+    @Benchmark
+    public FindingsCollector check() {
+        FindingsCollector findings = new FindingsCollector();
+        textCheck.checkSlice(text, context, findings);
+        DocumentState<?> state = textCheck.newDocumentState();
+        if (state != null) {
+            state.add(text);
+        }
+        textCheck.checkDocument(text, state, context, findings);
+        return findings;
+    }
+}
@@ -0,0 +1,78 @@
+package ru.freeomsk.textanalyzer.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.freeomsk.textanalyzer.dictionary.DictionaryImageCompiler;
+import ru.freeomsk.textanalyzer.dictionary.RussianDictionaryService;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Проверка слов и подсказки на словарях разного размера: к встроенному словарю добавляются
+// сгенерированные слова, образ словаря собирается перед запуском, как при сборке приложения
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DictionaryBenchmark {
+
+    private static final String[] SYLLABLES = {
+            "ка", "ро", "ми", "ло", "на", "те", "сво", "пра", "ви", "ль", "ст", "ор", "зна", "ние", "ать", "ый"
+    };
+
+    // Известные и неизвестные словарю слова вперемешку
+    private static final String[] WORDS = {
+            "здравствуйте", "книга", "читать", "магазин", "читатт", "здавствуйте", "малоко", "прект"
+    };
+
+    @Param({"0", "30000", "300000"})
+    public int extraWords;
+
+    private RussianDictionaryService dictionary;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        Path directory = Files.createTempDirectory("jmh-dict");
+        Path words = directory.resolve("words.txt");
+        Path image = directory.resolve("words.dawg");
+        Files.write(words, generateWords(extraWords), StandardCharsets.UTF_8);
+        DictionaryImageCompiler.main(new String[]{words.toString(), image.toString()});
+        dictionary = new RussianDictionaryService(image.toString(), "");
+    }
+
+    @Benchmark
+    public boolean isWordValid() {
+        return dictionary.isWordValid(nextWord());
+    }
+
+    @Benchmark
+    public List<String> getSuggestions() {
+        return dictionary.getSuggestions(nextWord());
+    }
+
+    private String nextWord() {
+        return WORDS[next++ & (WORDS.length - 1)];
+    }
+
+    private static List<String> generateWords(int count) {
+        Random random = new Random(7);
+        List<String> words = new ArrayList<>(count);
+        StringBuilder word = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            word.setLength(0);
+            int syllables = 2 + random.nextInt(4);
+            for (int s = 0; s < syllables; s++) {
+                word.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+            }
+            words.add(word.toString());
+        }
+        return words;
+    }
+}
@@ -0,0 +1,32 @@
+package ru.freeomsk.textanalyzer.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.freeomsk.textanalyzer.model.TokenizedText;
+import ru.freeomsk.textanalyzer.service.TextProcessor;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TokenizerBenchmark {
+
+    @Param({"short", "medium", "book"})
+    public String corpus;
+
+    private final TextProcessor textProcessor = new TextProcessor();
+    private String text;
+
+    @Setup
+    public void setUp() {
+        text = BenchmarkTexts.corpus(BenchmarkTexts.length(corpus));
+    }
+
+    @Benchmark
+    public TokenizedText tokenize() {
+        return textProcessor.tokenize(text);
+    }
+}
@@ -0,0 +1,113 @@
+package ru.freeomsk.textanalyzer.load;
+
+import java.util.Random;
+
+// Синтетический русский текст заданной длины с управляемой долей ошибок: опечатки в словах,
+// ошибки пунктуации и стилистические замечания. Одинаковое зерно дает одинаковый корпус
+final class CorpusGenerator {
+
+    private static final String[] WORDS = {
+            "привет", "пицца", "ананас", "заказ", "ответ", "текст", "ошибка", "проверка", "грамматика",
+            "орфография", "пунктуация", "программа", "анализатор", "слово", "предложение", "язык",
+            "пример", "результат", "система", "функция", "метод", "класс", "объект", "данные",
+            "информация", "файл", "проект", "разработка", "хотел", "заказать", "оформить", "ждать",
+            "проверить", "найти", "исправить", "писать", "написать", "говорить", "сказать", "работать",
+            "создать", "использовать", "получить", "сделать", "выполнить", "правильный", "хороший",
+            "интересный", "сложный", "простой", "быстрый", "новый", "основной", "важный", "правильно",
+            "быстро", "хорошо", "почти", "возможно", "точно", "верно", "мы", "вы", "они", "мой", "свой",
+            "в", "на", "за", "после", "из", "от", "до", "по", "и", "а", "но", "или", "что", "когда", "где"
+    };
+
+    private static final String[] PASSIVE = {"были сделаны", "был написан", "была создана", "были получены"};
+    private static final char[] LETTERS = "абвгдежзийклмнопрстуфхцчшщыьэюя".toCharArray();
+
+    // Доли: typos - слов с опечаткой, punctuation и style - предложений с ошибкой соответствующего вида
+    private final double typos;
+    private final double punctuation;
+    private final double style;
+    private final Random random;
+
+    CorpusGenerator(double typos, double punctuation, double style, long seed) {
+        this.typos = typos;
+        this.punctuation = punctuation;
+        this.style = style;
+        this.random = new Random(seed);
+    }
+
+    String text(int length) {
+        StringBuilder text = new StringBuilder(length + 256);
+        while (text.length() < length) {
+            if (!text.isEmpty()) {
+                text.append(random.nextInt(8) == 0 ? "\n" : " ");
+            }
+            sentence(text);
+        }
+        return text.toString();
+    }
+
+    private void sentence(StringBuilder text) {
+        boolean punctuationError = random.nextDouble() < punctuation;
+        boolean styleError = random.nextDouble() < style;
+        int styleKind = random.nextInt(3);
+        // Длинное предложение (больше 25 слов) - одно из стилистических замечаний
+        int words = styleError && styleKind == 2 ? 26 + random.nextInt(10) : 4 + random.nextInt(12);
+        int errorAt = 1 + random.nextInt(words - 1);
+
+        int start = text.length();
+        for (int i = 0; i < words; i++) {
+            if (i > 0) {
+                if (punctuationError && i == errorAt) {
+                    appendPunctuationError(text);
+                } else if (i % 7 == 0) {
+                    text.append(", ");
+                } else {
+                    text.append(' ');
+                }
+            }
+            if (styleError && i == errorAt && styleKind < 2) {
+                text.append(styleKind == 0 ? repeated() : PASSIVE[random.nextInt(PASSIVE.length)]);
+            } else {
+                text.append(word());
+            }
+        }
+        text.setCharAt(start, Character.toUpperCase(text.charAt(start)));
+        text.append(random.nextInt(10) == 0 ? '?' : '.');
+    }
+
+    private String word() {
+        String word = WORDS[random.nextInt(WORDS.length)];
+        return word.length() > 3 && random.nextDouble() < typos ? typo(word) : word;
+    }
+
+    private String repeated() {
+        String word = WORDS[random.nextInt(WORDS.length)];
+        return word + " " + word;
+    }
+
+    // Перестановка соседних букв, пропуск, удвоение или замена буквы
+    private String typo(String word) {
+        StringBuilder result = new StringBuilder(word);
+        int at = 1 + random.nextInt(word.length() - 2);
+        switch (random.nextInt(4)) {
+            case 0 -> {
+                char c = result.charAt(at);
+                result.setCharAt(at, result.charAt(at + 1));
+                result.setCharAt(at + 1, c);
+            }
+            case 1 -> result.deleteCharAt(at);
+            case 2 -> result.insert(at, result.charAt(at));
+            default -> result.setCharAt(at, LETTERS[random.nextInt(LETTERS.length)]);
+        }
+        return result.toString();
+    }
+
+    // Пробел перед запятой, нет пробела после запятой или непарные кавычка и скобка
+    private void appendPunctuationError(StringBuilder text) {
+        switch (random.nextInt(4)) {
+            case 0 -> text.append(" , ");
+            case 1 -> text.append(',');
+            case 2 -> text.append(" \"");
+            default -> text.append(" (");
+        }
+    }
+}
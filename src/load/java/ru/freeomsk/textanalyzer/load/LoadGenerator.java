@@ -0,0 +1,321 @@
+package ru.freeomsk.textanalyzer.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.freeomsk.textanalyzer.Application;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+// Генератор нагрузки на HTTP API: запросы с синтетическим корпусом или записанными телами
+// отправляются с постоянной частотой (открытая модель). Задержка отсчитывается от запланированного
+// момента отправки, а не от фактического, поэтому очередь перед сервером входит в задержку
+// и не скрывается замедлением самого генератора (coordinated omission).
+//
+// mvn -Pload compile exec:exec@load -Dload.args="--start --rate 50 --duration 60s"
+public final class LoadGenerator {
+
+    // Задержки до минуты с точностью три значащие цифры
+    private static final long MAX_LATENCY_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final Options options;
+    private final HttpClient client;
+    private final List<String> bodies;
+    private final Recorder recorder = new Recorder(MAX_LATENCY_NANOS, 3);
+    private final Map<String, LongAdder> outcomes = new ConcurrentHashMap<>();
+    private final AtomicLong inFlight = new AtomicLong();
+    private final AtomicLong maxInFlight = new AtomicLong();
+
+    private LoadGenerator(Options options, List<String> bodies) {
+        this.options = options;
+        this.bodies = bodies;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options;
+        try {
+            options = Options.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(Options.USAGE);
+            System.exit(2);
+            return;
+        }
+
+        ConfigurableApplicationContext context = null;
+        String url = options.url;
+        if (options.start) {
+            // Приложение в том же процессе на свободном порту; кэш результатов отключен, если не задан явно
+            context = new SpringApplicationBuilder(Application.class)
+                    .logStartupInfo(false)
+                    .run("--server.port=0",
+                            "--analysis.cache.max-bytes=" + options.cacheMaxBytes,
+                            "--jobs.dir=" + Files.createTempDirectory("load-jobs"),
+                            "--logging.level.root=WARN",
+                            "--spring.main.banner-mode=off");
+            url = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+        }
+
+        try {
+            LoadGenerator generator = new LoadGenerator(options, bodies(options));
+            Histogram histogram = generator.run(url);
+            generator.report(histogram, System.out);
+            if (options.histogramFile != null) {
+                try (PrintStream out = new PrintStream(Files.newOutputStream(options.histogramFile), true,
+                        StandardCharsets.UTF_8)) {
+                    histogram.outputPercentileDistribution(out, 1_000_000.0);
+                }
+            }
+        } finally {
+            if (context != null) {
+                context.close();
+            }
+        }
+    }
+
+    // Тела запросов: строки файла --replay (один JSON-запрос анализа на строку, как во входном файле задания)
+    // или синтетические тексты. Пакет собирается из batch-size соседних тел
+    private static List<String> bodies(Options options) throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        List<String> items = new ArrayList<>();
+        if (options.replay != null) {
+            for (String line : Files.readAllLines(options.replay, StandardCharsets.UTF_8)) {
+                if (!line.isBlank()) items.add(line);
+            }
+            if (items.isEmpty()) {
+                throw new IllegalArgumentException("Файл " + options.replay + " не содержит запросов");
+            }
+        } else {
+            CorpusGenerator corpus = new CorpusGenerator(options.typos, options.punctuation, options.style,
+                    options.seed);
+            for (int i = 0; i < options.corpusSize; i++) {
+                Map<String, Object> request = new HashMap<>();
+                request.put("text", corpus.text(options.length));
+                request.put("language", "ru");
+                items.add(mapper.writeValueAsString(request));
+            }
+        }
+
+        if (!options.endpoint.equals("batch")) {
+            return items;
+        }
+        List<String> batches = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            StringBuilder batch = new StringBuilder("[");
+            for (int j = 0; j < options.batchSize; j++) {
+                if (j > 0) batch.append(',');
+                batch.append(items.get((i + j) % items.size()));
+            }
+            batches.add(batch.append(']').toString());
+        }
+        return batches;
+    }
+
+    private Histogram run(String url) throws InterruptedException {
+        URI uri = URI.create(url + (options.endpoint.equals("batch")
+                ? "/api/text-analysis/batch-analyze"
+                : "/api/text-analysis/analyze"));
+        long interval = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / options.rate));
+        long warmupEnd = options.warmup.toNanos();
+        long total = (options.warmup.toNanos() + options.duration.toNanos()) / interval;
+
+        System.out.printf("%s: %.1f запросов/с, прогрев %d с, замер %d с, тел запросов %d%n",
+                uri, options.rate, options.warmup.toSeconds(), options.duration.toSeconds(), bodies.size());
+
+        long start = System.nanoTime();
+        try (ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (long i = 0; i < total; i++) {
+                long intended = start + i * interval;
+                long delay = intended - System.nanoTime();
+                if (delay > 0) {
+                    LockSupport.parkNanos(delay);
+                }
+                // Запросы прогрева отправляются, но в отчет не попадают
+                boolean measured = i * interval >= warmupEnd;
+                String body = bodies.get((int) (i % bodies.size()));
+                senders.submit(() -> send(uri, body, intended, measured));
+            }
+            // Ожидание ответов на все отправленные запросы при закрытии исполнителя
+        }
+        return recorder.getIntervalHistogram();
+    }
+
+    private void send(URI uri, String body, long intended, boolean measured) {
+        maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+        String outcome;
+        try {
+            HttpRequest request = HttpRequest.newBuilder(uri)
+                    .timeout(options.timeout)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(body, StandardCharsets.UTF_8))
+                    .build();
+            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+            outcome = Integer.toString(response.statusCode());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            outcome = "прервано";
+        } catch (IOException e) {
+            outcome = e.getClass().getSimpleName();
+        } finally {
+            inFlight.decrementAndGet();
+        }
+        if (!measured) return;
+        recorder.recordValue(Math.min(System.nanoTime() - intended, MAX_LATENCY_NANOS));
+        outcomes.computeIfAbsent(outcome, key -> new LongAdder()).increment();
+    }
+
+    private void report(Histogram histogram, PrintStream out) {
+        long count = histogram.getTotalCount();
+        Map<String, Long> byOutcome = new TreeMap<>();
+        outcomes.forEach((outcome, adder) -> byOutcome.put(outcome, adder.sum()));
+        long succeeded = byOutcome.getOrDefault("200", 0L);
+
+        out.printf("Запросов: %d, успешных: %d, ошибок: %d%n", count, succeeded, count - succeeded);
+        out.printf("Ответы: %s%n", byOutcome);
+        out.printf("Пропускная способность: %.1f запросов/с%n", succeeded / (double) options.duration.toSeconds());
+        out.printf("Одновременных запросов (макс.): %d%n", maxInFlight.get());
+        out.println("Задержка, мс (от запланированного момента отправки):");
+        for (String percentile : new String[]{"50", "90", "99", "99.9"}) {
+            out.printf("  p%-5s %10.2f%n", percentile,
+                    histogram.getValueAtPercentile(Double.parseDouble(percentile)) / 1e6);
+        }
+        out.printf("  max    %10.2f%n", histogram.getMaxValue() / 1e6);
+    }
+
+    private static final class Options {
+        static final String USAGE = """
+                Параметры:
+                  --url <адрес>          адрес приложения (по умолчанию http://localhost:8080)
+                  --start                запустить приложение в этом же процессе на свободном порту
+                  --cache-max-bytes <n>  кэш результатов приложения при --start (по умолчанию 0 - отключен)
+                  --endpoint <вид>       analyze или batch (по умолчанию analyze)
+                  --batch-size <n>       текстов в пакетном запросе (по умолчанию 10)
+                  --rate <n>             запросов в секунду (по умолчанию 20)
+                  --duration <время>     длительность замера: 60s, 5m (по умолчанию 60s)
+                  --warmup <время>       прогрев без замера (по умолчанию 10s)
+                  --timeout <время>      срок ответа на запрос (по умолчанию 60s)
+                  --length <n>           длина синтетического текста в символах (по умолчанию 2000)
+                  --corpus-size <n>      число разных текстов (по умолчанию 1000)
+                  --typos <доля>         доля слов с опечатками (по умолчанию 0.05)
+                  --punctuation <доля>   доля предложений с ошибкой пунктуации (по умолчанию 0.1)
+                  --style <доля>         доля предложений со стилистическим замечанием (по умолчанию 0.1)
+                  --seed <n>             зерно генератора текстов (по умолчанию 42)
+                  --replay <файл>        тела запросов из файла JSON Lines вместо синтетических
+                  --histogram <файл>     записать распределение задержек HdrHistogram (в мс)""";
+
+        String url = "http://localhost:8080";
+        boolean start;
+        long cacheMaxBytes;
+        String endpoint = "analyze";
+        int batchSize = 10;
+        double rate = 20;
+        Duration duration = Duration.ofSeconds(60);
+        Duration warmup = Duration.ofSeconds(10);
+        Duration timeout = Duration.ofSeconds(60);
+        int length = 2000;
+        int corpusSize = 1000;
+        double typos = 0.05;
+        double punctuation = 0.1;
+        double style = 0.1;
+        long seed = 42;
+        Path replay;
+        Path histogramFile;
+
+        static Options parse(String[] args) {
+            Options options = new Options();
+            for (int i = 0; i < args.length; i++) {
+                String name = args[i];
+                if (name.equals("--start")) {
+                    options.start = true;
+                    continue;
+                }
+                if (i + 1 >= args.length) {
+                    throw new IllegalArgumentException("Нет значения параметра " + name);
+                }
+                String value = args[++i];
+                try {
+                    switch (name) {
+                        case "--url" -> options.url = value.endsWith("/") ? value.substring(0, value.length() - 1) : value;
+                        case "--cache-max-bytes" -> options.cacheMaxBytes = Long.parseLong(value);
+                        case "--endpoint" -> {
+                            if (!value.equals("analyze") && !value.equals("batch")) {
+                                throw new IllegalArgumentException("Неизвестный вид запроса: " + value);
+                            }
+                            options.endpoint = value;
+                        }
+                        case "--batch-size" -> options.batchSize = positive(name, Integer.parseInt(value));
+                        case "--rate" -> options.rate = positive(name, Double.parseDouble(value));
+                        case "--duration" -> options.duration = duration(value);
+                        case "--warmup" -> options.warmup = duration(value);
+                        case "--timeout" -> options.timeout = duration(value);
+                        case "--length" -> options.length = positive(name, Integer.parseInt(value));
+                        case "--corpus-size" -> options.corpusSize = positive(name, Integer.parseInt(value));
+                        case "--typos" -> options.typos = Double.parseDouble(value);
+                        case "--punctuation" -> options.punctuation = Double.parseDouble(value);
+                        case "--style" -> options.style = Double.parseDouble(value);
+                        case "--seed" -> options.seed = Long.parseLong(value);
+                        case "--replay" -> options.replay = Path.of(value);
+                        case "--histogram" -> options.histogramFile = Path.of(value);
+                        default -> throw new IllegalArgumentException("Неизвестный параметр: " + name);
+                    }
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Некорректное значение параметра " + name + ": " + value);
+                }
+            }
+            if (options.duration.isZero()) {
+                throw new IllegalArgumentException("Длительность замера должна быть больше нуля");
+            }
+            return options;
+        }
+
+        private static <T extends Number> T positive(String name, T value) {
+            if (value.doubleValue() <= 0) {
+                throw new IllegalArgumentException("Параметр " + name + " должен быть больше нуля");
+            }
+            return value;
+        }
+
+        // 90s, 5m, 1h или число секунд
+        private static Duration duration(String value) {
+            char unit = value.charAt(value.length() - 1);
+            if (Character.isDigit(unit)) {
+                return Duration.ofSeconds(Long.parseLong(value));
+            }
+            long amount = Long.parseLong(value.substring(0, value.length() - 1));
+            return switch (unit) {
+                case 's' -> Duration.ofSeconds(amount);
+                case 'm' -> Duration.ofMinutes(amount);
+                case 'h' -> Duration.ofHours(amount);
+                default -> throw new IllegalArgumentException("Некорректная длительность: " + value);
+            };
+        }
+    }
+}
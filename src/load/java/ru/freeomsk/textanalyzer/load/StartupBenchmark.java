@@ -0,0 +1,127 @@
+package ru.freeomsk.textanalyzer.load;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Время запуска приложения: команда запускается runs раз, время считается от старта процесса
+// до первого успешного ответа /api/text-analysis/health, то есть включает создание контекста
+// и загрузку словаря. После ответа записывается резидентная память процесса (Linux).
+// Использует только JDK и запускается без компиляции, из профилей cds и native:
+//
+// java src/load/java/ru/freeomsk/textanalyzer/load/StartupBenchmark.java --name jvm --runs 5 -- java -jar app.jar
+public final class StartupBenchmark {
+
+    private static final Duration START_TIMEOUT = Duration.ofMinutes(2);
+
+    public static void main(String[] args) throws Exception {
+        String name = "app";
+        int runs = 5;
+        int port = 18090;
+        Path output = null;
+        List<String> command = new ArrayList<>();
+
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--")) {
+                command.addAll(Arrays.asList(args).subList(i + 1, args.length));
+                break;
+            }
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Нет значения параметра " + args[i]);
+            }
+            String value = args[++i];
+            switch (args[i - 1]) {
+                case "--name" -> name = value;
+                case "--runs" -> runs = Integer.parseInt(value);
+                case "--port" -> port = Integer.parseInt(value);
+                case "--output" -> output = Path.of(value);
+                default -> throw new IllegalArgumentException("Неизвестный параметр " + args[i - 1]);
+            }
+        }
+        if (command.isEmpty() || runs <= 0) {
+            System.err.println("Использование: StartupBenchmark [--name jvm] [--runs 5] [--port 18090]"
+                    + " [--output startup.txt] -- <команда запуска>");
+            System.exit(1);
+        }
+        command.add("--server.port=" + port);
+
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+        URI health = URI.create("http://localhost:" + port + "/api/text-analysis/health");
+        long[] startMillis = new long[runs];
+        long[] rssKilobytes = new long[runs];
+        for (int run = 0; run < runs; run++) {
+            Process process = new ProcessBuilder(command)
+                    .redirectErrorStream(true)
+                    .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                    .start();
+            try {
+                startMillis[run] = awaitHealthy(client, health, process);
+                rssKilobytes[run] = residentKilobytes(process.pid());
+            } finally {
+                process.destroy();
+                if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                    process.destroyForcibly().waitFor();
+                }
+            }
+        }
+
+        long[] sorted = startMillis.clone();
+        Arrays.sort(sorted);
+        String report = String.format("%s: запуск min %d мс, медиана %d мс, max %d мс (%d запусков), память %s%n",
+                name, sorted[0], sorted[runs / 2], sorted[runs - 1], runs,
+                rssKilobytes[runs - 1] > 0 ? rssKilobytes[runs - 1] / 1024 + " МБ" : "неизвестна");
+        System.out.print(report);
+        if (output != null) {
+            if (output.toAbsolutePath().getParent() != null) {
+                Files.createDirectories(output.toAbsolutePath().getParent());
+            }
+            Files.writeString(output, report);
+        }
+    }
+
+    private static long awaitHealthy(HttpClient client, URI health, Process process)
+            throws IOException, InterruptedException {
+        long started = process.info().startInstant()
+                .map(instant -> instant.toEpochMilli())
+                .orElse(System.currentTimeMillis());
+        long deadline = System.nanoTime() + START_TIMEOUT.toNanos();
+        HttpRequest request = HttpRequest.newBuilder(health).timeout(Duration.ofSeconds(1)).GET().build();
+        while (System.nanoTime() < deadline) {
+            if (!process.isAlive()) {
+                throw new IOException("Приложение завершилось при запуске с кодом " + process.exitValue());
+            }
+            try {
+                if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    return System.currentTimeMillis() - started;
+                }
+            } catch (IOException e) {
+                // Порт еще не открыт
+            }
+            Thread.sleep(5);
+        }
+        throw new IOException("Приложение не запустилось за " + START_TIMEOUT.toSeconds() + " с");
+    }
+
+    // VmRSS из /proc; 0, если недоступно
+    private static long residentKilobytes(long pid) {
+        try {
+            for (String line : Files.readAllLines(Path.of("/proc", Long.toString(pid), "status"))) {
+                if (line.startsWith("VmRSS:")) {
+                    return Long.parseLong(line.replaceAll("\\D", ""));
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            // Не Linux
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,32 @@
+package ru.freeomsk.textanalyzer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.Banner;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.freeomsk.textanalyzer.cli.BatchRunner;
+import ru.freeomsk.textanalyzer.service.BatchAnalyzer;
+
+// Пакетный анализ без веб-сервера: те же сервисы, что у Application, но без Tomcat и HTTP.
+// Вход - каталог текстов или файл JSONL, результаты - JSONL, итоги - в stderr (параметры - в README)
+public class BatchApplication {
+
+    public static void main(String[] args) {
+        int exitCode;
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(Application.class)
+                .web(WebApplicationType.NONE)
+                .bannerMode(Banner.Mode.OFF)
+                .logStartupInfo(false)
+                // Задания веб-сервиса продолжает только он сам; журнал не смешивается с результатами в stdout;
+                // прогрев не нужен - запросов, ждущих готовности, нет; весь запуск идет на одной версии словарей
+                .properties("jobs.resume=false", "analysis.warmup.enabled=false", "reload.enabled=false",
+                        "logging.level.root=WARN", "logging.level.ru.freeomsk.textanalyzer=WARN")
+                .run(args)) {
+            BatchRunner runner = new BatchRunner(context.getBean(BatchAnalyzer.class), context.getBean(ObjectMapper.class));
+            exitCode = runner.run(context.getBean(ApplicationArguments.class));
+        }
+        System.exit(exitCode);
+    }
+}
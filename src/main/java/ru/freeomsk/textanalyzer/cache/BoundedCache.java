@@ -0,0 +1,273 @@
+package ru.freeomsk.textanalyzer.cache;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.ToLongBiFunction;
+
+// Кэш, ограниченный суммарным весом записей, с вытеснением W-TinyLFU:
+// новые записи попадают в небольшое LRU-окно, а из него в основную область
+// (испытательный и защищенный сегменты) проходят, только если обращались к ним чаще,
+// чем к вытесняемой записи. Поэтому разовые запросы не вымывают популярные записи.
+// Все операции выполняются под одной блокировкой, значения вычисляются вне ее
+public class BoundedCache<K, V> {
+
+    // Доли окна и защищенного сегмента от общего веса, как в W-TinyLFU
+    private static final double WINDOW_RATIO = 0.01;
+    private static final double PROTECTED_RATIO = 0.8;
+
+    private static final int WINDOW = 0;
+    private static final int PROBATION = 1;
+    private static final int PROTECTED = 2;
+
+    private final long maxWeight;
+    private final long windowMaxWeight;
+    private final long protectedMaxWeight;
+    private final ToLongBiFunction<K, V> weigher;
+    private final FrequencySketch sketch;
+    private final Map<K, Node<K, V>> data = new HashMap<>();
+    private final AccessOrder<K, V> window = new AccessOrder<>();
+    private final AccessOrder<K, V> probation = new AccessOrder<>();
+    private final AccessOrder<K, V> protectedSegment = new AccessOrder<>();
+
+    private long windowWeight;
+    private long probationWeight;
+    private long protectedWeight;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long rejections;
+
+    // expectedEntries - ожидаемое число записей, от него зависит размер счетчика частот
+    public BoundedCache(long maxWeight, int expectedEntries, ToLongBiFunction<K, V> weigher) {
+        if (maxWeight < 0) {
+            throw new IllegalArgumentException("Максимальный вес кэша не может быть отрицательным");
+        }
+        this.maxWeight = maxWeight;
+        this.windowMaxWeight = Math.max(1, (long) (maxWeight * WINDOW_RATIO));
+        this.protectedMaxWeight = (long) ((maxWeight - windowMaxWeight) * PROTECTED_RATIO);
+        this.weigher = weigher;
+        this.sketch = new FrequencySketch(expectedEntries);
+    }
+
+    public synchronized V get(K key) {
+        sketch.increment(key.hashCode());
+
+        Node<K, V> node = data.get(key);
+        if (node == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        onAccess(node);
+        return node.value;
+    }
+
+    // Значение вычисляется без блокировки: параллельные промахи по одному ключу
+    // могут вычислить его дважды, зато долгий расчет не блокирует остальные запросы
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> loader) {
+        V value = get(key);
+        if (value != null) {
+            return value;
+        }
+        value = loader.apply(key);
+        if (value != null) {
+            put(key, value);
+        }
+        return value;
+    }
+
+    public synchronized void put(K key, V value) {
+        long weight = weigher.applyAsLong(key, value);
+        Node<K, V> existing = data.get(key);
+
+        if (weight > maxWeight) {
+            // Запись тяжелее всего кэша не сохраняется, устаревшее значение удаляется
+            rejections++;
+            if (existing != null) remove(existing);
+            return;
+        }
+
+        if (existing != null) {
+            addWeight(existing.region, weight - existing.weight);
+            existing.value = value;
+            existing.weight = weight;
+            onAccess(existing);
+        } else {
+            Node<K, V> node = new Node<>(key, value, weight);
+            data.put(key, node);
+            window.addLast(node);
+            windowWeight += weight;
+        }
+        evict();
+    }
+
+    public synchronized void invalidate(K key) {
+        Node<K, V> node = data.get(key);
+        if (node != null) remove(node);
+    }
+
+    public synchronized void invalidateAll() {
+        // Очистка идет после каждого добавленного слова: пустой кэш не перебирается заново
+        if (data.isEmpty()) return;
+        data.clear();
+        window.clear();
+        probation.clear();
+        protectedSegment.clear();
+        windowWeight = 0;
+        probationWeight = 0;
+        protectedWeight = 0;
+    }
+
+    public synchronized CacheStats stats() {
+        return new CacheStats(hits, misses, evictions, rejections, data.size(), totalWeight(), maxWeight);
+    }
+
+    private void onAccess(Node<K, V> node) {
+        switch (node.region) {
+            case WINDOW -> window.moveToLast(node);
+            case PROBATION -> {
+                // Повторное обращение переводит запись в защищенный сегмент
+                probation.remove(node);
+                probationWeight -= node.weight;
+                node.region = PROTECTED;
+                protectedSegment.addLast(node);
+                protectedWeight += node.weight;
+                demoteProtected();
+            }
+            default -> protectedSegment.moveToLast(node);
+        }
+    }
+
+    // Переполненный защищенный сегмент возвращает самые старые записи на испытание
+    private void demoteProtected() {
+        while (protectedWeight > protectedMaxWeight && protectedSegment.first() != null) {
+            Node<K, V> node = protectedSegment.first();
+            protectedSegment.remove(node);
+            protectedWeight -= node.weight;
+            node.region = PROBATION;
+            probation.addLast(node);
+            probationWeight += node.weight;
+        }
+    }
+
+    private void evict() {
+        // Записи, вытесненные из окна, становятся кандидатами в основную область
+        while (windowWeight > windowMaxWeight && window.first() != null) {
+            Node<K, V> node = window.first();
+            window.remove(node);
+            windowWeight -= node.weight;
+            node.region = PROBATION;
+            probation.addLast(node);
+            probationWeight += node.weight;
+        }
+
+        // Кандидат (последний в испытательном сегменте) соревнуется с жертвой (первым в нем):
+        // остается тот, к кому обращались чаще
+        while (totalWeight() > maxWeight) {
+            Node<K, V> victim = probation.first();
+            Node<K, V> candidate = probation.last();
+            if (victim == null) {
+                Node<K, V> node = protectedSegment.first() != null ? protectedSegment.first() : window.first();
+                remove(node);
+            } else if (victim == candidate) {
+                remove(victim);
+            } else if (sketch.frequency(candidate.key.hashCode()) > sketch.frequency(victim.key.hashCode())) {
+                remove(victim);
+            } else {
+                remove(candidate);
+            }
+            evictions++;
+        }
+    }
+
+    private void remove(Node<K, V> node) {
+        data.remove(node.key);
+        addWeight(node.region, -node.weight);
+        switch (node.region) {
+            case WINDOW -> window.remove(node);
+            case PROBATION -> probation.remove(node);
+            default -> protectedSegment.remove(node);
+        }
+    }
+
+    private void addWeight(int region, long delta) {
+        switch (region) {
+            case WINDOW -> windowWeight += delta;
+            case PROBATION -> probationWeight += delta;
+            default -> protectedWeight += delta;
+        }
+    }
+
+    private long totalWeight() {
+        return windowWeight + probationWeight + protectedWeight;
+    }
+
+    private static final class Node<K, V> {
+        private final K key;
+        private V value;
+        private long weight;
+        private int region = WINDOW;
+        private Node<K, V> previous;
+        private Node<K, V> next;
+
+        Node(K key, V value, long weight) {
+            this.key = key;
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+
+    // Двусвязный список в порядке обращений: первый элемент - самый давний
+    private static final class AccessOrder<K, V> {
+        private Node<K, V> head;
+        private Node<K, V> tail;
+
+        Node<K, V> first() {
+            return head;
+        }
+
+        Node<K, V> last() {
+            return tail;
+        }
+
+        void addLast(Node<K, V> node) {
+            node.previous = tail;
+            node.next = null;
+            if (tail == null) {
+                head = node;
+            } else {
+                tail.next = node;
+            }
+            tail = node;
+        }
+
+        void remove(Node<K, V> node) {
+            if (node.previous == null) {
+                head = node.next;
+            } else {
+                node.previous.next = node.next;
+            }
+            if (node.next == null) {
+                tail = node.previous;
+            } else {
+                node.next.previous = node.previous;
+            }
+            node.previous = null;
+            node.next = null;
+        }
+
+        void moveToLast(Node<K, V> node) {
+            if (node != tail) {
+                remove(node);
+                addLast(node);
+            }
+        }
+
+        void clear() {
+            head = null;
+            tail = null;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package ru.freeomsk.textanalyzer.cache;
+
+// Снимок статистики кэша на момент запроса
+public record CacheStats(long hits, long misses, long evictions, long rejections,
+                         long size, long weight, long maxWeight) {
+
+    public long requests() {
+        return hits + misses;
+    }
+
+    public double hitRate() {
+        long requests = requests();
+        return requests == 0 ? 0.0 : (double) hits / requests;
+    }
+
+    // Сумма статистик, например по сегментам одного кэша
+    public CacheStats plus(CacheStats other) {
+        return new CacheStats(hits + other.hits, misses + other.misses, evictions + other.evictions,
+                rejections + other.rejections, size + other.size, weight + other.weight,
+                maxWeight + other.maxWeight);
+    }
+}
@@ -0,0 +1,75 @@
+package ru.freeomsk.textanalyzer.cache;
+
+// Приблизительный счетчик частот обращений (count-min sketch) с 4-битными счетчиками,
+// по 16 счетчиков в одном long. Периодически все счетчики делятся пополам,
+// поэтому старая популярность со временем забывается
+final class FrequencySketch {
+
+    private static final long[] SEEDS = {
+            0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L
+    };
+    private static final long RESET_MASK = 0x7777777777777777L;
+    private static final int MAX_COUNT = 15;
+
+    private final long[] table;
+    private final int tableMask;
+    private final int sampleSize;
+    private int additions;
+
+    FrequencySketch(int expectedEntries) {
+        int size = Integer.highestOneBit(Math.max(expectedEntries, 16) - 1) << 1;
+        this.table = new long[size];
+        this.tableMask = size - 1;
+        this.sampleSize = 10 * size;
+    }
+
+    int frequency(int hash) {
+        int spread = spread(hash);
+        int frequency = MAX_COUNT;
+        for (int i = 0; i < SEEDS.length; i++) {
+            long counter = (table[indexOf(spread, i)] >>> offsetOf(spread, i)) & MAX_COUNT;
+            frequency = Math.min(frequency, (int) counter);
+        }
+        return frequency;
+    }
+
+    void increment(int hash) {
+        int spread = spread(hash);
+        boolean added = false;
+        for (int i = 0; i < SEEDS.length; i++) {
+            int index = indexOf(spread, i);
+            int offset = offsetOf(spread, i);
+            if (((table[index] >>> offset) & MAX_COUNT) < MAX_COUNT) {
+                table[index] += 1L << offset;
+                added = true;
+            }
+        }
+        if (added && ++additions == sampleSize) {
+            reset();
+        }
+    }
+
+    private void reset() {
+        for (int i = 0; i < table.length; i++) {
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+        additions /= 2;
+    }
+
+    private int indexOf(int hash, int i) {
+        long index = (hash + SEEDS[i]) * SEEDS[i];
+        index += index >>> 32;
+        return (int) index & tableMask;
+    }
+
+    // Номер 4-битного счетчика внутри long для i-й хеш-функции
+    private static int offsetOf(int hash, int i) {
+        return ((hash >>> (i << 3)) & 15) << 2;
+    }
+
+    private static int spread(int hash) {
+        hash = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+        hash = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+        return (hash >>> 16) ^ hash;
+    }
+}
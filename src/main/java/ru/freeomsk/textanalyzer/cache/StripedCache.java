@@ -0,0 +1,56 @@
+package ru.freeomsk.textanalyzer.cache;
+
+import java.util.function.Function;
+import java.util.function.ToLongBiFunction;
+
+// Кэш из независимых сегментов BoundedCache, сегмент выбирается по хешу ключа.
+// Потоки, обращающиеся к разным ключам, почти не конкурируют за блокировку,
+// а вытеснение работает внутри сегмента с его долей общего веса
+public class StripedCache<K, V> {
+
+    private final BoundedCache<K, V>[] segments;
+    private final int segmentShift;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public StripedCache(long maxWeight, int expectedEntries, int concurrency,
+                        ToLongBiFunction<K, V> weigher) {
+        int count = Integer.highestOneBit(Math.max(concurrency, 2) - 1) << 1;
+        this.segments = new BoundedCache[count];
+        this.segmentShift = 32 - Integer.numberOfTrailingZeros(count);
+        for (int i = 0; i < count; i++) {
+            segments[i] = new BoundedCache<>(maxWeight / count, Math.max(expectedEntries / count, 1), weigher);
+        }
+    }
+
+    public V get(K key) {
+        return segmentFor(key).get(key);
+    }
+
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> loader) {
+        return segmentFor(key).computeIfAbsent(key, loader);
+    }
+
+    public void put(K key, V value) {
+        segmentFor(key).put(key, value);
+    }
+
+    public void invalidateAll() {
+        for (BoundedCache<K, V> segment : segments) {
+            segment.invalidateAll();
+        }
+    }
+
+    public CacheStats stats() {
+        CacheStats total = new CacheStats(0, 0, 0, 0, 0, 0, 0);
+        for (BoundedCache<K, V> segment : segments) {
+            total = total.plus(segment.stats());
+        }
+        return total;
+    }
+
+    private BoundedCache<K, V> segmentFor(K key) {
+        // Сегмент выбирается по старшим битам перемешанного хеша (мультипликативное хеширование)
+        int hash = key.hashCode() * 0x9E3779B9;
+        return segments[hash >>> segmentShift];
+    }
+}
@@ -0,0 +1,20 @@
+package ru.freeomsk.textanalyzer.check;
+
+import java.util.List;
+
+// Набор проверок одного запроса в порядке регистрации. Невыбранные проверки не выполняются вовсе;
+// план входит в ключ кэша результатов, поэтому проверки сравниваются по ссылке на бин
+public record AnalysisPlan(List<TextCheck> checks, boolean suggestions) {
+
+    public List<String> names() {
+        return checks.stream().map(TextCheck::name).toList();
+    }
+
+    public CostClass maxCost() {
+        CostClass max = CostClass.CHEAP;
+        for (TextCheck check : checks) {
+            if (check.costClass().compareTo(max) > 0) max = check.costClass();
+        }
+        return max;
+    }
+}
@@ -0,0 +1,8 @@
+package ru.freeomsk.textanalyzer.check;
+
+import ru.freeomsk.textanalyzer.dictionary.DictionarySnapshot;
+import ru.freeomsk.textanalyzer.rules.RuleSet;
+
+// Общие для всех проверок запроса параметры: версии словаря и правил и нужны ли подсказки.
+// Запрос проверяется по ним от начала до конца, даже если словари или правила перезагружены во время анализа
+public record CheckContext(DictionarySnapshot dictionary, RuleSet rules, boolean suggestions) {}
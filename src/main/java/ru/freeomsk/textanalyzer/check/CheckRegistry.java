@@ -0,0 +1,74 @@
+package ru.freeomsk.textanalyzer.check;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Зарегистрированные проверки по именам. Порядок регистрации (@Order бинов) - порядок находок
+// в потоке событий; метрики регистрируются последними. Планы состоят из проверок с замером времени,
+// поэтому время каждой проверки учитывается при любом способе анализа
+@Component
+public class CheckRegistry {
+
+    public static final String SPELLING = "spelling";
+
+    private final Map<String, TextCheck> checks = new LinkedHashMap<>();
+    private final AnalysisPlan fullPlan;
+
+    public CheckRegistry(List<TextCheck> checks, MeterRegistry meterRegistry) {
+        for (TextCheck check : checks) {
+            if (this.checks.putIfAbsent(check.name(), new TimedCheck(check, meterRegistry)) != null) {
+                throw new IllegalStateException("Проверка '" + check.name() + "' зарегистрирована дважды");
+            }
+        }
+        this.fullPlan = new AnalysisPlan(List.copyOf(this.checks.values()), true);
+    }
+
+    public Collection<TextCheck> getChecks() {
+        return checks.values();
+    }
+
+    // Сообщение об ошибке или null, если все имена известны; null вместо списка - все проверки
+    public String validate(Collection<String> names) {
+        if (names == null) {
+            return null;
+        }
+        if (names.isEmpty()) {
+            return "Список проверок не может быть пустым";
+        }
+        for (String name : names) {
+            if (name == null || !checks.containsKey(name)) {
+                return "Неизвестная проверка: " + name + ". Доступные проверки: " + String.join(", ", checks.keySet());
+            }
+        }
+        return null;
+    }
+
+    // План из выбранных проверок; suggestions == null - подсказки нужны
+    public AnalysisPlan plan(Collection<String> names, Boolean suggestions) {
+        String error = validate(names);
+        if (error != null) {
+            throw new IllegalArgumentException(error);
+        }
+
+        boolean wantSuggestions = suggestions == null || suggestions;
+        if (names == null && wantSuggestions) {
+            return fullPlan;
+        }
+
+        List<TextCheck> selected = names == null
+                ? fullPlan.checks()
+                : checks.values().stream().filter(check -> names.contains(check.name())).toList();
+        // Без проверки орфографии флаг подсказок ни на что не влияет - такие планы совпадают в кэше
+        boolean spelling = selected.stream().anyMatch(check -> check.name().equals(SPELLING));
+        return new AnalysisPlan(selected, wantSuggestions && spelling);
+    }
+
+    public AnalysisPlan fullPlan() {
+        return fullPlan;
+    }
+}
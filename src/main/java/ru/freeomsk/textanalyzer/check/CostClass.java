@@ -0,0 +1,12 @@
+package ru.freeomsk.textanalyzer.check;
+
+// Относительная стоимость проверки: по ней план решает, что запускать параллельно,
+// а что выполнить в вызывающем потоке и стоит ли делить большой текст на фрагменты
+public enum CostClass {
+    // Один проход по тексту без обращений к словарю
+    CHEAP,
+    // Проход по словам с обращениями к словарю или правилам
+    MODERATE,
+    // Поиск по словарю для каждого неизвестного слова (подсказки)
+    EXPENSIVE
+}
@@ -0,0 +1,24 @@
+package ru.freeomsk.textanalyzer.check;
+
+import ru.freeomsk.textanalyzer.model.TokenizedText;
+
+// Частичное состояние проверки по всему документу. Накапливается по фрагментам текста,
+// состояния соседних фрагментов объединяются слева направо
+public interface DocumentState<S extends DocumentState<S>> {
+
+    void add(TokenizedText text);
+
+    // next - состояние фрагмента, следующего за этим
+    S merge(S next);
+
+    // Вычитание состояния фрагмента, ранее объединенного с этим (фрагмент удален или изменен).
+    // false - вычитание не поддерживается и состояние нужно собрать из фрагментов заново.
+    // Состояния с вычитанием не должны зависеть от порядка фрагментов
+    default boolean subtract(S part) {
+        return false;
+    }
+
+    // Сдвиг позиций, сохраненных в состоянии: текст перед фрагментом удлинился на delta символов
+    default void shift(int delta) {
+    }
+}
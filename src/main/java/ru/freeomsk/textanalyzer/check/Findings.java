@@ -0,0 +1,19 @@
+package ru.freeomsk.textanalyzer.check;
+
+import ru.freeomsk.textanalyzer.model.TextMetrics;
+
+// Приемник находок проверок: результат анализа, поток событий или сессия редактора.
+// Находка передается примитивами: вид из FindingKinds и границы [start, end) в исходном тексте,
+// объект находки создает только приемник, которому он нужен
+public interface Findings {
+
+    default void add(int kind, int start, int end) {
+        add(kind, start, end, 0, null);
+    }
+
+    // argument - число для шаблона описания вида. detail - подсказки орфографии (List<String>)
+    // или текст находки (String), если он не совпадает с фрагментом исходного текста
+    void add(int kind, int start, int end, int argument, Object detail);
+
+    void metrics(TextMetrics metrics);
+}
@@ -0,0 +1,44 @@
+package ru.freeomsk.textanalyzer.check;
+
+import ru.freeomsk.textanalyzer.model.AnalysisResult;
+import ru.freeomsk.textanalyzer.model.FindingType;
+import ru.freeomsk.textanalyzer.model.FindingsBuffer;
+import ru.freeomsk.textanalyzer.model.TextError;
+import ru.freeomsk.textanalyzer.model.TextMetrics;
+
+import java.util.List;
+
+// Находки, собранные в столбцы результата. Не потокобезопасен: у каждой подзадачи свой экземпляр,
+// экземпляры объединяются в порядке фрагментов
+public final class FindingsCollector implements Findings {
+
+    private final FindingsBuffer buffer = new FindingsBuffer();
+    private TextMetrics metrics;
+
+    @Override
+    public void add(int kind, int start, int end, int argument, Object detail) {
+        buffer.add(kind, start, end, argument, detail);
+    }
+
+    @Override
+    public void metrics(TextMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    // next - находки следующего фрагмента
+    public FindingsCollector merge(FindingsCollector next) {
+        buffer.append(next.buffer);
+        if (next.metrics != null) metrics = next.metrics;
+        return this;
+    }
+
+    // Находки одного вида для методов анализаторов, возвращающих списки
+    public <T extends TextError> List<T> materialize(String source, FindingType type) {
+        return buffer.materialize(source, type);
+    }
+
+    // Метрики равны null, если их не запрашивали
+    public AnalysisResult toResult(String text, String language, AnalysisPlan plan, long dictionaryVersion) {
+        return new AnalysisResult(text, language, buffer, metrics, plan.names(), dictionaryVersion);
+    }
+}
@@ -0,0 +1,25 @@
+package ru.freeomsk.textanalyzer.check;
+
+import ru.freeomsk.textanalyzer.model.TokenizedText;
+
+// Проверка текста, которую клиент может выбрать в запросе по имени.
+// Любой бин, реализующий этот интерфейс, регистрируется в CheckRegistry
+public interface TextCheck {
+
+    String name();
+
+    CostClass costClass();
+
+    // Проверка фрагмента из целых предложений (или всего текста); позиции находок абсолютные
+    default void checkSlice(TokenizedText slice, CheckContext context, Findings findings) {
+    }
+
+    // Состояние проверки по всему документу, накапливаемое по фрагментам; null - состояние не нужно
+    default DocumentState<?> newDocumentState() {
+        return null;
+    }
+
+    // Проверка по всему документу после всех фрагментов; state - объединенное состояние фрагментов
+    default void checkDocument(TokenizedText text, DocumentState<?> state, CheckContext context, Findings findings) {
+    }
+}
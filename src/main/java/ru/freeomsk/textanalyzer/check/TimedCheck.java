@@ -0,0 +1,92 @@
+package ru.freeomsk.textanalyzer.check;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import ru.freeomsk.textanalyzer.model.TokenizedText;
+
+// Проверка с замером времени. Этапы замеряются отдельно (тег stage): проверка фрагментов,
+// накопление состояния по фрагментам и проверка по всему документу. Для метрик текста
+// вся работа - накопление состояния и итоговый расчет
+final class TimedCheck implements TextCheck {
+
+    private final TextCheck check;
+    private final Timer sliceTimer;
+    private final Timer stateTimer;
+    private final Timer documentTimer;
+
+    TimedCheck(TextCheck check, MeterRegistry registry) {
+        this.check = check;
+        this.sliceTimer = timer(registry, check, "slice");
+        // Таймер накопления состояния нужен только проверкам по всему документу
+        this.stateTimer = check.newDocumentState() != null ? timer(registry, check, "state") : null;
+        this.documentTimer = timer(registry, check, "document");
+    }
+
+    private static Timer timer(MeterRegistry registry, TextCheck check, String stage) {
+        return Timer.builder("analysis.check")
+                .description("Время выполнения проверки по этапам")
+                .tag("check", check.name())
+                .tag("stage", stage)
+                .register(registry);
+    }
+
+    @Override
+    public String name() {
+        return check.name();
+    }
+
+    @Override
+    public CostClass costClass() {
+        return check.costClass();
+    }
+
+    @Override
+    public void checkSlice(TokenizedText slice, CheckContext context, Findings findings) {
+        sliceTimer.record(() -> check.checkSlice(slice, context, findings));
+    }
+
+    @Override
+    public DocumentState<?> newDocumentState() {
+        DocumentState<?> state = check.newDocumentState();
+        return state == null ? null : new TimedState(state, stateTimer);
+    }
+
+    @Override
+    public void checkDocument(TokenizedText text, DocumentState<?> state, CheckContext context, Findings findings) {
+        DocumentState<?> unwrapped = state == null ? null : ((TimedState) state).state;
+        documentTimer.record(() -> check.checkDocument(text, unwrapped, context, findings));
+    }
+
+    // Состояния одной проверки имеют один тип, поэтому операции передаются без проверки типов
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static final class TimedState implements DocumentState<TimedState> {
+        private final DocumentState state;
+        private final Timer timer;
+
+        TimedState(DocumentState<?> state, Timer timer) {
+            this.state = state;
+            this.timer = timer;
+        }
+
+        @Override
+        public void add(TokenizedText text) {
+            timer.record(() -> state.add(text));
+        }
+
+        @Override
+        public TimedState merge(TimedState next) {
+            state.merge(next.state);
+            return this;
+        }
+
+        @Override
+        public boolean subtract(TimedState part) {
+            return state.subtract(part.state);
+        }
+
+        @Override
+        public void shift(int delta) {
+            state.shift(delta);
+        }
+    }
+}
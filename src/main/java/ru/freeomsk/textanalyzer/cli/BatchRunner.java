@@ -0,0 +1,330 @@
+package ru.freeomsk.textanalyzer.cli;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.ApplicationArguments;
+import ru.freeomsk.textanalyzer.model.AnalysisResult;
+import ru.freeomsk.textanalyzer.model.BatchItemResult;
+import ru.freeomsk.textanalyzer.service.BatchAnalyzer;
+
+import java.io.BufferedOutputStream;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+// Анализ каталога текстов или файла JSONL на всех ядрах. Элементы выполняются в пуле fork/join
+// с перехватом задач; одновременно в работе не больше IN_FLIGHT_PER_WORKER элементов на поток,
+// поэтому вход любого размера не читается в память целиком. Файлы читаются отображением в память.
+// Результаты пишутся по мере готовности, index - номер файла или строки во входе
+public class BatchRunner {
+
+    private static final int IN_FLIGHT_PER_WORKER = 4;
+    // Файл JSONL отображается в память участками не больше этого размера
+    private static final long MAP_REGION_BYTES = 1L << 30;
+
+    private final BatchAnalyzer batchAnalyzer;
+    private final ObjectMapper objectMapper;
+
+    public BatchRunner(BatchAnalyzer batchAnalyzer, ObjectMapper objectMapper) {
+        this.batchAnalyzer = batchAnalyzer;
+        this.objectMapper = objectMapper;
+    }
+
+    // Код завершения: 0 - все элементы проанализированы, 1 - ошибка параметров или ввода-вывода,
+    // 2 - анализ части элементов завершился ошибкой
+    public int run(ApplicationArguments args) {
+        Options options;
+        try {
+            options = Options.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(Options.USAGE);
+            return 1;
+        }
+
+        BatchSummary summary = new BatchSummary(options.parallelism());
+        ForkJoinPool pool = new ForkJoinPool(options.parallelism());
+        try (OutputStream out = options.output().equals("-")
+                ? new BufferedOutputStream(new FileOutputStream(FileDescriptor.out), 1 << 16)
+                : new BufferedOutputStream(Files.newOutputStream(Path.of(options.output())), 1 << 16)) {
+            Run run = new Run(options, pool, out, summary);
+            if (Files.isDirectory(options.input())) {
+                run.directory();
+            } else {
+                run.jsonl();
+            }
+            run.await();
+        } catch (IOException e) {
+            System.err.println("Ошибка пакетного анализа: " + e.getMessage());
+            return 1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.err.println("Пакетный анализ прерван");
+            return 1;
+        } finally {
+            pool.shutdownNow();
+        }
+
+        try {
+            System.err.println(objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(summary.report()));
+        } catch (JsonProcessingException e) {
+            System.err.println("Ошибка записи итогов: " + e.getMessage());
+        }
+        return summary.failed() > 0 ? 2 : 0;
+    }
+
+    // Один запуск: отправка элементов в пул и запись их результатов
+    private final class Run {
+        private final Options options;
+        private final ForkJoinPool pool;
+        private final OutputStream out;
+        private final BatchSummary summary;
+        private final int permits;
+        private final Semaphore inFlight;
+        private final AtomicReference<IOException> writeError = new AtomicReference<>();
+
+        Run(Options options, ForkJoinPool pool, OutputStream out, BatchSummary summary) {
+            this.options = options;
+            this.pool = pool;
+            this.out = out;
+            this.summary = summary;
+            this.permits = options.parallelism() * IN_FLIGHT_PER_WORKER;
+            this.inFlight = new Semaphore(permits);
+        }
+
+        // Каждый файл - отдельный текст. Номера присваиваются в порядке путей, а запускаются файлы
+        // от больших к меньшим (как в BatchAnalyzer): большой файл, начатый последним, не растягивает запуск
+        void directory() throws IOException, InterruptedException {
+            List<Path> files;
+            try (Stream<Path> walk = Files.walk(options.input())) {
+                files = walk.filter(Files::isRegularFile).filter(options::accepts).sorted().toList();
+            }
+            long[] sizes = new long[files.size()];
+            List<Integer> order = new ArrayList<>(files.size());
+            for (int i = 0; i < files.size(); i++) {
+                sizes[i] = Files.size(files.get(i));
+                order.add(i);
+            }
+            order.sort(Comparator.comparingLong((Integer i) -> sizes[i]).reversed());
+
+            for (int index : order) {
+                Path file = files.get(index);
+                String source = options.input().relativize(file).toString();
+                if (!submit(() -> analyzeFile(index, source, file))) return;
+            }
+        }
+
+        // Каждая непустая строка - объект {"text", "language", "checks", "suggestions"}, как элемент
+        // /batch-analyze; отсутствующие поля берутся из параметров запуска
+        void jsonl() throws IOException, InterruptedException {
+            String name = options.input().getFileName().toString();
+            try (FileChannel channel = FileChannel.open(options.input(), StandardOpenOption.READ)) {
+                long size = channel.size();
+                long position = 0;
+                int index = 0;
+                while (position < size) {
+                    long length = Math.min(MAP_REGION_BYTES, size - position);
+                    MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                    // Участок заканчивается на последнем переводе строки, остаток войдет в следующий
+                    int limit = (int) length;
+                    if (position + length < size) {
+                        limit = lastNewline(region, limit) + 1;
+                        if (limit == 0) {
+                            throw new IOException("Строка " + (index + 1) + " длиннее " + MAP_REGION_BYTES + " байт");
+                        }
+                    }
+
+                    int lineStart = 0;
+                    for (int i = 0; i <= limit; i++) {
+                        if (i < limit && region.get(i) != '\n') continue;
+                        if (i == limit && lineStart == limit) break;
+                        byte[] line = new byte[i - lineStart];
+                        region.get(lineStart, line);
+                        lineStart = i + 1;
+                        int lineIndex = index++;
+                        if (isBlank(line)) continue;
+                        String source = name + ":" + (lineIndex + 1);
+                        if (!submit(() -> analyzeLine(lineIndex, source, line))) return;
+                    }
+                    position += limit;
+                }
+            }
+        }
+
+        // Ожидание всех отправленных элементов
+        void await() throws IOException, InterruptedException {
+            inFlight.acquire(permits);
+            summary.finish();
+            if (writeError.get() != null) {
+                throw writeError.get();
+            }
+        }
+
+        // false - запись результатов не удалась, новые элементы не отправляются
+        private boolean submit(Task task) throws InterruptedException {
+            if (writeError.get() != null) return false;
+            inFlight.acquire();
+            pool.execute(() -> {
+                try {
+                    write(task.run());
+                } catch (IOException e) {
+                    writeError.compareAndSet(null, e);
+                } finally {
+                    inFlight.release();
+                }
+            });
+            return true;
+        }
+
+        private ResultLine analyzeFile(int index, String source, Path file) {
+            String text;
+            try {
+                text = readText(file);
+            } catch (IOException e) {
+                return ResultLine.of(source, BatchItemResult.failed(index, "Ошибка чтения файла: " + e.getMessage(), 0), 0);
+            }
+            BatchAnalyzer.Item item = new BatchAnalyzer.Item(text, options.language(), options.checks(),
+                    options.suggestions());
+            return ResultLine.of(source, batchAnalyzer.analyzeItem(index, item), text.length());
+        }
+
+        private ResultLine analyzeLine(int index, String source, byte[] line) {
+            BatchAnalyzer.Item item;
+            try {
+                item = objectMapper.readValue(line, BatchAnalyzer.Item.class);
+            } catch (IOException e) {
+                String message = e instanceof JsonProcessingException json ? json.getOriginalMessage() : e.getMessage();
+                return ResultLine.of(source, BatchItemResult.failed(index, "Некорректная строка JSON: " + message, 0), 0);
+            }
+            item = new BatchAnalyzer.Item(item.text(),
+                    item.language() != null ? item.language() : options.language(),
+                    item.checks() != null ? item.checks() : options.checks(),
+                    item.suggestions() != null ? item.suggestions() : options.suggestions());
+            int chars = item.text() != null ? item.text().length() : 0;
+            return ResultLine.of(source, batchAnalyzer.analyzeItem(index, item), chars);
+        }
+
+        private void write(ResultLine line) throws IOException {
+            byte[] json = objectMapper.writeValueAsBytes(line);
+            synchronized (out) {
+                out.write(json);
+                out.write('\n');
+            }
+            summary.record(line);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Task {
+        ResultLine run();
+    }
+
+    private static String readText(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("файл больше " + Integer.MAX_VALUE + " байт");
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            return StandardCharsets.UTF_8.decode(buffer).toString();
+        }
+    }
+
+    private static int lastNewline(MappedByteBuffer region, int limit) {
+        for (int i = limit - 1; i >= 0; i--) {
+            if (region.get(i) == '\n') return i;
+        }
+        return -1;
+    }
+
+    private static boolean isBlank(byte[] line) {
+        for (byte b : line) {
+            if (b != ' ' && b != '\t' && b != '\r') return false;
+        }
+        return true;
+    }
+
+    // Строка результата: source - путь файла относительно каталога или "файл:номер строки";
+    // chars - длина текста, для итогов, в результат не пишется
+    public record ResultLine(int index, String source, boolean success, AnalysisResult result, String error,
+                             long elapsedMillis, @JsonIgnore int chars) {
+
+        static ResultLine of(String source, BatchItemResult item, int chars) {
+            return new ResultLine(item.index(), source, item.success(), item.result(), item.error(),
+                    item.elapsedMillis(), chars);
+        }
+    }
+
+    // Параметры запуска: путь к входу и --option=value
+    record Options(Path input, String output, String language, List<String> checks, Boolean suggestions,
+                   int parallelism, List<String> extensions) {
+
+        static final String USAGE = """
+                Использование: BatchApplication <каталог | файл.jsonl> [--output=results.jsonl | --output=-]
+                    [--language=ru] [--checks=spelling,style] [--suggestions=false]
+                    [--parallelism=0] [--extensions=txt,md]""";
+
+        static Options parse(ApplicationArguments args) {
+            if (args.getNonOptionArgs().size() != 1) {
+                throw new IllegalArgumentException("Укажите один каталог или файл JSONL");
+            }
+            Path input = Path.of(args.getNonOptionArgs().get(0)).toAbsolutePath().normalize();
+            if (!Files.exists(input)) {
+                throw new IllegalArgumentException("Не найден: " + input);
+            }
+
+            String suggestions = value(args, "suggestions", null);
+            int parallelism;
+            try {
+                parallelism = Integer.parseInt(value(args, "parallelism", "0"));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Некорректное значение --parallelism");
+            }
+            // 0 - по числу ядер
+            if (parallelism <= 0) {
+                parallelism = Runtime.getRuntime().availableProcessors();
+            }
+
+            String checks = value(args, "checks", null);
+            return new Options(input,
+                    value(args, "output", "-"),
+                    value(args, "language", "ru"),
+                    checks != null ? list(checks) : null,
+                    suggestions != null ? Boolean.valueOf(suggestions) : null,
+                    parallelism,
+                    list(value(args, "extensions", "txt")).stream().map(e -> e.toLowerCase(Locale.ROOT)).toList());
+        }
+
+        boolean accepts(Path file) {
+            String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+            int dot = name.lastIndexOf('.');
+            return dot >= 0 && extensions.contains(name.substring(dot + 1));
+        }
+
+        private static String value(ApplicationArguments args, String name, String defaultValue) {
+            List<String> values = args.getOptionValues(name);
+            return values == null || values.isEmpty() ? defaultValue : values.get(values.size() - 1);
+        }
+
+        private static List<String> list(String value) {
+            return Arrays.stream(value.split(",")).map(String::trim).filter(s -> !s.isEmpty()).toList();
+        }
+    }
+}
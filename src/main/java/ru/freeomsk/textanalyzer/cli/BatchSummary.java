@@ -0,0 +1,109 @@
+package ru.freeomsk.textanalyzer.cli;
+
+import ru.freeomsk.textanalyzer.model.AnalysisResult;
+import ru.freeomsk.textanalyzer.model.FindingType;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Итоги пакетного запуска: производительность, число ошибок и распределение оценок качества.
+// Оценка качества - целое от 30 до 100 (AnalysisResult.calculateQualityScore), поэтому
+// распределение хранится точно, счетчиком на каждое значение
+final class BatchSummary {
+
+    private static final int MAX_SCORE = 100;
+
+    private final int parallelism;
+    private final long started = System.nanoTime();
+    private long finished;
+
+    private long total;
+    private long succeeded;
+    private long totalChars;
+    private long busyMillis;
+    private final long[] findings = new long[FindingType.values().length];
+    private final long[] scores = new long[MAX_SCORE + 1];
+
+    BatchSummary(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    synchronized void record(BatchRunner.ResultLine line) {
+        total++;
+        busyMillis += line.elapsedMillis();
+        if (!line.success()) return;
+
+        succeeded++;
+        totalChars += line.chars();
+        AnalysisResult result = line.result();
+        for (FindingType type : FindingType.values()) {
+            findings[type.ordinal()] += result.count(type);
+        }
+        scores[Math.max(0, Math.min(MAX_SCORE, result.calculateQualityScore()))]++;
+    }
+
+    synchronized void finish() {
+        finished = System.nanoTime();
+    }
+
+    synchronized long failed() {
+        return total - succeeded;
+    }
+
+    synchronized Report report() {
+        long elapsedNanos = (finished != 0 ? finished : System.nanoTime()) - started;
+        double seconds = Math.max(elapsedNanos, 1) / 1e9;
+
+        Map<String, Long> findingCounts = new LinkedHashMap<>();
+        for (FindingType type : FindingType.values()) {
+            findingCounts.put(type.id(), findings[type.ordinal()]);
+        }
+
+        return new Report(total, succeeded, total - succeeded, totalChars, parallelism,
+                TimeUnit.NANOSECONDS.toMillis(elapsedNanos), busyMillis,
+                Math.round(total / seconds * 100) / 100.0,
+                Math.round(totalChars / seconds),
+                findingCounts, quality());
+    }
+
+    // Перцентили и гистограмма по десяткам баллов
+    private Quality quality() {
+        if (succeeded == 0) {
+            return new Quality(0, 0, 0, 0, 0, 0, Map.of());
+        }
+        long sum = 0;
+        int min = -1;
+        int max = 0;
+        Map<String, Long> histogram = new LinkedHashMap<>();
+        for (int score = 0; score <= MAX_SCORE; score++) {
+            long count = scores[score];
+            if (count == 0) continue;
+            sum += count * score;
+            if (min < 0) min = score;
+            max = score;
+            int bucket = Math.min(score / 10 * 10, 90);
+            histogram.merge(bucket + "-" + (bucket == 90 ? MAX_SCORE : bucket + 9), count, Long::sum);
+        }
+        return new Quality(min, max, Math.round(sum * 100.0 / succeeded) / 100.0,
+                percentile(10), percentile(50), percentile(90), histogram);
+    }
+
+    private int percentile(int percent) {
+        long rank = Math.max(1, (long) Math.ceil(succeeded * percent / 100.0));
+        long seen = 0;
+        for (int score = 0; score <= MAX_SCORE; score++) {
+            seen += scores[score];
+            if (seen >= rank) return score;
+        }
+        return MAX_SCORE;
+    }
+
+    // elapsedMillis - время всего запуска, busyMillis - суммарное время элементов (как в BatchStats);
+    // findings - число находок каждого вида, failed - элементы, анализ которых завершился ошибкой
+    record Report(long total, long succeeded, long failed, long totalChars, int parallelism,
+                  long elapsedMillis, long busyMillis, double itemsPerSecond, double charsPerSecond,
+                  Map<String, Long> findings, Quality qualityScore) {}
+
+    record Quality(int min, int max, double mean, int p10, int p50, int p90, Map<String, Long> histogram) {}
+}
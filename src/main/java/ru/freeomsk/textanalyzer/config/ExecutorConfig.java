@@ -0,0 +1,31 @@
+package ru.freeomsk.textanalyzer.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+
+@Configuration
+public class ExecutorConfig {
+
+    // Подзадачи анализа большую часть времени ждут друг друга и ввода-вывода, поэтому
+    // каждая получает свой виртуальный поток; очереди и ограничения числа потоков не нужны
+    @Bean(destroyMethod = "close")
+    public ExecutorService analysisExecutor() {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("analysis-", 0).factory());
+    }
+
+    // Фрагменты больших текстов - чисто вычислительная работа, ее выполняют платформенные потоки по числу ядер.
+    // Очередь и активные потоки пула публикуются метриками executor.* с тегом name=analysisChunkPool
+    @Bean(destroyMethod = "shutdownNow")
+    public ForkJoinPool analysisChunkPool(MeterRegistry meterRegistry) {
+        ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        new ExecutorServiceMetrics(pool, "analysisChunkPool", Tags.empty()).bindTo(meterRegistry);
+        return pool;
+    }
+}
@@ -0,0 +1,84 @@
+package ru.freeomsk.textanalyzer.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ru.freeomsk.textanalyzer.cache.CacheStats;
+import ru.freeomsk.textanalyzer.job.JobService;
+import ru.freeomsk.textanalyzer.service.AdvancedTextAnalyzer;
+import ru.freeomsk.textanalyzer.service.AnalysisWarmup;
+import ru.freeomsk.textanalyzer.service.ResultPager;
+import ru.freeomsk.textanalyzer.session.SessionService;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+@Configuration
+public class MetricsConfig {
+
+    // Кэши, задания, сессии и прогрев ведут собственную статистику: значения читаются из нее при сборе метрик
+    @Bean
+    public MeterBinder analysisMeters(AdvancedTextAnalyzer textAnalyzer, JobService jobService,
+                                      SessionService sessionService, ResultPager resultPager,
+                                      AnalysisWarmup warmup) {
+        return registry -> {
+            bindCache(registry, "analysis.cache", textAnalyzer, AdvancedTextAnalyzer::getCacheStats);
+            bindCache(registry, "spelling.cache", textAnalyzer, AdvancedTextAnalyzer::getWordCacheStats);
+
+            Gauge.builder("jobs.workers.active", jobService, JobService::getActiveWorkers)
+                    .description("Элементы заданий, анализируемые в данный момент")
+                    .register(registry);
+            Gauge.builder("jobs.workers.waiting", jobService, JobService::getWaitingJobs)
+                    .description("Задания, ожидающие свободного слота")
+                    .register(registry);
+            Gauge.builder("sessions.open", sessionService, SessionService::getSessionCount)
+                    .description("Открытые сессии редактирования")
+                    .register(registry);
+            Gauge.builder("analysis.pages.weight", resultPager, ResultPager::getStoredBytes)
+                    .description("Оценка объема результатов, хранимых для выдачи страниц")
+                    .baseUnit("bytes")
+                    .register(registry);
+
+            TimeGauge.builder("analysis.warmup.duration", warmup, TimeUnit.NANOSECONDS,
+                            AnalysisWarmup::getDurationNanos)
+                    .description("Длительность прогрева при запуске")
+                    .register(registry);
+            Gauge.builder("analysis.warmup.iterations", warmup, AnalysisWarmup::getIterations)
+                    .description("Число проходов прогрева")
+                    .register(registry);
+            TimeGauge.builder("analysis.warmup.latency", warmup, TimeUnit.NANOSECONDS,
+                            AnalysisWarmup::getFirstLatencyNanos)
+                    .description("Время прохода прогрева: первого и установившегося")
+                    .tag("phase", "first")
+                    .register(registry);
+            TimeGauge.builder("analysis.warmup.latency", warmup, TimeUnit.NANOSECONDS,
+                            AnalysisWarmup::getSteadyLatencyNanos)
+                    .description("Время прохода прогрева: первого и установившегося")
+                    .tag("phase", "steady")
+                    .register(registry);
+        };
+    }
+
+    // Метрики держат слабую ссылку на свой объект, поэтому статистика читается через бин, а не через лямбду
+    private static <T> void bindCache(MeterRegistry registry, String name, T owner, Function<T, CacheStats> stats) {
+        FunctionCounter.builder(name + ".requests", owner, o -> stats.apply(o).hits())
+                .description("Обращения к кэшу")
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder(name + ".requests", owner, o -> stats.apply(o).misses())
+                .description("Обращения к кэшу")
+                .tag("result", "miss")
+                .register(registry);
+        FunctionCounter.builder(name + ".evictions", owner, o -> stats.apply(o).evictions())
+                .description("Записи, вытесненные из кэша")
+                .register(registry);
+        Gauge.builder(name + ".weight", owner, o -> stats.apply(o).weight())
+                .description("Оценка объема кэша")
+                .baseUnit("bytes")
+                .register(registry);
+    }
+}
@@ -0,0 +1,44 @@
+package ru.freeomsk.textanalyzer.config;
+
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.annotation.RegisterReflectionForBinding;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+import ru.freeomsk.textanalyzer.job.ResultPage;
+import ru.freeomsk.textanalyzer.model.AnalysisEvent;
+import ru.freeomsk.textanalyzer.model.AnalysisResponse;
+import ru.freeomsk.textanalyzer.model.AnalysisResult;
+import ru.freeomsk.textanalyzer.model.BatchItemResult;
+import ru.freeomsk.textanalyzer.model.BatchStats;
+import ru.freeomsk.textanalyzer.model.GrammarError;
+import ru.freeomsk.textanalyzer.model.PunctuationError;
+import ru.freeomsk.textanalyzer.model.SpellingError;
+import ru.freeomsk.textanalyzer.model.StyleIssue;
+import ru.freeomsk.textanalyzer.model.TextMetrics;
+import ru.freeomsk.textanalyzer.session.SessionDelta;
+import ru.freeomsk.textanalyzer.session.SessionFinding;
+import ru.freeomsk.textanalyzer.session.SessionState;
+
+// Подсказки для native-образа (профиль native). Типы контроллеров Spring AOT находит сам, здесь - типы,
+// которые Jackson получает в телах Map и событиях, и файлы classpath, читаемые при запуске.
+// Словарь в ресурсы образа не входит: он встроен в image heap (BuiltInDictionary)
+@Configuration
+@ImportRuntimeHints(NativeHints.Resources.class)
+@RegisterReflectionForBinding({AnalysisResult.class, AnalysisResponse.class, AnalysisEvent.class,
+        SpellingError.class, GrammarError.class, PunctuationError.class, StyleIssue.class, TextMetrics.class,
+        BatchItemResult.class, BatchStats.class, ResultPage.class,
+        SessionDelta.class, SessionState.class, SessionFinding.class})
+public class NativeHints {
+
+    static class Resources implements RuntimeHintsRegistrar {
+
+        @Override
+        public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+            hints.resources().registerPattern("rules/*.txt");
+            hints.resources().registerPattern("dict/stop_words.txt");
+            hints.resources().registerPattern("dict/common_mistakes.txt");
+            hints.resources().registerPattern("warmup/*.txt");
+        }
+    }
+}
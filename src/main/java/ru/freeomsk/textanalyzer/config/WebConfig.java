@@ -1,12 +1,32 @@
 package ru.freeomsk.textanalyzer.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
+import java.time.Duration;
+
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
 
+    private static final long STREAM_TIMEOUT_MARGIN_MILLIS = 5000;
+
+    private final Duration streamTimeout;
+
+    public WebConfig(@Value("${analysis.stream.timeout:30m}") Duration streamTimeout) {
+        this.streamTimeout = streamTimeout;
+    }
+
+    // Потоковые ответы пишутся в асинхронном запросе, срок которого у контейнера по умолчанию 30 с:
+    // поток обрывался бы без события error. Срок запроса чуть больше analysis.stream.timeout, чтобы событие
+    // об истечении срока анализа успело уйти клиенту. /analyze задает свой срок в DeferredResult
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setDefaultTimeout(streamTimeout.toMillis() + STREAM_TIMEOUT_MARGIN_MILLIS);
+    }
+
     @Override
     public void addCorsMappings(CorsRegistry registry) {
         registry.addMapping("/api/**")
@@ -0,0 +1,122 @@
+package ru.freeomsk.textanalyzer.controller;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import ru.freeomsk.textanalyzer.job.Job;
+import ru.freeomsk.textanalyzer.job.JobService;
+import ru.freeomsk.textanalyzer.job.ResultPage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/jobs")
+@CrossOrigin(origins = "*")
+public class JobController {
+
+    private final JobService jobService;
+
+    public JobController(JobService jobService) {
+        this.jobService = jobService;
+    }
+
+    // Тело запроса - файл JSONL: по одному запросу {"text": ..., "language": "ru"} на строку
+    @PostMapping(consumes = {MediaType.APPLICATION_NDJSON_VALUE, "application/jsonl",
+            MediaType.TEXT_PLAIN_VALUE, MediaType.APPLICATION_OCTET_STREAM_VALUE})
+    public ResponseEntity<Map<String, Object>> submitUpload(InputStream body) {
+        try {
+            return accepted(jobService.submit(body));
+        } catch (IOException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of(
+                    "success", false,
+                    "message", "Ошибка сохранения файла задания: " + e.getMessage()
+            ));
+        }
+    }
+
+    // Файл на сервере: {"path": "corpus.jsonl"} относительно каталога jobs.input-dir
+    @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Map<String, Object>> submitPath(@RequestBody Map<String, String> request) {
+        try {
+            return accepted(jobService.submit(request.get("path")));
+        } catch (IOException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of(
+                    "success", false,
+                    "message", "Ошибка создания задания: " + e.getMessage()
+            ));
+        }
+    }
+
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> getJobs() {
+        return ResponseEntity.ok(Map.of(
+                "success", true,
+                "jobs", jobService.getJobs(),
+                "workers", jobService.getWorkerCount()
+        ));
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<Map<String, Object>> getJob(@PathVariable String id) {
+        Job job = jobService.getJob(id);
+        if (job == null) {
+            return notFound(id);
+        }
+        return ResponseEntity.ok(Map.of(
+                "success", true,
+                "job", job
+        ));
+    }
+
+    // Результаты в порядке готовности; у каждого есть index - номер строки входного файла
+    @GetMapping("/{id}/results")
+    public ResponseEntity<Map<String, Object>> getResults(@PathVariable String id,
+                                                          @RequestParam(defaultValue = "0") long cursor,
+                                                          @RequestParam(defaultValue = "100") int limit) {
+        Job job = jobService.getJob(id);
+        if (job == null) {
+            return notFound(id);
+        }
+        try {
+            ResultPage page = jobService.getResults(job, cursor, limit);
+            return ResponseEntity.ok(Map.of(
+                    "success", true,
+                    "status", job.getStatus(),
+                    "results", page.items(),
+                    "nextCursor", page.nextCursor(),
+                    "complete", page.complete()
+            ));
+        } catch (IOException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of(
+                    "success", false,
+                    "message", "Ошибка чтения результатов: " + e.getMessage()
+            ));
+        }
+    }
+
+    private ResponseEntity<Map<String, Object>> accepted(Job job) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(Map.of(
+                "success", true,
+                "message", "Задание принято",
+                "job", job
+        ));
+    }
+
+    private ResponseEntity<Map<String, Object>> notFound(String id) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of(
+                "success", false,
+                "message", "Задание " + id + " не найдено"
+        ));
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, Object>> handleIllegalArgumentException(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(Map.of(
+                "success", false,
+                "message", e.getMessage()
+        ));
+    }
+}
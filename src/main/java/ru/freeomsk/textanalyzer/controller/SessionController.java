@@ -0,0 +1,100 @@
+package ru.freeomsk.textanalyzer.controller;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import ru.freeomsk.textanalyzer.session.Edit;
+import ru.freeomsk.textanalyzer.session.SessionDelta;
+import ru.freeomsk.textanalyzer.session.SessionService;
+import ru.freeomsk.textanalyzer.session.SessionState;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/sessions")
+@CrossOrigin(origins = "*")
+public class SessionController {
+
+    private final SessionService sessionService;
+
+    public SessionController(SessionService sessionService) {
+        this.sessionService = sessionService;
+    }
+
+    // Открытие документа: ответ содержит все находки текста в поле added
+    @PostMapping
+    public ResponseEntity<Map<String, Object>> open(@RequestBody OpenRequest request) {
+        SessionDelta delta = sessionService.open(request.text(), request.language(), request.checks(),
+                request.suggestions());
+        return ResponseEntity.ok(Map.of(
+                "success", true,
+                "message", "Сессия открыта",
+                "delta", delta
+        ));
+    }
+
+    // Правки применяются по порядку; version - версия документа, к которой клиент их применил
+    @PostMapping("/{id}/edits")
+    public ResponseEntity<Map<String, Object>> edit(@PathVariable String id, @RequestBody EditRequest request) {
+        try {
+            SessionDelta delta = sessionService.edit(id, request.version(), request.edits());
+            if (delta == null) {
+                return notFound(id);
+            }
+            return ResponseEntity.ok(Map.of(
+                    "success", true,
+                    "delta", delta
+            ));
+        } catch (IllegalStateException e) {
+            // Клиент разошелся с сервером - он должен запросить полное состояние документа
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of(
+                    "success", false,
+                    "message", e.getMessage()
+            ));
+        }
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<Map<String, Object>> getState(@PathVariable String id) {
+        SessionState state = sessionService.getState(id);
+        if (state == null) {
+            return notFound(id);
+        }
+        return ResponseEntity.ok(Map.of(
+                "success", true,
+                "session", state
+        ));
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Map<String, Object>> close(@PathVariable String id) {
+        if (!sessionService.close(id)) {
+            return notFound(id);
+        }
+        return ResponseEntity.ok(Map.of(
+                "success", true,
+                "message", "Сессия закрыта"
+        ));
+    }
+
+    private ResponseEntity<Map<String, Object>> notFound(String id) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of(
+                "success", false,
+                "message", "Сессия " + id + " не найдена"
+        ));
+    }
+
+    // DTO records
+    public record OpenRequest(String text, String language, List<String> checks, Boolean suggestions) {}
+
+    public record EditRequest(Long version, List<Edit> edits) {}
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, Object>> handleIllegalArgumentException(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(Map.of(
+                "success", false,
+                "message", e.getMessage()
+        ));
+    }
+}
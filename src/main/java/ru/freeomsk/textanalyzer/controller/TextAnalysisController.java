@@ -1,57 +1,222 @@
 package ru.freeomsk.textanalyzer.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ru.freeomsk.textanalyzer.cache.CacheStats;
+import ru.freeomsk.textanalyzer.check.AnalysisPlan;
+import ru.freeomsk.textanalyzer.model.AnalysisEvent;
+import ru.freeomsk.textanalyzer.model.AnalysisResponse;
 import ru.freeomsk.textanalyzer.model.AnalysisResult;
+import ru.freeomsk.textanalyzer.model.FindingsPage;
 import ru.freeomsk.textanalyzer.service.AdvancedTextAnalyzer;
+import ru.freeomsk.textanalyzer.service.BatchAnalyzer;
+import ru.freeomsk.textanalyzer.service.ResultPager;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
+import java.util.zip.GZIPInputStream;
 
 @RestController
 @RequestMapping("/api/text-analysis")
 @CrossOrigin(origins = "*")
 public class TextAnalysisController {
 
+    private static final long RESPONSE_TIMEOUT_MARGIN_MILLIS = 1000;
+
     private final AdvancedTextAnalyzer textAnalyzer;
+    private final BatchAnalyzer batchAnalyzer;
+    private final ResultPager resultPager;
+    private final ObjectMapper objectMapper;
 
-    public TextAnalysisController(AdvancedTextAnalyzer textAnalyzer) {
+    public TextAnalysisController(AdvancedTextAnalyzer textAnalyzer, BatchAnalyzer batchAnalyzer,
+                                  ResultPager resultPager, ObjectMapper objectMapper) {
         this.textAnalyzer = textAnalyzer;
+        this.batchAnalyzer = batchAnalyzer;
+        this.resultPager = resultPager;
+        this.objectMapper = objectMapper;
     }
 
+    // Анализ выполняется асинхронно: поток запроса не занят, а тайм-аут запроса
+    // или отключение клиента отменяют анализ вместе со всеми его подзадачами.
+    // includeText: false - ответ без исходного текста; limit - не больше limit находок каждого вида,
+    // остальные выдаются страницами по курсору. Ответ - JSON, CBOR или Smile по заголовку Accept
     @PostMapping("/analyze")
-    public ResponseEntity<Map<String, Object>> analyzeText(@RequestBody AnalysisRequest request) {
-        try {
-            if (request.text() == null || request.text().trim().isEmpty()) {
-                return ResponseEntity.badRequest().body(Map.of(
+    public DeferredResult<ResponseEntity<?>> analyzeText(@RequestBody AnalysisRequest request) {
+        // Срок запроса чуть больше срока анализа, чтобы ответ об истечении срока успел сформироваться
+        long timeoutMillis = textAnalyzer.getTimeout().toMillis() + RESPONSE_TIMEOUT_MARGIN_MILLIS;
+        DeferredResult<ResponseEntity<?>> response = new DeferredResult<>(timeoutMillis, this::timeoutResponse);
+
+        String validationError = validate(request);
+        if (validationError == null && request.limit() != null) {
+            validationError = resultPager.validateLimit(request.limit());
+        }
+        if (validationError != null) {
+            response.setResult(ResponseEntity.badRequest().body(Map.of(
+                    "success", false,
+                    "message", validationError
+            )));
+            return response;
+        }
+
+        AnalysisPlan plan = textAnalyzer.plan(request.checks(), request.suggestions());
+        CompletableFuture<AnalysisResult> analysis =
+                textAnalyzer.analyzeTextAsync(request.text(), request.language(), plan);
+        response.onTimeout(() -> analysis.cancel(true));
+        response.onError(e -> analysis.cancel(true));
+
+        analysis.whenComplete((result, e) -> {
+            if (e == null) {
+                FindingsPage page = request.limit() != null ? resultPager.firstPage(result, request.limit()) : null;
+                response.setResult(ResponseEntity.ok(new AnalysisResponse("Анализ завершен успешно", result,
+                        !Boolean.FALSE.equals(request.includeText()), page)));
+            } else if (analysis.isCancelled()) {
+                // Запрос уже завершен тайм-аутом или ошибкой соединения
+            } else if (e.getCause() instanceof TimeoutException) {
+                response.setResult(timeoutResponse());
+            } else {
+                response.setResult(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of(
                         "success", false,
-                        "message", "Текст для анализа не может быть пустым"
-                ));
+                        "message", "Ошибка анализа: " + e.getMessage()
+                )));
             }
+        });
+        return response;
+    }
 
-            if (request.language() == null || !request.language().equals("ru")) {
-                return ResponseEntity.badRequest().body(Map.of(
-                        "success", false,
-                        "message", "Поддерживается только русский язык (ru)"
-                ));
+    // Следующая страница находок по курсору из поля page.nextCursor; исходный текст не возвращается
+    @GetMapping("/analyze/pages")
+    public ResponseEntity<?> getFindingsPage(@RequestParam String cursor,
+                                             @RequestParam(defaultValue = "100") int limit) {
+        ResultPager.Page page = resultPager.page(cursor, limit);
+        if (page == null) {
+            return ResponseEntity.status(HttpStatus.GONE).body(Map.of(
+                    "success", false,
+                    "message", "Результат больше не хранится, повторите анализ"
+            ));
+        }
+        return ResponseEntity.ok(new AnalysisResponse("Страница находок", page.result(), false, page.page()));
+    }
+
+    private ResponseEntity<Map<String, Object>> timeoutResponse() {
+        return ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT).body(Map.of(
+                "success", false,
+                "message", "Превышено время анализа (" + textAnalyzer.getTimeout().toMillis() + " мс)"
+        ));
+    }
+
+    // Потоковый анализ: NDJSON (по умолчанию) или Server-Sent Events, если клиент принимает text/event-stream.
+    // Каждая находка - отдельное событие с абсолютной позицией, метрики - последнее событие
+    @PostMapping(value = "/analyze/stream",
+            produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+    public ResponseEntity<StreamingResponseBody> analyzeTextStream(
+            @RequestBody AnalysisRequest request,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+
+        boolean sse = accept != null && accept.contains(MediaType.TEXT_EVENT_STREAM_VALUE);
+        MediaType contentType = sse ? MediaType.TEXT_EVENT_STREAM : MediaType.APPLICATION_NDJSON;
+
+        String validationError = validate(request);
+        if (validationError != null) {
+            AnalysisEvent error = new AnalysisEvent(AnalysisEvent.ERROR, Map.of("message", validationError));
+            return ResponseEntity.badRequest().contentType(contentType)
+                    .body(out -> writeEvent(out, error, sse));
+        }
+
+        AnalysisPlan plan = textAnalyzer.plan(request.checks(), request.suggestions());
+        StreamingResponseBody body = out -> {
+            try {
+                textAnalyzer.analyzeTextStreaming(request.text(), request.language(), plan, event -> {
+                    try {
+                        writeEvent(out, event, sse);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                // Клиент закрыл соединение - анализ прекращается
+                throw e.getCause();
+            } catch (Exception e) {
+                writeEvent(out, new AnalysisEvent(AnalysisEvent.ERROR,
+                        Map.of("message", "Ошибка анализа: " + e.getMessage())), sse);
             }
+        };
+        return ResponseEntity.ok().contentType(contentType).body(body);
+    }
 
-            AnalysisResult result = textAnalyzer.analyzeText(request.text(), request.language());
+    // Потоковый анализ тела text/plain (UTF-8, можно сжатое gzip с Content-Encoding: gzip) любого размера:
+    // тело читается по мере анализа, в памяти держится только окно из нескольких тысяч предложений.
+    // Параметры анализа - в строке запроса, события - как у /analyze/stream
+    @PostMapping(value = "/analyze/text", consumes = MediaType.TEXT_PLAIN_VALUE,
+            produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+    public ResponseEntity<StreamingResponseBody> analyzeTextBody(
+            InputStream body,
+            @RequestParam(defaultValue = "ru") String language,
+            @RequestParam(required = false) List<String> checks,
+            @RequestParam(required = false) Boolean suggestions,
+            @RequestHeader(value = HttpHeaders.CONTENT_ENCODING, required = false) String encoding,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
 
-            return ResponseEntity.ok(Map.of(
-                    "success", true,
-                    "message", "Анализ завершен успешно",
-                    "result", result
-            ));
-        } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(Map.of(
-                            "success", false,
-                            "message", "Ошибка анализа: " + e.getMessage(),
-                            "result", null
-                    ));
+        boolean sse = accept != null && accept.contains(MediaType.TEXT_EVENT_STREAM_VALUE);
+        MediaType contentType = sse ? MediaType.TEXT_EVENT_STREAM : MediaType.APPLICATION_NDJSON;
+
+        String validationError = textAnalyzer.validateOptions(language, checks);
+        boolean gzip = "gzip".equalsIgnoreCase(encoding);
+        if (validationError == null && encoding != null && !gzip && !"identity".equalsIgnoreCase(encoding)) {
+            validationError = "Неподдерживаемое сжатие: " + encoding;
         }
+        if (validationError != null) {
+            AnalysisEvent error = new AnalysisEvent(AnalysisEvent.ERROR, Map.of("message", validationError));
+            return ResponseEntity.badRequest().contentType(contentType)
+                    .body(out -> writeEvent(out, error, sse));
+        }
+
+        AnalysisPlan plan = textAnalyzer.plan(checks, suggestions);
+        StreamingResponseBody response = out -> {
+            try (Reader reader = new InputStreamReader(gzip ? new GZIPInputStream(body, 1 << 16) : body,
+                    StandardCharsets.UTF_8)) {
+                textAnalyzer.analyzeReaderStreaming(reader, language, plan, event -> {
+                    try {
+                        writeEvent(out, event, sse);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                // Клиент закрыл соединение - анализ прекращается
+                throw e.getCause();
+            } catch (Exception e) {
+                writeEvent(out, new AnalysisEvent(AnalysisEvent.ERROR,
+                        Map.of("message", "Ошибка анализа: " + e.getMessage())), sse);
+            }
+        };
+        return ResponseEntity.ok().contentType(contentType).body(response);
+    }
+
+    private void writeEvent(OutputStream out, AnalysisEvent event, boolean sse) throws IOException {
+        String json = objectMapper.writeValueAsString(event);
+        String frame = sse ? "event: " + event.type() + "\ndata: " + json + "\n\n" : json + "\n";
+        out.write(frame.getBytes(StandardCharsets.UTF_8));
+        // Каждое событие отправляется сразу, не дожидаясь заполнения буфера
+        out.flush();
+    }
+
+    private String validate(AnalysisRequest request) {
+        return textAnalyzer.validate(request.text(), request.language(), request.checks());
     }
 
     @PostMapping("/batch-analyze")
@@ -66,22 +231,24 @@ public class TextAnalysisController {
                 ));
             }
 
-            List<AnalysisResult> results = requests.stream()
-                    .map(request -> textAnalyzer.analyzeText(request.text(), request.language()))
-                    .toList();
+            // Ошибка отдельного текста не прерывает пакет: у каждого элемента свой статус
+            BatchAnalyzer.Result batch = batchAnalyzer.analyze(requests.stream()
+                    .map(request -> request == null ? null : new BatchAnalyzer.Item(
+                            request.text(), request.language(), request.checks(), request.suggestions()))
+                    .toList());
 
             return ResponseEntity.ok(Map.of(
                     "success", true,
                     "message", "Пакетный анализ завершен",
-                    "results", results,
-                    "totalProcessed", results.size()
+                    "results", batch.items(),
+                    "totalProcessed", batch.stats().total(),
+                    "stats", batch.stats()
             ));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(Map.of(
                             "success", false,
-                            "message", "Ошибка пакетного анализа: " + e.getMessage(),
-                            "results", null
+                            "message", "Ошибка пакетного анализа: " + e.getMessage()
                     ));
         }
     }
@@ -95,6 +262,8 @@ public class TextAnalysisController {
                     "service", "Text Analyzer",
                     "version", "1.0.0",
                     "dictionarySize", dictionarySize,
+                    "dictionaryVersion", textAnalyzer.getDictionaryVersion(),
+                    "rulesVersion", textAnalyzer.getRulesVersion(),
                     "timestamp", System.currentTimeMillis()
             ));
         } catch (Exception e) {
@@ -106,6 +275,18 @@ public class TextAnalysisController {
         }
     }
 
+    // Проверки, которые можно выбрать в поле checks запроса
+    @GetMapping("/checks")
+    public ResponseEntity<Map<String, Object>> getChecks() {
+        List<Map<String, Object>> checks = textAnalyzer.getChecks().stream()
+                .map(check -> Map.<String, Object>of("name", check.name(), "costClass", check.costClass()))
+                .toList();
+        return ResponseEntity.ok(Map.of(
+                "success", true,
+                "checks", checks
+        ));
+    }
+
     @GetMapping("/dictionary/size")
     public ResponseEntity<Map<String, Object>> getDictionarySize() {
         try {
@@ -113,6 +294,7 @@ public class TextAnalysisController {
             return ResponseEntity.ok(Map.of(
                     "success", true,
                     "dictionarySize", size,
+                    "dictionaryVersion", textAnalyzer.getDictionaryVersion(),
                     "timestamp", System.currentTimeMillis()
             ));
         } catch (Exception e) {
@@ -124,6 +306,28 @@ public class TextAnalysisController {
         }
     }
 
+    @GetMapping("/cache/stats")
+    public ResponseEntity<Map<String, Object>> getCacheStats() {
+        return ResponseEntity.ok(Map.of(
+                "success", true,
+                "results", toMap(textAnalyzer.getCacheStats()),
+                "words", toMap(textAnalyzer.getWordCacheStats())
+        ));
+    }
+
+    private Map<String, Object> toMap(CacheStats stats) {
+        return Map.of(
+                "hits", stats.hits(),
+                "misses", stats.misses(),
+                "hitRate", stats.hitRate(),
+                "evictions", stats.evictions(),
+                "rejections", stats.rejections(),
+                "entries", stats.size(),
+                "weightBytes", stats.weight(),
+                "maxWeightBytes", stats.maxWeight()
+        );
+    }
+
     @PostMapping("/dictionary/add")
     public ResponseEntity<Map<String, Object>> addWordToDictionary(@RequestBody Map<String, String> request) {
         try {
@@ -141,7 +345,8 @@ public class TextAnalysisController {
             return ResponseEntity.ok(Map.of(
                     "success", true,
                     "message", "Слово '" + word + "' добавлено в словарь",
-                    "dictionarySize", newSize
+                    "dictionarySize", newSize,
+                    "dictionaryVersion", textAnalyzer.getDictionaryVersion()
             ));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -152,8 +357,10 @@ public class TextAnalysisController {
         }
     }
 
-    // DTO record
-    public record AnalysisRequest(String text, String language) {}
+    // DTO record. checks - имена проверок (по умолчанию все), suggestions - нужны ли подсказки орфографии,
+    // includeText и limit - только для /analyze
+    public record AnalysisRequest(String text, String language, List<String> checks, Boolean suggestions,
+                                  Boolean includeText, Integer limit) {}
 
     @ExceptionHandler(IllegalArgumentException.class)
     public ResponseEntity<Map<String, Object>> handleIllegalArgumentException(IllegalArgumentException e) {
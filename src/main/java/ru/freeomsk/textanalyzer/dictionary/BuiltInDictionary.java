@@ -0,0 +1,43 @@
+package ru.freeomsk.textanalyzer.dictionary;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+
+// Образ словаря и морфология из classpath, прочитанные в кучу при инициализации класса.
+// Используется только в native-образе: класс инициализируется при его сборке
+// (--initialize-at-build-time в профиле native), поэтому готовые массивы попадают в image heap
+// и исполняемый файл при запуске словарь не читает и не разбирает
+final class BuiltInDictionary {
+
+    static final DictionaryImage.Loaded IMAGE = readImage();
+    static final Morphology MORPHOLOGY = readMorphology();
+
+    private BuiltInDictionary() {
+    }
+
+    private static DictionaryImage.Loaded readImage() {
+        try (InputStream in = open(RussianDictionaryService.IMAGE_RESOURCE)) {
+            return DictionaryImage.read(ByteBuffer.wrap(in.readAllBytes()), RussianDictionaryService.IMAGE_RESOURCE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Morphology readMorphology() {
+        try (InputStream in = open(RussianDictionaryService.MORPHOLOGY_RESOURCE)) {
+            return Morphology.load(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static InputStream open(String resource) throws IOException {
+        InputStream in = BuiltInDictionary.class.getClassLoader().getResourceAsStream(resource);
+        if (in == null) {
+            throw new IOException("Не найден ресурс " + resource);
+        }
+        return in;
+    }
+}
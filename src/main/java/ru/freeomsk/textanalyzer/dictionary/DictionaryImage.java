@@ -0,0 +1,171 @@
+package ru.freeomsk.textanalyzer.dictionary;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+// Бинарный образ словаря: автомат и индекс подсказок в виде готовых массивов.
+// Файл отображается в память как есть, поэтому запуск не зависит от размера словаря,
+// а несколько JVM на одном узле разделяют страницы через кэш ОС.
+//
+// Формат (big-endian, секции выровнены по 8 байт):
+//   заголовок: MAGIC, FORMAT_VERSION, maxDistance, stateCount, arcCount,
+//              finalLongs, keyCount, postingCount, reserved
+//   arcOffsets int[stateCount + 1], wordCounts int[stateCount], arcTargets int[arcCount],
+//   finalStates long[finalLongs], keys long[keyCount], offsets int[keyCount + 1],
+//   postings int[postingCount], arcLabels char[arcCount]
+final class DictionaryImage {
+
+    static final int MAGIC = 0x52444943; // "RDIC"
+    static final int FORMAT_VERSION = 1;
+
+    private static final int HEADER_INTS = 9;
+
+    private DictionaryImage() {
+    }
+
+    record Loaded(WordAutomaton automaton, SuggestionIndex suggestionIndex) {}
+
+    static void write(Path path, WordAutomaton automaton, SuggestionIndex index) throws IOException {
+        IntBuffer arcOffsets = automaton.arcOffsets();
+        IntBuffer wordCounts = automaton.wordCounts();
+        IntBuffer arcTargets = automaton.arcTargets();
+        LongBuffer finalStates = automaton.finalStates();
+        CharBuffer arcLabels = automaton.arcLabels();
+        LongBuffer keys = index.keys();
+        IntBuffer offsets = index.offsets();
+        IntBuffer postings = index.postings();
+
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+
+        // Запись во временный файл и переименование: читатели не увидят недописанный образ
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(temporary), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(index.maxDistance());
+            out.writeInt(automaton.stateCount());
+            out.writeInt(automaton.arcCount());
+            out.writeInt(finalStates.limit());
+            out.writeInt(keys.limit());
+            out.writeInt(postings.limit());
+            out.writeInt(0);
+            pad(out);
+
+            writeInts(out, arcOffsets);
+            writeInts(out, wordCounts);
+            writeInts(out, arcTargets);
+            for (int i = 0; i < finalStates.limit(); i++) out.writeLong(finalStates.get(i));
+            for (int i = 0; i < keys.limit(); i++) out.writeLong(keys.get(i));
+            writeInts(out, offsets);
+            writeInts(out, postings);
+            for (int i = 0; i < arcLabels.limit(); i++) out.writeChar(arcLabels.get(i));
+            pad(out);
+        }
+
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    static Loaded map(Path path) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // Отображение остается действительным и после закрытия канала
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        return read(buffer, path.toString());
+    }
+
+    // Образ в буфере, отображенном из файла или прочитанном в память; source - источник для сообщений об ошибках
+    static Loaded read(ByteBuffer buffer, String source) throws IOException {
+        if (buffer.limit() < HEADER_INTS * 4 || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Файл не является образом словаря: " + source);
+        }
+        int version = buffer.getInt(4);
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Неподдерживаемая версия образа словаря " + version
+                    + " (ожидается " + FORMAT_VERSION + "): " + source);
+        }
+
+        int maxDistance = buffer.getInt(8);
+        int stateCount = buffer.getInt(12);
+        int arcCount = buffer.getInt(16);
+        int finalLongs = buffer.getInt(20);
+        int keyCount = buffer.getInt(24);
+        int postingCount = buffer.getInt(28);
+
+        Sections sections = new Sections(buffer, align(HEADER_INTS * 4));
+        IntBuffer arcOffsets = sections.ints(stateCount + 1);
+        IntBuffer wordCounts = sections.ints(stateCount);
+        IntBuffer arcTargets = sections.ints(arcCount);
+        LongBuffer finalStates = sections.longs(finalLongs);
+        LongBuffer keys = sections.longs(keyCount);
+        IntBuffer offsets = sections.ints(keyCount + 1);
+        IntBuffer postings = sections.ints(postingCount);
+        CharBuffer arcLabels = sections.chars(arcCount);
+
+        WordAutomaton automaton = new WordAutomaton(arcOffsets, arcLabels, arcTargets, wordCounts, finalStates);
+        SuggestionIndex index = new SuggestionIndex(maxDistance, automaton::wordAt, keys, offsets, postings);
+        return new Loaded(automaton, index);
+    }
+
+    private static void writeInts(DataOutputStream out, IntBuffer values) throws IOException {
+        for (int i = 0; i < values.limit(); i++) {
+            out.writeInt(values.get(i));
+        }
+        pad(out);
+    }
+
+    private static void pad(DataOutputStream out) throws IOException {
+        while (out.size() % 8 != 0) {
+            out.writeByte(0);
+        }
+    }
+
+    private static int align(int position) {
+        return (position + 7) & ~7;
+    }
+
+    // Последовательное чтение выровненных секций из отображенного файла без копирования
+    private static final class Sections {
+        private final ByteBuffer buffer;
+        private int position;
+
+        Sections(ByteBuffer buffer, int position) {
+            this.buffer = buffer;
+            this.position = position;
+        }
+
+        IntBuffer ints(int count) {
+            return slice(count * 4L).asIntBuffer();
+        }
+
+        LongBuffer longs(int count) {
+            return slice(count * 8L).asLongBuffer();
+        }
+
+        CharBuffer chars(int count) {
+            return slice(count * 2L).asCharBuffer();
+        }
+
+        private ByteBuffer slice(long length) {
+            if (position + length > buffer.limit()) {
+                throw new IllegalStateException("Образ словаря поврежден: секция выходит за конец файла");
+            }
+            ByteBuffer slice = buffer.slice(position, (int) length);
+            position = align(position + (int) length);
+            return slice;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package ru.freeomsk.textanalyzer.dictionary;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+
+// Сборка бинарного образа словаря из текстового списка слов.
+// Запускается на этапе process-classes (см. pom.xml) или вручную:
+//   java -cp text-analyzer.jar ru.freeomsk.textanalyzer.dictionary.DictionaryImageCompiler <словарь.txt> <образ.dawg>
+public class DictionaryImageCompiler {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length != 2) {
+            System.err.println("Использование: DictionaryImageCompiler <словарь.txt> <образ.dawg>");
+            System.exit(2);
+        }
+
+        Path source = Path.of(args[0]);
+        Path target = Path.of(args[1]);
+        long start = System.nanoTime();
+
+        Set<String> words;
+        try (InputStream in = Files.newInputStream(source)) {
+            words = RussianDictionaryService.readWordList(in);
+        }
+        words.addAll(RussianDictionaryService.createBasicRussianDictionary());
+
+        DictionaryImage.Loaded compiled = RussianDictionaryService.compile(words);
+        DictionaryImage.write(target, compiled.automaton(), compiled.suggestionIndex());
+
+        System.out.printf("Образ словаря %s: %d слов, %d состояний, %d переходов, %d байт, %d мс%n",
+                target, compiled.automaton().size(), compiled.automaton().stateCount(),
+                compiled.automaton().arcCount(), Files.size(target),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+}
@@ -0,0 +1,231 @@
+package ru.freeomsk.textanalyzer.dictionary;
+
+import ru.freeomsk.textanalyzer.util.TextTokenizer;
+
+import java.util.*;
+import java.util.function.IntConsumer;
+import java.util.stream.Collectors;
+
+// Неизменяемая версия словаря. Анализ работает с одним снимком от начала до конца,
+// поэтому чтение не требует блокировок и не видит частично примененных изменений
+public final class DictionarySnapshot {
+
+    static final int MAX_SUGGESTION_DISTANCE = 2;
+    private static final int MAX_SIMILAR_WORDS = 3;
+
+    private final long version;
+    // Основной словарь - компактный автомат, пользовательские слова - небольшое дополнение к нему
+    private final WordAutomaton dictionary;
+    private final SuggestionIndex suggestionIndex;
+    // Пользовательские слова в порядке добавления, по сегментам со своими индексами подсказок.
+    // Каждый следующий сегмент меньше предыдущего хотя бы вдвое, как разряды двоичного счетчика:
+    // добавленные слова образуют новый сегмент, который сливается с предыдущими не большего размера.
+    // Поэтому слово переиндексируется O(log N) раз за все добавления, а не при каждом из них
+    private final List<CustomSegment> customSegments;
+    private final int customWordCount;
+    // Словоформы, которых нет в списке слов, распознаются по парадигмам
+    private final Morphology morphology;
+    private final Set<String> stopWords;
+    private final Map<String, String> commonMistakes;
+
+    DictionarySnapshot(long version, WordAutomaton dictionary, SuggestionIndex suggestionIndex,
+                       List<String> customWords, Morphology morphology,
+                       Set<String> stopWords, Map<String, String> commonMistakes) {
+        this.version = version;
+        this.dictionary = dictionary;
+        this.suggestionIndex = suggestionIndex;
+        this.customSegments = customWords.isEmpty() ? List.of() : List.of(CustomSegment.of(customWords));
+        this.customWordCount = customWords.size();
+        this.morphology = morphology;
+        this.stopWords = stopWords;
+        this.commonMistakes = commonMistakes;
+    }
+
+    // Следующая версия с теми же словарями и другими сегментами пользовательских слов
+    private DictionarySnapshot(DictionarySnapshot previous, List<CustomSegment> customSegments) {
+        this.version = previous.version + 1;
+        this.dictionary = previous.dictionary;
+        this.suggestionIndex = previous.suggestionIndex;
+        this.customSegments = List.copyOf(customSegments);
+        this.customWordCount = customSegments.stream().mapToInt(segment -> segment.words().size()).sum();
+        this.morphology = previous.morphology;
+        this.stopWords = previous.stopWords;
+        this.commonMistakes = previous.commonMistakes;
+    }
+
+    // Новая версия с добавленными словами; слова, которые уже есть в словаре, пропускаются
+    DictionarySnapshot withCustomWords(Collection<String> words) {
+        Set<String> added = new LinkedHashSet<>();
+        for (String word : words) {
+            if (!containsWord(word)) {
+                added.add(word);
+            }
+        }
+        if (added.isEmpty()) {
+            return this;
+        }
+
+        // Прежние сегменты общие с предыдущей версией; заново индексируются только сливаемые
+        List<CustomSegment> segments = new ArrayList<>(customSegments);
+        List<String> merged = new ArrayList<>(added);
+        while (!segments.isEmpty() && segments.get(segments.size() - 1).words().size() <= merged.size()) {
+            List<String> previous = segments.remove(segments.size() - 1).words();
+            List<String> joined = new ArrayList<>(previous.size() + merged.size());
+            joined.addAll(previous);
+            joined.addAll(merged);
+            merged = joined;
+        }
+        segments.add(CustomSegment.of(merged));
+
+        return new DictionarySnapshot(this, segments);
+    }
+
+    // Перезагруженные словари с версией и пользовательскими словами прежнего снимка;
+    // слова, которые теперь есть в основном словаре, пропускаются
+    DictionarySnapshot rebase(long version, List<String> words) {
+        List<String> kept = words.stream().filter(word -> !dictionary.contains(word)).toList();
+        return new DictionarySnapshot(version, dictionary, suggestionIndex,
+                kept, morphology, stopWords, commonMistakes);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public Morphology getMorphology() {
+        return morphology;
+    }
+
+    public boolean isWordValid(String word) {
+        String cleanWord = TextTokenizer.normalize(word);
+        if (cleanWord.length() < 2) return true;
+        if (stopWords.contains(cleanWord)) return true;
+
+        if (containsWord(cleanWord)) {
+            return true;
+        }
+
+        if (commonMistakes.containsKey(cleanWord)) {
+            return false;
+        }
+
+        return morphology.isKnown(cleanWord);
+    }
+
+    public List<String> getSuggestions(String word) {
+        return getSuggestions(word, candidates -> {});
+    }
+
+    // candidates получает число слов-кандидатов, просмотренных в индексах подсказок
+    public List<String> getSuggestions(String word, IntConsumer candidates) {
+        String cleanWord = TextTokenizer.normalize(word);
+        List<String> suggestions = new ArrayList<>();
+
+        if (commonMistakes.containsKey(cleanWord)) {
+            suggestions.add(commonMistakes.get(cleanWord));
+        }
+
+        suggestions.addAll(findSimilarWords(cleanWord, candidates));
+        suggestions.addAll(generateMorphologicalSuggestions(cleanWord));
+
+        return suggestions.stream().distinct().limit(5).collect(Collectors.toList());
+    }
+
+    private List<String> findSimilarWords(String word, IntConsumer candidates) {
+        SuggestionIndex.Lookup main = suggestionIndex.lookup(word, MAX_SUGGESTION_DISTANCE, MAX_SIMILAR_WORDS);
+        int scanned = main.candidates();
+        List<SuggestionIndex.Suggestion> similar = new ArrayList<>(main.suggestions());
+        // Лучшие подсказки сегмента включают его вклад в общие лучшие
+        for (CustomSegment segment : customSegments) {
+            SuggestionIndex.Lookup custom = segment.index().lookup(word, MAX_SUGGESTION_DISTANCE, MAX_SIMILAR_WORDS);
+            scanned += custom.candidates();
+            similar.addAll(custom.suggestions());
+        }
+        candidates.accept(scanned);
+        similar.sort(SuggestionIndex.Suggestion.ORDER);
+
+        List<String> result = new ArrayList<>(MAX_SIMILAR_WORDS);
+        for (int i = 0; i < similar.size() && i < MAX_SIMILAR_WORDS; i++) {
+            result.add(similar.get(i).word());
+        }
+        return result;
+    }
+
+    public boolean containsWord(String word) {
+        if (dictionary.contains(word)) return true;
+        for (CustomSegment segment : customSegments) {
+            if (segment.wordSet().contains(word)) return true;
+        }
+        return false;
+    }
+
+    private List<String> generateMorphologicalSuggestions(String word) {
+        List<String> suggestions = new ArrayList<>();
+
+        if (word.startsWith("здравствуйте")) {
+            suggestions.add("здравствуйте");
+        }
+        if (word.startsWith("привет") && word.length() > 6) {
+            suggestions.add("привет");
+        }
+
+        return suggestions;
+    }
+
+    public Set<String> getWords() {
+        // Представление словаря без копирования слов в отдельное множество
+        return new AbstractSet<>() {
+            @Override
+            public boolean contains(Object o) {
+                return o instanceof String word && containsWord(word);
+            }
+
+            @Override
+            public Iterator<String> iterator() {
+                List<String> words = new ArrayList<>(size());
+                dictionary.forEach(words::add);
+                words.addAll(getCustomWords());
+                return Collections.unmodifiableList(words).iterator();
+            }
+
+            @Override
+            public int size() {
+                return DictionarySnapshot.this.size();
+            }
+        };
+    }
+
+    public int size() {
+        return dictionary.size() + customWordCount;
+    }
+
+    List<String> getCustomWords() {
+        List<String> words = new ArrayList<>(customWordCount);
+        for (CustomSegment segment : customSegments) {
+            words.addAll(segment.words());
+        }
+        return words;
+    }
+
+    public int getCustomWordCount() {
+        return customWordCount;
+    }
+
+    public long getMemoryFootprint() {
+        long footprint = dictionary.memoryFootprint() + suggestionIndex.memoryFootprint()
+                + morphology.memoryFootprint();
+        for (CustomSegment segment : customSegments) {
+            footprint += segment.index().memoryFootprint();
+        }
+        return footprint;
+    }
+
+    private record CustomSegment(List<String> words, Set<String> wordSet, SuggestionIndex index) {
+
+        static CustomSegment of(List<String> words) {
+            List<String> copy = List.copyOf(words);
+            return new CustomSegment(copy, Set.copyOf(copy),
+                    SuggestionIndex.build(MAX_SUGGESTION_DISTANCE, copy, copy::get));
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package ru.freeomsk.textanalyzer.dictionary;
+
+import java.util.Locale;
+
+// Граммемы словоформы (обозначения OpenCorpora), упакованные в битовую маску
+public final class Grammemes {
+
+    public static final int SING = 1;
+    public static final int PLUR = 1 << 1;
+    public static final int MASC = 1 << 2;
+    public static final int FEMN = 1 << 3;
+    public static final int NEUT = 1 << 4;
+    public static final int NOMN = 1 << 5;
+    public static final int GENT = 1 << 6;
+    public static final int DATV = 1 << 7;
+    public static final int ACCS = 1 << 8;
+    public static final int ABLT = 1 << 9;
+    public static final int LOCT = 1 << 10;
+    public static final int INFN = 1 << 11;
+    public static final int PRES = 1 << 12;
+    public static final int PAST = 1 << 13;
+    public static final int FUTR = 1 << 14;
+    public static final int PER1 = 1 << 15;
+    public static final int PER2 = 1 << 16;
+    public static final int PER3 = 1 << 17;
+
+    private static final String[] NAMES = {
+            "sing", "plur", "masc", "femn", "neut", "nomn", "gent", "datv", "accs", "ablt", "loct",
+            "infn", "pres", "past", "futr", "1per", "2per", "3per"
+    };
+
+    private Grammemes() {
+    }
+
+    // Разбор списка через запятую: "femn,sing,nomn"
+    public static int parse(String value) {
+        int mask = 0;
+        for (String name : value.split(",")) {
+            String grammeme = name.trim().toLowerCase(Locale.ROOT);
+            if (grammeme.isEmpty()) continue;
+
+            int index = indexOf(grammeme);
+            if (index < 0) {
+                throw new IllegalArgumentException("Неизвестная граммема: " + grammeme);
+            }
+            mask |= 1 << index;
+        }
+        return mask;
+    }
+
+    public static String format(int mask) {
+        StringBuilder result = new StringBuilder();
+        for (int i = 0; i < NAMES.length; i++) {
+            if ((mask & (1 << i)) != 0) {
+                if (!result.isEmpty()) result.append(',');
+                result.append(NAMES[i]);
+            }
+        }
+        return result.toString();
+    }
+
+    private static int indexOf(String name) {
+        for (int i = 0; i < NAMES.length; i++) {
+            if (NAMES[i].equals(name)) return i;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,278 @@
+package ru.freeomsk.textanalyzer.dictionary;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+// Морфологический словарь на парадигмах: лемма задается основой и номером парадигмы,
+// парадигма - набором окончаний с граммемами. Основы и окончания хранятся в двух автоматах,
+// формы парадигм - в плоских массивах, отсортированных по номеру окончания.
+// Разбор слова - один проход по автомату основ: на каждой допустимой границе основы
+// окончание ищется в автомате окончаний и затем в формах парадигм этой основы
+public final class Morphology {
+
+    public static final long NOT_FOUND = -1;
+
+    // Результат разбора упакован в long: номер формы в старших 32 битах, номер основы - в младших
+    private static final long STEM_MASK = 0xFFFFFFFFL;
+
+    // Пустое окончание в файле парадигм
+    private static final String EMPTY_ENDING = "-";
+
+    private final WordAutomaton stems;
+    private final int[] stemParadigmOffsets;
+    private final int[] stemParadigms;
+    private final WordAutomaton endings;
+    private final int[] paradigmFormOffsets;
+    private final int[] formEndings;
+    private final int[] formGrammemes;
+    private final int[] formParadigms;
+    private final PartOfSpeech[] paradigmPartsOfSpeech;
+    private final int[] paradigmLemmaEndings;
+    private final int lemmaCount;
+
+    private Morphology(WordAutomaton stems, int[] stemParadigmOffsets, int[] stemParadigms,
+                       WordAutomaton endings, int[] paradigmFormOffsets, int[] formEndings,
+                       int[] formGrammemes, int[] formParadigms,
+                       PartOfSpeech[] paradigmPartsOfSpeech, int[] paradigmLemmaEndings, int lemmaCount) {
+        this.stems = stems;
+        this.stemParadigmOffsets = stemParadigmOffsets;
+        this.stemParadigms = stemParadigms;
+        this.endings = endings;
+        this.paradigmFormOffsets = paradigmFormOffsets;
+        this.formEndings = formEndings;
+        this.formGrammemes = formGrammemes;
+        this.formParadigms = formParadigms;
+        this.paradigmPartsOfSpeech = paradigmPartsOfSpeech;
+        this.paradigmLemmaEndings = paradigmLemmaEndings;
+        this.lemmaCount = lemmaCount;
+    }
+
+    public static Morphology empty() {
+        return compile(List.of(), List.of());
+    }
+
+    // Формат файла:
+    //   paradigm <имя> <часть речи>   - начало парадигмы, первая форма - начальная
+    //   <окончание> <граммемы>        - форма парадигмы, пустое окончание записывается как "-"
+    //   lemma <лемма> <парадигма>     - лемма и ее парадигма
+    public static Morphology load(InputStream inputStream) throws IOException {
+        Map<String, ParadigmSpec> paradigms = new LinkedHashMap<>();
+        List<LemmaSpec> lemmas = new ArrayList<>();
+        ParadigmSpec current = null;
+
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) continue;
+
+                String[] parts = line.split("\\s+");
+                if (parts[0].equals("paradigm") && parts.length == 3) {
+                    current = new ParadigmSpec(parts[1], PartOfSpeech.valueOf(parts[2]), new ArrayList<>());
+                    paradigms.put(current.name(), current);
+                } else if (parts[0].equals("lemma") && parts.length == 3) {
+                    lemmas.add(new LemmaSpec(parts[1].toLowerCase(), parts[2]));
+                    current = null;
+                } else if (current != null && parts.length == 2) {
+                    String ending = parts[0].equals(EMPTY_ENDING) ? "" : parts[0].toLowerCase();
+                    current.forms().add(new FormSpec(ending, Grammemes.parse(parts[1])));
+                } else {
+                    throw new IOException("Ошибка в строке " + lineNumber + " морфологического словаря: " + line);
+                }
+            }
+        }
+
+        return compile(new ArrayList<>(paradigms.values()), resolve(lemmas, paradigms));
+    }
+
+    // Основа леммы - лемма без окончания начальной формы парадигмы
+    private static List<LemmaSpec> resolve(List<LemmaSpec> lemmas, Map<String, ParadigmSpec> paradigms) {
+        List<LemmaSpec> stems = new ArrayList<>(lemmas.size());
+        for (LemmaSpec lemma : lemmas) {
+            ParadigmSpec paradigm = paradigms.get(lemma.paradigm());
+            if (paradigm == null || paradigm.forms().isEmpty()) {
+                throw new IllegalArgumentException("Неизвестная парадигма " + lemma.paradigm()
+                        + " у леммы " + lemma.text());
+            }
+            String ending = paradigm.forms().get(0).ending();
+            if (!lemma.text().endsWith(ending)) {
+                throw new IllegalArgumentException("Лемма " + lemma.text() + " не оканчивается на \""
+                        + ending + "\" парадигмы " + paradigm.name());
+            }
+            stems.add(new LemmaSpec(lemma.text().substring(0, lemma.text().length() - ending.length()),
+                    lemma.paradigm()));
+        }
+        return stems;
+    }
+
+    private static Morphology compile(List<ParadigmSpec> paradigms, List<LemmaSpec> stemsWithParadigms) {
+        // Окончания всех парадигм в одном автомате, номер окончания - его номер в автомате
+        Set<String> endingSet = new TreeSet<>();
+        for (ParadigmSpec paradigm : paradigms) {
+            for (FormSpec form : paradigm.forms()) endingSet.add(form.ending());
+        }
+        WordAutomaton endings = WordAutomaton.build(endingSet);
+
+        Map<String, Integer> paradigmIds = new HashMap<>();
+        PartOfSpeech[] partsOfSpeech = new PartOfSpeech[paradigms.size()];
+        int[] lemmaEndings = new int[paradigms.size()];
+        int[] paradigmFormOffsets = new int[paradigms.size() + 1];
+        int formCount = 0;
+        for (int p = 0; p < paradigms.size(); p++) {
+            paradigmIds.put(paradigms.get(p).name(), p);
+            partsOfSpeech[p] = paradigms.get(p).partOfSpeech();
+            lemmaEndings[p] = endings.indexOf(paradigms.get(p).forms().get(0).ending());
+            paradigmFormOffsets[p] = formCount;
+            formCount += paradigms.get(p).forms().size();
+        }
+        paradigmFormOffsets[paradigms.size()] = formCount;
+
+        // Формы каждой парадигмы отсортированы по номеру окончания для двоичного поиска
+        int[] formEndings = new int[formCount];
+        int[] formGrammemes = new int[formCount];
+        int[] formParadigms = new int[formCount];
+        int form = 0;
+        for (int p = 0; p < paradigms.size(); p++) {
+            List<FormSpec> forms = new ArrayList<>(paradigms.get(p).forms());
+            forms.sort(Comparator.comparingInt(f -> endings.indexOf(f.ending())));
+            for (FormSpec spec : forms) {
+                formEndings[form] = endings.indexOf(spec.ending());
+                formGrammemes[form] = spec.grammemes();
+                formParadigms[form] = p;
+                form++;
+            }
+        }
+
+        // Одна основа может принадлежать нескольким леммам с разными парадигмами
+        Map<String, SortedSet<Integer>> stemParadigmSets = new TreeMap<>();
+        for (LemmaSpec stem : stemsWithParadigms) {
+            stemParadigmSets.computeIfAbsent(stem.text(), key -> new TreeSet<>())
+                    .add(paradigmIds.get(stem.paradigm()));
+        }
+        WordAutomaton stems = WordAutomaton.build(stemParadigmSets.keySet());
+
+        int[] stemParadigmOffsets = new int[stemParadigmSets.size() + 1];
+        int[] stemParadigms = new int[stemsWithParadigms.size()];
+        int stemId = 0;
+        int link = 0;
+        // TreeMap перебирает основы в алфавитном порядке, то есть в порядке их номеров в автомате
+        for (SortedSet<Integer> ids : stemParadigmSets.values()) {
+            stemParadigmOffsets[stemId++] = link;
+            for (int id : ids) stemParadigms[link++] = id;
+        }
+        stemParadigmOffsets[stemId] = link;
+
+        Set<String> lemmas = new HashSet<>();
+        for (LemmaSpec stem : stemsWithParadigms) lemmas.add(stem.text() + '\0' + stem.paradigm());
+
+        return new Morphology(stems, stemParadigmOffsets, Arrays.copyOf(stemParadigms, link),
+                endings, paradigmFormOffsets, formEndings, formGrammemes, formParadigms,
+                partsOfSpeech, lemmaEndings, lemmas.size());
+    }
+
+    public boolean isKnown(CharSequence word) {
+        return find(word, null, 0) != NOT_FOUND;
+    }
+
+    // Первый разбор слова или NOT_FOUND
+    public long analyze(CharSequence word) {
+        return find(word, null, 0);
+    }
+
+    // Есть ли у слова разбор с указанной частью речи и всеми указанными граммемами
+    public boolean hasForm(CharSequence word, PartOfSpeech partOfSpeech, int grammemes) {
+        return find(word, partOfSpeech, grammemes) != NOT_FOUND;
+    }
+
+    public PartOfSpeech partOfSpeech(long analysis) {
+        return paradigmPartsOfSpeech[formParadigms[form(analysis)]];
+    }
+
+    public int grammemes(long analysis) {
+        return formGrammemes[form(analysis)];
+    }
+
+    // Начальная форма; в отличие от разбора требует построения строки
+    public String lemma(long analysis) {
+        int paradigm = formParadigms[form(analysis)];
+        String stem = stems.wordAt((int) (analysis & STEM_MASK));
+        return stem + endings.wordAt(paradigmLemmaEndings[paradigm]);
+    }
+
+    public int getLemmaCount() {
+        return lemmaCount;
+    }
+
+    public long memoryFootprint() {
+        return stems.memoryFootprint() + endings.memoryFootprint()
+                + 4L * (stemParadigmOffsets.length + stemParadigms.length + paradigmFormOffsets.length
+                + formEndings.length + formGrammemes.length + formParadigms.length + paradigmLemmaEndings.length);
+    }
+
+    private long find(CharSequence word, PartOfSpeech partOfSpeech, int grammemes) {
+        int length = word.length();
+        int state = stems.rootState();
+
+        for (int split = 0; split <= length && state >= 0; split++) {
+            if (stems.isAccepting(state)) {
+                long analysis = matchEnding(word, split, partOfSpeech, grammemes);
+                if (analysis != NOT_FOUND) return analysis;
+            }
+            if (split < length) {
+                state = stems.transition(state, word.charAt(split));
+            }
+        }
+        return NOT_FOUND;
+    }
+
+    private long matchEnding(CharSequence word, int split, PartOfSpeech partOfSpeech, int grammemes) {
+        int ending = endings.indexOf(word, split, word.length());
+        if (ending < 0) return NOT_FOUND;
+
+        int stem = stems.indexOf(word, 0, split);
+        for (int link = stemParadigmOffsets[stem]; link < stemParadigmOffsets[stem + 1]; link++) {
+            int paradigm = stemParadigms[link];
+            if (partOfSpeech != null && paradigmPartsOfSpeech[paradigm] != partOfSpeech) continue;
+
+            int end = paradigmFormOffsets[paradigm + 1];
+            for (int form = firstForm(paradigm, ending); form < end && formEndings[form] == ending; form++) {
+                if ((formGrammemes[form] & grammemes) == grammemes) {
+                    return ((long) form << 32) | stem;
+                }
+            }
+        }
+        return NOT_FOUND;
+    }
+
+    // Первая форма парадигмы с заданным окончанием (нижняя граница двоичного поиска)
+    private int firstForm(int paradigm, int ending) {
+        int low = paradigmFormOffsets[paradigm];
+        int high = paradigmFormOffsets[paradigm + 1];
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (formEndings[middle] < ending) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static int form(long analysis) {
+        return (int) (analysis >>> 32);
+    }
+
+    private record FormSpec(String ending, int grammemes) {}
+
+    private record ParadigmSpec(String name, PartOfSpeech partOfSpeech, List<FormSpec> forms) {}
+
+    private record LemmaSpec(String text, String paradigm) {}
+}
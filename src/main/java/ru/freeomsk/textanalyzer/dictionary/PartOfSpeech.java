@@ -0,0 +1,8 @@
+package ru.freeomsk.textanalyzer.dictionary;
+
+// Части речи в обозначениях OpenCorpora
+public enum PartOfSpeech {
+    NOUN,
+    ADJF,
+    VERB
+}
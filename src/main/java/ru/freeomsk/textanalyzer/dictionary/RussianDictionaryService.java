@@ -1,41 +1,224 @@
 package ru.freeomsk.textanalyzer.dictionary;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NativeDetector;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.stereotype.Component;
 
 import java.io.*;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 @Component
 public class RussianDictionaryService {
 
-    private final Set<String> dictionary;
-    private final Set<String> stopWords;
-    private final Map<String, String> commonMistakes;
+    static final String WORD_LIST_RESOURCE = "dict/russian_words.txt";
+    static final String IMAGE_RESOURCE = "dict/russian_words.dawg";
+    static final String MORPHOLOGY_RESOURCE = "dict/russian_morphology.txt";
+    static final String STOP_WORDS_RESOURCE = "dict/stop_words.txt";
+    static final String COMMON_MISTAKES_RESOURCE = "dict/common_mistakes.txt";
 
-    public RussianDictionaryService() {
-        this.dictionary = loadRussianDictionary();
-        this.stopWords = loadStopWords();
-        this.commonMistakes = loadCommonMistakes();
+    // Файлы каталога dictionary.dir; отсутствующий файл заменяется встроенным
+    public static final List<String> FILE_NAMES = List.of("russian_words.dawg", "russian_words.txt",
+            "russian_morphology.txt", "stop_words.txt", "common_mistakes.txt");
+
+    // Читатели берут текущий снимок одним volatile-чтением и никогда не ждут писателей
+    private volatile DictionarySnapshot snapshot;
+
+    // Добавленные слова копятся в очереди и публикуются пачкой одной новой версией
+    private final Queue<String> pendingWords = new ConcurrentLinkedQueue<>();
+    private final Object publishLock = new Object();
+
+    private final String imagePath;
+    // Каталог со словарями вместо встроенных; null - только встроенные
+    private final Path directory;
+    private DictionaryImage.Loaded builtInImage;
+    private Morphology builtInMorphology;
+
+    public RussianDictionaryService(@Value("${dictionary.image-path:}") String imagePath,
+                                    @Value("${dictionary.dir:}") String directory) {
+        this.imagePath = imagePath;
+        this.directory = directory == null || directory.isBlank() ? null : Path.of(directory);
+
+        DictionarySnapshot loaded = null;
+        try {
+            loaded = load(1, this.directory);
+        } catch (IOException | RuntimeException e) {
+            // Приложение запускается со встроенными словарями; исправленный файл подхватит перезагрузка
+            System.err.println("Ошибка загрузки словарей из " + this.directory + ": " + e.getMessage());
+        }
+        this.snapshot = loaded != null ? loaded
+                : new DictionarySnapshot(1, builtInImage().automaton(), builtInImage().suggestionIndex(),
+                        List.of(), builtInMorphology(), loadStopWords(), loadCommonMistakes());
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    // Новая версия словарей из каталога. Словари собираются без блокировок, читатели тем временем работают
+    // с прежним снимком, а анализы, начатые до замены, заканчиваются на нем. Добавленные через API слова
+    // переносятся в новую версию. При ошибке в файлах остается прежняя версия
+    public DictionarySnapshot reload() throws IOException {
+        DictionarySnapshot loaded = load(0, directory);
+        synchronized (publishLock) {
+            DictionarySnapshot current = snapshot;
+            snapshot = loaded.rebase(current.getVersion() + 1, current.getCustomWords());
+            return snapshot;
+        }
+    }
+
+    // Ошибки чтения файлов каталога передаются вызывающему, ошибки встроенных ресурсов - как прежде, в лог
+    private DictionarySnapshot load(long version, Path directory) throws IOException {
+        Path image = external(directory, "russian_words.dawg");
+        Path words = external(directory, "russian_words.txt");
+        Path morphologyFile = external(directory, "russian_morphology.txt");
+        Path stopWordsFile = external(directory, "stop_words.txt");
+        Path mistakesFile = external(directory, "common_mistakes.txt");
+
+        DictionaryImage.Loaded loaded;
+        if (image != null) {
+            // Образ из каталога читается в кучу, а не отображается: файл могут перезаписать на месте,
+            // пока прежняя версия еще используется
+            loaded = DictionaryImage.read(ByteBuffer.wrap(Files.readAllBytes(image)), image.toString());
+        } else if (words != null) {
+            Set<String> wordList;
+            try (InputStream in = Files.newInputStream(words)) {
+                wordList = readWordList(in);
+            }
+            wordList.addAll(createBasicRussianDictionary());
+            loaded = compile(wordList);
+        } else {
+            loaded = builtInImage();
+        }
+
+        Morphology morphology;
+        if (morphologyFile != null) {
+            try (InputStream in = Files.newInputStream(morphologyFile)) {
+                morphology = Morphology.load(in);
+            }
+        } else {
+            morphology = builtInMorphology();
+        }
+
+        Set<String> stopWords;
+        if (stopWordsFile != null) {
+            try (InputStream in = Files.newInputStream(stopWordsFile)) {
+                stopWords = readStopWords(in);
+            }
+        } else {
+            stopWords = loadStopWords();
+        }
+
+        Map<String, String> commonMistakes;
+        if (mistakesFile != null) {
+            try (InputStream in = Files.newInputStream(mistakesFile)) {
+                commonMistakes = readCommonMistakes(in);
+            }
+        } else {
+            commonMistakes = loadCommonMistakes();
+        }
+
+        return new DictionarySnapshot(version, loaded.automaton(), loaded.suggestionIndex(),
+                List.of(), morphology, stopWords, commonMistakes);
+    }
+
+    private static Path external(Path directory, String name) {
+        if (directory == null) return null;
+        Path file = directory.resolve(name);
+        return Files.isRegularFile(file) ? file : null;
+    }
+
+    // Встроенные словарь и морфология не меняются: они загружаются один раз и переиспользуются перезагрузками
+    private synchronized DictionaryImage.Loaded builtInImage() {
+        if (builtInImage == null) {
+            // В native-образе встроенный словарь уже лежит в image heap
+            builtInImage = inNativeImage() ? BuiltInDictionary.IMAGE : loadDictionary();
+        }
+        return builtInImage;
+    }
+
+    private synchronized Morphology builtInMorphology() {
+        if (builtInMorphology == null) {
+            builtInMorphology = inNativeImage() ? BuiltInDictionary.MORPHOLOGY : loadMorphology();
+        }
+        return builtInMorphology;
+    }
+
+    private boolean inNativeImage() {
+        return NativeDetector.inNativeImage() && (imagePath == null || imagePath.isBlank());
+    }
+
+    private DictionaryImage.Loaded loadDictionary() {
+        // Предварительно собранный образ открывается без разбора текста;
+        // текстовый словарь остается запасным вариантом
+        try {
+            Path image = resolveImage(imagePath);
+            if (image != null) {
+                return DictionaryImage.map(image);
+            }
+        } catch (Exception e) {
+            System.err.println("Ошибка загрузки образа словаря: " + e.getMessage());
+        }
+
+        return compile(loadRussianDictionary());
+    }
+
+    private Path resolveImage(String imagePath) throws IOException {
+        if (imagePath != null && !imagePath.isBlank()) {
+            return Path.of(imagePath);
+        }
+
+        ClassPathResource resource = new ClassPathResource(IMAGE_RESOURCE);
+        if (!resource.exists()) {
+            return null;
+        }
+        if (resource.isFile()) {
+            return resource.getFile().toPath();
+        }
+
+        // Внутри jar образ нельзя отобразить напрямую - копируем его во временный файл
+        Path copy = Files.createTempFile("russian_words", ".dawg");
+        copy.toFile().deleteOnExit();
+        try (InputStream in = resource.getInputStream()) {
+            Files.copy(in, copy, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return copy;
+    }
+
+    private Morphology loadMorphology() {
+        try {
+            ClassPathResource resource = new ClassPathResource(MORPHOLOGY_RESOURCE);
+            if (resource.exists()) {
+                try (InputStream in = resource.getInputStream()) {
+                    return Morphology.load(in);
+                }
+            }
+        } catch (Exception e) {
+            System.err.println("Ошибка загрузки морфологического словаря: " + e.getMessage());
+        }
+
+        return Morphology.empty();
+    }
+
+    static DictionaryImage.Loaded compile(Collection<String> words) {
+        WordAutomaton automaton = WordAutomaton.build(words);
+        return new DictionaryImage.Loaded(automaton, buildSuggestionIndex(automaton));
     }
 
     private Set<String> loadRussianDictionary() {
         Set<String> dict = new HashSet<>();
 
         try {
-            ClassPathResource resource = new ClassPathResource("dict/russian_words.txt");
+            ClassPathResource resource = new ClassPathResource(WORD_LIST_RESOURCE);
             if (resource.exists()) {
-                try (BufferedReader reader = new BufferedReader(new InputStreamReader(
-                        resource.getInputStream(), StandardCharsets.UTF_8))) {
-                    String line;
-                    while ((line = reader.readLine()) != null) {
-                        String word = line.trim().toLowerCase();
-                        if (word.length() > 1 && !word.startsWith("#")) {
-                            dict.add(word);
-                        }
-                    }
+                try (InputStream in = resource.getInputStream()) {
+                    dict.addAll(readWordList(in));
                 }
             }
         } catch (Exception e) {
@@ -46,7 +229,85 @@ public class RussianDictionaryService {
         return dict;
     }
 
-    private Set<String> createBasicRussianDictionary() {
+    static Set<String> readWordList(InputStream in) throws IOException {
+        Set<String> words = new HashSet<>();
+        for (String word : readLines(in)) {
+            if (word.length() > 1) {
+                words.add(word);
+            }
+        }
+        return words;
+    }
+
+    // Строки в нижнем регистре без пустых строк и комментариев
+    private static List<String> readLines(InputStream in) throws IOException {
+        List<String> lines = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String word = line.trim().toLowerCase();
+                if (!word.isEmpty() && !word.startsWith("#")) {
+                    lines.add(word);
+                }
+            }
+        }
+        return lines;
+    }
+
+    private Set<String> loadStopWords() {
+        try {
+            ClassPathResource resource = new ClassPathResource(STOP_WORDS_RESOURCE);
+            if (resource.exists()) {
+                try (InputStream in = resource.getInputStream()) {
+                    return readStopWords(in);
+                }
+            }
+        } catch (Exception e) {
+            System.err.println("Ошибка загрузки стоп-слов: " + e.getMessage());
+        }
+
+        return Set.of();
+    }
+
+    private Map<String, String> loadCommonMistakes() {
+        try {
+            ClassPathResource resource = new ClassPathResource(COMMON_MISTAKES_RESOURCE);
+            if (resource.exists()) {
+                try (InputStream in = resource.getInputStream()) {
+                    return readCommonMistakes(in);
+                }
+            }
+        } catch (Exception e) {
+            System.err.println("Ошибка загрузки частых ошибок: " + e.getMessage());
+        }
+
+        return Map.of();
+    }
+
+    private static Set<String> readStopWords(InputStream in) throws IOException {
+        return Collections.unmodifiableSet(new HashSet<>(readLines(in)));
+    }
+
+    // Строки вида "ошибка=исправление"
+    private static Map<String, String> readCommonMistakes(InputStream in) throws IOException {
+        Map<String, String> mistakes = new HashMap<>();
+        for (String line : readLines(in)) {
+            int separator = line.indexOf('=');
+            if (separator <= 0 || separator == line.length() - 1) {
+                throw new IOException("Неверная строка частых ошибок: " + line);
+            }
+            mistakes.put(line.substring(0, separator).trim(), line.substring(separator + 1).trim());
+        }
+        return Collections.unmodifiableMap(mistakes);
+    }
+
+    private static SuggestionIndex buildSuggestionIndex(WordAutomaton automaton) {
+        List<String> words = new ArrayList<>(automaton.size());
+        automaton.forEach(words::add);
+        return SuggestionIndex.build(DictionarySnapshot.MAX_SUGGESTION_DISTANCE, words, automaton::wordAt);
+    }
+
+    static Set<String> createBasicRussianDictionary() {
         // Используем Arrays.asList вместо Set.of
         return new HashSet<>(Arrays.asList(
                 "привет", "здравствуйте", "пицца", "пиццу", "ананас", "ананасы", "ананасами",
@@ -70,142 +331,58 @@ public class RussianDictionaryService {
         ));
     }
 
-    private Set<String> loadStopWords() {
-        // Используем Arrays.asList вместо Set.of
-        return new HashSet<>(Arrays.asList(
-                "бы", "ли", "же", "вот", "как", "так", "это", "что", "кто",
-                "где", "когда", "почему", "зачем", "какой", "какая", "какое", "какие",
-                "мне", "тебе", "ему", "ей", "нам", "вам", "им", "меня", "тебя", "его", "её"
-        ));
-    }
-
-    private Map<String, String> loadCommonMistakes() {
-        // Используем традиционное создание Map вместо Map.of
-        Map<String, String> mistakes = new HashMap<>();
-        mistakes.put("здавствуйте", "здравствуйте");
-        mistakes.put("привед", "привет");
-        mistakes.put("пака", "пока");
-        mistakes.put("симпотичный", "симпатичный");
-        mistakes.put("агенство", "агентство");
-        mistakes.put("компания", "кампания");
-        mistakes.put("впринципе", "в принципе");
-        mistakes.put("итд", "и т.д.");
-        mistakes.put("итп", "и т.п.");
-        mistakes.put("зделать", "сделать");
-        mistakes.put("вообщем", "в общем");
-        mistakes.put("очет", "отчет");
-        mistakes.put("придёт", "придет");
-        return mistakes;
+    public DictionarySnapshot snapshot() {
+        return snapshot;
     }
 
     public boolean isWordValid(String word) {
-        String cleanWord = word.toLowerCase().replaceAll("[^а-яё]", "");
-        if (cleanWord.length() < 2) return true;
-        if (stopWords.contains(cleanWord)) return true;
-
-        if (dictionary.contains(cleanWord)) {
-            return true;
-        }
-
-        if (commonMistakes.containsKey(cleanWord)) {
-            return false;
-        }
-
-        return checkMorphologicalVariants(cleanWord);
-    }
-
-    private boolean checkMorphologicalVariants(String word) {
-        if (word.length() <= 3) return false;
-
-        String[] possibleEndings = {"ый", "ий", "ая", "яя", "ое", "ее", "ой", "ей"};
-        for (String ending : possibleEndings) {
-            if (word.endsWith(ending)) {
-                String base = word.substring(0, word.length() - ending.length());
-                if (dictionary.contains(base)) {
-                    return true;
-                }
-            }
-        }
-
-        String[] verbEndings = {"ть", "ться", "л", "ла", "ло", "ли", "ю", "ешь", "ет", "ем", "ете", "ут", "ют"};
-        for (String ending : verbEndings) {
-            if (word.endsWith(ending)) {
-                String base = word.substring(0, word.length() - ending.length());
-                if (dictionary.contains(base) || dictionary.contains(base + "ть")) {
-                    return true;
-                }
-            }
-        }
-
-        return false;
+        return snapshot.isWordValid(word);
     }
 
     public List<String> getSuggestions(String word) {
-        String cleanWord = word.toLowerCase().replaceAll("[^а-яё]", "");
-        List<String> suggestions = new ArrayList<>();
-
-        if (commonMistakes.containsKey(cleanWord)) {
-            suggestions.add(commonMistakes.get(cleanWord));
-        }
-
-        suggestions.addAll(findSimilarWords(cleanWord, new ArrayList<>(dictionary), 2));
-        suggestions.addAll(generateMorphologicalSuggestions(cleanWord));
-
-        return suggestions.stream().distinct().limit(5).collect(Collectors.toList());
+        return snapshot.getSuggestions(word);
     }
 
-    private List<String> findSimilarWords(String target, List<String> dictionary, int maxDistance) {
-        return dictionary.stream()
-                .filter(word -> calculateLevenshteinDistance(target, word) <= maxDistance)
-                .sorted(Comparator.comparingInt(word -> calculateLevenshteinDistance(target, word)))
-                .limit(3)
-                .collect(Collectors.toList());
+    public Set<String> getDictionary() {
+        return snapshot.getWords();
     }
 
-    private int calculateLevenshteinDistance(String x, String y) {
-        int[][] dp = new int[x.length() + 1][y.length() + 1];
+    public void addWordToDictionary(String word) {
+        addWordsToDictionary(List.of(word));
+    }
 
-        for (int i = 0; i <= x.length(); i++) {
-            for (int j = 0; j <= y.length(); j++) {
-                if (i == 0) {
-                    dp[i][j] = j;
-                } else if (j == 0) {
-                    dp[i][j] = i;
-                } else {
-                    int cost = x.charAt(i - 1) == y.charAt(j - 1) ? 0 : 1;
-                    dp[i][j] = Math.min(
-                            Math.min(dp[i - 1][j] + 1, dp[i][j - 1] + 1),
-                            dp[i - 1][j - 1] + cost
-                    );
-                }
-            }
+    // После возврата все переданные слова видны в опубликованном снимке
+    public DictionarySnapshot addWordsToDictionary(Collection<String> words) {
+        for (String word : words) {
+            pendingWords.add(word.toLowerCase());
         }
-
-        return dp[x.length()][y.length()];
+        return publishPendingWords();
     }
 
-    private List<String> generateMorphologicalSuggestions(String word) {
-        List<String> suggestions = new ArrayList<>();
-
-        if (word.startsWith("здравствуйте")) {
-            suggestions.add("здравствуйте");
-        }
-        if (word.startsWith("привет") && word.length() > 6) {
-            suggestions.add("привет");
+    private DictionarySnapshot publishPendingWords() {
+        synchronized (publishLock) {
+            // Параллельные добавления, накопившиеся за время ожидания, попадают в одну версию
+            List<String> batch = new ArrayList<>();
+            String word;
+            while ((word = pendingWords.poll()) != null) {
+                batch.add(word);
+            }
+            if (!batch.isEmpty()) {
+                snapshot = snapshot.withCustomWords(batch);
+            }
+            return snapshot;
         }
-
-        return suggestions;
     }
 
-    public Set<String> getDictionary() {
-        return Collections.unmodifiableSet(dictionary);
+    public int getDictionarySize() {
+        return snapshot.size();
     }
 
-    public void addWordToDictionary(String word) {
-        dictionary.add(word.toLowerCase());
+    public long getDictionaryVersion() {
+        return snapshot.getVersion();
     }
 
-    public int getDictionarySize() {
-        return dictionary.size();
+    public long getMemoryFootprint() {
+        return snapshot.getMemoryFootprint();
     }
-}
\ No newline at end of file
+}
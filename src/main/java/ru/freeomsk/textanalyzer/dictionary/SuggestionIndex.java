@@ -0,0 +1,200 @@
+package ru.freeomsk.textanalyzer.dictionary;
+
+import ru.freeomsk.textanalyzer.util.EditDistance;
+
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.util.*;
+import java.util.function.IntFunction;
+
+// Индекс симметричного удаления (SymSpell): при поиске перебираются только слова
+// с общими вариантами удаления символов, а не весь словарь.
+// Варианты удаления хранятся не строками, а хешами в отсортированном массиве,
+// слова - номерами; совпадение хешей лишь добавляет кандидата, которого отсеет проверка расстояния
+class SuggestionIndex {
+
+    // Удаления строятся только по префиксу: это резко уменьшает размер индекса
+    // и не влияет на полноту поиска
+    private static final int PREFIX_LENGTH = 7;
+
+    // Ключ и номер слова упаковываются в один long для сортировки примитивов
+    private static final int ID_BITS = 26;
+    private static final long ID_MASK = (1L << ID_BITS) - 1;
+
+    private final int maxDistance;
+    private final IntFunction<String> words;
+    private final LongBuffer keys;
+    private final IntBuffer offsets;
+    private final IntBuffer postings;
+
+    SuggestionIndex(int maxDistance, IntFunction<String> words,
+                    LongBuffer keys, IntBuffer offsets, IntBuffer postings) {
+        this.maxDistance = maxDistance;
+        this.words = words;
+        this.keys = keys;
+        this.offsets = offsets;
+        this.postings = postings;
+    }
+
+    // Слова передаются в порядке их номеров, words возвращает слово по номеру
+    static SuggestionIndex build(int maxDistance, Iterable<String> wordsInOrder, IntFunction<String> words) {
+        long[] entries = new long[64];
+        int entryCount = 0;
+        int id = 0;
+
+        for (String word : wordsInOrder) {
+            if (id > ID_MASK) {
+                throw new IllegalStateException("Слишком много слов для индекса подсказок: " + id);
+            }
+            long[] hashes = deleteHashes(word, maxDistance);
+            if (entryCount + hashes.length > entries.length) {
+                entries = Arrays.copyOf(entries, Math.max(entries.length * 2, entryCount + hashes.length));
+            }
+            for (long hash : hashes) {
+                entries[entryCount++] = (hash << ID_BITS) | id;
+            }
+            id++;
+        }
+
+        Arrays.sort(entries, 0, entryCount);
+
+        long[] keys = new long[entryCount];
+        int[] offsets = new int[entryCount + 1];
+        int[] postings = new int[entryCount];
+        int keyCount = 0;
+        int postingCount = 0;
+        long previous = -1;
+
+        for (int i = 0; i < entryCount; i++) {
+            long entry = entries[i];
+            if (entry == previous) continue;
+
+            long key = entry >>> ID_BITS;
+            if (keyCount == 0 || keys[keyCount - 1] != key) {
+                keys[keyCount] = key;
+                offsets[keyCount] = postingCount;
+                keyCount++;
+            }
+            postings[postingCount++] = (int) (entry & ID_MASK);
+            previous = entry;
+        }
+        offsets[keyCount] = postingCount;
+
+        return new SuggestionIndex(maxDistance, words,
+                LongBuffer.wrap(Arrays.copyOf(keys, keyCount)),
+                IntBuffer.wrap(Arrays.copyOf(offsets, keyCount + 1)),
+                IntBuffer.wrap(Arrays.copyOf(postings, postingCount)));
+    }
+
+    // Результат упорядочен по расстоянию, при равном расстоянии - по алфавиту
+    Lookup lookup(String input, int distance, int limit) {
+        int maxDist = Math.min(distance, maxDistance);
+
+        int[] candidates = new int[16];
+        int candidateCount = 0;
+        for (long hash : deleteHashes(input, maxDist)) {
+            int key = findKey(hash);
+            if (key < 0) continue;
+
+            int from = offsets.get(key);
+            int to = offsets.get(key + 1);
+            if (candidateCount + to - from > candidates.length) {
+                candidates = Arrays.copyOf(candidates, Math.max(candidates.length * 2, candidateCount + to - from));
+            }
+            for (int posting = from; posting < to; posting++) {
+                candidates[candidateCount++] = postings.get(posting);
+            }
+        }
+
+        Arrays.sort(candidates, 0, candidateCount);
+
+        List<Suggestion> matches = new ArrayList<>();
+        int scanned = 0;
+        for (int i = 0; i < candidateCount; i++) {
+            if (i > 0 && candidates[i] == candidates[i - 1]) continue;
+            scanned++;
+
+            String word = words.apply(candidates[i]);
+            if (Math.abs(word.length() - input.length()) > maxDist) continue;
+
+            int wordDistance = EditDistance.damerau(input, word, maxDist);
+            if (wordDistance <= maxDist) {
+                matches.add(new Suggestion(word, wordDistance));
+            }
+        }
+
+        matches.sort(Suggestion.ORDER);
+        return new Lookup(matches.size() > limit ? new ArrayList<>(matches.subList(0, limit)) : matches, scanned);
+    }
+
+    long memoryFootprint() {
+        return 8L * keys.limit() + 4L * offsets.limit() + 4L * postings.limit();
+    }
+
+    // Доступ к массивам для записи бинарного образа словаря
+    int maxDistance() { return maxDistance; }
+    LongBuffer keys() { return keys.duplicate(); }
+    IntBuffer offsets() { return offsets.duplicate(); }
+    IntBuffer postings() { return postings.duplicate(); }
+
+    private int findKey(long hash) {
+        int low = 0;
+        int high = keys.limit() - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            long key = keys.get(middle);
+            if (key < hash) {
+                low = middle + 1;
+            } else if (key > hash) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    // Хеши всех вариантов префикса с удалением не более distance символов
+    private static long[] deleteHashes(String word, int distance) {
+        int length = Math.min(word.length(), PREFIX_LENGTH);
+        long[] hashes = new long[1 + length + length * (length - 1) / 2];
+        int count = 0;
+
+        hashes[count++] = hash(word, length, -1, -1);
+        if (distance >= 1) {
+            for (int i = 0; i < length; i++) {
+                hashes[count++] = hash(word, length, i, -1);
+            }
+        }
+        if (distance >= 2) {
+            for (int i = 0; i < length; i++) {
+                for (int j = i + 1; j < length; j++) {
+                    hashes[count++] = hash(word, length, i, j);
+                }
+            }
+        }
+
+        return count == hashes.length ? hashes : Arrays.copyOf(hashes, count);
+    }
+
+    // FNV-1a по символам префикса без пропущенных позиций. Хеш укорачивается так, чтобы
+    // вместе с номером слова поместиться в неотрицательный long и сортироваться по ключу
+    private static long hash(String word, int length, int skipFirst, int skipSecond) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < length; i++) {
+            if (i == skipFirst || i == skipSecond) continue;
+            hash ^= word.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 29;
+        return hash >>> (ID_BITS + 1);
+    }
+
+    // candidates - число разных слов-кандидатов, просмотренных при поиске
+    record Lookup(List<Suggestion> suggestions, int candidates) {}
+
+    record Suggestion(String word, int distance) {
+        static final Comparator<Suggestion> ORDER =
+                Comparator.comparingInt(Suggestion::distance).thenComparing(Suggestion::word);
+    }
+}
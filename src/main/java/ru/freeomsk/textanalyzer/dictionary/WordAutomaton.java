@@ -0,0 +1,367 @@
+package ru.freeomsk.textanalyzer.dictionary;
+
+import java.nio.CharBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.util.*;
+import java.util.function.Consumer;
+
+// Минимальный ациклический автомат (DAWG): общие префиксы и суффиксы слов хранятся один раз,
+// состояния и переходы лежат в плоских массивах примитивов - в куче или в отображенном в память файле.
+// Слова пронумерованы в алфавитном порядке (совершенное хеширование), поэтому
+// номер слова можно использовать вместо самой строки
+public final class WordAutomaton {
+
+    private static final int ROOT = 0;
+    private static final int BINARY_SEARCH_THRESHOLD = 8;
+
+    private final IntBuffer arcOffsets;
+    private final CharBuffer arcLabels;
+    private final IntBuffer arcTargets;
+    private final IntBuffer wordCounts;
+    private final LongBuffer finalStates;
+
+    WordAutomaton(IntBuffer arcOffsets, CharBuffer arcLabels, IntBuffer arcTargets,
+                  IntBuffer wordCounts, LongBuffer finalStates) {
+        this.arcOffsets = arcOffsets;
+        this.arcLabels = arcLabels;
+        this.arcTargets = arcTargets;
+        this.wordCounts = wordCounts;
+        this.finalStates = finalStates;
+    }
+
+    public static WordAutomaton build(Collection<String> words) {
+        Builder builder = new Builder();
+        for (String word : new TreeSet<>(words)) {
+            builder.add(word);
+        }
+        return builder.finish();
+    }
+
+    public boolean contains(CharSequence word) {
+        return contains(word, 0, word.length());
+    }
+
+    // Проверка подстроки [start, end) без ее копирования
+    public boolean contains(CharSequence word, int start, int end) {
+        int state = ROOT;
+        for (int i = start; i < end; i++) {
+            int arc = findArc(state, word.charAt(i));
+            if (arc < 0) return false;
+            state = arcTargets.get(arc);
+        }
+        return isFinal(state);
+    }
+
+    public int indexOf(CharSequence word) {
+        return indexOf(word, 0, word.length());
+    }
+
+    // Номер подстроки [start, end) или -1, если ее нет в словаре
+    public int indexOf(CharSequence word, int start, int end) {
+        int state = ROOT;
+        int index = 0;
+
+        for (int i = start; i < end; i++) {
+            char c = word.charAt(i);
+            if (isFinal(state)) index++;
+
+            int arc = arcOffsets.get(state);
+            int arcEnd = arcOffsets.get(state + 1);
+            while (arc < arcEnd && arcLabels.get(arc) < c) {
+                index += wordCounts.get(arcTargets.get(arc));
+                arc++;
+            }
+            if (arc == arcEnd || arcLabels.get(arc) != c) return -1;
+            state = arcTargets.get(arc);
+        }
+
+        return isFinal(state) ? index : -1;
+    }
+
+    public String wordAt(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Нет слова с номером " + index);
+        }
+
+        StringBuilder word = new StringBuilder();
+        int state = ROOT;
+        int remaining = index;
+
+        while (true) {
+            if (isFinal(state)) {
+                if (remaining == 0) return word.toString();
+                remaining--;
+            }
+            for (int arc = arcOffsets.get(state); arc < arcOffsets.get(state + 1); arc++) {
+                int count = wordCounts.get(arcTargets.get(arc));
+                if (remaining < count) {
+                    word.append(arcLabels.get(arc));
+                    state = arcTargets.get(arc);
+                    break;
+                }
+                remaining -= count;
+            }
+        }
+    }
+
+    // Перебор слов в алфавитном порядке, то есть в порядке их номеров
+    public void forEach(Consumer<String> action) {
+        collect(ROOT, new StringBuilder(), action);
+    }
+
+    public int size() {
+        return wordCounts.get(ROOT);
+    }
+
+    public int stateCount() {
+        return arcOffsets.limit() - 1;
+    }
+
+    public int arcCount() {
+        return arcLabels.limit();
+    }
+
+    public long memoryFootprint() {
+        return 4L * arcOffsets.limit() + 2L * arcLabels.limit() + 4L * arcTargets.limit()
+                + 4L * wordCounts.limit() + 8L * finalStates.limit();
+    }
+
+    // Пошаговый обход автомата: позволяет за один проход по слову найти все его префиксы из словаря
+    int rootState() {
+        return ROOT;
+    }
+
+    int transition(int state, char label) {
+        int arc = findArc(state, label);
+        return arc < 0 ? -1 : arcTargets.get(arc);
+    }
+
+    boolean isAccepting(int state) {
+        return isFinal(state);
+    }
+
+    // Доступ к массивам для записи бинарного образа словаря
+    IntBuffer arcOffsets() { return arcOffsets.duplicate(); }
+    CharBuffer arcLabels() { return arcLabels.duplicate(); }
+    IntBuffer arcTargets() { return arcTargets.duplicate(); }
+    IntBuffer wordCounts() { return wordCounts.duplicate(); }
+    LongBuffer finalStates() { return finalStates.duplicate(); }
+
+    private void collect(int state, StringBuilder prefix, Consumer<String> action) {
+        if (isFinal(state)) {
+            action.accept(prefix.toString());
+        }
+        for (int arc = arcOffsets.get(state); arc < arcOffsets.get(state + 1); arc++) {
+            prefix.append(arcLabels.get(arc));
+            collect(arcTargets.get(arc), prefix, action);
+            prefix.setLength(prefix.length() - 1);
+        }
+    }
+
+    private int findArc(int state, char label) {
+        int low = arcOffsets.get(state);
+        int high = arcOffsets.get(state + 1) - 1;
+
+        if (high - low < BINARY_SEARCH_THRESHOLD) {
+            for (int arc = low; arc <= high; arc++) {
+                if (arcLabels.get(arc) == label) return arc;
+            }
+            return -1;
+        }
+
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            char middleLabel = arcLabels.get(middle);
+            if (middleLabel < label) {
+                low = middle + 1;
+            } else if (middleLabel > label) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    private boolean isFinal(int state) {
+        return (finalStates.get(state >>> 6) & (1L << state)) != 0;
+    }
+
+    // Построение по алгоритму Дацюка для отсортированного списка слов:
+    // законченные ветви сразу сливаются с эквивалентными состояниями из реестра
+    private static final class Builder {
+        private final Node root = new Node();
+        private final Map<Node, Node> register = new HashMap<>();
+        private String previousWord = "";
+
+        void add(String word) {
+            int common = 0;
+            int limit = Math.min(word.length(), previousWord.length());
+            while (common < limit && word.charAt(common) == previousWord.charAt(common)) {
+                common++;
+            }
+
+            Node state = root;
+            for (int i = 0; i < common; i++) {
+                state = state.lastChild();
+            }
+
+            if (state.size > 0) {
+                replaceOrRegister(state);
+            }
+
+            for (int i = common; i < word.length(); i++) {
+                Node next = new Node();
+                state.append(word.charAt(i), next);
+                state = next;
+            }
+            state.terminal = true;
+            previousWord = word;
+        }
+
+        WordAutomaton finish() {
+            if (root.size > 0) {
+                replaceOrRegister(root);
+            }
+
+            // Нумерация состояний в порядке обхода, корень получает номер 0
+            Map<Node, Integer> ids = new IdentityHashMap<>();
+            List<Node> order = new ArrayList<>();
+            Deque<Node> stack = new ArrayDeque<>();
+            ids.put(root, 0);
+            order.add(root);
+            stack.push(root);
+            int arcCount = 0;
+
+            while (!stack.isEmpty()) {
+                Node node = stack.pop();
+                arcCount += node.size;
+                for (int i = node.size - 1; i >= 0; i--) {
+                    Node child = node.targets[i];
+                    if (!ids.containsKey(child)) {
+                        ids.put(child, order.size());
+                        order.add(child);
+                        stack.push(child);
+                    }
+                }
+            }
+
+            int stateCount = order.size();
+            int[] arcOffsets = new int[stateCount + 1];
+            char[] arcLabels = new char[arcCount];
+            int[] arcTargets = new int[arcCount];
+            long[] finalStates = new long[(stateCount + 63) >>> 6];
+
+            int arc = 0;
+            for (int state = 0; state < stateCount; state++) {
+                Node node = order.get(state);
+                arcOffsets[state] = arc;
+                if (node.terminal) {
+                    finalStates[state >>> 6] |= 1L << state;
+                }
+                for (int i = 0; i < node.size; i++) {
+                    arcLabels[arc] = node.labels[i];
+                    arcTargets[arc] = ids.get(node.targets[i]);
+                    arc++;
+                }
+            }
+            arcOffsets[stateCount] = arc;
+
+            int[] wordCounts = countWords(arcOffsets, arcTargets, finalStates, stateCount);
+            return new WordAutomaton(IntBuffer.wrap(arcOffsets), CharBuffer.wrap(arcLabels),
+                    IntBuffer.wrap(arcTargets), IntBuffer.wrap(wordCounts), LongBuffer.wrap(finalStates));
+        }
+
+        private void replaceOrRegister(Node state) {
+            Node child = state.lastChild();
+            if (child.size > 0) {
+                replaceOrRegister(child);
+            }
+
+            Node equivalent = register.putIfAbsent(child, child);
+            if (equivalent != null) {
+                state.targets[state.size - 1] = equivalent;
+            }
+        }
+
+        private static int[] countWords(int[] arcOffsets, int[] arcTargets, long[] finalStates, int stateCount) {
+            int[] counts = new int[stateCount];
+            boolean[] done = new boolean[stateCount];
+            Deque<Integer> stack = new ArrayDeque<>();
+            stack.push(ROOT);
+
+            // Итеративный обход в обратном порядке: число слов состояния известно после его потомков
+            while (!stack.isEmpty()) {
+                int state = stack.peek();
+                if (done[state]) {
+                    stack.pop();
+                    continue;
+                }
+
+                boolean ready = true;
+                for (int arc = arcOffsets[state]; arc < arcOffsets[state + 1]; arc++) {
+                    if (!done[arcTargets[arc]]) {
+                        stack.push(arcTargets[arc]);
+                        ready = false;
+                    }
+                }
+                if (!ready) continue;
+
+                int count = (finalStates[state >>> 6] & (1L << state)) != 0 ? 1 : 0;
+                for (int arc = arcOffsets[state]; arc < arcOffsets[state + 1]; arc++) {
+                    count += counts[arcTargets[arc]];
+                }
+                counts[state] = count;
+                done[state] = true;
+                stack.pop();
+            }
+
+            return counts;
+        }
+    }
+
+    // Состояние строящегося автомата; равенство - по структуре переходов,
+    // что позволяет искать эквивалентные состояния в реестре
+    private static final class Node {
+        private char[] labels = new char[2];
+        private Node[] targets = new Node[2];
+        private int size;
+        private boolean terminal;
+
+        void append(char label, Node target) {
+            if (size == labels.length) {
+                labels = Arrays.copyOf(labels, size * 2);
+                targets = Arrays.copyOf(targets, size * 2);
+            }
+            labels[size] = label;
+            targets[size] = target;
+            size++;
+        }
+
+        Node lastChild() {
+            return targets[size - 1];
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Node other)) return false;
+            if (terminal != other.terminal || size != other.size) return false;
+            for (int i = 0; i < size; i++) {
+                if (labels[i] != other.labels[i] || targets[i] != other.targets[i]) return false;
+            }
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = terminal ? 1 : 0;
+            for (int i = 0; i < size; i++) {
+                hash = 31 * hash + labels[i];
+                hash = 31 * hash + System.identityHashCode(targets[i]);
+            }
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package ru.freeomsk.textanalyzer.job;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Задание анализа корпуса: входной файл JSONL (один запрос /analyze на строку)
+// и файл результатов в каталоге задания, в который результаты только дописываются
+public class Job {
+
+    static final String RECORD_FILE = "job.json";
+    static final String INPUT_FILE = "input.jsonl";
+    static final String RESULTS_FILE = "results.jsonl";
+
+    private final String id;
+    private final Path directory;
+    private final Path input;
+    private final long createdAt;
+
+    private volatile JobStatus status;
+    // -1, пока входной файл не подсчитан
+    private volatile long total;
+    private volatile Long finishedAt;
+    private volatile String error;
+
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong succeeded = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    // Скорость считается по текущему запуску: после перезапуска уже готовые строки не учитываются
+    private volatile long runStartedNanos;
+    private volatile long processedAtRunStart;
+
+    Job(String id, Path directory, Path input, long createdAt) {
+        this.id = id;
+        this.directory = directory;
+        this.input = input;
+        this.createdAt = createdAt;
+        this.status = JobStatus.QUEUED;
+        this.total = -1;
+    }
+
+    static Job restore(Path directory, JobRecord record) {
+        Job job = new Job(record.id(), directory, Path.of(record.input()), record.createdAt());
+        job.status = record.status();
+        job.total = record.total();
+        job.finishedAt = record.finishedAt();
+        job.error = record.error();
+        job.processed.set(record.processed());
+        job.succeeded.set(record.succeeded());
+        job.failed.set(record.failed());
+        return job;
+    }
+
+    JobRecord toRecord() {
+        return new JobRecord(id, input.toString(), status, total, processed.get(), succeeded.get(),
+                failed.get(), createdAt, finishedAt, error);
+    }
+
+    void start(long total, long succeededBefore, long failedBefore) {
+        this.total = total;
+        this.succeeded.set(succeededBefore);
+        this.failed.set(failedBefore);
+        this.processed.set(succeededBefore + failedBefore);
+        this.processedAtRunStart = processed.get();
+        this.runStartedNanos = System.nanoTime();
+        this.status = JobStatus.RUNNING;
+    }
+
+    void recordResult(boolean success) {
+        (success ? succeeded : failed).incrementAndGet();
+        processed.incrementAndGet();
+    }
+
+    void finish(JobStatus status, String error) {
+        this.error = error;
+        this.finishedAt = System.currentTimeMillis();
+        this.status = status;
+    }
+
+    @JsonIgnore
+    Path getDirectory() {
+        return directory;
+    }
+
+    @JsonIgnore
+    Path getInput() {
+        return input;
+    }
+
+    @JsonIgnore
+    Path getResultsFile() {
+        return directory.resolve(RESULTS_FILE);
+    }
+
+    // Getters
+    public String getId() { return id; }
+    public JobStatus getStatus() { return status; }
+    public long getTotal() { return total; }
+    public long getProcessed() { return processed.get(); }
+    public long getSucceeded() { return succeeded.get(); }
+    public long getFailed() { return failed.get(); }
+    public long getCreatedAt() { return createdAt; }
+    public Long getFinishedAt() { return finishedAt; }
+    public String getError() { return error; }
+
+    public double getProgress() {
+        long total = this.total;
+        if (total <= 0) return status == JobStatus.COMPLETED ? 1.0 : 0.0;
+        return Math.round(processed.get() * 10000.0 / total) / 10000.0;
+    }
+
+    public double getItemsPerSecond() {
+        if (status != JobStatus.RUNNING) return 0;
+        long elapsedNanos = System.nanoTime() - runStartedNanos;
+        if (elapsedNanos <= 0) return 0;
+        double rate = (processed.get() - processedAtRunStart) / (elapsedNanos / 1e9);
+        return Math.round(rate * 100) / 100.0;
+    }
+
+    // Оценка оставшегося времени по скорости текущего запуска; null, пока оценить нельзя
+    public Long getEtaSeconds() {
+        double rate = getItemsPerSecond();
+        long total = this.total;
+        if (rate <= 0 || total < 0) return null;
+        return (long) Math.ceil(Math.max(0, total - processed.get()) / rate);
+    }
+
+    public long getElapsedSeconds() {
+        long end = finishedAt != null ? finishedAt : System.currentTimeMillis();
+        return TimeUnit.MILLISECONDS.toSeconds(end - createdAt);
+    }
+}
@@ -0,0 +1,6 @@
+package ru.freeomsk.textanalyzer.job;
+
+// Описание задания в файле job.json; по нему незавершенные задания продолжаются после перезапуска.
+// Счетчики обновляются при смене статуса, точный прогресс восстанавливается по файлу результатов
+record JobRecord(String id, String input, JobStatus status, long total, long processed, long succeeded,
+                 long failed, long createdAt, Long finishedAt, String error) {}
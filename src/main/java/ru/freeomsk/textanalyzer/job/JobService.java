@@ -0,0 +1,290 @@
+package ru.freeomsk.textanalyzer.job;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.springframework.aot.hint.annotation.RegisterReflectionForBinding;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import ru.freeomsk.textanalyzer.model.BatchItemResult;
+import ru.freeomsk.textanalyzer.service.BatchAnalyzer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Задания анализа корпусов, которые не помещаются в один HTTP-запрос.
+// Элементы всех заданий анализируются общим пулом из workers одновременных задач, результаты
+// дописываются в файл задания по мере готовности. Незавершенные задания продолжаются
+// после перезапуска с элементов, результатов которых еще нет в файле
+@Service
+@RegisterReflectionForBinding(JobRecord.class)
+public class JobService {
+
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    private final BatchAnalyzer batchAnalyzer;
+    private final ExecutorService executorService;
+    private final ObjectMapper objectMapper;
+    private final Path jobsDir;
+    private final Path inputDir;
+    private final Semaphore workers;
+    private final int workerCount;
+    private final boolean resume;
+
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+    private final Map<String, Future<?>> running = new ConcurrentHashMap<>();
+    private final Map<String, ResultSpool> spools = new ConcurrentHashMap<>();
+    private volatile boolean stopping;
+
+    public JobService(BatchAnalyzer batchAnalyzer,
+                      @Qualifier("analysisExecutor") ExecutorService executorService,
+                      ObjectMapper objectMapper,
+                      @Value("${jobs.dir:jobs}") String jobsDir,
+                      @Value("${jobs.input-dir:jobs/input}") String inputDir,
+                      @Value("${jobs.workers:0}") int workers,
+                      @Value("${jobs.resume:true}") boolean resume) {
+        this.batchAnalyzer = batchAnalyzer;
+        this.executorService = executorService;
+        this.objectMapper = objectMapper;
+        this.jobsDir = Path.of(jobsDir).toAbsolutePath().normalize();
+        this.inputDir = Path.of(inputDir).toAbsolutePath().normalize();
+        // 0 - по числу ядер
+        this.workerCount = workers > 0 ? workers : Runtime.getRuntime().availableProcessors();
+        this.workers = new Semaphore(workerCount);
+        this.resume = resume;
+    }
+
+    // Задания, прерванные остановкой или сбоем, продолжаются после запуска приложения.
+    // jobs.resume=false - не продолжать (пакетный режим без веб-сервера)
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeJobs() {
+        if (!resume || !Files.isDirectory(jobsDir)) return;
+
+        try (DirectoryStream<Path> directories = Files.newDirectoryStream(jobsDir, Files::isDirectory)) {
+            for (Path directory : directories) {
+                Path recordFile = directory.resolve(Job.RECORD_FILE);
+                if (!Files.exists(recordFile)) continue;
+                try {
+                    Job job = Job.restore(directory, objectMapper.readValue(recordFile.toFile(), JobRecord.class));
+                    jobs.put(job.getId(), job);
+                    if (!job.getStatus().isFinished()) {
+                        start(job);
+                    }
+                } catch (IOException e) {
+                    System.err.println("Ошибка загрузки задания " + directory + ": " + e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Ошибка чтения каталога заданий: " + e.getMessage());
+        }
+    }
+
+    // Задание из загруженного файла: он копируется в каталог задания потоком, без чтения в память
+    public Job submit(InputStream upload) throws IOException {
+        String id = UUID.randomUUID().toString();
+        Path directory = Files.createDirectories(jobsDir.resolve(id));
+        Path input = directory.resolve(Job.INPUT_FILE);
+        Files.copy(upload, input, StandardCopyOption.REPLACE_EXISTING);
+        return create(id, directory, input);
+    }
+
+    // Задание из локального файла; допускаются только файлы внутри jobs.input-dir
+    public Job submit(String path) throws IOException {
+        if (path == null || path.isBlank()) {
+            throw new IllegalArgumentException("Путь к файлу не может быть пустым");
+        }
+        Path input = inputDir.resolve(path).normalize();
+        if (!input.startsWith(inputDir)) {
+            throw new IllegalArgumentException("Файл должен находиться в каталоге " + inputDir);
+        }
+        if (!Files.isRegularFile(input)) {
+            throw new IllegalArgumentException("Файл не найден: " + path);
+        }
+
+        String id = UUID.randomUUID().toString();
+        return create(id, Files.createDirectories(jobsDir.resolve(id)), input);
+    }
+
+    public Job getJob(String id) {
+        return jobs.get(id);
+    }
+
+    public List<Job> getJobs() {
+        List<Job> list = new ArrayList<>(jobs.values());
+        list.sort(Comparator.comparingLong(Job::getCreatedAt).reversed());
+        return list;
+    }
+
+    public ResultPage getResults(Job job, long cursor, int limit) throws IOException {
+        if (limit <= 0 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Размер страницы должен быть от 1 до " + MAX_PAGE_SIZE);
+        }
+        // Статус читается до файла: если задание завершено, все его строки уже сброшены на диск
+        boolean finished = job.getStatus().isFinished();
+        long committed = committedLength(job);
+        ResultSpool.Page page = ResultSpool.read(job.getResultsFile(), objectMapper, cursor, limit, committed);
+        return new ResultPage(page.items(), page.nextCursor(), finished && page.nextCursor() == committed);
+    }
+
+    public int getWorkerCount() {
+        return workerCount;
+    }
+
+    public int getActiveWorkers() {
+        return workerCount - workers.availablePermits();
+    }
+
+    // Задания, ожидающие свободного слота для следующего элемента
+    public int getWaitingJobs() {
+        return workers.getQueueLength();
+    }
+
+    @PreDestroy
+    public void stop() {
+        // Задания остаются в статусе RUNNING и продолжатся после перезапуска
+        stopping = true;
+        running.values().forEach(future -> future.cancel(true));
+    }
+
+    private Job create(String id, Path directory, Path input) throws IOException {
+        Job job = new Job(id, directory, input, System.currentTimeMillis());
+        save(job);
+        jobs.put(id, job);
+        start(job);
+        return job;
+    }
+
+    private void start(Job job) {
+        running.put(job.getId(), executorService.submit(() -> run(job)));
+    }
+
+    private long committedLength(Job job) throws IOException {
+        ResultSpool spool = spools.get(job.getId());
+        if (spool != null) return spool.committed();
+        return Files.exists(job.getResultsFile()) ? Files.size(job.getResultsFile()) : 0;
+    }
+
+    private void run(Job job) {
+        try {
+            ResultSpool.Recovered recovered = ResultSpool.recover(job.getResultsFile());
+            job.start(countItems(job.getInput()), recovered.succeeded(), recovered.failed());
+            save(job);
+
+            try (ResultSpool spool = ResultSpool.open(job.getResultsFile(), recovered.length())) {
+                spools.put(job.getId(), spool);
+                processItems(job, spool, recovered);
+            } finally {
+                spools.remove(job.getId());
+            }
+
+            job.finish(JobStatus.COMPLETED, null);
+            save(job);
+        } catch (InterruptedException e) {
+            // Остановка приложения: задание продолжится после перезапуска
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            if (!stopping) {
+                job.finish(JobStatus.FAILED, e.getMessage());
+                saveQuietly(job);
+            }
+        } finally {
+            running.remove(job.getId());
+        }
+    }
+
+    private void processItems(Job job, ResultSpool spool, ResultSpool.Recovered recovered) throws Exception {
+        // Регистрация в Phaser - незавершенный элемент; в конце задание дожидается всех своих элементов
+        Phaser inFlight = new Phaser(1);
+        AtomicReference<Exception> writeError = new AtomicReference<>();
+
+        try (BufferedReader reader = Files.newBufferedReader(job.getInput(), StandardCharsets.UTF_8)) {
+            String line;
+            int index = -1;
+            while ((line = reader.readLine()) != null) {
+                index++;
+                if (line.isBlank() || recovered.done().get(index)) continue;
+                if (stopping || writeError.get() != null) break;
+
+                workers.acquire();
+                inFlight.register();
+                int itemIndex = index;
+                String itemLine = line;
+                try {
+                    executorService.submit(() -> {
+                        try {
+                            BatchItemResult result = analyzeLine(itemIndex, itemLine);
+                            spool.append(objectMapper.writeValueAsBytes(result));
+                            job.recordResult(result.success());
+                        } catch (Exception e) {
+                            writeError.compareAndSet(null, e);
+                        } finally {
+                            workers.release();
+                            inFlight.arriveAndDeregister();
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    workers.release();
+                    inFlight.arriveAndDeregister();
+                    throw e;
+                }
+            }
+        } finally {
+            inFlight.arriveAndAwaitAdvance();
+        }
+
+        if (writeError.get() != null) {
+            throw writeError.get();
+        }
+        if (stopping) {
+            throw new InterruptedException("Остановка приложения");
+        }
+    }
+
+    private BatchItemResult analyzeLine(int index, String line) {
+        BatchAnalyzer.Item item;
+        try {
+            item = objectMapper.readValue(line, BatchAnalyzer.Item.class);
+        } catch (JsonProcessingException e) {
+            return BatchItemResult.failed(index, "Некорректная строка JSON: " + e.getOriginalMessage(), 0);
+        }
+        return batchAnalyzer.analyzeItem(index, item);
+    }
+
+    private static long countItems(Path input) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(input, StandardCharsets.UTF_8)) {
+            return reader.lines().filter(line -> !line.isBlank()).count();
+        }
+    }
+
+    // Описание записывается во временный файл и атомарно заменяет прежнее
+    private void save(Job job) throws IOException {
+        Path recordFile = job.getDirectory().resolve(Job.RECORD_FILE);
+        Path temporary = job.getDirectory().resolve(Job.RECORD_FILE + ".tmp");
+        objectMapper.writeValue(temporary.toFile(), job.toRecord());
+        Files.move(temporary, recordFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void saveQuietly(Job job) {
+        try {
+            save(job);
+        } catch (IOException e) {
+            System.err.println("Ошибка сохранения задания " + job.getId() + ": " + e.getMessage());
+        }
+    }
+}
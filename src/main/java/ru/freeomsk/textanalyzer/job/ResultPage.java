@@ -0,0 +1,9 @@
+package ru.freeomsk.textanalyzer.job;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.List;
+
+// Страница результатов задания. nextCursor передается в следующий запрос;
+// complete - задание завершено и все его результаты прочитаны
+public record ResultPage(List<JsonNode> items, long nextCursor, boolean complete) {}
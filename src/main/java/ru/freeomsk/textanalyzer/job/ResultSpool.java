@@ -0,0 +1,205 @@
+package ru.freeomsk.textanalyzer.job;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Файл результатов задания: одна JSON-строка на элемент, строки только дописываются.
+// Читателям видны только сброшенные на диск строки (committed), поэтому страница
+// никогда не содержит недописанную строку. Курсор страницы - смещение в байтах
+final class ResultSpool implements Closeable {
+
+    // Буфер сбрасывается не реже раза в секунду или каждые FLUSH_LINES строк
+    private static final int FLUSH_LINES = 256;
+    private static final long FLUSH_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final OutputStream out;
+    private long written;
+    private volatile long committed;
+    private int pendingLines;
+    private long lastFlushNanos = System.nanoTime();
+
+    private ResultSpool(OutputStream out, long length) {
+        this.out = out;
+        this.written = length;
+        this.committed = length;
+    }
+
+    static ResultSpool open(Path file, long length) throws IOException {
+        OutputStream out = Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        return new ResultSpool(new BufferedOutputStream(out, 1 << 16), length);
+    }
+
+    // Готовые элементы в уже записанном файле; недописанная последняя строка (сбой при записи) отрезается
+    static Recovered recover(Path file) throws IOException {
+        BitSet done = new BitSet();
+        long succeeded = 0;
+        long failed = 0;
+        long validLength = 0;
+
+        if (Files.exists(file)) {
+            ObjectMapper mapper = new ObjectMapper();
+            try (InputStream in = Files.newInputStream(file)) {
+                LineReader lines = new LineReader(in, 0);
+                while (lines.next()) {
+                    Status status = readStatus(mapper, lines.line, lines.length);
+                    if (status == null) break;
+                    done.set(status.index());
+                    if (status.success()) succeeded++;
+                    else failed++;
+                    validLength = lines.offset;
+                }
+            }
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                if (channel.size() > validLength) channel.truncate(validLength);
+            }
+        }
+
+        return new Recovered(done, succeeded, failed, validLength);
+    }
+
+    synchronized void append(byte[] line) throws IOException {
+        out.write(line);
+        out.write('\n');
+        written += line.length + 1;
+        pendingLines++;
+        if (pendingLines >= FLUSH_LINES || System.nanoTime() - lastFlushNanos >= FLUSH_INTERVAL_NANOS) {
+            flush();
+        }
+    }
+
+    synchronized void flush() throws IOException {
+        out.flush();
+        committed = written;
+        pendingLines = 0;
+        lastFlushNanos = System.nanoTime();
+    }
+
+    long committed() {
+        return committed;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        flush();
+        out.close();
+    }
+
+    // Чтение до limit строк с позиции cursor, не дальше committed
+    static Page read(Path file, ObjectMapper mapper, long cursor, int limit, long committed) throws IOException {
+        if (cursor < 0 || cursor > committed) {
+            throw new IllegalArgumentException("Некорректный курсор: " + cursor);
+        }
+        List<JsonNode> items = new ArrayList<>(Math.min(limit, 1024));
+        if (cursor == committed || !Files.exists(file)) {
+            return new Page(items, cursor);
+        }
+
+        long next = cursor;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            channel.position(cursor);
+            LineReader lines = new LineReader(Channels.newInputStream(channel), cursor);
+            while (items.size() < limit && lines.offset < committed && lines.next()) {
+                try {
+                    items.add(mapper.readTree(lines.line, 0, lines.length));
+                } catch (IOException e) {
+                    throw new IllegalArgumentException("Курсор " + cursor + " не указывает на начало строки");
+                }
+                next = lines.offset;
+            }
+        }
+        return new Page(items, next);
+    }
+
+    // Из строки читаются только поля index и success, сам результат не разбирается
+    private static Status readStatus(ObjectMapper mapper, byte[] line, int length) {
+        try (JsonParser parser = mapper.getFactory().createParser(line, 0, length)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) return null;
+            Integer index = null;
+            Boolean success = null;
+            while ((index == null || success == null) && parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                if (field.equals("index")) {
+                    index = parser.getIntValue();
+                } else if (field.equals("success")) {
+                    success = parser.getBooleanValue();
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            return index != null && success != null ? new Status(index, success) : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private record Status(int index, boolean success) {}
+
+    record Recovered(BitSet done, long succeeded, long failed, long length) {}
+
+    record Page(List<JsonNode> items, long nextCursor) {}
+
+    // Чтение полных строк блоками; недописанный хвост файла строкой не считается
+    private static final class LineReader {
+        private final InputStream in;
+        private final byte[] buffer = new byte[1 << 16];
+        private int position;
+        private int limit;
+
+        byte[] line = new byte[1024];
+        int length;
+        // Смещение сразу после последней прочитанной строки
+        long offset;
+
+        LineReader(InputStream in, long offset) {
+            this.in = in;
+            this.offset = offset;
+        }
+
+        boolean next() throws IOException {
+            length = 0;
+            while (true) {
+                if (position == limit) {
+                    limit = Math.max(in.read(buffer), 0);
+                    position = 0;
+                    if (limit == 0) return false;
+                }
+                int end = position;
+                while (end < limit && buffer[end] != '\n') end++;
+                append(position, end - position);
+                if (end < limit) {
+                    position = end + 1;
+                    offset += length + 1;
+                    return true;
+                }
+                position = limit;
+            }
+        }
+
+        private void append(int from, int count) {
+            if (length + count > line.length) {
+                line = Arrays.copyOf(line, Math.max(line.length * 2, length + count));
+            }
+            System.arraycopy(buffer, from, line, length, count);
+            length += count;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package ru.freeomsk.textanalyzer.model;
+
+// Событие потокового анализа: начало, находка одного из анализаторов, метрики или ошибка.
+// Метрики всегда отправляются последними
+public record AnalysisEvent(String type, Object data) {
+
+    public static final String START = "start";
+    public static final String SPELLING = "spelling";
+    public static final String GRAMMAR = "grammar";
+    public static final String PUNCTUATION = "punctuation";
+    public static final String STYLE = "style";
+    public static final String METRICS = "metrics";
+    public static final String ERROR = "error";
+}
@@ -0,0 +1,129 @@
+package ru.freeomsk.textanalyzer.model;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.io.Serial;
+import java.util.List;
+
+// Успешный ответ анализа. Пишется в JsonGenerator прямо из результата: находки из столбцов FindingsBuffer
+// не превращаются в объекты, а исходный текст можно не возвращать. Один и тот же сериализатор
+// работает для JSON, CBOR и Smile. page == null - все находки без ограничения
+@JsonSerialize(using = AnalysisResponse.Serializer.class)
+public record AnalysisResponse(String message, AnalysisResult result, boolean includeText, FindingsPage page) {
+
+    static final class Serializer extends StdSerializer<AnalysisResponse> {
+
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        Serializer() {
+            super(AnalysisResponse.class);
+        }
+
+        @Override
+        public void serialize(AnalysisResponse response, JsonGenerator gen, SerializerProvider provider)
+                throws IOException {
+            AnalysisResult result = response.result();
+            FindingsPage page = response.page();
+
+            gen.writeStartObject();
+            gen.writeBooleanField("success", true);
+            gen.writeStringField("message", response.message());
+
+            // Поля результата в том же порядке, что и у AnalysisResult
+            gen.writeObjectFieldStart("result");
+            if (response.includeText()) {
+                gen.writeStringField("originalText", result.getOriginalText());
+            }
+            gen.writeStringField("language", result.getLanguage());
+            writeFindings(gen, provider, "spellingErrors", result, FindingType.SPELLING, page);
+            writeFindings(gen, provider, "grammarErrors", result, FindingType.GRAMMAR, page);
+            writeFindings(gen, provider, "punctuationErrors", result, FindingType.PUNCTUATION, page);
+            writeFindings(gen, provider, "styleIssues", result, FindingType.STYLE, page);
+            provider.defaultSerializeField("metrics", result.getMetrics(), gen);
+            provider.defaultSerializeField("checks", result.getChecks(), gen);
+            gen.writeNumberField("dictionaryVersion", result.getDictionaryVersion());
+            gen.writeNumberField("totalErrors", result.getTotalErrors());
+            gen.writeEndObject();
+
+            if (page != null) {
+                gen.writeObjectFieldStart("page");
+                gen.writeNumberField("limit", page.limit());
+                gen.writeObjectFieldStart("offsets");
+                for (FindingType type : FindingType.values()) {
+                    gen.writeNumberField(type.id(), page.offset(type));
+                }
+                gen.writeEndObject();
+                gen.writeObjectFieldStart("totals");
+                for (FindingType type : FindingType.values()) {
+                    gen.writeNumberField(type.id(), result.count(type));
+                }
+                gen.writeEndObject();
+                gen.writeStringField("nextCursor", page.nextCursor());
+                gen.writeEndObject();
+            }
+            gen.writeEndObject();
+        }
+
+        private static void writeFindings(JsonGenerator gen, SerializerProvider provider, String field,
+                                          AnalysisResult result, FindingType type, FindingsPage page)
+                throws IOException {
+            int offset = page != null ? page.offset(type) : 0;
+            int limit = page != null ? page.limit() : Integer.MAX_VALUE;
+
+            gen.writeArrayFieldStart(field);
+            FindingsBuffer findings = result.getFindings();
+            if (findings == null) {
+                // Результат из готовых списков: объекты находок уже есть
+                List<? extends TextError> errors = result.list(type);
+                for (int i = offset; i < errors.size() && i - offset < limit; i++) {
+                    provider.defaultSerializeValue(errors.get(i), gen);
+                }
+            } else {
+                int seen = 0;
+                int written = 0;
+                for (int i = 0; i < findings.size() && written < limit; i++) {
+                    if (FindingKinds.get(findings.kind(i)).type() != type || seen++ < offset) continue;
+                    writeFinding(gen, findings, i, result.getOriginalText());
+                    written++;
+                }
+            }
+            gen.writeEndArray();
+        }
+
+        // Поля и их порядок совпадают с сериализацией подклассов TextError
+        private static void writeFinding(JsonGenerator gen, FindingsBuffer findings, int index, String source)
+                throws IOException {
+            FindingKinds.Kind kind = FindingKinds.get(findings.kind(index));
+            int start = findings.start(index);
+            Object detail = findings.detail(index);
+            String text = FindingKinds.text(kind, source, start, findings.end(index), detail);
+            String description = FindingKinds.description(kind, findings.argument(index));
+
+            gen.writeStartObject();
+            gen.writeStringField("text", text);
+            gen.writeNumberField("position", start);
+            gen.writeStringField("description", description);
+            gen.writeStringField("errorCode", kind.code());
+            switch (kind.type()) {
+                case SPELLING -> {
+                    gen.writeArrayFieldStart("suggestions");
+                    for (String suggestion : FindingKinds.suggestions(detail)) {
+                        gen.writeString(suggestion);
+                    }
+                    gen.writeEndArray();
+                }
+                case GRAMMAR -> gen.writeStringField("rule", kind.detail());
+                case PUNCTUATION -> gen.writeStringField("expected", kind.detail());
+                case STYLE -> gen.writeNumberField("severity", kind.severity());
+            }
+            gen.writeStringField("detailedDescription",
+                    TextError.detailedDescription(text, start, description, kind.code()));
+            gen.writeEndObject();
+        }
+    }
+}
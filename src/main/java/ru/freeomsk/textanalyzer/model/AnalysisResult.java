@@ -1,5 +1,7 @@
 package ru.freeomsk.textanalyzer.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import java.util.ArrayList;
 import java.util.List;
 
@@ -10,7 +12,14 @@ public class AnalysisResult {
     private final List<GrammarError> grammarErrors;
     private final List<PunctuationError> punctuationErrors;
     private final List<StyleIssue> styleIssues;
+    // Находки в столбцах; если заданы, списки находок создаются из них при каждом обращении (обычно
+    // один раз при сериализации ответа), а результат в кэше хранит только примитивы
+    private final FindingsBuffer findings;
+    // null, если метрики не запрашивались
     private final TextMetrics metrics;
+    // Выполненные проверки: пустой список находок невыбранной проверки не означает отсутствие ошибок
+    private final List<String> checks;
+    private final long dictionaryVersion;
 
     public AnalysisResult(String originalText, String language) {
         this.originalText = originalText;
@@ -19,7 +28,10 @@ public class AnalysisResult {
         this.grammarErrors = new ArrayList<>();
         this.punctuationErrors = new ArrayList<>();
         this.styleIssues = new ArrayList<>();
+        this.findings = null;
         this.metrics = new TextMetrics(0, 0, 0, 0, 0);
+        this.checks = List.of();
+        this.dictionaryVersion = 0;
     }
 
     public AnalysisResult(String originalText, String language,
@@ -27,26 +39,77 @@ public class AnalysisResult {
                           List<GrammarError> grammarErrors,
                           List<PunctuationError> punctuationErrors,
                           List<StyleIssue> styleIssues,
-                          TextMetrics metrics) {
+                          TextMetrics metrics,
+                          List<String> checks,
+                          long dictionaryVersion) {
         this.originalText = originalText;
         this.language = language;
         this.spellingErrors = spellingErrors;
         this.grammarErrors = grammarErrors;
         this.punctuationErrors = punctuationErrors;
         this.styleIssues = styleIssues;
+        this.findings = null;
         this.metrics = metrics;
+        this.checks = checks;
+        this.dictionaryVersion = dictionaryVersion;
+    }
+
+    public AnalysisResult(String originalText, String language, FindingsBuffer findings, TextMetrics metrics,
+                          List<String> checks, long dictionaryVersion) {
+        this.originalText = originalText;
+        this.language = language;
+        this.spellingErrors = null;
+        this.grammarErrors = null;
+        this.punctuationErrors = null;
+        this.styleIssues = null;
+        this.findings = findings;
+        this.metrics = metrics;
+        this.checks = checks;
+        this.dictionaryVersion = dictionaryVersion;
     }
 
     // Getters
     public String getOriginalText() { return originalText; }
     public String getLanguage() { return language; }
-    public List<SpellingError> getSpellingErrors() { return spellingErrors; }
-    public List<GrammarError> getGrammarErrors() { return grammarErrors; }
-    public List<PunctuationError> getPunctuationErrors() { return punctuationErrors; }
-    public List<StyleIssue> getStyleIssues() { return styleIssues; }
+    public List<SpellingError> getSpellingErrors() {
+        return findings != null ? findings.materialize(originalText, FindingType.SPELLING) : spellingErrors;
+    }
+    public List<GrammarError> getGrammarErrors() {
+        return findings != null ? findings.materialize(originalText, FindingType.GRAMMAR) : grammarErrors;
+    }
+    public List<PunctuationError> getPunctuationErrors() {
+        return findings != null ? findings.materialize(originalText, FindingType.PUNCTUATION) : punctuationErrors;
+    }
+    public List<StyleIssue> getStyleIssues() {
+        return findings != null ? findings.materialize(originalText, FindingType.STYLE) : styleIssues;
+    }
+    // null, если результат создан из готовых списков
+    @JsonIgnore
+    public FindingsBuffer getFindings() { return findings; }
     public TextMetrics getMetrics() { return metrics; }
+    public List<String> getChecks() { return checks; }
+    public long getDictionaryVersion() { return dictionaryVersion; }
+
+    public int count(FindingType type) {
+        if (findings != null) {
+            return findings.count(type);
+        }
+        return list(type).size();
+    }
+
+    List<? extends TextError> list(FindingType type) {
+        return switch (type) {
+            case SPELLING -> getSpellingErrors();
+            case GRAMMAR -> getGrammarErrors();
+            case PUNCTUATION -> getPunctuationErrors();
+            case STYLE -> getStyleIssues();
+        };
+    }
 
     public int getTotalErrors() {
+        if (findings != null) {
+            return findings.size();
+        }
         return spellingErrors.size() + grammarErrors.size() +
                 punctuationErrors.size() + styleIssues.size();
     }
@@ -0,0 +1,14 @@
+package ru.freeomsk.textanalyzer.model;
+
+// Результат одного элемента пакета: index - его позиция в запросе.
+// Ошибка элемента не прерывает пакет, а возвращается в error
+public record BatchItemResult(int index, boolean success, AnalysisResult result, String error, long elapsedMillis) {
+
+    public static BatchItemResult succeeded(int index, AnalysisResult result, long elapsedMillis) {
+        return new BatchItemResult(index, true, result, null, elapsedMillis);
+    }
+
+    public static BatchItemResult failed(int index, String error, long elapsedMillis) {
+        return new BatchItemResult(index, false, null, error, elapsedMillis);
+    }
+}
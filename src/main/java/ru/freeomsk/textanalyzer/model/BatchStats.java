@@ -0,0 +1,6 @@
+package ru.freeomsk.textanalyzer.model;
+
+// Итоги пакетного анализа: elapsedMillis - время всего пакета,
+// busyMillis - суммарное время элементов; их отношение показывает фактический параллелизм
+public record BatchStats(int total, int succeeded, int failed, long totalChars, int parallelism,
+                         long elapsedMillis, long busyMillis, double itemsPerSecond, double charsPerSecond) {}
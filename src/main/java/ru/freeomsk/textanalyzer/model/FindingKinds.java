@@ -0,0 +1,76 @@
+package ru.freeomsk.textanalyzer.model;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// Общая таблица видов находок: код ошибки, описание и поле подкласса (правило, рекомендация, важность).
+// Находка хранит только номер вида, поэтому строки описаний не копируются в каждую находку.
+// Виды не удаляются: их немного (по одному на правило и встроенную проверку)
+public final class FindingKinds {
+
+    // Место числа в шаблоне описания, например "Слишком длинное предложение (%d слов)"
+    private static final String ARGUMENT = "%d";
+
+    private static final List<Kind> kinds = new CopyOnWriteArrayList<>();
+    private static final Map<Kind, Integer> ids = new ConcurrentHashMap<>();
+
+    private FindingKinds() {
+    }
+
+    // detail - название правила (грамматика) или рекомендация (пунктуация), severity - важность (стиль).
+    // suffix дописывается к фрагменту текста, например многоточие после начала длинного предложения
+    public record Kind(FindingType type, String code, String description, String detail, double severity,
+                       String suffix) {}
+
+    public static int intern(FindingType type, String code, String description, String detail, double severity) {
+        return intern(new Kind(type, code, description, detail, severity, null));
+    }
+
+    public static int intern(Kind kind) {
+        Integer id = ids.get(kind);
+        if (id != null) return id;
+        synchronized (kinds) {
+            return ids.computeIfAbsent(kind, k -> {
+                kinds.add(k);
+                return kinds.size() - 1;
+            });
+        }
+    }
+
+    public static Kind get(int id) {
+        return kinds.get(id);
+    }
+
+    // Объект находки для ответа. text - фрагмент [start, end) исходного текста, если detail не задает его явно:
+    // строка detail - текст находки, список - подсказки орфографии
+    public static TextError materialize(int id, String source, int start, int end, int argument, Object detail) {
+        Kind kind = kinds.get(id);
+        String text = text(kind, source, start, end, detail);
+        String description = description(kind, argument);
+
+        return switch (kind.type()) {
+            case SPELLING -> new SpellingError(text, start, suggestions(detail), description, kind.code());
+            case GRAMMAR -> new GrammarError(text, start, description, kind.code(), kind.detail());
+            case PUNCTUATION -> new PunctuationError(text, start, description, kind.code(), kind.detail());
+            case STYLE -> new StyleIssue(text, start, description, kind.code(), kind.severity());
+        };
+    }
+
+    public static String text(Kind kind, String source, int start, int end, Object detail) {
+        String text = detail instanceof String value ? value : source.substring(start, end);
+        return kind.suffix() != null ? text + kind.suffix() : text;
+    }
+
+    public static String description(Kind kind, int argument) {
+        return kind.description().contains(ARGUMENT)
+                ? kind.description().replace(ARGUMENT, Integer.toString(argument))
+                : kind.description();
+    }
+
+    @SuppressWarnings("unchecked")
+    public static List<String> suggestions(Object detail) {
+        return detail instanceof List<?> suggestions ? (List<String>) suggestions : List.of();
+    }
+}
@@ -0,0 +1,19 @@
+package ru.freeomsk.textanalyzer.model;
+
+// Вид анализатора, к которому относится находка; id совпадает с типом события потокового анализа
+public enum FindingType {
+    SPELLING(AnalysisEvent.SPELLING),
+    GRAMMAR(AnalysisEvent.GRAMMAR),
+    PUNCTUATION(AnalysisEvent.PUNCTUATION),
+    STYLE(AnalysisEvent.STYLE);
+
+    private final String id;
+
+    FindingType(String id) {
+        this.id = id;
+    }
+
+    public String id() {
+        return id;
+    }
+}
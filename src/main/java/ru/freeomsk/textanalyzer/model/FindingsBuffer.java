@@ -0,0 +1,151 @@
+package ru.freeomsk.textanalyzer.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Находки анализа в столбцах примитивов: вид (номер в FindingKinds), границы во фрагменте исходного текста
+// и число для шаблона описания. Подсказки орфографии и тексты, не совпадающие с фрагментом, лежат
+// в отдельной таблице и связаны с находкой по индексу. Объекты TextError создаются только при выдаче.
+// Не потокобезопасен: буфер заполняется одной подзадачей и после этого только читается
+public final class FindingsBuffer {
+
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int NO_DETAIL = -1;
+
+    // Столбцы выделяются при первой находке: у многих фрагментов находок нет
+    private int[] kinds = new int[0];
+    private int[] starts = new int[0];
+    private int[] ends = new int[0];
+    private int[] arguments = new int[0];
+    private int[] detailIndexes = new int[0];
+    private int size;
+
+    private Object[] details = new Object[0];
+    private int detailCount;
+
+    private final int[] typeCounts = new int[FindingType.values().length];
+
+    public void add(int kind, int start, int end, int argument, Object detail) {
+        if (size == kinds.length) {
+            grow(Math.max(INITIAL_CAPACITY, size * 2));
+        }
+        kinds[size] = kind;
+        starts[size] = start;
+        ends[size] = end;
+        arguments[size] = argument;
+        detailIndexes[size] = detail != null ? addDetail(detail) : NO_DETAIL;
+        size++;
+        typeCounts[FindingKinds.get(kind).type().ordinal()]++;
+    }
+
+    // Находки следующего фрагмента дописываются в конец: порядок находок каждого вида сохраняется
+    public FindingsBuffer append(FindingsBuffer next) {
+        if (next.size == 0) return this;
+        if (size + next.size > kinds.length) {
+            grow(Math.max(kinds.length * 2, size + next.size));
+        }
+        if (detailCount + next.detailCount > details.length) {
+            details = Arrays.copyOf(details, Math.max(details.length * 2, detailCount + next.detailCount));
+        }
+
+        System.arraycopy(next.kinds, 0, kinds, size, next.size);
+        System.arraycopy(next.starts, 0, starts, size, next.size);
+        System.arraycopy(next.ends, 0, ends, size, next.size);
+        System.arraycopy(next.arguments, 0, arguments, size, next.size);
+        for (int i = 0; i < next.size; i++) {
+            int detail = next.detailIndexes[i];
+            detailIndexes[size + i] = detail != NO_DETAIL ? detail + detailCount : NO_DETAIL;
+        }
+        System.arraycopy(next.details, 0, details, detailCount, next.detailCount);
+
+        size += next.size;
+        detailCount += next.detailCount;
+        for (int i = 0; i < typeCounts.length; i++) {
+            typeCounts[i] += next.typeCounts[i];
+        }
+        return this;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int count(FindingType type) {
+        return typeCounts[type.ordinal()];
+    }
+
+    public int kind(int index) {
+        return kinds[index];
+    }
+
+    public int start(int index) {
+        return starts[index];
+    }
+
+    public int end(int index) {
+        return ends[index];
+    }
+
+    public int argument(int index) {
+        return arguments[index];
+    }
+
+    // null, если у находки нет подсказок и отдельного текста
+    public Object detail(int index) {
+        int detail = detailIndexes[index];
+        return detail != NO_DETAIL ? details[detail] : null;
+    }
+
+    // Находки одного вида в порядке добавления; каждый вызов создает новый изменяемый список
+    @SuppressWarnings("unchecked")
+    public <T extends TextError> List<T> materialize(String source, FindingType type) {
+        List<T> result = new ArrayList<>(typeCounts[type.ordinal()]);
+        if (typeCounts[type.ordinal()] == 0) {
+            return result;
+        }
+        for (int i = 0; i < size; i++) {
+            if (FindingKinds.get(kinds[i]).type() == type) {
+                result.add((T) materialize(source, i));
+            }
+        }
+        return result;
+    }
+
+    public TextError materialize(String source, int index) {
+        return FindingKinds.materialize(kinds[index], source, starts[index], ends[index], arguments[index],
+                detail(index));
+    }
+
+    // Приблизительный размер в памяти: столбцы и таблица деталей; строки подсказок учитываются,
+    // тексты находок - нет, это фрагменты исходного текста
+    public long memoryFootprint() {
+        long weight = 96 + 5L * 4 * kinds.length + 8L * details.length;
+        for (int i = 0; i < detailCount; i++) {
+            if (details[i] instanceof List<?> suggestions) {
+                for (Object suggestion : suggestions) {
+                    weight += 48 + 2L * suggestion.toString().length();
+                }
+            } else if (details[i] instanceof String text) {
+                weight += 48 + 2L * text.length();
+            }
+        }
+        return weight;
+    }
+
+    private int addDetail(Object detail) {
+        if (detailCount == details.length) {
+            details = Arrays.copyOf(details, Math.max(INITIAL_CAPACITY, details.length * 2));
+        }
+        details[detailCount] = detail;
+        return detailCount++;
+    }
+
+    private void grow(int capacity) {
+        kinds = Arrays.copyOf(kinds, capacity);
+        starts = Arrays.copyOf(starts, capacity);
+        ends = Arrays.copyOf(ends, capacity);
+        arguments = Arrays.copyOf(arguments, capacity);
+        detailIndexes = Arrays.copyOf(detailIndexes, capacity);
+    }
+}
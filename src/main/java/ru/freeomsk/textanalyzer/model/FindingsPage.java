@@ -0,0 +1,10 @@
+package ru.freeomsk.textanalyzer.model;
+
+// Страница находок ответа: не больше limit находок каждого вида, начиная с offsets (по порядку FindingType).
+// nextCursor - курсор следующей страницы или null, если все находки уже выданы
+public record FindingsPage(int limit, int[] offsets, String nextCursor) {
+
+    public int offset(FindingType type) {
+        return offsets[type.ordinal()];
+    }
+}
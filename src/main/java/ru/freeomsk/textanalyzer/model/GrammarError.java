@@ -9,4 +9,9 @@ public class GrammarError extends TextError {
     }
 
     public String getRule() { return rule; }
+
+    @Override
+    public GrammarError withPosition(int position) {
+        return new GrammarError(getText(), position, getDescription(), getErrorCode(), rule);
+    }
 }
\ No newline at end of file
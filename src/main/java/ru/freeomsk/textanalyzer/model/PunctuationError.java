@@ -9,4 +9,9 @@ public class PunctuationError extends TextError {
     }
 
     public String getExpected() { return expected; }
+
+    @Override
+    public PunctuationError withPosition(int position) {
+        return new PunctuationError(getText(), position, getDescription(), getErrorCode(), expected);
+    }
 }
@@ -0,0 +1,9 @@
+package ru.freeomsk.textanalyzer.model;
+
+// Предложение: границы [start, end) в тексте и диапазон слов [firstToken, lastToken)
+public record Sentence(int start, int end, int firstToken, int lastToken) {
+
+    public int tokenCount() {
+        return lastToken - firstToken;
+    }
+}
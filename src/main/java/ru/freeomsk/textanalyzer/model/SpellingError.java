@@ -11,4 +11,9 @@ public class SpellingError extends TextError {
     }
 
     public List<String> getSuggestions() { return suggestions; }
+
+    @Override
+    public SpellingError withPosition(int position) {
+        return new SpellingError(getText(), position, suggestions, getDescription(), getErrorCode());
+    }
 }
\ No newline at end of file
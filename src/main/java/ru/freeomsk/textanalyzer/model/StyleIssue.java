@@ -9,4 +9,9 @@ public class StyleIssue extends TextError {
     }
 
     public double getSeverity() { return severity; }
+
+    @Override
+    public StyleIssue withPosition(int position) {
+        return new StyleIssue(getText(), position, getDescription(), getErrorCode(), severity);
+    }
 }
\ No newline at end of file
@@ -19,7 +19,16 @@ public class TextError {
     public String getDescription() { return description; }
     public String getErrorCode() { return errorCode; }
 
+    // Та же находка в другой позиции: текст перед ней изменился
+    public TextError withPosition(int position) {
+        return new TextError(text, position, description, errorCode);
+    }
+
     public String getDetailedDescription() {
+        return detailedDescription(text, position, description, errorCode);
+    }
+
+    public static String detailedDescription(String text, int position, String description, String errorCode) {
         String posInfo = position >= 0 ? " (позиция: " + position + ")" : "";
         return "[" + errorCode + "] \"" + text + "\"" + posInfo + " - " + description;
     }
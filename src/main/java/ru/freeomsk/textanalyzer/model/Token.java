@@ -0,0 +1,10 @@
+package ru.freeomsk.textanalyzer.model;
+
+// Слово исходного текста: границы [start, end), форма в нижнем регистре
+// и нормализованная форма (только кириллические буквы) для словарных проверок
+public record Token(String text, int start, int end, String lower, String normalized) {
+
+    public int length() {
+        return end - start;
+    }
+}
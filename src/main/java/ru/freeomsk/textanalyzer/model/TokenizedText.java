@@ -0,0 +1,108 @@
+package ru.freeomsk.textanalyzer.model;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Результат однократной токенизации текста, общий для всех анализаторов.
+// Может быть фрагментом - диапазоном предложений исходного текста; смещения токенов
+// и предложений во фрагменте остаются абсолютными
+public class TokenizedText {
+    private final String text;
+    private final List<Token> allTokens;
+    private final List<Token> tokens;
+    private final List<Sentence> sentences;
+    private final int start;
+    private final int end;
+    private final int scanEnd;
+    // Производные данные, общие для анализаторов (например, совпадения правил)
+    private final Map<Object, Object> derived = new ConcurrentHashMap<>();
+
+    public TokenizedText(String text, List<Token> tokens, List<Sentence> sentences) {
+        this(text, tokens, sentences, 0, text.length(), text.length());
+    }
+
+    // Токенизация диапазона [start, end) текста, например измененной части документа.
+    // Номера слов в предложениях - индексы в tokens, смещения - абсолютные; scanEnd - конец
+    // предложения, следующего за диапазоном
+    public TokenizedText(String text, List<Token> tokens, List<Sentence> sentences, int start, int end, int scanEnd) {
+        this.text = text;
+        this.allTokens = List.copyOf(tokens);
+        this.tokens = this.allTokens;
+        this.sentences = List.copyOf(sentences);
+        this.start = start;
+        this.end = end;
+        this.scanEnd = scanEnd;
+    }
+
+    private TokenizedText(TokenizedText whole, int fromSentence, int toSentence) {
+        this.text = whole.text;
+        this.allTokens = whole.allTokens;
+        this.sentences = whole.sentences.subList(fromSentence, toSentence);
+
+        List<Sentence> all = whole.sentences;
+        // Фрагмент включает пробелы до следующего предложения, поэтому фрагменты покрывают текст без пропусков
+        this.start = fromSentence == 0 ? whole.start : all.get(fromSentence).start();
+        this.end = toSentence == all.size() ? whole.end : all.get(toSentence).start();
+        // Совпадение, начатое во фрагменте, может заканчиваться в следующем предложении, но не дальше
+        this.scanEnd = toSentence == all.size() ? whole.scanEnd : all.get(toSentence).end();
+        this.tokens = sentences.isEmpty()
+                ? List.of()
+                : allTokens.subList(sentences.get(0).firstToken(), sentences.get(sentences.size() - 1).lastToken());
+    }
+
+    // Документ без текста, известна только длина: для проверок по всему документу, которым
+    // достаточно состояния, собранного по фрагментам (анализ текста из потока)
+    public static TokenizedText ofLength(int length) {
+        return new TokenizedText("", List.of(), List.of(), 0, length, length);
+    }
+
+    // Фрагмент из предложений [fromSentence, toSentence)
+    public TokenizedText slice(int fromSentence, int toSentence) {
+        return new TokenizedText(this, fromSentence, toSentence);
+    }
+
+    // Getters
+    public String getText() { return text; }
+    public List<Token> getTokens() { return tokens; }
+    public List<Sentence> getSentences() { return sentences; }
+    public int getStart() { return start; }
+    public int getEnd() { return end; }
+    public int getScanEnd() { return scanEnd; }
+
+    public int getWordCount() {
+        return tokens.size();
+    }
+
+    public int getSentenceCount() {
+        return sentences.size();
+    }
+
+    public List<Token> tokensOf(Sentence sentence) {
+        return allTokens.subList(sentence.firstToken(), sentence.lastToken());
+    }
+
+    public String textOf(Sentence sentence) {
+        return text.substring(sentence.start(), sentence.end());
+    }
+
+    // Значение вычисляется один раз на текст; параллельные анализаторы ждут первого вычисления
+    @SuppressWarnings("unchecked")
+    public <T> T derive(Object key, Function<TokenizedText, T> computation) {
+        return (T) derived.computeIfAbsent(key, k -> computation.apply(this));
+    }
+
+    // Поиск по шаблону с начала фрагмента. Совпадение принадлежит фрагменту, если начинается в нем
+    // (matcher.start() < getEnd()), поэтому совпадения на границе не теряются и не дублируются.
+    // Поиск ограничен следующим предложением, чтобы не просматривать остаток текста
+    public Matcher matcher(Pattern pattern) {
+        Matcher matcher = pattern.matcher(text);
+        matcher.region(start, scanEnd);
+        matcher.useTransparentBounds(true);
+        matcher.useAnchoringBounds(false);
+        return matcher;
+    }
+}
@@ -0,0 +1,30 @@
+package ru.freeomsk.textanalyzer.rules;
+
+import ru.freeomsk.textanalyzer.model.FindingKinds;
+import ru.freeomsk.textanalyzer.model.FindingType;
+
+// Правило проверки: шаблон слов (words) или знаков между словами (chars) и описание находки.
+// name - название грамматического правила, severity - важность стилистического замечания,
+// expected - рекомендация по исправлению пунктуации. kind - вид находок правила в FindingKinds
+public record Rule(String code, RuleCategory category, String words, String chars,
+                   String description, String name, double severity, String expected, int kind) {
+
+    public Rule(String code, RuleCategory category, String words, String chars,
+                String description, String name, double severity, String expected) {
+        this(code, category, words, chars, description, name, severity, expected,
+                kindOf(code, category, description, name, severity, expected));
+    }
+
+    public boolean isCharRule() {
+        return chars != null;
+    }
+
+    private static int kindOf(String code, RuleCategory category, String description, String name,
+                              double severity, String expected) {
+        return switch (category) {
+            case GRAMMAR -> FindingKinds.intern(FindingType.GRAMMAR, code, description, name, 0);
+            case PUNCTUATION -> FindingKinds.intern(FindingType.PUNCTUATION, code, description, expected, 0);
+            case STYLE -> FindingKinds.intern(FindingType.STYLE, code, description, null, severity);
+        };
+    }
+}
@@ -0,0 +1,8 @@
+package ru.freeomsk.textanalyzer.rules;
+
+// Анализатор, которому принадлежат находки правила
+public enum RuleCategory {
+    GRAMMAR,
+    STYLE,
+    PUNCTUATION
+}
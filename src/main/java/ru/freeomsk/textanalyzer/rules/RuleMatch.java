@@ -0,0 +1,9 @@
+package ru.freeomsk.textanalyzer.rules;
+
+// Совпадение правила: границы [start, end) в исходном тексте
+public record RuleMatch(Rule rule, int start, int end) {
+
+    public String text(String source) {
+        return source.substring(start, end);
+    }
+}
@@ -0,0 +1,33 @@
+package ru.freeomsk.textanalyzer.rules;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+// Совпадения всех правил в тексте, разложенные по анализаторам в порядке позиций
+public final class RuleMatches {
+
+    private final Map<RuleCategory, List<RuleMatch>> matches = new EnumMap<>(RuleCategory.class);
+
+    RuleMatches() {
+        for (RuleCategory category : RuleCategory.values()) {
+            matches.put(category, new ArrayList<>());
+        }
+    }
+
+    void add(RuleMatch match) {
+        matches.get(match.rule().category()).add(match);
+    }
+
+    void sort() {
+        for (List<RuleMatch> list : matches.values()) {
+            list.sort(Comparator.comparingInt(RuleMatch::start));
+        }
+    }
+
+    public List<RuleMatch> of(RuleCategory category) {
+        return matches.get(category);
+    }
+}
@@ -0,0 +1,98 @@
+package ru.freeomsk.textanalyzer.rules;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+import ru.freeomsk.textanalyzer.model.TokenizedText;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+@Component
+public class RuleService {
+
+    static final String RULES_RESOURCE = "rules/analysis_rules.txt";
+
+    // Файл правил вместо встроенного; null - только встроенные
+    private final Path rulesPath;
+    // Набор правил и его версия заменяются вместе одной записью
+    private volatile Loaded current;
+
+    // rulesPath - файл правил вместо встроенного (например, с правилами редакции)
+    public RuleService(@Value("${rules.path:}") String rulesPath) {
+        this.rulesPath = rulesPath == null || rulesPath.isBlank() ? null : Path.of(rulesPath);
+        this.current = new Loaded(1, loadRules());
+    }
+
+    private RuleSet loadRules() {
+        if (rulesPath != null) {
+            try {
+                return loadFile();
+            } catch (Exception e) {
+                System.err.println("Ошибка загрузки правил из " + rulesPath + ": " + e.getMessage());
+            }
+        }
+
+        try {
+            ClassPathResource resource = new ClassPathResource(RULES_RESOURCE);
+            if (resource.exists()) {
+                try (InputStream in = resource.getInputStream()) {
+                    return RuleSet.load(in);
+                }
+            }
+        } catch (Exception e) {
+            System.err.println("Ошибка загрузки правил: " + e.getMessage());
+        }
+
+        return RuleSet.empty();
+    }
+
+    private RuleSet loadFile() throws IOException {
+        try (InputStream in = Files.newInputStream(rulesPath)) {
+            return RuleSet.load(in);
+        }
+    }
+
+    public Path getRulesPath() {
+        return rulesPath;
+    }
+
+    // Новая версия правил из rules.path. Правила компилируются, пока анализы работают с прежним набором;
+    // анализ, начатый до замены, заканчивается на нем. При ошибке в файле остается прежний набор
+    public Loaded reload() throws IOException {
+        if (rulesPath == null) {
+            return current;
+        }
+        RuleSet ruleSet = loadFile();
+        synchronized (this) {
+            current = new Loaded(current.version() + 1, ruleSet);
+            return current;
+        }
+    }
+
+    public Loaded current() {
+        return current;
+    }
+
+    public RuleSet getRuleSet() {
+        return current.ruleSet();
+    }
+
+    public long getVersion() {
+        return current.version();
+    }
+
+    public RuleMatches match(TokenizedText text) {
+        return match(text, getRuleSet());
+    }
+
+    // Совпадения считаются один раз на текст и набор правил и разделяются анализаторами грамматики,
+    // стиля и пунктуации
+    public static RuleMatches match(TokenizedText text, RuleSet ruleSet) {
+        return text.derive(ruleSet, ruleSet::match);
+    }
+
+    public record Loaded(long version, RuleSet ruleSet) {}
+}
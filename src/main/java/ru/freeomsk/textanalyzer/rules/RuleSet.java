@@ -0,0 +1,504 @@
+package ru.freeomsk.textanalyzer.rules;
+
+import ru.freeomsk.textanalyzer.model.Token;
+import ru.freeomsk.textanalyzer.model.TokenizedText;
+import ru.freeomsk.textanalyzer.util.TextTokenizer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Набор правил, скомпилированный для проверки за один проход по словам текста.
+// Шаблоны слов объединены в один автомат-бор: правила с общим началом делят состояния, а условия
+// на слово (точное слово, окончание, начало, маска) проверяются по общим индексам один раз на слово,
+// поэтому стоимость прохода почти не зависит от числа правил. Шаблоны знаков объединены в одно
+// регулярное выражение, которое в том же проходе проверяется в промежутках между словами
+public final class RuleSet {
+
+    private static final int ROOT = 0;
+    private static final String ANY_WORD = "_";
+    private static final String SAME_WORD = "=";
+
+    private final List<Rule> rules;
+
+    // Автомат шаблонов слов: переходы состояния - [edgeOffsets[s], edgeOffsets[s + 1]),
+    // переход срабатывает, если слово удовлетворяет условию edgePredicates
+    private final int[] edgeOffsets;
+    private final int[] edgePredicates;
+    private final int[] edgeTargets;
+    private final int[] depths;
+    private final int[][] acceptedRules;
+
+    // Условия на слово
+    private final int predicateCount;
+    private final Map<String, int[]> exactWords;
+    private final AffixTrie prefixes;
+    private final AffixTrie suffixes;
+    private final Pattern[][] masks;
+    private final boolean[] anyWord;
+    private final boolean[] sameWord;
+
+    // Шаблоны знаков: правило i - именованная группа "r" + i
+    private final Pattern charPattern;
+    private final Rule[] charRules;
+
+    private RuleSet(List<Rule> rules, Compiler compiler, Pattern charPattern, Rule[] charRules) {
+        this.rules = List.copyOf(rules);
+        int stateCount = compiler.edges.size();
+
+        this.edgeOffsets = new int[stateCount + 1];
+        int edgeCount = 0;
+        for (int state = 0; state < stateCount; state++) {
+            edgeOffsets[state] = edgeCount;
+            edgeCount += compiler.edges.get(state).size();
+        }
+        edgeOffsets[stateCount] = edgeCount;
+
+        this.edgePredicates = new int[edgeCount];
+        this.edgeTargets = new int[edgeCount];
+        this.depths = new int[stateCount];
+        this.acceptedRules = new int[stateCount][];
+        for (int state = 0; state < stateCount; state++) {
+            int edge = edgeOffsets[state];
+            for (int[] transition : compiler.edges.get(state)) {
+                edgePredicates[edge] = transition[0];
+                edgeTargets[edge] = transition[1];
+                edge++;
+            }
+            depths[state] = compiler.depths.get(state);
+            acceptedRules[state] = compiler.accepted.get(state).stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        this.predicateCount = compiler.predicateIds.size();
+        this.exactWords = new HashMap<>();
+        compiler.exactWords.forEach((word, ids) ->
+                exactWords.put(word, ids.stream().mapToInt(Integer::intValue).toArray()));
+        this.prefixes = compiler.prefixes;
+        this.suffixes = compiler.suffixes;
+        this.masks = new Pattern[predicateCount][];
+        compiler.masks.forEach((id, patterns) -> masks[id] = patterns.toArray(new Pattern[0]));
+        this.anyWord = new boolean[predicateCount];
+        this.sameWord = new boolean[predicateCount];
+        compiler.anyWord.forEach(id -> anyWord[id] = true);
+        compiler.sameWord.forEach(id -> sameWord[id] = true);
+
+        this.charPattern = charPattern;
+        this.charRules = charRules;
+    }
+
+    public static RuleSet empty() {
+        return compile(List.of());
+    }
+
+    // Формат файла:
+    //   rule <код> <grammar|style|punctuation>  - начало правила
+    //   words <шаблон>       - слова через пробел; соседние слова текста должны разделяться только пробелами.
+    //                          "а|б" - одно из слов, "*" и "?" - любые буквы (маска), "_" - любое слово,
+    //                          "=" - то же слово, что и предыдущее
+    //   chars <выражение>    - регулярное выражение для знаков и пробелов между словами
+    //   description <текст>  - описание находки
+    //   name <текст>         - название грамматического правила
+    //   severity <число>     - важность стилистического замечания
+    //   expected <текст>     - рекомендация по исправлению
+    public static RuleSet load(InputStream inputStream) throws IOException {
+        List<Rule> rules = new ArrayList<>();
+        RuleSpec current = null;
+
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) continue;
+
+                int space = line.indexOf(' ');
+                String key = space < 0 ? line : line.substring(0, space);
+                String value = space < 0 ? "" : line.substring(space + 1).trim();
+
+                try {
+                    if (key.equals("rule")) {
+                        if (current != null) rules.add(current.toRule());
+                        current = RuleSpec.start(value);
+                    } else if (current == null) {
+                        throw new IllegalArgumentException("свойство вне правила");
+                    } else {
+                        current.set(key, value);
+                    }
+                } catch (IllegalArgumentException e) {
+                    throw new IOException("Ошибка в строке " + lineNumber + " файла правил: "
+                            + e.getMessage() + ": " + line);
+                }
+            }
+        }
+
+        if (current != null) {
+            try {
+                rules.add(current.toRule());
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Ошибка в последнем правиле файла правил: " + e.getMessage());
+            }
+        }
+        return compile(rules);
+    }
+
+    public static RuleSet compile(List<Rule> rules) {
+        Compiler compiler = new Compiler();
+        List<Rule> charRuleList = new ArrayList<>();
+        StringBuilder charAlternatives = new StringBuilder();
+
+        for (int id = 0; id < rules.size(); id++) {
+            Rule rule = rules.get(id);
+            if (rule.isCharRule()) {
+                // Проверка выражения до объединения, чтобы ошибка указывала на правило
+                Pattern.compile(rule.chars());
+                if (!charRuleList.isEmpty()) charAlternatives.append('|');
+                charAlternatives.append("(?<r").append(charRuleList.size()).append('>')
+                        .append(rule.chars()).append(')');
+                charRuleList.add(rule);
+            } else {
+                compiler.addRule(id, rule);
+            }
+        }
+
+        Pattern charPattern = charRuleList.isEmpty() ? null : Pattern.compile(charAlternatives.toString());
+        return new RuleSet(rules, compiler, charPattern, charRuleList.toArray(new Rule[0]));
+    }
+
+    public List<Rule> getRules() {
+        return rules;
+    }
+
+    public int size() {
+        return rules.size();
+    }
+
+    // Один проход по словам текста (или фрагмента): совпадение принадлежит фрагменту, если начинается в нем
+    public RuleMatches match(TokenizedText text) {
+        RuleMatches result = new RuleMatches();
+        String source = text.getText();
+        List<Token> tokens = text.getTokens();
+        Matcher charMatcher = charPattern == null ? null : text.matcher(charPattern);
+
+        MatchState state = new MatchState(predicateCount, depths.length, rules.size());
+        // Знаки перед фрагментом проверяются с конца предыдущего слова, как при проходе по всему тексту:
+        // совпадение, начатое до фрагмента, принадлежит предыдущему фрагменту и не дает найти пересекающееся
+        int owned = text.getStart();
+        int gapStart = TextTokenizer.wordEndBefore(source, owned);
+        Token previous = null;
+
+        for (int i = 0; i < tokens.size(); i++) {
+            Token token = tokens.get(i);
+            if (charMatcher != null) {
+                matchChars(charMatcher, gapStart, token.start(), token.start(), owned, result);
+            }
+
+            // Шаблон продолжается только через пробелы: знаки препинания и конец предложения его прерывают
+            boolean joined = previous != null && isBlank(source, previous.end(), token.start());
+            state.stamp = i + 1;
+            markPredicates(token, state);
+
+            state.nextSize = 0;
+            advance(ROOT, token, previous, state);
+            if (joined) {
+                for (int k = 0; k < state.activeSize; k++) {
+                    advance(state.active[k], token, previous, state);
+                }
+            }
+
+            for (int k = 0; k < state.nextSize; k++) {
+                int node = state.next[k];
+                for (int ruleId : acceptedRules[node]) {
+                    int first = i - depths[node] + 1;
+                    // Совпадения одного правила не пересекаются, как при поиске регулярным выражением
+                    if (first >= state.nextAllowed[ruleId]) {
+                        result.add(new RuleMatch(rules.get(ruleId), tokens.get(first).start(), token.end()));
+                        state.nextAllowed[ruleId] = i + 1;
+                    }
+                }
+            }
+            state.swap();
+
+            previous = token;
+            gapStart = token.end();
+        }
+
+        // Совпадение в пробелах после последнего слова может заканчиваться в следующем предложении
+        if (charMatcher != null) {
+            matchChars(charMatcher, gapStart, text.getEnd(), text.getScanEnd(), owned, result);
+        }
+
+        result.sort();
+        return result;
+    }
+
+    private void advance(int node, Token token, Token previous, MatchState state) {
+        for (int edge = edgeOffsets[node]; edge < edgeOffsets[node + 1]; edge++) {
+            if (test(edgePredicates[edge], token, previous, state)) {
+                state.next[state.nextSize++] = edgeTargets[edge];
+            }
+        }
+    }
+
+    // Условия из индексов отмечаются для слова заранее, маски и сравнения проверяются по требованию
+    private void markPredicates(Token token, MatchState state) {
+        String word = token.lower();
+        int[] exact = exactWords.get(word);
+        if (exact != null) {
+            for (int id : exact) state.marks[id] = state.stamp;
+        }
+        prefixes.mark(word, false, state.marks, state.stamp);
+        suffixes.mark(word, true, state.marks, state.stamp);
+    }
+
+    private boolean test(int predicate, Token token, Token previous, MatchState state) {
+        if (state.marks[predicate] == state.stamp || anyWord[predicate]) return true;
+        if (state.checked[predicate] == state.stamp) return false;
+        state.checked[predicate] = state.stamp;
+
+        boolean matched = sameWord[predicate] && previous != null && previous.lower().equals(token.lower());
+        if (!matched && masks[predicate] != null) {
+            for (Pattern mask : masks[predicate]) {
+                if (mask.matcher(token.lower()).matches()) {
+                    matched = true;
+                    break;
+                }
+            }
+        }
+        if (matched) state.marks[predicate] = state.stamp;
+        return matched;
+    }
+
+    // Совпадения, начинающиеся в [from, to) и заканчивающиеся не дальше limit; в результат попадают
+    // только начатые не раньше owned
+    private void matchChars(Matcher matcher, int from, int to, int limit, int owned, RuleMatches result) {
+        if (from >= to) return;
+        matcher.region(from, limit);
+        while (matcher.find() && matcher.start() < to) {
+            if (matcher.start() >= owned) {
+                result.add(new RuleMatch(charRules[matchedCharRule(matcher)], matcher.start(), matcher.end()));
+            }
+        }
+    }
+
+    private int matchedCharRule(Matcher matcher) {
+        for (int i = 0; i < charRules.length; i++) {
+            if (matcher.start("r" + i) >= 0) return i;
+        }
+        throw new IllegalStateException("Совпадение без правила");
+    }
+
+    private static boolean isBlank(String text, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (!Character.isWhitespace(text.charAt(i))) return false;
+        }
+        return true;
+    }
+
+    // Состояние одного прохода; сам набор правил неизменяем и используется из многих потоков
+    private static final class MatchState {
+        // marks[p] == stamp - условие p выполнено для текущего слова; checked - маска уже проверялась
+        final int[] marks;
+        final int[] checked;
+        final int[] nextAllowed;
+        int[] active;
+        int[] next;
+        int activeSize;
+        int nextSize;
+        int stamp;
+
+        MatchState(int predicateCount, int stateCount, int ruleCount) {
+            this.marks = new int[predicateCount];
+            this.checked = new int[predicateCount];
+            this.nextAllowed = new int[ruleCount];
+            this.active = new int[stateCount];
+            this.next = new int[stateCount];
+        }
+
+        void swap() {
+            int[] previous = active;
+            active = next;
+            next = previous;
+            activeSize = nextSize;
+        }
+    }
+
+    // Бор начал или окончаний слов: один проход по слову отмечает все подходящие условия
+    private static final class AffixTrie {
+        private final Map<Character, AffixTrie> children = new HashMap<>();
+        private final List<Integer> predicates = new ArrayList<>();
+
+        void add(String affix, boolean reversed, int predicate) {
+            AffixTrie node = this;
+            for (int i = 0; i < affix.length(); i++) {
+                char c = affix.charAt(reversed ? affix.length() - 1 - i : i);
+                node = node.children.computeIfAbsent(c, key -> new AffixTrie());
+            }
+            node.predicates.add(predicate);
+        }
+
+        void mark(String word, boolean reversed, int[] marks, int stamp) {
+            AffixTrie node = this;
+            for (int i = 0; i < word.length() && !node.children.isEmpty(); i++) {
+                node = node.children.get(word.charAt(reversed ? word.length() - 1 - i : i));
+                if (node == null) return;
+                for (int predicate : node.predicates) marks[predicate] = stamp;
+            }
+        }
+    }
+
+    // Построение автомата: каждый элемент шаблона - условие на одно слово,
+    // одинаковые элементы разных правил - одно и то же условие и общий переход
+    private static final class Compiler {
+        final List<List<int[]>> edges = new ArrayList<>();
+        final List<Integer> depths = new ArrayList<>();
+        final List<List<Integer>> accepted = new ArrayList<>();
+
+        final Map<String, Integer> predicateIds = new HashMap<>();
+        final Map<String, List<Integer>> exactWords = new HashMap<>();
+        final AffixTrie prefixes = new AffixTrie();
+        final AffixTrie suffixes = new AffixTrie();
+        final Map<Integer, List<Pattern>> masks = new HashMap<>();
+        final List<Integer> anyWord = new ArrayList<>();
+        final List<Integer> sameWord = new ArrayList<>();
+
+        Compiler() {
+            newState(0);
+        }
+
+        void addRule(int ruleId, Rule rule) {
+            String[] elements = rule.words().trim().toLowerCase().split("\\s+");
+            if (elements[0].equals(SAME_WORD)) {
+                throw new IllegalArgumentException("Шаблон правила " + rule.code() + " не может начинаться с \"=\"");
+            }
+
+            int state = ROOT;
+            for (String element : elements) {
+                int predicate = predicateIds.computeIfAbsent(element, this::registerPredicate);
+                state = transition(state, predicate);
+            }
+            accepted.get(state).add(ruleId);
+        }
+
+        private int transition(int state, int predicate) {
+            for (int[] edge : edges.get(state)) {
+                if (edge[0] == predicate) return edge[1];
+            }
+            int target = newState(depths.get(state) + 1);
+            edges.get(state).add(new int[]{predicate, target});
+            return target;
+        }
+
+        private int newState(int depth) {
+            edges.add(new ArrayList<>());
+            depths.add(depth);
+            accepted.add(new ArrayList<>());
+            return edges.size() - 1;
+        }
+
+        private int registerPredicate(String element) {
+            int id = predicateIds.size();
+            for (String alternative : element.split("\\|")) {
+                if (alternative.isEmpty()) {
+                    throw new IllegalArgumentException("Пустая альтернатива в элементе шаблона \"" + element + "\"");
+                }
+                int lastWildcard = Math.max(alternative.lastIndexOf('*'), alternative.lastIndexOf('?'));
+                int firstWildcard = indexOfWildcard(alternative);
+
+                if (alternative.equals(ANY_WORD) || alternative.equals("*")) {
+                    anyWord.add(id);
+                } else if (alternative.equals(SAME_WORD)) {
+                    sameWord.add(id);
+                } else if (firstWildcard < 0) {
+                    exactWords.computeIfAbsent(alternative, key -> new ArrayList<>()).add(id);
+                } else if (firstWildcard == 0 && lastWildcard == 0 && alternative.charAt(0) == '*') {
+                    suffixes.add(alternative.substring(1), true, id);
+                } else if (firstWildcard == alternative.length() - 1 && alternative.endsWith("*")) {
+                    prefixes.add(alternative.substring(0, firstWildcard), false, id);
+                } else {
+                    masks.computeIfAbsent(id, key -> new ArrayList<>()).add(toPattern(alternative));
+                }
+            }
+            return id;
+        }
+
+        private static int indexOfWildcard(String text) {
+            for (int i = 0; i < text.length(); i++) {
+                if (text.charAt(i) == '*' || text.charAt(i) == '?') return i;
+            }
+            return -1;
+        }
+
+        private static Pattern toPattern(String mask) {
+            StringBuilder regex = new StringBuilder();
+            StringBuilder literal = new StringBuilder();
+            for (int i = 0; i < mask.length(); i++) {
+                char c = mask.charAt(i);
+                if (c == '*' || c == '?') {
+                    if (!literal.isEmpty()) {
+                        regex.append(Pattern.quote(literal.toString()));
+                        literal.setLength(0);
+                    }
+                    regex.append(c == '*' ? ".*" : ".");
+                } else {
+                    literal.append(c);
+                }
+            }
+            if (!literal.isEmpty()) regex.append(Pattern.quote(literal.toString()));
+            return Pattern.compile(regex.toString(), Pattern.DOTALL);
+        }
+    }
+
+    // Правило во время разбора файла
+    private static final class RuleSpec {
+        private final String code;
+        private final RuleCategory category;
+        private String words;
+        private String chars;
+        private String description;
+        private String name;
+        private double severity;
+        private String expected;
+
+        private RuleSpec(String code, RuleCategory category) {
+            this.code = code;
+            this.category = category;
+        }
+
+        static RuleSpec start(String header) {
+            String[] parts = header.split("\\s+");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("ожидается \"rule <код> <категория>\"");
+            }
+            return new RuleSpec(parts[0], RuleCategory.valueOf(parts[1].toUpperCase()));
+        }
+
+        void set(String key, String value) {
+            switch (key) {
+                case "words" -> words = value;
+                case "chars" -> chars = value;
+                case "description" -> description = value;
+                case "name" -> name = value;
+                case "severity" -> severity = Double.parseDouble(value);
+                case "expected" -> expected = value;
+                default -> throw new IllegalArgumentException("неизвестное свойство " + key);
+            }
+        }
+
+        Rule toRule() {
+            if ((words == null) == (chars == null)) {
+                throw new IllegalArgumentException("у правила " + code + " должен быть ровно один шаблон: words или chars");
+            }
+            if (description == null) {
+                throw new IllegalArgumentException("у правила " + code + " нет описания");
+            }
+            return new Rule(code, category, words, chars, description, name, severity, expected);
+        }
+    }
+}
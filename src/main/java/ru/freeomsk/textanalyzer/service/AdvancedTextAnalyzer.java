@@ -1,101 +1,605 @@
 package ru.freeomsk.textanalyzer.service;
 
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import ru.freeomsk.textanalyzer.cache.BoundedCache;
+import ru.freeomsk.textanalyzer.cache.CacheStats;
+import ru.freeomsk.textanalyzer.check.AnalysisPlan;
+import ru.freeomsk.textanalyzer.check.CheckContext;
+import ru.freeomsk.textanalyzer.check.CheckRegistry;
+import ru.freeomsk.textanalyzer.check.CostClass;
+import ru.freeomsk.textanalyzer.check.DocumentState;
+import ru.freeomsk.textanalyzer.check.Findings;
+import ru.freeomsk.textanalyzer.check.FindingsCollector;
+import ru.freeomsk.textanalyzer.check.TextCheck;
+import ru.freeomsk.textanalyzer.dictionary.DictionarySnapshot;
+import ru.freeomsk.textanalyzer.model.AnalysisEvent;
 import ru.freeomsk.textanalyzer.model.AnalysisResult;
+import ru.freeomsk.textanalyzer.model.FindingKinds;
 import ru.freeomsk.textanalyzer.model.GrammarError;
 import ru.freeomsk.textanalyzer.model.PunctuationError;
 import ru.freeomsk.textanalyzer.model.SpellingError;
 import ru.freeomsk.textanalyzer.model.StyleIssue;
+import ru.freeomsk.textanalyzer.model.TextError;
 import ru.freeomsk.textanalyzer.model.TextMetrics;
+import ru.freeomsk.textanalyzer.model.TokenizedText;
+import ru.freeomsk.textanalyzer.rules.RuleService;
+import ru.freeomsk.textanalyzer.util.SentenceWindows;
+import ru.freeomsk.textanalyzer.util.TextTokenizer;
 import ru.freeomsk.textanalyzer.util.TextUtils;
 import org.springframework.stereotype.Service;
 
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Serial;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 @Service
 public class AdvancedTextAnalyzer {
 
+    // Размер фрагмента потокового анализа в предложениях
+    private static final int STREAM_SLICE_SENTENCES = 16;
+
+    // Большие тексты делятся по границам предложений на фрагменты примерно такого размера (в символах),
+    // фрагменты анализируются параллельно в пуле fork/join
+    private static final int CHUNK_CHARS = 8192;
+
+    // Оценка числа записей в кэше для счетчика частот: типичный результат занимает несколько КБ
+    private static final int EXPECTED_RESULT_WEIGHT = 4096;
+
     private final DictionaryService dictionaryService;
-    private final GrammarChecker grammarChecker;
-    private final PunctuationAnalyzer punctuationAnalyzer;
-    private final StyleAnalyzer styleAnalyzer;
+    private final RuleService ruleService;
+    private final CheckRegistry checkRegistry;
+    private final TextProcessor textProcessor;
     private final ExecutorService executorService;
+    private final ForkJoinPool chunkPool;
+    // Срок выполнения одного запроса; по его истечении все подзадачи запроса отменяются
+    private final Duration timeout;
+    // Текст из потока: срок анализа всего потока и размер буфера чтения в символах
+    private final Duration streamTimeout;
+    private final int streamBufferChars;
+    // Повторные проверки одного и того же текста (шаблоны, повторы запросов) берутся из кэша
+    private final BoundedCache<ResultKey, AnalysisResult> resultCache;
+
+    private final DistributionSummary textSize;
+    private final Timer tokenizeTimer;
+    // Анализы в работе: у исполнителя на виртуальных потоках нет очереди, это и есть глубина нагрузки
+    private final AtomicInteger activeAnalyses = new AtomicInteger();
 
     public AdvancedTextAnalyzer(DictionaryService dictionaryService,
-                                GrammarChecker grammarChecker,
-                                PunctuationAnalyzer punctuationAnalyzer,
-                                StyleAnalyzer styleAnalyzer) {
+                                RuleService ruleService,
+                                CheckRegistry checkRegistry,
+                                TextProcessor textProcessor,
+                                @Qualifier("analysisExecutor") ExecutorService executorService,
+                                @Qualifier("analysisChunkPool") ForkJoinPool chunkPool,
+                                MeterRegistry meterRegistry,
+                                @Value("${analysis.timeout:30s}") Duration timeout,
+                                @Value("${analysis.cache.max-bytes:67108864}") long cacheMaxBytes,
+                                @Value("${analysis.stream.timeout:30m}") Duration streamTimeout,
+                                @Value("${analysis.stream.buffer-chars:1048576}") int streamBufferChars) {
         this.dictionaryService = dictionaryService;
-        this.grammarChecker = grammarChecker;
-        this.punctuationAnalyzer = punctuationAnalyzer;
-        this.styleAnalyzer = styleAnalyzer;
-        this.executorService = Executors.newFixedThreadPool(4);
+        this.ruleService = ruleService;
+        this.checkRegistry = checkRegistry;
+        this.textProcessor = textProcessor;
+        this.executorService = executorService;
+        this.chunkPool = chunkPool;
+        this.timeout = timeout;
+        this.streamTimeout = streamTimeout;
+        this.streamBufferChars = Math.max(SentenceWindows.MIN_CAPACITY, streamBufferChars);
+        this.resultCache = new BoundedCache<>(cacheMaxBytes,
+                (int) Math.min(Integer.MAX_VALUE, cacheMaxBytes / EXPECTED_RESULT_WEIGHT),
+                (key, result) -> estimateWeight(result));
+
+        this.textSize = DistributionSummary.builder("analysis.text.size")
+                .description("Длина текстов в запросах анализа")
+                .baseUnit("chars")
+                .register(meterRegistry);
+        this.tokenizeTimer = Timer.builder("analysis.tokenize")
+                .description("Разбиение текста на слова и предложения")
+                .register(meterRegistry);
+        Gauge.builder("analysis.active", activeAnalyses, AtomicInteger::get)
+                .description("Анализы, выполняемые в данный момент")
+                .register(meterRegistry);
+    }
+
+    // Проверка запроса на анализ: сообщение об ошибке или null, если запрос корректен
+    public String validate(String text, String language) {
+        if (text == null || text.trim().isEmpty()) {
+            return "Текст для анализа не может быть пустым";
+        }
+        return validateLanguage(language);
+    }
+
+    public String validate(String text, String language, Collection<String> checks) {
+        String error = validate(text, language);
+        return error != null ? error : checkRegistry.validate(checks);
+    }
+
+    // Параметры анализа без текста: документ сессии редактора может быть пустым
+    public String validateOptions(String language, Collection<String> checks) {
+        String error = validateLanguage(language);
+        return error != null ? error : checkRegistry.validate(checks);
+    }
+
+    private static String validateLanguage(String language) {
+        if (language == null || !language.equals("ru")) {
+            return "Поддерживается только русский язык (ru)";
+        }
+        return null;
+    }
+
+    // План запроса: checks == null - все проверки, suggestions == null - с подсказками
+    public AnalysisPlan plan(Collection<String> checks, Boolean suggestions) {
+        return checkRegistry.plan(checks, suggestions);
+    }
+
+    public Collection<TextCheck> getChecks() {
+        return checkRegistry.getChecks();
+    }
+
+    // Анализ в отдельном виртуальном потоке. CompletableFuture.cancel не прерывает вычисление,
+    // поэтому отмена результата (например, при отключении клиента) передается задаче явно
+    public CompletableFuture<AnalysisResult> analyzeTextAsync(String text, String language, AnalysisPlan plan) {
+        CompletableFuture<AnalysisResult> result = new CompletableFuture<>();
+        Future<?> task = executorService.submit(() -> {
+            try {
+                result.complete(analyzeText(text, language, plan));
+            } catch (CancellationException e) {
+                // Отмена, о которой не просил вызывающий, - ошибка анализа, а не отказ от результата
+                result.completeExceptionally(new IllegalStateException("Анализ отменен", e));
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        });
+        result.whenComplete((value, error) -> {
+            if (result.isCancelled()) {
+                task.cancel(true);
+            }
+        });
+        return result;
     }
 
     public AnalysisResult analyzeText(String text, String language) {
+        return analyzeText(text, language, checkRegistry.fullPlan());
+    }
+
+    public AnalysisResult analyzeText(String text, String language, AnalysisPlan plan) {
         if (text == null || text.trim().isEmpty()) {
             return new AnalysisResult(text, language);
         }
 
+        textSize.record(text.length());
+
+        // Версии словаря и правил входят в ключ: после их изменения старые результаты не используются.
+        // План тоже: результат только орфографии не подходит запросу всех проверок
+        DictionarySnapshot dictionary = dictionaryService.getDictionarySnapshot();
+        RuleService.Loaded rules = ruleService.current();
+        ResultKey key = new ResultKey(TextUtils.contentHash(text), text.length(), language, plan,
+                dictionary.getVersion(), rules.version());
+        AnalysisResult cached = resultCache.get(key);
+        if (cached != null && cached.getOriginalText().equals(text)) {
+            return cached;
+        }
+
+        activeAnalyses.incrementAndGet();
         try {
-            // Параллельный анализ разных аспектов текста
-            Future<List<SpellingError>> spellingFuture =
-                    executorService.submit(() -> dictionaryService.checkSpelling(text));
-
-            Future<List<GrammarError>> grammarFuture =
-                    executorService.submit(() -> grammarChecker.checkGrammar(text));
-
-            Future<List<PunctuationError>> punctuationFuture =
-                    executorService.submit(() -> punctuationAnalyzer.checkPunctuation(text));
-
-            Future<List<StyleIssue>> styleFuture =
-                    executorService.submit(() -> styleAnalyzer.analyzeStyle(text));
-
-            // Расчет метрик текста
-            TextMetrics metrics = calculateMetrics(text);
-
-            // Сбор результатов
-            return new AnalysisResult(
-                    text,
-                    language,
-                    spellingFuture.get(),
-                    grammarFuture.get(),
-                    punctuationFuture.get(),
-                    styleFuture.get(),
-                    metrics
-            );
-
-        } catch (InterruptedException | ExecutionException e) {
+            CheckContext context = new CheckContext(dictionary, rules.ruleSet(), plan.suggestions());
+            AnalysisResult result = analyze(text, language, plan, context);
+            resultCache.put(key, result);
+            return result;
+        } finally {
+            activeAnalyses.decrementAndGet();
+        }
+    }
+
+    private AnalysisResult analyze(String text, String language, AnalysisPlan plan, CheckContext context) {
+        // Подзадачи запроса живут не дольше него: ошибка одной из них, срок или прерывание отменяют остальные
+        try (TaskScope scope = new TaskScope(executorService, System.nanoTime() + timeout.toNanos())) {
+            // Текст токенизируется один раз, результат разделяют все проверки плана
+            TokenizedText tokenizedText = tokenizeTimer.record(() -> textProcessor.tokenize(text));
+
+            // Дешевые проверки быстрее выполнить одним проходом, чем делить текст на фрагменты
+            if (plan.maxCost() != CostClass.CHEAP
+                    && text.length() > 2 * CHUNK_CHARS && tokenizedText.getSentenceCount() > 1) {
+                return analyzeInChunks(tokenizedText, language, plan, context, scope);
+            }
+
+            // Проверки дороже дешевых выполняются параллельно, дешевые - в вызывающем потоке, пока идут остальные.
+            // Если дешевых в плане нет, последняя проверка тоже выполняется в вызывающем потоке:
+            // запрос одной проверки не порождает подзадач
+            List<TextCheck> checks = plan.checks();
+            boolean hasCheap = checks.stream().anyMatch(check -> check.costClass() == CostClass.CHEAP);
+            List<Future<FindingsCollector>> forked = new ArrayList<>(checks.size());
+            for (int i = 0; i < checks.size(); i++) {
+                TextCheck check = checks.get(i);
+                boolean inline = check.costClass() == CostClass.CHEAP || (!hasCheap && i == checks.size() - 1);
+                forked.add(inline ? null : scope.fork(() -> runCheck(check, tokenizedText, context)));
+            }
+
+            FindingsCollector[] inlineFindings = new FindingsCollector[checks.size()];
+            for (int i = 0; i < checks.size(); i++) {
+                if (forked.get(i) == null) {
+                    inlineFindings[i] = runCheck(checks.get(i), tokenizedText, context);
+                }
+            }
+
+            // Сбор результатов в порядке плана
+            FindingsCollector findings = new FindingsCollector();
+            for (int i = 0; i < checks.size(); i++) {
+                findings.merge(forked.get(i) != null ? scope.join(forked.get(i)) : inlineFindings[i]);
+            }
+            return findings.toResult(text, language, plan, context.dictionary().getVersion());
+
+        } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
-            throw new RuntimeException("Ошибка при анализе текста", e);
+            throw new CancellationException("Анализ прерван");
+        } catch (TimeoutException e) {
+            throw new RuntimeException("Превышено время анализа (" + timeout.toMillis() + " мс)", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Ошибка при анализе текста", e.getCause());
+        }
+    }
+
+    // Проверка всего текста как одного фрагмента
+    private static FindingsCollector runCheck(TextCheck check, TokenizedText text, CheckContext context) {
+        FindingsCollector findings = new FindingsCollector();
+        check.checkSlice(text, context, findings);
+        DocumentState<?> state = check.newDocumentState();
+        if (state != null) {
+            state.add(text);
+        }
+        check.checkDocument(text, state, context, findings);
+        return findings;
+    }
+
+    // Фрагменты анализируются всеми проверками плана в пуле fork/join. Позиции во фрагментах уже абсолютные,
+    // поэтому находки объединяются простой конкатенацией в порядке фрагментов; проверки по всему документу
+    // собирают частичные состояния фрагментов и выполняются после их объединения
+    private AnalysisResult analyzeInChunks(TokenizedText tokenizedText, String language, AnalysisPlan plan,
+                                           CheckContext context, TaskScope scope)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        ChunkTask task = new ChunkTask(tokenizedText, 0, tokenizedText.getSentenceCount(), plan, context, scope);
+        chunkPool.execute(task);
+
+        // Проверки по всему тексту без состояния фрагментов выполняются, пока фрагменты анализируются в пуле
+        List<TextCheck> checks = plan.checks();
+        FindingsCollector documentFindings = new FindingsCollector();
+        for (TextCheck check : checks) {
+            if (check.newDocumentState() == null) {
+                check.checkDocument(tokenizedText, null, context, documentFindings);
+            }
+        }
+
+        // При ошибке или истечении срока еще не начатые фрагменты увидят отмену и завершатся сразу
+        ChunkResult chunks = scope.join(task);
+
+        FindingsCollector findings = chunks.findings();
+        for (int i = 0; i < checks.size(); i++) {
+            DocumentState<?> state = chunks.states()[i];
+            if (state != null) {
+                checks.get(i).checkDocument(tokenizedText, state, context, findings);
+            }
+        }
+        findings.merge(documentFindings);
+
+        return findings.toResult(tokenizedText.getText(), language, plan, context.dictionary().getVersion());
+    }
+
+    private static ChunkResult analyzeChunk(TokenizedText chunk, AnalysisPlan plan, CheckContext context) {
+        List<TextCheck> checks = plan.checks();
+        FindingsCollector findings = new FindingsCollector();
+        DocumentState<?>[] states = new DocumentState<?>[checks.size()];
+        for (int i = 0; i < checks.size(); i++) {
+            TextCheck check = checks.get(i);
+            check.checkSlice(chunk, context, findings);
+            states[i] = check.newDocumentState();
+            if (states[i] != null) {
+                states[i].add(chunk);
+            }
+        }
+        return new ChunkResult(findings, states);
+    }
+
+    // Делит диапазон предложений пополам, пока фрагмент не станет меньше CHUNK_CHARS
+    private final class ChunkTask extends RecursiveTask<ChunkResult> {
+        // RecursiveTask сериализуем, но задача живет только в пуле запроса и никогда не сериализуется
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private final transient TokenizedText text;
+        private final transient int fromSentence;
+        private final transient int toSentence;
+        private final transient AnalysisPlan plan;
+        private final transient CheckContext context;
+        private final transient TaskScope scope;
+
+        ChunkTask(TokenizedText text, int fromSentence, int toSentence, AnalysisPlan plan, CheckContext context,
+                  TaskScope scope) {
+            this.text = text;
+            this.fromSentence = fromSentence;
+            this.toSentence = toSentence;
+            this.plan = plan;
+            this.context = context;
+            this.scope = scope;
+        }
+
+        @Override
+        protected ChunkResult compute() {
+            if (scope.isCancelled()) {
+                throw new CancellationException("Анализ отменен");
+            }
+
+            TokenizedText chunk = text.slice(fromSentence, toSentence);
+            if (toSentence - fromSentence == 1 || chunk.getEnd() - chunk.getStart() <= CHUNK_CHARS) {
+                try {
+                    return analyzeChunk(chunk, plan, context);
+                } catch (RuntimeException | Error e) {
+                    // Остальные фрагменты не нужны, а запрос должен получить эту ошибку, а не отмену
+                    scope.fail(e);
+                    throw e;
+                }
+            }
+
+            int middle = (fromSentence + toSentence) >>> 1;
+            ChunkTask left = new ChunkTask(text, fromSentence, middle, plan, context, scope);
+            ChunkTask right = new ChunkTask(text, middle, toSentence, plan, context, scope);
+            right.fork();
+            ChunkResult leftResult = left.compute();
+            return leftResult.merge(right.join());
+        }
+    }
+
+    // Находки и частичные состояния фрагмента по проверкам плана; правый фрагмент присоединяется к левому
+    private record ChunkResult(FindingsCollector findings, DocumentState<?>[] states) {
+
+        ChunkResult merge(ChunkResult right) {
+            findings.merge(right.findings);
+            for (int i = 0; i < states.length; i++) {
+                if (states[i] != null) {
+                    mergeState(states[i], right.states[i]);
+                }
+            }
+            return this;
+        }
+    }
+
+    // Состояния одной проверки имеют один тип
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static void mergeState(DocumentState left, DocumentState right) {
+        left.merge(right);
+    }
+
+    // Потоковый анализ: находки отправляются по мере проверки фрагментов из нескольких предложений
+    // с абсолютными позициями, проверки по всему документу и метрики - в конце
+    public void analyzeTextStreaming(String text, String language, AnalysisPlan plan,
+                                     Consumer<AnalysisEvent> listener)
+            throws TimeoutException, ExecutionException {
+        // Срок и прерывание проверяются между фрагментами. Срок - как у потока из тела запроса:
+        // медленный клиент читает события дольше, чем длится анализ того же текста в /analyze
+        try (TaskScope scope = new TaskScope(executorService, System.nanoTime() + streamTimeout.toNanos())) {
+            DictionarySnapshot dictionary = dictionaryService.getDictionarySnapshot();
+            CheckContext context = new CheckContext(dictionary, ruleService.getRuleSet(), plan.suggestions());
+            textSize.record(text.length());
+            TokenizedText tokenizedText = tokenizeTimer.record(() -> textProcessor.tokenize(text));
+            int sentenceCount = tokenizedText.getSentenceCount();
+
+            listener.accept(new AnalysisEvent(AnalysisEvent.START, Map.of(
+                    "language", language,
+                    "length", text.length(),
+                    "sentenceCount", sentenceCount,
+                    "checks", plan.names(),
+                    "dictionaryVersion", dictionary.getVersion()
+            )));
+
+            // Проверки по всему документу накапливают состояние по мере обработки фрагментов
+            List<TextCheck> checks = plan.checks();
+            DocumentState<?>[] states = new DocumentState<?>[checks.size()];
+            for (int i = 0; i < checks.size(); i++) {
+                states[i] = checks.get(i).newDocumentState();
+            }
+            Findings findings = new EventFindings(listener, text, 0);
+
+            for (int from = 0; from < sentenceCount; from += STREAM_SLICE_SENTENCES) {
+                scope.checkpoint();
+                TokenizedText slice = tokenizedText.slice(from,
+                        Math.min(sentenceCount, from + STREAM_SLICE_SENTENCES));
+                for (int i = 0; i < checks.size(); i++) {
+                    checks.get(i).checkSlice(slice, context, findings);
+                    if (states[i] != null) {
+                        states[i].add(slice);
+                    }
+                }
+            }
+
+            for (int i = 0; i < checks.size(); i++) {
+                checks.get(i).checkDocument(tokenizedText, states[i], context, findings);
+            }
+        }
+    }
+
+    // Анализ текста из потока (например, тела запроса): текст читается окнами из целых предложений
+    // и целиком в памяти не хранится. Находки отправляются по мере проверки окон с абсолютными позициями,
+    // проверки по всему документу выполняются по накопленным состояниям после конца потока
+    public void analyzeReaderStreaming(Reader reader, String language, AnalysisPlan plan,
+                                       Consumer<AnalysisEvent> listener)
+            throws IOException, TimeoutException, ExecutionException {
+        // Срок и прерывание проверяются между окнами
+        try (TaskScope scope = new TaskScope(executorService, System.nanoTime() + streamTimeout.toNanos())) {
+            DictionarySnapshot dictionary = dictionaryService.getDictionarySnapshot();
+            CheckContext context = new CheckContext(dictionary, ruleService.getRuleSet(), plan.suggestions());
+
+            // Длина текста и число предложений заранее неизвестны
+            listener.accept(new AnalysisEvent(AnalysisEvent.START, Map.of(
+                    "language", language,
+                    "checks", plan.names(),
+                    "dictionaryVersion", dictionary.getVersion()
+            )));
+
+            List<TextCheck> checks = plan.checks();
+            DocumentState<?>[] states = new DocumentState<?>[checks.size()];
+            for (int i = 0; i < checks.size(); i++) {
+                states[i] = checks.get(i).newDocumentState();
+            }
+
+            // Медленное тело запроса тоже ограничено сроком анализа
+            SentenceWindows windows = new SentenceWindows(new DeadlineReader(reader, scope), streamBufferChars);
+            SentenceWindows.Window window;
+            while ((window = windows.next()) != null) {
+                scope.checkpoint();
+                SentenceWindows.Window current = window;
+                TokenizedText slice = tokenizeTimer.record(
+                        () -> TextTokenizer.tokenize(current.text(), current.from(), current.to()));
+                // Позиции в окне отсчитываются от его начала, в событиях - от начала текста
+                Findings findings = new EventFindings(listener, current.text(), current.offset());
+                for (int i = 0; i < checks.size(); i++) {
+                    checks.get(i).checkSlice(slice, context, findings);
+                    if (states[i] != null) {
+                        DocumentState<?> state = checks.get(i).newDocumentState();
+                        state.add(slice);
+                        state.shift(current.offset());
+                        mergeState(states[i], state);
+                    }
+                }
+            }
+            textSize.record(windows.length());
+
+            TokenizedText document = TokenizedText.ofLength(windows.length());
+            Findings findings = new EventFindings(listener, "", 0);
+            for (int i = 0; i < checks.size(); i++) {
+                checks.get(i).checkDocument(document, states[i], context, findings);
+            }
+        }
+    }
+
+    // Перед каждым чтением проверяет срок и отмену анализа
+    private static class DeadlineReader extends FilterReader {
+
+        private final TaskScope scope;
+
+        DeadlineReader(Reader reader, TaskScope scope) {
+            super(reader);
+            this.scope = scope;
+        }
+
+        @Override
+        public int read() throws IOException {
+            checkpoint();
+            return super.read();
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) throws IOException {
+            checkpoint();
+            return super.read(buffer, offset, length);
+        }
+
+        private void checkpoint() throws IOException {
+            try {
+                scope.checkpoint();
+            } catch (TimeoutException | ExecutionException e) {
+                throw new IOException(e.getMessage(), e);
+            }
+        }
+    }
+
+    // Каждая находка - отдельное событие; offset - позиция source в тексте документа
+    private record EventFindings(Consumer<AnalysisEvent> listener, String source, int offset) implements Findings {
+
+        @Override
+        public void add(int kind, int start, int end, int argument, Object detail) {
+            TextError finding = FindingKinds.materialize(kind, source, start, end, argument, detail);
+            if (offset != 0 && start >= 0) {
+                finding = finding.withPosition(finding.getPosition() + offset);
+            }
+            listener.accept(new AnalysisEvent(FindingKinds.get(kind).type().id(), finding));
+        }
+
+        @Override
+        public void metrics(TextMetrics metrics) {
+            listener.accept(new AnalysisEvent(AnalysisEvent.METRICS, metrics));
+        }
+    }
+
+    // Приблизительный размер результата в памяти: строки по 2 байта на символ плюс заголовки объектов
+    private static long estimateWeight(AnalysisResult result) {
+        long weight = 256 + 2L * result.getOriginalText().length();
+        if (result.getFindings() != null) {
+            return weight + result.getFindings().memoryFootprint();
         }
+        for (SpellingError error : result.getSpellingErrors()) {
+            weight += estimateWeight(error);
+            for (String suggestion : error.getSuggestions()) {
+                weight += 48 + 2L * suggestion.length();
+            }
+        }
+        for (GrammarError error : result.getGrammarErrors()) weight += estimateWeight(error);
+        for (PunctuationError error : result.getPunctuationErrors()) weight += estimateWeight(error);
+        for (StyleIssue issue : result.getStyleIssues()) weight += estimateWeight(issue);
+        return weight;
     }
 
-    private TextMetrics calculateMetrics(String text) {
-        int charCount = text.length();
-        String[] words = text.split("\\s+");
-        int wordCount = words.length;
+    private static long estimateWeight(TextError error) {
+        // Описания и коды ошибок - общие строковые константы, поэтому учитывается только фрагмент текста
+        return 96 + 2L * error.getText().length();
+    }
 
-        String[] sentences = text.split("[.!?]+");
-        int sentenceCount = sentences.length;
+    public Duration getTimeout() {
+        return timeout;
+    }
 
-        double readabilityIndex = TextUtils.calculateReadabilityIndex(text);
-        double waterPercentage = TextUtils.calculateWaterPercentage(text);
+    public CacheStats getCacheStats() {
+        return resultCache.stats();
+    }
 
-        return new TextMetrics(charCount, wordCount, sentenceCount, readabilityIndex, waterPercentage);
+    public CacheStats getWordCacheStats() {
+        return dictionaryService.getWordCacheStats();
     }
 
     public int getDictionarySize() {
         return dictionaryService.getDictionarySize();
     }
 
+    public long getDictionaryVersion() {
+        return dictionaryService.getDictionaryVersion();
+    }
+
+    public long getRulesVersion() {
+        return ruleService.getVersion();
+    }
+
     public void addCustomWord(String word) {
+        long version = dictionaryService.getDictionaryVersion();
         dictionaryService.addCustomWord(word);
+        // Результаты для прежней версии словаря больше не нужны - освобождаем память сразу
+        if (dictionaryService.getDictionaryVersion() != version) {
+            resultCache.invalidateAll();
+        }
     }
 
-    public void shutdown() {
-        if (!executorService.isShutdown()) {
-            executorService.shutdown();
-        }
+    // Сброс кэшей результатов и слов, например после прогрева на синтетических текстах
+    // или после перезагрузки словарей
+    public void clearCaches() {
+        resultCache.invalidateAll();
+        dictionaryService.clearWordCache();
     }
-}
\ No newline at end of file
+
+    public void clearResultCache() {
+        resultCache.invalidateAll();
+    }
+
+    private record ResultKey(long textHash, int textLength, String language, AnalysisPlan plan,
+                             long dictionaryVersion, long rulesVersion) {}
+
+}
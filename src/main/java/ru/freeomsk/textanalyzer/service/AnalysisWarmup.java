@@ -0,0 +1,184 @@
+package ru.freeomsk.textanalyzer.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Прогрев JIT перед приемом запросов: первые запросы после запуска выполняются интерпретатором и C1
+// в несколько раз медленнее. Тексты из warmup/corpus.txt анализируются проходами одинакового объема,
+// пока медиана времени последних window проходов не перестанет отличаться от предыдущих больше чем на tolerance.
+// Раннеры выполняются до ApplicationReadyEvent, поэтому состояние готовности (/actuator/health/readiness)
+// становится ACCEPTING_TRAFFIC только после прогрева. Результат - в метриках analysis.warmup.*
+@Component
+public class AnalysisWarmup implements ApplicationRunner {
+
+    private static final String CORPUS_RESOURCE = "warmup/corpus.txt";
+
+    // Проход: несколько коротких текстов и один длинный, который анализируется фрагментами параллельно
+    private static final int SHORT_TEXTS = 8;
+    private static final int SHORT_TEXT_SENTENCES = 6;
+    private static final int LONG_TEXT_CHARS = 20_000;
+    // Доля слов с опечаткой: неизвестные слова проверяют поиск подсказок
+    private static final double TYPO_RATE = 0.15;
+    private static final char[] LETTERS = "абвгдежзийклмнопрстуфхцчшщыьэюя".toCharArray();
+
+    private final AdvancedTextAnalyzer textAnalyzer;
+    private final boolean enabled;
+    private final Duration maxDuration;
+    private final int window;
+    private final double tolerance;
+
+    private volatile long durationNanos;
+    private volatile int iterations;
+    private volatile long firstLatencyNanos;
+    private volatile long steadyLatencyNanos;
+
+    public AnalysisWarmup(AdvancedTextAnalyzer textAnalyzer,
+                          @Value("${analysis.warmup.enabled:true}") boolean enabled,
+                          @Value("${analysis.warmup.max-duration:60s}") Duration maxDuration,
+                          @Value("${analysis.warmup.window:20}") int window,
+                          @Value("${analysis.warmup.tolerance:0.1}") double tolerance) {
+        this.textAnalyzer = textAnalyzer;
+        this.enabled = enabled;
+        this.maxDuration = maxDuration;
+        this.window = Math.max(1, window);
+        this.tolerance = tolerance;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) return;
+
+        List<String> sentences = loadCorpus();
+        if (sentences.isEmpty()) return;
+
+        // Одинаковое зерно - одинаковые проходы при каждом запуске
+        Random random = new Random(1);
+        long started = System.nanoTime();
+        long deadline = started + maxDuration.toNanos();
+        List<Long> latencies = new ArrayList<>();
+        try {
+            do {
+                List<String> texts = iteration(sentences, random);
+                // Каждый проход начинается с пустых кэшей, иначе со временем он измерял бы попадания в кэш
+                textAnalyzer.clearCaches();
+                long iterationStarted = System.nanoTime();
+                for (String text : texts) {
+                    textAnalyzer.analyzeText(text, "ru");
+                }
+                latencies.add(System.nanoTime() - iterationStarted);
+            } while (!isStable(latencies) && System.nanoTime() < deadline);
+        } catch (RuntimeException e) {
+            // Без прогрева приложение работает, только первые запросы медленнее
+            System.err.println("Ошибка прогрева анализатора: " + e.getMessage());
+        } finally {
+            // Синтетические тексты и опечатки не должны занимать кэши
+            textAnalyzer.clearCaches();
+        }
+
+        durationNanos = System.nanoTime() - started;
+        iterations = latencies.size();
+        if (!latencies.isEmpty()) {
+            firstLatencyNanos = latencies.get(0);
+            steadyLatencyNanos = median(latencies, Math.max(0, latencies.size() - window), latencies.size());
+        }
+    }
+
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    public int getIterations() {
+        return iterations;
+    }
+
+    public long getFirstLatencyNanos() {
+        return firstLatencyNanos;
+    }
+
+    public long getSteadyLatencyNanos() {
+        return steadyLatencyNanos;
+    }
+
+    private boolean isStable(List<Long> latencies) {
+        int size = latencies.size();
+        if (size < 2 * window) return false;
+        long previous = median(latencies, size - 2 * window, size - window);
+        long last = median(latencies, size - window, size);
+        return Math.abs(last - previous) <= tolerance * previous;
+    }
+
+    private static long median(List<Long> values, int from, int to) {
+        long[] sorted = values.subList(from, to).stream().mapToLong(Long::longValue).sorted().toArray();
+        return sorted[sorted.length / 2];
+    }
+
+    private static List<String> iteration(List<String> sentences, Random random) {
+        List<String> texts = new ArrayList<>(SHORT_TEXTS + 1);
+        for (int i = 0; i < SHORT_TEXTS; i++) {
+            texts.add(text(sentences, random, 1 + random.nextInt(SHORT_TEXT_SENTENCES), Integer.MAX_VALUE));
+        }
+        texts.add(text(sentences, random, Integer.MAX_VALUE, LONG_TEXT_CHARS));
+        return texts;
+    }
+
+    // Не больше sentenceCount предложений и не меньше minChars символов - что наступит раньше
+    private static String text(List<String> sentences, Random random, int sentenceCount, int minChars) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < sentenceCount && text.length() < minChars; i++) {
+            if (!text.isEmpty()) {
+                text.append(random.nextInt(6) == 0 ? "\n" : " ");
+            }
+            appendWithTypos(text, sentences.get(random.nextInt(sentences.size())), random);
+        }
+        return text.toString();
+    }
+
+    // Опечатка - замена одной буквы внутри слова длиннее трех букв
+    private static void appendWithTypos(StringBuilder text, String sentence, Random random) {
+        int wordStart = -1;
+        for (int i = 0; i <= sentence.length(); i++) {
+            boolean letter = i < sentence.length() && Character.isLetter(sentence.charAt(i));
+            if (letter && wordStart < 0) {
+                wordStart = text.length();
+            }
+            if (!letter && wordStart >= 0) {
+                int length = text.length() - wordStart;
+                if (length > 3 && random.nextDouble() < TYPO_RATE) {
+                    text.setCharAt(wordStart + 1 + random.nextInt(length - 2), LETTERS[random.nextInt(LETTERS.length)]);
+                }
+                wordStart = -1;
+            }
+            if (i < sentence.length()) {
+                text.append(sentence.charAt(i));
+            }
+        }
+    }
+
+    private static List<String> loadCorpus() {
+        ClassPathResource resource = new ClassPathResource(CORPUS_RESOURCE);
+        if (!resource.exists()) return List.of();
+
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8))) {
+            return reader.lines()
+                    .map(String::trim)
+                    .filter(line -> !line.isEmpty() && !line.startsWith("#"))
+                    .toList();
+        } catch (IOException e) {
+            System.err.println("Ошибка загрузки корпуса прогрева: " + e.getMessage());
+            return List.of();
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package ru.freeomsk.textanalyzer.service;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import ru.freeomsk.textanalyzer.check.AnalysisPlan;
+import ru.freeomsk.textanalyzer.model.AnalysisResult;
+import ru.freeomsk.textanalyzer.model.BatchItemResult;
+import ru.freeomsk.textanalyzer.model.BatchStats;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.*;
+
+// Пакетный анализ: элементы выполняются параллельно, но не больше parallelism одновременно.
+// Стоимость анализа растет с длиной текста, поэтому элементы запускаются от длинных к коротким (LPT):
+// длинный текст, начатый последним, не растягивает весь пакет. Результаты возвращаются в порядке запроса
+@Service
+public class BatchAnalyzer {
+
+    private final AdvancedTextAnalyzer textAnalyzer;
+    private final ExecutorService executorService;
+    private final int parallelism;
+
+    public BatchAnalyzer(AdvancedTextAnalyzer textAnalyzer,
+                         @Qualifier("analysisExecutor") ExecutorService executorService,
+                         @Value("${analysis.batch.parallelism:0}") int parallelism) {
+        this.textAnalyzer = textAnalyzer;
+        this.executorService = executorService;
+        // 0 - по числу ядер: анализ ограничен процессором
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+    }
+
+    // checks и suggestions - как в запросе /analyze: null - все проверки с подсказками
+    public record Item(String text, String language, List<String> checks, Boolean suggestions) {}
+
+    public record Result(List<BatchItemResult> items, BatchStats stats) {}
+
+    public Result analyze(List<Item> items) {
+        long started = System.nanoTime();
+        BatchItemResult[] results = new BatchItemResult[items.size()];
+
+        // Некорректные элементы получают ошибку сразу и не занимают слоты
+        List<Integer> order = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            String error = validate(items.get(i));
+            if (error != null) {
+                results[i] = BatchItemResult.failed(i, error, 0);
+            } else {
+                order.add(i);
+            }
+        }
+        order.sort(Comparator.comparingInt((Integer i) -> items.get(i).text().length()).reversed());
+
+        Semaphore slots = new Semaphore(parallelism);
+        List<Future<?>> futures = new ArrayList<>(order.size());
+        try {
+            for (int index : order) {
+                slots.acquire();
+                futures.add(executorService.submit(() -> {
+                    try {
+                        results[index] = analyzeItem(index, items.get(index));
+                    } finally {
+                        slots.release();
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            futures.forEach(future -> future.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Пакетный анализ прерван");
+        } catch (ExecutionException e) {
+            futures.forEach(future -> future.cancel(true));
+            throw new RuntimeException("Ошибка пакетного анализа", e.getCause());
+        }
+
+        List<BatchItemResult> ordered = Arrays.asList(results);
+        return new Result(ordered, stats(items, ordered, System.nanoTime() - started));
+    }
+
+    // Анализ одного элемента; ошибки проверки и анализа возвращаются в результате, а не исключением
+    public BatchItemResult analyzeItem(int index, Item item) {
+        String error = validate(item);
+        if (error != null) {
+            return BatchItemResult.failed(index, error, 0);
+        }
+
+        long started = System.nanoTime();
+        try {
+            AnalysisPlan plan = textAnalyzer.plan(item.checks(), item.suggestions());
+            AnalysisResult result = textAnalyzer.analyzeText(item.text(), item.language(), plan);
+            return BatchItemResult.succeeded(index, result, elapsedMillis(started));
+        } catch (Exception e) {
+            return BatchItemResult.failed(index, e.getMessage(), elapsedMillis(started));
+        }
+    }
+
+    private String validate(Item item) {
+        return item == null ? "Пустой элемент пакета" : textAnalyzer.validate(item.text(), item.language(), item.checks());
+    }
+
+    private BatchStats stats(List<Item> items, List<BatchItemResult> results, long elapsedNanos) {
+        int succeeded = 0;
+        long totalChars = 0;
+        long busyMillis = 0;
+        for (BatchItemResult result : results) {
+            busyMillis += result.elapsedMillis();
+            if (result.success()) {
+                succeeded++;
+                totalChars += items.get(result.index()).text().length();
+            }
+        }
+
+        double seconds = Math.max(elapsedNanos, 1) / 1e9;
+        return new BatchStats(results.size(), succeeded, results.size() - succeeded, totalChars, parallelism,
+                TimeUnit.NANOSECONDS.toMillis(elapsedNanos), busyMillis,
+                Math.round(results.size() / seconds * 100) / 100.0,
+                Math.round(totalChars / seconds));
+    }
+
+    private static long elapsedMillis(long startedNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedNanos);
+    }
+}
@@ -1,78 +1,239 @@
 package ru.freeomsk.textanalyzer.service;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import ru.freeomsk.textanalyzer.cache.CacheStats;
+import ru.freeomsk.textanalyzer.cache.StripedCache;
+import ru.freeomsk.textanalyzer.check.CheckContext;
+import ru.freeomsk.textanalyzer.check.CheckRegistry;
+import ru.freeomsk.textanalyzer.check.CostClass;
+import ru.freeomsk.textanalyzer.check.Findings;
+import ru.freeomsk.textanalyzer.check.FindingsCollector;
+import ru.freeomsk.textanalyzer.check.TextCheck;
+import ru.freeomsk.textanalyzer.dictionary.DictionarySnapshot;
 import ru.freeomsk.textanalyzer.dictionary.RussianDictionaryService;
+import ru.freeomsk.textanalyzer.model.FindingKinds;
+import ru.freeomsk.textanalyzer.model.FindingType;
 import ru.freeomsk.textanalyzer.model.SpellingError;
+import ru.freeomsk.textanalyzer.model.Token;
+import ru.freeomsk.textanalyzer.model.TokenizedText;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
 import java.util.List;
 
 @Service
-public class DictionaryService {
+@Order(1)
+public class DictionaryService implements TextCheck {
+
+    // Оценка размера записи для счетчика частот: слово и пара подсказок
+    private static final int EXPECTED_VERDICT_WEIGHT = 256;
+
+    private static final int UNKNOWN_WORD = spellingKind("ORPH_UNKNOWN_WORD");
+    private static final int LATIN_MIX = spellingKind("ORPH_LATIN_MIX");
+    private static final int NUMBER_MIX = spellingKind("ORPH_NUMBER_MIX");
+    private static final int TOO_LONG = spellingKind("ORPH_TOO_LONG");
 
     private final RussianDictionaryService russianDictionary;
     private final TextProcessor textProcessor;
 
-    public DictionaryService(RussianDictionaryService russianDictionary, TextProcessor textProcessor) {
+    // Частоты слов подчиняются закону Ципфа: небольшое число слов дает большую часть проверок,
+    // поэтому вердикт и подсказки для слова вычисляются один раз на версию словаря
+    private final StripedCache<String, WordVerdict> wordCache;
+    private volatile long cachedVersion;
+
+    private final Counter knownWords;
+    private final Counter unknownWords;
+    private final Timer suggestionTimer;
+    private final DistributionSummary suggestionCandidates;
+
+    public DictionaryService(RussianDictionaryService russianDictionary, TextProcessor textProcessor,
+                             MeterRegistry meterRegistry,
+                             @Value("${spelling.cache.max-bytes:8388608}") long cacheMaxBytes) {
         this.russianDictionary = russianDictionary;
         this.textProcessor = textProcessor;
+        this.knownWords = Counter.builder("spelling.words")
+                .description("Проверенные слова: найденные в словаре и неизвестные")
+                .tag("result", "known")
+                .register(meterRegistry);
+        this.unknownWords = Counter.builder("spelling.words")
+                .description("Проверенные слова: найденные в словаре и неизвестные")
+                .tag("result", "unknown")
+                .register(meterRegistry);
+        this.suggestionTimer = Timer.builder("spelling.suggestions")
+                .description("Поиск подсказок для неизвестного слова")
+                .register(meterRegistry);
+        this.suggestionCandidates = DistributionSummary.builder("spelling.suggestions.candidates")
+                .description("Число слов-кандидатов, просмотренных при поиске подсказок")
+                .register(meterRegistry);
+        this.wordCache = new StripedCache<>(cacheMaxBytes,
+                (int) Math.min(Integer.MAX_VALUE, cacheMaxBytes / EXPECTED_VERDICT_WEIGHT),
+                Runtime.getRuntime().availableProcessors() * 4,
+                DictionaryService::estimateWeight);
     }
 
-    public List<SpellingError> checkSpelling(String text) {
-        List<SpellingError> errors = new ArrayList<>();
+    @Override
+    public String name() {
+        return CheckRegistry.SPELLING;
+    }
 
+    @Override
+    public CostClass costClass() {
+        return CostClass.EXPENSIVE;
+    }
+
+    @Override
+    public void checkSlice(TokenizedText slice, CheckContext context, Findings findings) {
+        checkSpelling(slice, context.dictionary(), context.suggestions(), findings);
+    }
+
+    public List<SpellingError> checkSpelling(String text) {
         if (text == null || text.trim().isEmpty()) {
-            return errors;
+            return new ArrayList<>();
         }
+        return checkSpelling(textProcessor.tokenize(text));
+    }
+
+    public List<SpellingError> checkSpelling(TokenizedText text) {
+        return checkSpelling(text, russianDictionary.snapshot());
+    }
+
+    public List<SpellingError> checkSpelling(TokenizedText text, DictionarySnapshot dictionary) {
+        return checkSpelling(text, dictionary, true);
+    }
 
-        String[] words = textProcessor.tokenizeWords(text);
+    // Весь текст проверяется по одной версии словаря, даже если словарь меняется во время анализа.
+    // Без подсказок неизвестное слово только отмечается: поиск похожих слов - самая дорогая часть проверки
+    public List<SpellingError> checkSpelling(TokenizedText text, DictionarySnapshot dictionary, boolean suggestions) {
+        FindingsCollector findings = new FindingsCollector();
+        checkSpelling(text, dictionary, suggestions, findings);
+        return findings.materialize(text.getText(), FindingType.SPELLING);
+    }
+
+    private void checkSpelling(TokenizedText text, DictionarySnapshot dictionary, boolean suggestions,
+                               Findings findings) {
+        int checked = 0;
+        int unknown = 0;
 
-        for (int i = 0; i < words.length; i++) {
-            String originalWord = words[i];
-            String cleanWord = textProcessor.cleanWord(originalWord);
+        for (Token token : text.getTokens()) {
+            String cleanWord = token.normalized();
 
             // Пропускаем короткие слова и не-кириллические
-            if (cleanWord.length() < 2 || !textProcessor.isCyrillicWord(cleanWord)) {
+            if (cleanWord.length() < 2) {
                 continue;
             }
 
-            if (!russianDictionary.isWordValid(cleanWord)) {
-                List<String> suggestions = russianDictionary.getSuggestions(cleanWord);
-                String errorType = determineErrorType(originalWord);
-
-                errors.add(new SpellingError(
-                        originalWord,
-                        findWordPosition(text, words, i),
-                        suggestions,
-                        "Слово не найдено в словаре",
-                        "ORPH_" + errorType
-                ));
+            checked++;
+            WordVerdict verdict = verdictFor(cleanWord, dictionary, suggestions);
+            if (!verdict.valid()) {
+                unknown++;
+                // Список подсказок общий с кэшем вердиктов, находка хранит только ссылку на него
+                findings.add(determineErrorKind(token.text()), token.start(), token.end(), 0,
+                        suggestions ? verdict.suggestions() : null);
+            }
+        }
+
+        // Счетчики обновляются один раз на фрагмент, а не на каждое слово
+        knownWords.increment(checked - unknown);
+        unknownWords.increment(unknown);
+    }
+
+    private WordVerdict verdictFor(String word, DictionarySnapshot dictionary, boolean suggestions) {
+        long version = dictionary.getVersion();
+        long current = cachedVersion;
+
+        if (version > current) {
+            // Словарь обновился: вердикты прежней версии больше не нужны
+            synchronized (wordCache) {
+                if (version > cachedVersion) {
+                    wordCache.invalidateAll();
+                    cachedVersion = version;
+                }
             }
+        } else if (version < current) {
+            // Анализ, начатый до обновления словаря, не засоряет кэш устаревшими вердиктами
+            return computeVerdict(word, dictionary, suggestions);
         }
 
-        return errors;
+        // Вердикт без подсказок годится только для запроса без подсказок
+        WordVerdict cached = wordCache.get(word);
+        if (cached != null && cached.dictionaryVersion() == version && (cached.suggestions() != null || !suggestions)) {
+            return cached;
+        }
+        WordVerdict verdict = computeVerdict(word, dictionary, suggestions);
+        wordCache.put(word, verdict);
+        return verdict;
     }
 
-    private String determineErrorType(String word) {
-        if (word.matches(".*[a-z].*")) return "LATIN_MIX";
-        if (word.matches(".*[0-9].*")) return "NUMBER_MIX";
-        if (word.length() > 20) return "TOO_LONG";
-        return "UNKNOWN_WORD";
+    private WordVerdict computeVerdict(String word, DictionarySnapshot dictionary, boolean suggestions) {
+        if (dictionary.isWordValid(word)) {
+            return new WordVerdict(dictionary.getVersion(), true, List.of());
+        }
+        if (!suggestions) {
+            return new WordVerdict(dictionary.getVersion(), false, null);
+        }
+        List<String> found = suggestionTimer.record(() -> dictionary.getSuggestions(word, suggestionCandidates::record));
+        return new WordVerdict(dictionary.getVersion(), false, List.copyOf(found));
     }
 
-    private int findWordPosition(String text, String[] words, int wordIndex) {
-        int position = 0;
-        for (int i = 0; i < Math.min(wordIndex, words.length); i++) {
-            position += words[i].length() + 1; // +1 for space
+    private static long estimateWeight(String word, WordVerdict verdict) {
+        long weight = 96 + 2L * word.length();
+        if (verdict.suggestions() == null) return weight;
+        for (String suggestion : verdict.suggestions()) {
+            weight += 48 + 2L * suggestion.length();
+        }
+        return weight;
+    }
+
+    private int determineErrorKind(String word) {
+        boolean hasLatin = false;
+        boolean hasDigit = false;
+        for (int i = 0; i < word.length(); i++) {
+            char c = word.charAt(i);
+            if (c >= 'a' && c <= 'z') hasLatin = true;
+            else if (c >= '0' && c <= '9') hasDigit = true;
+        }
+
+        if (hasLatin) return LATIN_MIX;
+        if (hasDigit) return NUMBER_MIX;
+        if (word.length() > 20) return TOO_LONG;
+        return UNKNOWN_WORD;
+    }
+
+    private static int spellingKind(String code) {
+        return FindingKinds.intern(FindingType.SPELLING, code, "Слово не найдено в словаре", null, 0);
+    }
+
+    public CacheStats getWordCacheStats() {
+        return wordCache.stats();
+    }
+
+    public void clearWordCache() {
+        synchronized (wordCache) {
+            wordCache.invalidateAll();
         }
-        return Math.min(position, text.length());
     }
 
     public void addCustomWord(String word) {
         russianDictionary.addWordToDictionary(word);
     }
 
+    public DictionarySnapshot getDictionarySnapshot() {
+        return russianDictionary.snapshot();
+    }
+
     public int getDictionarySize() {
         return russianDictionary.getDictionarySize();
     }
-}
\ No newline at end of file
+
+    public long getDictionaryVersion() {
+        return russianDictionary.getDictionaryVersion();
+    }
+
+    // suggestions == null - подсказки для неизвестного слова еще не вычислялись
+    private record WordVerdict(long dictionaryVersion, boolean valid, List<String> suggestions) {}
+}
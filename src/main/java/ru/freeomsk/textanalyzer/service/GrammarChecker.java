@@ -1,110 +1,128 @@
 package ru.freeomsk.textanalyzer.service;
 
+import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Service;
+import ru.freeomsk.textanalyzer.check.CheckContext;
+import ru.freeomsk.textanalyzer.check.CostClass;
+import ru.freeomsk.textanalyzer.check.Findings;
+import ru.freeomsk.textanalyzer.check.FindingsCollector;
+import ru.freeomsk.textanalyzer.check.TextCheck;
+import ru.freeomsk.textanalyzer.dictionary.DictionarySnapshot;
+import ru.freeomsk.textanalyzer.dictionary.Grammemes;
+import ru.freeomsk.textanalyzer.dictionary.Morphology;
+import ru.freeomsk.textanalyzer.dictionary.PartOfSpeech;
+import ru.freeomsk.textanalyzer.model.FindingKinds;
+import ru.freeomsk.textanalyzer.model.FindingType;
 import ru.freeomsk.textanalyzer.model.GrammarError;
+import ru.freeomsk.textanalyzer.model.Sentence;
+import ru.freeomsk.textanalyzer.model.Token;
+import ru.freeomsk.textanalyzer.model.TokenizedText;
+import ru.freeomsk.textanalyzer.rules.RuleCategory;
+import ru.freeomsk.textanalyzer.rules.RuleMatch;
+import ru.freeomsk.textanalyzer.rules.RuleService;
+import ru.freeomsk.textanalyzer.rules.RuleSet;
+import ru.freeomsk.textanalyzer.util.TextTokenizer;
 
-import java.util.ArrayList;
 import java.util.List;
-import java.util.regex.Pattern;
 
 @Service
-public class GrammarChecker {
+@Order(2)
+public class GrammarChecker implements TextCheck {
+
+    // Окончания для слов, которых нет в морфологическом словаре
+    private static final String[] SINGULAR_NOUN_ENDINGS = {"а", "я", "о", "е", "й"};
+    private static final String[] PLURAL_VERB_ENDINGS = {"ют", "ят", "али", "или"};
+
+    private static final int AGREEMENT_NUMBER = FindingKinds.intern(FindingType.GRAMMAR, "GRAM_AGREEMENT_NUMBER",
+            "Несогласование подлежащего и сказуемого в числе", "Числовое согласование", 0);
+
+    private final DictionaryService dictionaryService;
+    private final RuleService ruleService;
+
+    public GrammarChecker(DictionaryService dictionaryService, RuleService ruleService) {
+        this.dictionaryService = dictionaryService;
+        this.ruleService = ruleService;
+    }
+
+    @Override
+    public String name() {
+        return "grammar";
+    }
+
+    @Override
+    public CostClass costClass() {
+        return CostClass.MODERATE;
+    }
+
+    @Override
+    public void checkSlice(TokenizedText slice, CheckContext context, Findings findings) {
+        checkGrammar(slice, context.dictionary(), context.rules(), findings);
+    }
 
     public List<GrammarError> checkGrammar(String text) {
-        List<GrammarError> errors = new ArrayList<>();
+        return checkGrammar(TextTokenizer.tokenize(text));
+    }
 
-        errors.addAll(checkSubjectPredicateAgreement(text));
-        errors.addAll(checkCaseUsage(text));
-        errors.addAll(checkVerbForms(text));
+    public List<GrammarError> checkGrammar(TokenizedText text) {
+        return checkGrammar(text, dictionaryService.getDictionarySnapshot());
+    }
 
-        return errors;
+    public List<GrammarError> checkGrammar(TokenizedText text, DictionarySnapshot dictionary) {
+        FindingsCollector findings = new FindingsCollector();
+        checkGrammar(text, dictionary, ruleService.getRuleSet(), findings);
+        return findings.materialize(text.getText(), FindingType.GRAMMAR);
     }
 
-    private List<GrammarError> checkSubjectPredicateAgreement(String text) {
-        List<GrammarError> errors = new ArrayList<>();
-        String[] sentences = text.split("[.!?]+");
+    private void checkGrammar(TokenizedText text, DictionarySnapshot dictionary, RuleSet rules, Findings findings) {
+        checkSubjectPredicateAgreement(text, dictionary.getMorphology(), findings);
+        checkRules(text, rules, findings);
+    }
 
-        for (String sentence : sentences) {
-            String[] words = sentence.trim().split("\\s+");
-            if (words.length < 2) continue;
+    private void checkSubjectPredicateAgreement(TokenizedText text, Morphology morphology, Findings findings) {
+        for (Sentence sentence : text.getSentences()) {
+            List<Token> words = text.tokensOf(sentence);
+            if (words.size() < 2) continue;
 
             // Простая проверка: если существительное в единственном числе,
             // а глагол во множественном (и наоборот)
-            for (int i = 0; i < words.length - 1; i++) {
-                if (isNounSingular(words[i]) && isVerbPlural(words[i + 1])) {
-                    errors.add(createGrammarError(
-                            words[i] + " " + words[i + 1],
-                            sentence,
-                            "Несогласование подлежащего и сказуемого в числе",
-                            "GRAM_AGREEMENT_NUMBER",
-                            "Числовое согласование"
-                    ));
+            for (int i = 0; i < words.size() - 1; i++) {
+                Token subject = words.get(i);
+                Token predicate = words.get(i + 1);
+                if (isNounSingular(subject.lower(), morphology) && isVerbPlural(predicate.lower(), morphology)) {
+                    findings.add(AGREEMENT_NUMBER, subject.start(), predicate.end());
                 }
             }
         }
-
-        return errors;
     }
 
-    private List<GrammarError> checkCaseUsage(String text) {
-        List<GrammarError> errors = new ArrayList<>();
-
-        // Проверка падежного управления с предлогами
-        Pattern[] casePatterns = {
-                Pattern.compile("\\b(о|об|про)\\s+\\w+а\\b", Pattern.CASE_INSENSITIVE), // предложный падеж
-                Pattern.compile("\\b(без|до|от|у)\\s+\\w+е\\b", Pattern.CASE_INSENSITIVE) // родительный падеж
-        };
-
-        for (Pattern pattern : casePatterns) {
-            var matcher = pattern.matcher(text);
-            while (matcher.find()) {
-                errors.add(createGrammarError(
-                        matcher.group(),
-                        text,
-                        "Возможно, неправильное использование падежа",
-                        "GRAM_CASE_USAGE",
-                        "Падежное управление"
-                ));
-            }
+    // Падежное управление, видовременные формы и другие правила из файла правил
+    private void checkRules(TokenizedText text, RuleSet rules, Findings findings) {
+        for (RuleMatch match : RuleService.match(text, rules).of(RuleCategory.GRAMMAR)) {
+            findings.add(match.rule().kind(), match.start(), match.end());
         }
-
-        return errors;
     }
 
-    private List<GrammarError> checkVerbForms(String text) {
-        List<GrammarError> errors = new ArrayList<>();
-
-        // Проверка видовременных форм
-        Pattern verbPattern = Pattern.compile(
-                "\\b(буду|будет|будут)\\s+\\w+ть\\b",
-                Pattern.CASE_INSENSITIVE
-        );
-
-        var matcher = verbPattern.matcher(text);
-        while (matcher.find()) {
-            errors.add(createGrammarError(
-                    matcher.group(),
-                    text,
-                    "Проверьте видовременную форму глагола",
-                    "GRAM_VERB_FORM",
-                    "Вид глагола"
-            ));
+    // Для известных слов число и падеж берутся из морфологического словаря,
+    // для остальных - угадываются по окончанию
+    private boolean isNounSingular(String word, Morphology morphology) {
+        if (morphology.isKnown(word)) {
+            return morphology.hasForm(word, PartOfSpeech.NOUN, Grammemes.SING | Grammemes.NOMN);
         }
-
-        return errors;
-    }
-
-    private boolean isNounSingular(String word) {
-        return word.matches(".*[аяоей]$") && !word.matches(".*[ыи]$");
+        return endsWithAny(word, SINGULAR_NOUN_ENDINGS);
     }
 
-    private boolean isVerbPlural(String word) {
-        return word.matches(".*(ют|ят|али|или)$");
+    private boolean isVerbPlural(String word, Morphology morphology) {
+        if (morphology.isKnown(word)) {
+            return morphology.hasForm(word, PartOfSpeech.VERB, Grammemes.PLUR)
+                    && !morphology.hasForm(word, PartOfSpeech.VERB, Grammemes.SING);
+        }
+        return endsWithAny(word, PLURAL_VERB_ENDINGS);
     }
 
-    private GrammarError createGrammarError(String text, String fullText,
-                                            String description, String errorCode, String rule) {
-        int position = fullText.indexOf(text);
-        return new GrammarError(text, position, description, errorCode, rule);
+    private boolean endsWithAny(String word, String[] endings) {
+        for (String ending : endings) {
+            if (word.endsWith(ending)) return true;
+        }
+        return false;
     }
 }
@@ -0,0 +1,61 @@
+package ru.freeomsk.textanalyzer.service;
+
+import ru.freeomsk.textanalyzer.check.DocumentState;
+import ru.freeomsk.textanalyzer.model.Token;
+import ru.freeomsk.textanalyzer.model.TokenizedText;
+import ru.freeomsk.textanalyzer.util.TextUtils;
+
+// Счетчики для метрик текста. Все они складываются, поэтому метрики считаются по фрагментам
+// и пересчитываются после правки документа без повторного прохода по всему тексту
+public final class MetricCounts implements DocumentState<MetricCounts> {
+
+    private long sentences;
+    private long words;
+    private long complexWords;
+    private long countedForWater;
+    private long waterWords;
+
+    @Override
+    public void add(TokenizedText text) {
+        sentences += text.getSentenceCount();
+        for (Token token : text.getTokens()) {
+            words++;
+            if (TextUtils.isComplexWord(token)) complexWords++;
+            if (TextUtils.isCountedForWater(token)) {
+                countedForWater++;
+                if (TextUtils.isWaterWord(token)) waterWords++;
+            }
+        }
+    }
+
+    @Override
+    public MetricCounts merge(MetricCounts next) {
+        sentences += next.sentences;
+        words += next.words;
+        complexWords += next.complexWords;
+        countedForWater += next.countedForWater;
+        waterWords += next.waterWords;
+        return this;
+    }
+
+    @Override
+    public boolean subtract(MetricCounts part) {
+        sentences -= part.sentences;
+        words -= part.words;
+        complexWords -= part.complexWords;
+        countedForWater -= part.countedForWater;
+        waterWords -= part.waterWords;
+        return true;
+    }
+
+    public long getSentences() { return sentences; }
+    public long getWords() { return words; }
+
+    public double getReadabilityIndex() {
+        return TextUtils.readabilityIndex(sentences, words, complexWords);
+    }
+
+    public double getWaterPercentage() {
+        return TextUtils.waterPercentage(countedForWater, waterWords);
+    }
+}
@@ -0,0 +1,49 @@
+package ru.freeomsk.textanalyzer.service;
+
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import ru.freeomsk.textanalyzer.check.CheckContext;
+import ru.freeomsk.textanalyzer.check.CostClass;
+import ru.freeomsk.textanalyzer.check.DocumentState;
+import ru.freeomsk.textanalyzer.check.Findings;
+import ru.freeomsk.textanalyzer.check.TextCheck;
+import ru.freeomsk.textanalyzer.model.TextMetrics;
+import ru.freeomsk.textanalyzer.model.TokenizedText;
+
+// Метрики складываются из счетчиков фрагментов текста. Регистрируются последними:
+// в потоке событий они завершают анализ
+@Service
+@Order(5)
+public class MetricsCalculator implements TextCheck {
+
+    @Override
+    public String name() {
+        return "metrics";
+    }
+
+    @Override
+    public CostClass costClass() {
+        return CostClass.CHEAP;
+    }
+
+    @Override
+    public DocumentState<?> newDocumentState() {
+        return new MetricCounts();
+    }
+
+    @Override
+    public void checkDocument(TokenizedText text, DocumentState<?> state, CheckContext context, Findings findings) {
+        findings.metrics(calculateMetrics(text.getEnd(), (MetricCounts) state));
+    }
+
+    public TextMetrics calculateMetrics(TokenizedText text) {
+        MetricCounts counts = new MetricCounts();
+        counts.add(text);
+        return calculateMetrics(text.getText().length(), counts);
+    }
+
+    private static TextMetrics calculateMetrics(int charCount, MetricCounts counts) {
+        return new TextMetrics(charCount, (int) counts.getWords(), (int) counts.getSentences(),
+                counts.getReadabilityIndex(), counts.getWaterPercentage());
+    }
+}
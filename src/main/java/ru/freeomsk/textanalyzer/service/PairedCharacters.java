@@ -0,0 +1,63 @@
+package ru.freeomsk.textanalyzer.service;
+
+import ru.freeomsk.textanalyzer.check.DocumentState;
+import ru.freeomsk.textanalyzer.model.TokenizedText;
+
+// Счетчики парных символов фрагмента текста: число кавычек и первые позиции кавычки и скобок.
+// Состояния соседних фрагментов объединяются слева направо, как если бы текст проверялся целиком
+public final class PairedCharacters implements DocumentState<PairedCharacters> {
+
+    private long quoteCount;
+    private int firstQuote = -1;
+    private int firstOpenBracket = -1;
+    private int firstCloseBracket = -1;
+
+    public static PairedCharacters of(TokenizedText text) {
+        PairedCharacters paired = new PairedCharacters();
+        paired.add(text);
+        return paired;
+    }
+
+    @Override
+    public void add(TokenizedText text) {
+        String source = text.getText();
+        for (int i = text.getStart(); i < text.getEnd(); i++) {
+            switch (source.charAt(i)) {
+                case '"' -> {
+                    quoteCount++;
+                    if (firstQuote < 0) firstQuote = i;
+                }
+                case '(' -> {
+                    if (firstOpenBracket < 0) firstOpenBracket = i;
+                }
+                case ')' -> {
+                    if (firstCloseBracket < 0) firstCloseBracket = i;
+                }
+                default -> {
+                }
+            }
+        }
+    }
+
+    // other - состояние фрагмента, следующего за этим
+    @Override
+    public PairedCharacters merge(PairedCharacters other) {
+        quoteCount += other.quoteCount;
+        if (firstQuote < 0) firstQuote = other.firstQuote;
+        if (firstOpenBracket < 0) firstOpenBracket = other.firstOpenBracket;
+        if (firstCloseBracket < 0) firstCloseBracket = other.firstCloseBracket;
+        return this;
+    }
+
+    @Override
+    public void shift(int delta) {
+        if (firstQuote >= 0) firstQuote += delta;
+        if (firstOpenBracket >= 0) firstOpenBracket += delta;
+        if (firstCloseBracket >= 0) firstCloseBracket += delta;
+    }
+
+    public long getQuoteCount() { return quoteCount; }
+    public int getFirstQuote() { return firstQuote; }
+    public int getFirstOpenBracket() { return firstOpenBracket; }
+    public int getFirstCloseBracket() { return firstCloseBracket; }
+}
@@ -1,96 +1,109 @@
 package ru.freeomsk.textanalyzer.service;
 
+import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Service;
+import ru.freeomsk.textanalyzer.check.CheckContext;
+import ru.freeomsk.textanalyzer.check.CostClass;
+import ru.freeomsk.textanalyzer.check.DocumentState;
+import ru.freeomsk.textanalyzer.check.Findings;
+import ru.freeomsk.textanalyzer.check.FindingsCollector;
+import ru.freeomsk.textanalyzer.check.TextCheck;
+import ru.freeomsk.textanalyzer.model.FindingKinds;
+import ru.freeomsk.textanalyzer.model.FindingType;
 import ru.freeomsk.textanalyzer.model.PunctuationError;
+import ru.freeomsk.textanalyzer.model.TokenizedText;
+import ru.freeomsk.textanalyzer.rules.RuleCategory;
+import ru.freeomsk.textanalyzer.rules.RuleMatch;
+import ru.freeomsk.textanalyzer.rules.RuleService;
+import ru.freeomsk.textanalyzer.rules.RuleSet;
+import ru.freeomsk.textanalyzer.util.TextTokenizer;
 
-import java.util.ArrayList;
 import java.util.List;
-import java.util.regex.Pattern;
 
 @Service
-public class PunctuationAnalyzer {
+@Order(3)
+public class PunctuationAnalyzer implements TextCheck {
 
-    private final Pattern punctuationPattern;
+    private static final int UNPAIRED_QUOTE = FindingKinds.intern(FindingType.PUNCTUATION, "PUNC_UNPAIRED_QUOTE",
+            "Непарные кавычки", "Добавьте закрывающую кавычку", 0);
+    private static final int UNPAIRED_BRACKET = FindingKinds.intern(FindingType.PUNCTUATION, "PUNC_UNPAIRED_BRACKET",
+            "Непарные скобки", "Добавьте парную скобку", 0);
 
-    public PunctuationAnalyzer() {
-        String rules =
-                "(?<spaceBefore>[\\s][.,!?;:])|" +           // пробел перед знаком
-                        "(?<missingSpaceAfter>[.,!?;:](?![\\s]))|" + // нет пробела после знака
-                        "(?<multipleSpaces>[ ]{2,})";                // multiple spaces
+    private final RuleService ruleService;
 
-        this.punctuationPattern = Pattern.compile(rules);
+    public PunctuationAnalyzer(RuleService ruleService) {
+        this.ruleService = ruleService;
     }
 
-    public List<PunctuationError> checkPunctuation(String text) {
-        List<PunctuationError> errors = new ArrayList<>();
-
-        var matcher = punctuationPattern.matcher(text);
-        while (matcher.find()) {
-            String errorText = text.substring(matcher.start(), matcher.end());
-            String errorType = "";
-            String expected = "";
-
-            if (matcher.group("spaceBefore") != null) {
-                errorType = "Пробел перед знаком препинания";
-                expected = "Уберите пробел перед знаком препинания";
-            } else if (matcher.group("missingSpaceAfter") != null) {
-                errorType = "Отсутствует пробел после знака препинания";
-                expected = "Добавьте пробел после знака препинания";
-            } else if (matcher.group("multipleSpaces") != null) {
-                errorType = "Лишние пробелы";
-                expected = "Уберите лишние пробелы";
-            }
-
-            errors.add(new PunctuationError(
-                    errorText,
-                    matcher.start(),
-                    errorType,
-                    "PUNC_" + getErrorTypeCode(matcher),
-                    expected
-            ));
-        }
+    @Override
+    public String name() {
+        return "punctuation";
+    }
+
+    @Override
+    public CostClass costClass() {
+        return CostClass.CHEAP;
+    }
+
+    @Override
+    public void checkSlice(TokenizedText slice, CheckContext context, Findings findings) {
+        checkSentences(slice, context.rules(), findings);
+    }
+
+    @Override
+    public DocumentState<?> newDocumentState() {
+        return new PairedCharacters();
+    }
 
-        // Проверка парных символов
-        errors.addAll(checkPairedCharacters(text));
+    @Override
+    public void checkDocument(TokenizedText text, DocumentState<?> state, CheckContext context, Findings findings) {
+        checkPairedCharacters((PairedCharacters) state, findings);
+    }
 
+    public List<PunctuationError> checkPunctuation(String text) {
+        return checkPunctuation(TextTokenizer.tokenize(text));
+    }
+
+    public List<PunctuationError> checkPunctuation(TokenizedText text) {
+        List<PunctuationError> errors = checkSentences(text);
+        errors.addAll(checkDocument(text));
         return errors;
     }
 
-    private List<PunctuationError> checkPairedCharacters(String text) {
-        List<PunctuationError> errors = new ArrayList<>();
+    // Правила пунктуации работают со знаками, а не со словами; фрагмент проверяется независимо
+    public List<PunctuationError> checkSentences(TokenizedText text) {
+        FindingsCollector findings = new FindingsCollector();
+        checkSentences(text, ruleService.getRuleSet(), findings);
+        return findings.materialize(text.getText(), FindingType.PUNCTUATION);
+    }
+
+    private void checkSentences(TokenizedText text, RuleSet rules, Findings findings) {
+        for (RuleMatch match : RuleService.match(text, rules).of(RuleCategory.PUNCTUATION)) {
+            findings.add(match.rule().kind(), match.start(), match.end());
+        }
+    }
 
+    // Проверка парных символов по всему документу
+    public List<PunctuationError> checkDocument(TokenizedText text) {
+        FindingsCollector findings = new FindingsCollector();
+        checkPairedCharacters(PairedCharacters.of(text), findings);
+        return findings.materialize(text.getText(), FindingType.PUNCTUATION);
+    }
+
+    // Счетчики могут быть собраны по фрагментам документа и объединены. Текст находки передается
+    // явно: при анализе потока текста документа к этому моменту уже нет
+    private void checkPairedCharacters(PairedCharacters paired, Findings findings) {
         // Проверка кавычек
-        long quoteCount = text.chars().filter(ch -> ch == '"').count();
-        if (quoteCount % 2 != 0) {
-            errors.add(new PunctuationError(
-                    "\"",
-                    text.indexOf('"'),
-                    "Непарные кавычки",
-                    "PUNC_UNPAIRED_QUOTE",
-                    "Добавьте закрывающую кавычку"
-            ));
+        if (paired.getQuoteCount() % 2 != 0) {
+            findings.add(UNPAIRED_QUOTE, paired.getFirstQuote(), paired.getFirstQuote() + 1, 0, "\"");
         }
 
         // Проверка скобок
-        int openBracket = text.indexOf('(');
-        int closeBracket = text.indexOf(')');
+        int openBracket = paired.getFirstOpenBracket();
+        int closeBracket = paired.getFirstCloseBracket();
         if ((openBracket >= 0 && closeBracket < 0) || (openBracket < 0 && closeBracket >= 0)) {
-            errors.add(new PunctuationError(
-                    openBracket >= 0 ? "(" : ")",
-                    Math.max(openBracket, closeBracket),
-                    "Непарные скобки",
-                    "PUNC_UNPAIRED_BRACKET",
-                    "Добавьте парную скобку"
-            ));
+            int position = Math.max(openBracket, closeBracket);
+            findings.add(UNPAIRED_BRACKET, position, position + 1, 0, openBracket >= 0 ? "(" : ")");
         }
-
-        return errors;
-    }
-
-    private String getErrorTypeCode(java.util.regex.Matcher matcher) {
-        if (matcher.group("spaceBefore") != null) return "SPACE_BEFORE";
-        if (matcher.group("missingSpaceAfter") != null) return "MISSING_SPACE_AFTER";
-        if (matcher.group("multipleSpaces") != null) return "MULTIPLE_SPACES";
-        return "UNKNOWN";
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,185 @@
+package ru.freeomsk.textanalyzer.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.freeomsk.textanalyzer.dictionary.RussianDictionaryService;
+import ru.freeomsk.textanalyzer.rules.RuleService;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+// Перезагрузка словарей (dictionary.dir) и правил (rules.path) при изменении файлов без перезапуска.
+// Изменения собираются, пока файлы не перестанут меняться в течение debounce (редакторы и копирование
+// пишут файл в несколько приемов), затем новая версия собирается в фоновом потоке и заменяет прежнюю
+// одной записью. Запросы, начатые до замены, заканчиваются на прежней версии
+@Component
+public class ResourceWatcher {
+
+    private final RussianDictionaryService dictionaryService;
+    private final RuleService ruleService;
+    private final AdvancedTextAnalyzer textAnalyzer;
+    private final Duration debounce;
+
+    private final Path dictionaryDir;
+    private final Path rulesPath;
+    private final WatchService watchService;
+
+    private final Timer dictionaryReloads;
+    private final Timer dictionaryFailures;
+    private final Timer rulesReloads;
+    private final Timer rulesFailures;
+
+    public ResourceWatcher(RussianDictionaryService dictionaryService,
+                           RuleService ruleService,
+                           AdvancedTextAnalyzer textAnalyzer,
+                           MeterRegistry meterRegistry,
+                           @Value("${reload.enabled:true}") boolean enabled,
+                           @Value("${reload.debounce:500ms}") Duration debounce) {
+        this.dictionaryService = dictionaryService;
+        this.ruleService = ruleService;
+        this.textAnalyzer = textAnalyzer;
+        this.debounce = debounce;
+        this.dictionaryDir = absolute(dictionaryService.getDirectory());
+        this.rulesPath = absolute(ruleService.getRulesPath());
+
+        this.dictionaryReloads = reloadTimer(meterRegistry, "dictionary", "success");
+        this.dictionaryFailures = reloadTimer(meterRegistry, "dictionary", "failure");
+        this.rulesReloads = reloadTimer(meterRegistry, "rules", "success");
+        this.rulesFailures = reloadTimer(meterRegistry, "rules", "failure");
+        Gauge.builder("dictionary.version", dictionaryService, RussianDictionaryService::getDictionaryVersion)
+                .description("Текущая версия словаря")
+                .register(meterRegistry);
+        Gauge.builder("rules.version", ruleService, RuleService::getVersion)
+                .description("Текущая версия правил")
+                .register(meterRegistry);
+
+        this.watchService = enabled && (dictionaryDir != null || rulesPath != null) ? watch() : null;
+    }
+
+    private static Timer reloadTimer(MeterRegistry meterRegistry, String resource, String result) {
+        return Timer.builder("resources.reload")
+                .description("Перезагрузка словарей и правил: сборка новой версии")
+                .tag("resource", resource)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private WatchService watch() {
+        try {
+            WatchService watcher = FileSystems.getDefault().newWatchService();
+            if (dictionaryDir != null) {
+                register(watcher, dictionaryDir);
+            }
+            if (rulesPath != null && rulesPath.getParent() != null && !rulesPath.getParent().equals(dictionaryDir)) {
+                register(watcher, rulesPath.getParent());
+            }
+            // Поток только ждет событий файловой системы и не держит приложение при остановке
+            Thread.ofPlatform().name("resource-watcher").daemon().start(() -> run(watcher));
+            return watcher;
+        } catch (IOException e) {
+            // Без наблюдения словари и правила работают, только изменения требуют перезапуска
+            System.err.println("Ошибка наблюдения за словарями и правилами: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static void register(WatchService watcher, Path directory) throws IOException {
+        directory.register(watcher, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+    }
+
+    private void run(WatchService watcher) {
+        try {
+            while (true) {
+                WatchKey key = watcher.take();
+                Changes changes = new Changes();
+                // Событие за событием, пока файлы не перестанут меняться в течение debounce
+                while (key != null) {
+                    collect(key, changes);
+                    key = watcher.poll(debounce.toNanos(), TimeUnit.NANOSECONDS);
+                }
+                if (changes.dictionary) {
+                    reloadDictionary();
+                }
+                if (changes.rules) {
+                    reloadRules();
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Остановка приложения
+        }
+    }
+
+    private void collect(WatchKey key, Changes changes) {
+        Path directory = (Path) key.watchable();
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                // События потеряны: неизвестно, что изменилось
+                changes.dictionary |= directory.equals(dictionaryDir);
+                changes.rules |= rulesPath != null && directory.equals(rulesPath.getParent());
+                continue;
+            }
+            Path file = directory.resolve((Path) event.context());
+            changes.dictionary |= directory.equals(dictionaryDir)
+                    && RussianDictionaryService.FILE_NAMES.contains(file.getFileName().toString());
+            changes.rules |= file.equals(rulesPath);
+        }
+        key.reset();
+    }
+
+    private void reloadDictionary() {
+        long started = System.nanoTime();
+        try {
+            dictionaryService.reload();
+            dictionaryReloads.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            // Результаты прежней версии больше не нужны - освобождаем память сразу
+            textAnalyzer.clearCaches();
+        } catch (IOException | RuntimeException e) {
+            dictionaryFailures.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            System.err.println("Ошибка перезагрузки словарей, остается версия "
+                    + dictionaryService.getDictionaryVersion() + ": " + e.getMessage());
+        }
+    }
+
+    private void reloadRules() {
+        long started = System.nanoTime();
+        try {
+            ruleService.reload();
+            rulesReloads.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            // Вердикты слов от правил не зависят
+            textAnalyzer.clearResultCache();
+        } catch (IOException | RuntimeException e) {
+            rulesFailures.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            System.err.println("Ошибка перезагрузки правил, остается версия "
+                    + ruleService.getVersion() + ": " + e.getMessage());
+        }
+    }
+
+    private static Path absolute(Path path) {
+        return path == null ? null : path.toAbsolutePath().normalize();
+    }
+
+    @PreDestroy
+    public void stop() throws IOException {
+        if (watchService != null) {
+            watchService.close();
+        }
+    }
+
+    private static final class Changes {
+        boolean dictionary;
+        boolean rules;
+    }
+}
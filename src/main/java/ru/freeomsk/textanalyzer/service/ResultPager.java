@@ -0,0 +1,191 @@
+package ru.freeomsk.textanalyzer.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import ru.freeomsk.textanalyzer.model.AnalysisResult;
+import ru.freeomsk.textanalyzer.model.FindingType;
+import ru.freeomsk.textanalyzer.model.FindingsBuffer;
+import ru.freeomsk.textanalyzer.model.FindingsPage;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.UUID;
+
+// Постраничная выдача находок большого результата. Результат, не поместившийся в первую страницу,
+// хранится до истечения pages.ttl с последнего обращения; курсор - его идентификатор и смещения
+// следующей страницы по видам находок. Хранится только нужное для страниц: столбцы находок и исходный текст,
+// если тексты находок берутся из него. Объем хранимого ограничен pages.max-bytes: при превышении удаляются
+// результаты, к которым дольше всего не обращались. Вытеснение - LRU, а не W-TinyLFU, как у кэша результатов:
+// к новому результату еще не обращались, и частотный фильтр отверг бы его, не дав получить вторую страницу
+@Service
+public class ResultPager {
+
+    private static final int MAX_LIMIT = 10_000;
+
+    private final long maxBytes;
+    private final Duration ttl;
+
+    // Порядок обращений: первым идет результат, к которому дольше всего не обращались
+    private final LinkedHashMap<String, StoredResult> results = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalWeight;
+
+    public ResultPager(@Value("${analysis.pages.max-bytes:67108864}") long maxBytes,
+                       @Value("${analysis.pages.ttl:10m}") Duration ttl) {
+        this.maxBytes = Math.max(0, maxBytes);
+        this.ttl = ttl;
+    }
+
+    // Первая страница; результат запоминается, только если на ней поместились не все находки.
+    // Результат больше pages.max-bytes не хранится: следующих страниц у него нет (nextCursor == null)
+    public FindingsPage firstPage(AnalysisResult result, int limit) {
+        checkLimit(limit);
+        int[] offsets = new int[FindingType.values().length];
+        if (!hasMore(result, offsets, limit)) {
+            return new FindingsPage(limit, offsets, null);
+        }
+
+        AnalysisResult stored = forPages(result);
+        long weight = estimateWeight(stored);
+        if (weight > maxBytes) {
+            return new FindingsPage(limit, offsets, null);
+        }
+        String id = UUID.randomUUID().toString();
+        store(id, new StoredResult(stored, weight, System.currentTimeMillis()));
+        return new FindingsPage(limit, offsets, cursor(id, offsets, limit));
+    }
+
+    // null - результат курсора удален по сроку или из-за превышения pages.max
+    public Page page(String cursor, int limit) {
+        checkLimit(limit);
+        String[] parts = cursor == null ? new String[0] : cursor.split("\\.");
+        int[] offsets = new int[FindingType.values().length];
+        if (parts.length != offsets.length + 1) {
+            throw new IllegalArgumentException("Некорректный курсор: " + cursor);
+        }
+        try {
+            for (int i = 0; i < offsets.length; i++) {
+                offsets[i] = Integer.parseInt(parts[i + 1]);
+                if (offsets[i] < 0) throw new NumberFormatException();
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Некорректный курсор: " + cursor);
+        }
+
+        String id = parts[0];
+        AnalysisResult result = access(id);
+        if (result == null) {
+            return null;
+        }
+        String next = hasMore(result, offsets, limit) ? cursor(id, offsets, limit) : null;
+        return new Page(result, new FindingsPage(limit, offsets, next));
+    }
+
+    public synchronized int getResultCount() {
+        return results.size();
+    }
+
+    public synchronized long getStoredBytes() {
+        return totalWeight;
+    }
+
+    private synchronized void store(String id, StoredResult stored) {
+        results.put(id, stored);
+        totalWeight += stored.weight();
+        evict();
+    }
+
+    // null - результат удален по сроку или вытеснен
+    private synchronized AnalysisResult access(String id) {
+        StoredResult stored = results.get(id);
+        if (stored == null) return null;
+        if (stored.lastAccessMillis() < System.currentTimeMillis() - ttl.toMillis()) {
+            remove(id);
+            return null;
+        }
+        results.put(id, new StoredResult(stored.result(), stored.weight(), System.currentTimeMillis()));
+        return stored.result();
+    }
+
+    private void evict() {
+        long deadline = System.currentTimeMillis() - ttl.toMillis();
+        Iterator<StoredResult> iterator = results.values().iterator();
+        while (iterator.hasNext()) {
+            StoredResult stored = iterator.next();
+            // Результаты идут по давности обращения: просроченные - в начале
+            if (stored.lastAccessMillis() >= deadline && totalWeight <= maxBytes) break;
+            iterator.remove();
+            totalWeight -= stored.weight();
+        }
+    }
+
+    private void remove(String id) {
+        StoredResult removed = results.remove(id);
+        if (removed != null) {
+            totalWeight -= removed.weight();
+        }
+    }
+
+    // Для страниц нужны столбцы находок, метрики и сведения о проверках. Исходный текст нужен,
+    // только если тексты находок - его фрагменты; у результата без столбцов остаются готовые списки
+    private static AnalysisResult forPages(AnalysisResult result) {
+        FindingsBuffer findings = result.getFindings();
+        if (findings == null) {
+            return result;
+        }
+        String source = needsSource(findings) ? result.getOriginalText() : null;
+        return new AnalysisResult(source, result.getLanguage(), findings, result.getMetrics(),
+                result.getChecks(), result.getDictionaryVersion());
+    }
+
+    private static boolean needsSource(FindingsBuffer findings) {
+        for (int i = 0; i < findings.size(); i++) {
+            if (!(findings.detail(i) instanceof String)) return true;
+        }
+        return false;
+    }
+
+    // Текст и столбцы находок; результат из готовых списков оценивается по числу находок
+    private static long estimateWeight(AnalysisResult result) {
+        long weight = 256;
+        if (result.getOriginalText() != null) {
+            weight += 40 + 2L * result.getOriginalText().length();
+        }
+        FindingsBuffer findings = result.getFindings();
+        return weight + (findings != null ? findings.memoryFootprint() : 256L * result.getTotalErrors());
+    }
+
+    private static boolean hasMore(AnalysisResult result, int[] offsets, int limit) {
+        for (FindingType type : FindingType.values()) {
+            if (result.count(type) > (long) offsets[type.ordinal()] + limit) return true;
+        }
+        return false;
+    }
+
+    private static String cursor(String id, int[] offsets, int limit) {
+        StringBuilder cursor = new StringBuilder(id);
+        for (int offset : offsets) {
+            cursor.append('.').append((int) Math.min(Integer.MAX_VALUE, (long) offset + limit));
+        }
+        return cursor.toString();
+    }
+
+    // Проверка размера страницы: сообщение об ошибке или null
+    public String validateLimit(int limit) {
+        if (limit <= 0 || limit > MAX_LIMIT) {
+            return "Число находок на странице должно быть от 1 до " + MAX_LIMIT;
+        }
+        return null;
+    }
+
+    private void checkLimit(int limit) {
+        String error = validateLimit(limit);
+        if (error != null) {
+            throw new IllegalArgumentException(error);
+        }
+    }
+
+    public record Page(AnalysisResult result, FindingsPage page) {}
+
+    private record StoredResult(AnalysisResult result, long weight, long lastAccessMillis) {}
+}
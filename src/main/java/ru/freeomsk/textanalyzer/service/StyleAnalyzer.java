@@ -2,114 +2,113 @@ package ru.freeomsk.textanalyzer.service;
 
 //import com.textanalyzer.model.StyleIssue;
 //import com.textanalyzer.util.TextUtils;
+import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Service;
+import ru.freeomsk.textanalyzer.check.CheckContext;
+import ru.freeomsk.textanalyzer.check.CostClass;
+import ru.freeomsk.textanalyzer.check.DocumentState;
+import ru.freeomsk.textanalyzer.check.Findings;
+import ru.freeomsk.textanalyzer.check.FindingsCollector;
+import ru.freeomsk.textanalyzer.check.TextCheck;
+import ru.freeomsk.textanalyzer.model.FindingKinds;
+import ru.freeomsk.textanalyzer.model.FindingType;
+import ru.freeomsk.textanalyzer.model.Sentence;
 import ru.freeomsk.textanalyzer.model.StyleIssue;
+import ru.freeomsk.textanalyzer.model.TokenizedText;
+import ru.freeomsk.textanalyzer.rules.RuleCategory;
+import ru.freeomsk.textanalyzer.rules.RuleMatch;
+import ru.freeomsk.textanalyzer.rules.RuleService;
+import ru.freeomsk.textanalyzer.rules.RuleSet;
+import ru.freeomsk.textanalyzer.util.TextTokenizer;
 
-import java.util.ArrayList;
 import java.util.List;
-import java.util.regex.Pattern;
 
 @Service
-public class StyleAnalyzer {
+@Order(4)
+public class StyleAnalyzer implements TextCheck {
 
-    public List<StyleIssue> analyzeStyle(String text) {
-        List<StyleIssue> issues = new ArrayList<>();
+    // Начало длинного предложения с многоточием; число слов подставляется в описание
+    private static final int LONG_SENTENCE = FindingKinds.intern(new FindingKinds.Kind(FindingType.STYLE,
+            "STYLE_LONG_SENTENCE", "Слишком длинное предложение (%d слов)", null, 0.5, "..."));
+    private static final int FREQUENCY = FindingKinds.intern(FindingType.STYLE, "STYLE_FREQUENCY",
+            "Слово повторяется слишком часто (%d раз)", null, 0.6);
 
-        issues.addAll(checkRepeatedWords(text));
-        issues.addAll(checkLongSentences(text));
-        issues.addAll(checkWordFrequency(text));
-        issues.addAll(checkPassiveConstructions(text));
+    private final RuleService ruleService;
 
-        return issues;
+    public StyleAnalyzer(RuleService ruleService) {
+        this.ruleService = ruleService;
     }
 
-    private List<StyleIssue> checkRepeatedWords(String text) {
-        List<StyleIssue> issues = new ArrayList<>();
-
-        Pattern repeatedPattern = Pattern.compile(
-                "\\b(\\w+)\\s+\\1\\b",
-                Pattern.CASE_INSENSITIVE
-        );
-
-        var matcher = repeatedPattern.matcher(text);
-        while (matcher.find()) {
-            issues.add(new StyleIssue(
-                    matcher.group(),
-                    matcher.start(),
-                    "Повторение слова - тавтология",
-                    "STYLE_REPETITION",
-                    0.7
-            ));
-        }
+    @Override
+    public String name() {
+        return "style";
+    }
 
-        return issues;
+    @Override
+    public CostClass costClass() {
+        return CostClass.MODERATE;
     }
 
-    private List<StyleIssue> checkLongSentences(String text) {
-        List<StyleIssue> issues = new ArrayList<>();
-        String[] sentences = text.split("[.!?]+");
+    @Override
+    public void checkSlice(TokenizedText slice, CheckContext context, Findings findings) {
+        checkRules(slice, context.rules(), findings);
+        checkLongSentences(slice, findings);
+    }
 
-        for (String sentence : sentences) {
-            int wordCount = sentence.trim().split("\\s+").length;
-            if (wordCount > 25) {
-                issues.add(new StyleIssue(
-                        sentence.substring(0, Math.min(30, sentence.length())) + "...",
-                        text.indexOf(sentence),
-                        "Слишком длинное предложение (" + wordCount + " слов)",
-                        "STYLE_LONG_SENTENCE",
-                        0.5
-                ));
-            }
-        }
+    @Override
+    public DocumentState<?> newDocumentState() {
+        return new WordFrequency();
+    }
 
-        return issues;
+    @Override
+    public void checkDocument(TokenizedText text, DocumentState<?> state, CheckContext context, Findings findings) {
+        checkWordFrequency((WordFrequency) state, findings);
     }
 
-    private List<StyleIssue> checkWordFrequency(String text) {
-        List<StyleIssue> issues = new ArrayList<>();
-        String[] words = text.toLowerCase().split("\\s+");
+    public List<StyleIssue> analyzeStyle(String text) {
+        return analyzeStyle(TextTokenizer.tokenize(text));
+    }
 
-        var frequencyMap = new java.util.HashMap<String, Integer>();
-        for (String word : words) {
-            if (word.length() > 3) {
-                frequencyMap.put(word, frequencyMap.getOrDefault(word, 0) + 1);
-            }
+    public List<StyleIssue> analyzeStyle(TokenizedText text) {
+        FindingsCollector findings = new FindingsCollector();
+        checkRules(text, ruleService.getRuleSet(), findings);
+        checkLongSentences(text, findings);
+        checkWordFrequency(WordFrequency.of(text), findings);
+        return findings.materialize(text.getText(), FindingType.STYLE);
+    }
+
+    // Проверки, которым достаточно отдельных предложений: их можно выполнять по фрагментам текста
+    public List<StyleIssue> analyzeSentences(TokenizedText text) {
+        FindingsCollector findings = new FindingsCollector();
+        checkRules(text, ruleService.getRuleSet(), findings);
+        checkLongSentences(text, findings);
+        return findings.materialize(text.getText(), FindingType.STYLE);
+    }
+
+    // Повторы слов, пассивные конструкции и другие правила из файла правил
+    private void checkRules(TokenizedText text, RuleSet rules, Findings findings) {
+        for (RuleMatch match : RuleService.match(text, rules).of(RuleCategory.STYLE)) {
+            findings.add(match.rule().kind(), match.start(), match.end());
         }
+    }
 
-        for (var entry : frequencyMap.entrySet()) {
-            if (entry.getValue() > 3) {
-                issues.add(new StyleIssue(
-                        entry.getKey(),
-                        -1,
-                        "Слово повторяется слишком часто (" + entry.getValue() + " раз)",
-                        "STYLE_FREQUENCY",
-                        0.6
-                ));
+    private void checkLongSentences(TokenizedText text, Findings findings) {
+        for (Sentence sentence : text.getSentences()) {
+            int wordCount = sentence.tokenCount();
+            if (wordCount > 25) {
+                int previewEnd = Math.min(sentence.start() + 30, sentence.end());
+                findings.add(LONG_SENTENCE, sentence.start(), previewEnd, wordCount, null);
             }
         }
-
-        return issues;
     }
 
-    private List<StyleIssue> checkPassiveConstructions(String text) {
-        List<StyleIssue> issues = new ArrayList<>();
-
-        Pattern passivePattern = Pattern.compile(
-                "\\b(был|была|было|были)\\s+\\w+н\\w*\\b",
-                Pattern.CASE_INSENSITIVE
-        );
-
-        var matcher = passivePattern.matcher(text);
-        while (matcher.find()) {
-            issues.add(new StyleIssue(
-                    matcher.group(),
-                    matcher.start(),
-                    "Пассивная конструкция - рассмотрите возможность использования активного залога",
-                    "STYLE_PASSIVE",
-                    0.4
-            ));
+    // Частоты могут быть собраны по фрагментам документа и объединены.
+    // Находка относится ко всему тексту: позиция -1, текст - само слово
+    private void checkWordFrequency(WordFrequency frequency, Findings findings) {
+        for (var entry : frequency.getCounts().entrySet()) {
+            if (entry.getValue() > 3) {
+                findings.add(FREQUENCY, -1, -1, entry.getValue(), entry.getKey());
+            }
         }
-
-        return issues;
     }
-}
\ No newline at end of file
+}
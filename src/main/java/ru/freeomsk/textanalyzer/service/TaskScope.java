@@ -0,0 +1,105 @@
+package ru.freeomsk.textanalyzer.service;
+
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Группа подзадач одного запроса с общим сроком выполнения. Первая ошибка, истечение срока
+// или прерывание ожидающего потока отменяют все подзадачи группы; при закрытии группы
+// незавершенные подзадачи тоже отменяются, поэтому они не переживают запрос.
+// Подзадача, отмененная из-за ошибки другой, при ожидании сообщает об исходной ошибке, а не об отмене
+final class TaskScope implements AutoCloseable {
+
+    private final ExecutorService executor;
+    private final long deadlineNanos;
+    private final List<Future<?>> tasks = new CopyOnWriteArrayList<>();
+    private volatile boolean cancelled;
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+    TaskScope(ExecutorService executor, long deadlineNanos) {
+        this.executor = executor;
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    <T> Future<T> fork(Callable<T> task) {
+        Future<T> future = executor.submit(() -> {
+            try {
+                return task.call();
+            } catch (Throwable e) {
+                // Ошибка одной подзадачи делает бессмысленными остальные
+                fail(e);
+                throw e;
+            }
+        });
+        tasks.add(future);
+        if (cancelled) future.cancel(true);
+        return future;
+    }
+
+    <T> T join(Future<T> future) throws InterruptedException, ExecutionException, TimeoutException {
+        try {
+            return future.get(remainingNanos(), TimeUnit.NANOSECONDS);
+        } catch (CancellationException e) {
+            cancel();
+            throwFailure();
+            throw e;
+        } catch (ExecutionException e) {
+            cancel();
+            if (e.getCause() instanceof CancellationException) {
+                throwFailure();
+            }
+            throw e;
+        } catch (InterruptedException | TimeoutException e) {
+            cancel();
+            throw e;
+        }
+    }
+
+    // Проверка для долгих вычислений без ожидания подзадач: срок и отмена учитываются между шагами
+    void checkpoint() throws TimeoutException, ExecutionException {
+        if (cancelled || Thread.currentThread().isInterrupted()) {
+            throwFailure();
+            throw new CancellationException("Анализ отменен");
+        }
+        if (remainingNanos() <= 0) {
+            cancel();
+            throw new TimeoutException("Превышено время анализа");
+        }
+    }
+
+    long remainingNanos() {
+        return deadlineNanos - System.nanoTime();
+    }
+
+    boolean isCancelled() {
+        return cancelled;
+    }
+
+    // Ошибка вычисления, которое выполняется вне fork (например, фрагмента в пуле fork/join)
+    void fail(Throwable e) {
+        // Подзадачи, прерванные уже после отмены, завершаются своими исключениями - это не ошибка анализа
+        if (!cancelled) {
+            failure.compareAndSet(null, e);
+        }
+        cancel();
+    }
+
+    private void throwFailure() throws ExecutionException {
+        Throwable cause = failure.get();
+        if (cause != null) {
+            throw new ExecutionException(cause);
+        }
+    }
+
+    void cancel() {
+        cancelled = true;
+        for (Future<?> task : tasks) {
+            task.cancel(true);
+        }
+    }
+
+    @Override
+    public void close() {
+        cancel();
+    }
+}
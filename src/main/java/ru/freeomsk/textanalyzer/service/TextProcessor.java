@@ -1,28 +1,31 @@
 package ru.freeomsk.textanalyzer.service;
 
 import org.springframework.stereotype.Service;
+import ru.freeomsk.textanalyzer.model.Sentence;
+import ru.freeomsk.textanalyzer.model.Token;
+import ru.freeomsk.textanalyzer.model.TokenizedText;
+import ru.freeomsk.textanalyzer.util.TextTokenizer;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.regex.Pattern;
 
 @Service
 public class TextProcessor {
 
+    public TokenizedText tokenize(String text) {
+        return TextTokenizer.tokenize(text);
+    }
+
     public String[] splitSentences(String text) {
         if (text == null || text.trim().isEmpty()) {
             return new String[0];
         }
 
-        // Улучшенное разделение на предложения
-        String[] sentences = text.split("(?<=[.!?])\\s+");
-        List<String> result = new ArrayList<>();
+        TokenizedText tokenized = tokenize(text);
+        List<String> result = new ArrayList<>(tokenized.getSentenceCount());
 
-        for (String sentence : sentences) {
-            String trimmed = sentence.trim();
-            if (!trimmed.isEmpty()) {
-                result.add(trimmed);
-            }
+        for (Sentence sentence : tokenized.getSentences()) {
+            result.add(tokenized.textOf(sentence));
         }
 
         return result.toArray(new String[0]);
@@ -33,21 +36,21 @@ public class TextProcessor {
             return new String[0];
         }
 
-        // Токенизация с сохранением знаков препинания для анализа
-        return text.split("\\s+");
+        List<Token> tokens = tokenize(text).getTokens();
+        String[] words = new String[tokens.size()];
+        for (int i = 0; i < words.length; i++) {
+            words[i] = tokens.get(i).text();
+        }
+        return words;
     }
 
     public List<String> extractRussianWords(String text) {
         List<String> words = new ArrayList<>();
-        String[] tokens = tokenizeWords(text.toLowerCase());
-
-        Pattern russianWordPattern = Pattern.compile("[а-яё]+");
 
-        for (String token : tokens) {
-            // Очищаем слово от знаков препинания
-            String cleanToken = token.replaceAll("[^а-яё]", "");
-            if (cleanToken.length() > 1 && russianWordPattern.matcher(cleanToken).matches()) {
-                words.add(cleanToken);
+        for (Token token : tokenize(text).getTokens()) {
+            // Нормализованная форма уже очищена от знаков препинания и латиницы
+            if (token.normalized().length() > 1) {
+                words.add(token.normalized());
             }
         }
 
@@ -55,15 +58,20 @@ public class TextProcessor {
     }
 
     public boolean isCyrillicWord(String word) {
-        if (word == null || word.trim().isEmpty()) {
+        if (word == null || word.isEmpty()) {
             return false;
         }
-        return word.matches("[а-яё]+");
+        for (int i = 0; i < word.length(); i++) {
+            if (!TextTokenizer.isCyrillic(word.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
     }
 
     public String cleanWord(String word) {
         if (word == null) return "";
-        return word.toLowerCase().replaceAll("[^а-яё]", "");
+        return TextTokenizer.normalize(word);
     }
 
     public int countSyllables(String word) {
@@ -79,4 +87,4 @@ public class TextProcessor {
         }
         return Math.max(1, count); // Минимум 1 слог
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,49 @@
+package ru.freeomsk.textanalyzer.service;
+
+import ru.freeomsk.textanalyzer.check.DocumentState;
+import ru.freeomsk.textanalyzer.model.Token;
+import ru.freeomsk.textanalyzer.model.TokenizedText;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// Частоты слов фрагмента текста. Частоты соседних фрагментов складываются,
+// поэтому проверку частоты слов можно выполнять по частям и объединять результат
+public final class WordFrequency implements DocumentState<WordFrequency> {
+
+    // Учитываются только слова длиннее этого порога
+    private static final int MIN_WORD_LENGTH = 4;
+
+    private final Map<String, Integer> counts = new HashMap<>();
+
+    public static WordFrequency of(TokenizedText text) {
+        WordFrequency frequency = new WordFrequency();
+        frequency.add(text);
+        return frequency;
+    }
+
+    @Override
+    public void add(TokenizedText text) {
+        for (Token token : text.getTokens()) {
+            if (token.length() >= MIN_WORD_LENGTH) {
+                counts.merge(token.lower(), 1, Integer::sum);
+            }
+        }
+    }
+
+    @Override
+    public WordFrequency merge(WordFrequency other) {
+        other.counts.forEach((word, count) -> counts.merge(word, count, Integer::sum));
+        return this;
+    }
+
+    @Override
+    public boolean subtract(WordFrequency part) {
+        part.counts.forEach((word, count) -> counts.computeIfPresent(word, (w, c) -> c > count ? c - count : null));
+        return true;
+    }
+
+    public Map<String, Integer> getCounts() {
+        return counts;
+    }
+}
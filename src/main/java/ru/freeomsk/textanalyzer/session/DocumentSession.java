@@ -0,0 +1,471 @@
+package ru.freeomsk.textanalyzer.session;
+
+import ru.freeomsk.textanalyzer.check.AnalysisPlan;
+import ru.freeomsk.textanalyzer.check.CheckContext;
+import ru.freeomsk.textanalyzer.check.DocumentState;
+import ru.freeomsk.textanalyzer.check.Findings;
+import ru.freeomsk.textanalyzer.check.TextCheck;
+import ru.freeomsk.textanalyzer.dictionary.DictionarySnapshot;
+import ru.freeomsk.textanalyzer.model.FindingKinds;
+import ru.freeomsk.textanalyzer.model.TextError;
+import ru.freeomsk.textanalyzer.model.TextMetrics;
+import ru.freeomsk.textanalyzer.model.TokenizedText;
+import ru.freeomsk.textanalyzer.rules.RuleService;
+import ru.freeomsk.textanalyzer.util.TextTokenizer;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+// Документ, открытый редактором. Находки хранятся по предложениям; позиции находок предложения
+// отсчитываются от его начала на момент анализа, поэтому правка выше по тексту только сдвигает
+// начала следующих предложений. Правка повторно анализирует затронутые предложения и по одному
+// соседнему с каждой стороны: от соседей зависят граница предложения и правила со знаками.
+// Предложению принадлежат и пробелы после него, как фрагменту при анализе по частям
+final class DocumentSession {
+
+    private final String id;
+    private final String language;
+    private final AnalysisPlan plan;
+    private final List<TextCheck> checks;
+
+    private String text = "";
+    private long version;
+    private long dictionaryVersion;
+    private long rulesVersion;
+    private final List<SentenceState> sentences = new ArrayList<>();
+    // Состояния проверок по всему документу - объединение состояний предложений
+    private final DocumentState<?>[] documentStates;
+    // Состояния, поддерживающие вычитание, обновляются по измененным предложениям;
+    // остальные собираются из предложений заново
+    private final Set<Integer> staleStates = new LinkedHashSet<>();
+    private final List<Finding> documentFindings = new ArrayList<>();
+    private TextMetrics metrics;
+    private long nextFindingId = 1;
+    private volatile long lastAccessMillis = System.currentTimeMillis();
+
+    DocumentSession(String id, String language, AnalysisPlan plan) {
+        this.id = id;
+        this.language = language;
+        this.plan = plan;
+        this.checks = plan.checks();
+        this.documentStates = new DocumentState<?>[checks.size()];
+        for (int i = 0; i < checks.size(); i++) {
+            documentStates[i] = checks.get(i).newDocumentState();
+        }
+    }
+
+    String getId() {
+        return id;
+    }
+
+    long getLastAccessMillis() {
+        return lastAccessMillis;
+    }
+
+    // Открытие документа - вставка всего текста в пустой документ (версия 0)
+    synchronized SessionDelta open(String text, DictionarySnapshot dictionary, RuleService.Loaded rules) {
+        dictionaryVersion = dictionary.getVersion();
+        rulesVersion = rules.version();
+        return update(List.of(new Edit(0, 0, text)), dictionary, rules);
+    }
+
+    // expectedVersion - версия, к которой клиент применил правки; null - без проверки
+    synchronized SessionDelta apply(Long expectedVersion, List<Edit> edits, DictionarySnapshot dictionary,
+                                    RuleService.Loaded rules) {
+        lastAccessMillis = System.currentTimeMillis();
+        if (expectedVersion != null && expectedVersion != version) {
+            throw new IllegalStateException("Версия документа изменилась: ожидалась " + expectedVersion
+                    + ", текущая " + version);
+        }
+        validate(edits);
+        if (!edits.isEmpty()) {
+            version++;
+        }
+        return update(edits, dictionary, rules);
+    }
+
+    private SessionDelta update(List<Edit> edits, DictionarySnapshot dictionary, RuleService.Loaded rules) {
+        long started = System.nanoTime();
+        CheckContext context = new CheckContext(dictionary, rules.ruleSet(), plan.suggestions());
+        Changes changes = new Changes();
+
+        // После изменения словаря или правил прежние находки могли устареть: документ анализируется заново
+        if (dictionary.getVersion() != dictionaryVersion || rules.version() != rulesVersion) {
+            dictionaryVersion = dictionary.getVersion();
+            rulesVersion = rules.version();
+            if (!sentences.isEmpty()) {
+                replace(text, 0, sentences.size() - 1, 0, text.length(), new Edit(0, 0, ""), false, context, changes);
+            }
+        }
+
+        for (Edit edit : edits) {
+            applyEdit(edit, context, changes);
+        }
+        updateDocumentFindings(context, changes);
+
+        return new SessionDelta(id, version, text.length(), added(changes), changes.removed, metrics,
+                changes.sentences, changes.chars, TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - started));
+    }
+
+    synchronized SessionState state() {
+        lastAccessMillis = System.currentTimeMillis();
+        List<SessionFinding> findings = new ArrayList<>();
+        for (SentenceState sentence : sentences) {
+            for (Finding finding : sentence.findings) {
+                findings.add(sentence.toSessionFinding(finding));
+            }
+        }
+        for (Finding finding : documentFindings) {
+            findings.add(new SessionFinding(finding.id(), finding.type(), finding.error()));
+        }
+        return new SessionState(id, version, text.length(), language, plan.names(), findings, metrics);
+    }
+
+    // Все правки проверяются до применения первой: запрос применяется целиком или не применяется
+    private void validate(List<Edit> edits) {
+        int length = text.length();
+        for (Edit edit : edits) {
+            if (edit == null || edit.offset() < 0 || edit.deleteLength() < 0
+                    || edit.offset() + edit.deleteLength() > length) {
+                throw new IllegalArgumentException(edit == null
+                        ? "Пустая правка"
+                        : "Правка за пределами документа длиной " + length + ": offset=" + edit.offset()
+                                + ", deleteLength=" + edit.deleteLength());
+            }
+            length += edit.insertion().length() - edit.deleteLength();
+        }
+    }
+
+    private void applyEdit(Edit edit, CheckContext context, Changes changes) {
+        int editStart = edit.offset();
+        int editEnd = edit.offset() + edit.deleteLength();
+        String insertion = edit.insertion();
+        if (edit.deleteLength() == 0 && insertion.isEmpty()) {
+            return;
+        }
+
+        String newText = new StringBuilder(text.length() + insertion.length() - edit.deleteLength())
+                .append(text, 0, editStart)
+                .append(insertion)
+                .append(text, editEnd, text.length())
+                .toString();
+        int delta = insertion.length() - edit.deleteLength();
+
+        if (sentences.isEmpty()) {
+            replace(newText, 0, -1, 0, newText.length(), edit, true, context, changes);
+        } else {
+            int first = Math.max(0, ownerOf(editStart) - 1);
+            int last = Math.min(sentences.size() - 1, ownerOf(editEnd) + 1);
+            replace(newText, first, last, start(first), end(last, newText, delta), edit, true, context, changes);
+        }
+        shiftDocumentFindings(edit, changes);
+    }
+
+    // Замена предложений [first, last] предложениями диапазона [from, to) нового текста.
+    // keepIds - находки, которые после правки остались на месте, сохраняют идентификаторы
+    private void replace(String newText, int first, int last, int from, int to, Edit edit, boolean keepIds,
+                         CheckContext context, Changes changes) {
+        int delta = edit.insertion().length() - edit.deleteLength();
+
+        // Диапазон без предложений (удалены целые предложения) расширяется до соседнего предложения:
+        // оставшиеся пробелы должны принадлежать проанализированному предложению
+        TokenizedText region = TextTokenizer.tokenize(newText, from, to);
+        while (region.getSentenceCount() == 0 && (first > 0 || last < sentences.size() - 1)) {
+            if (first > 0) {
+                first--;
+                from = start(first);
+            } else {
+                last++;
+                to = end(last, newText, delta);
+            }
+            region = TextTokenizer.tokenize(newText, from, to);
+        }
+
+        // Прежние находки диапазона: по ключу с позицией после правки
+        Map<FindingKey, Long> previous = new HashMap<>();
+        for (int i = first; i <= last; i++) {
+            SentenceState sentence = sentences.get(i);
+            sentence.live = false;
+            for (Finding finding : sentence.findings) {
+                int position = shift(sentence.absolutePosition(finding), edit);
+                if (!keepIds || position < 0 || previous.putIfAbsent(FindingKey.of(finding, position), finding.id()) != null) {
+                    changes.remove(finding.id());
+                }
+            }
+            subtractStates(sentence);
+        }
+
+        if (delta != 0) {
+            for (int i = last + 1; i < sentences.size(); i++) {
+                sentences.get(i).start += delta;
+            }
+        }
+
+        List<SentenceState> replacement = new ArrayList<>(region.getSentenceCount());
+        for (int i = 0; i < region.getSentenceCount(); i++) {
+            SentenceState sentence = analyze(region.slice(i, i + 1), context, previous, changes);
+            replacement.add(sentence);
+            changes.touched.add(sentence);
+            addStates(sentence);
+        }
+        previous.values().forEach(changes::remove);
+
+        List<SentenceState> range = sentences.subList(first, last + 1);
+        range.clear();
+        range.addAll(replacement);
+        text = newText;
+        rebuildStates();
+
+        changes.sentences += replacement.size();
+        changes.chars += to - from;
+    }
+
+    private SentenceState analyze(TokenizedText slice, CheckContext context, Map<FindingKey, Long> previous,
+                                  Changes changes) {
+        TypedFindings collected = new TypedFindings(slice.getText());
+        DocumentState<?>[] states = new DocumentState<?>[checks.size()];
+        for (int i = 0; i < checks.size(); i++) {
+            TextCheck check = checks.get(i);
+            check.checkSlice(slice, context, collected);
+            states[i] = check.newDocumentState();
+            if (states[i] != null) {
+                states[i].add(slice);
+            }
+        }
+
+        List<Finding> findings = new ArrayList<>(collected.findings.size());
+        for (TypedFinding typed : collected.findings) {
+            Long id = previous.remove(FindingKey.of(typed.type(), typed.error(), typed.error().getPosition()));
+            if (id == null) {
+                id = nextFindingId++;
+                changes.add(id);
+            }
+            findings.add(new Finding(id, typed.type(), typed.error()));
+        }
+        return new SentenceState(slice.getStart(), findings, states);
+    }
+
+    // Проверки по всему документу выполняются один раз после всех правок запроса
+    private void updateDocumentFindings(CheckContext context, Changes changes) {
+        TypedFindings collected = new TypedFindings(text);
+        TokenizedText document = new TokenizedText(text, List.of(), List.of());
+        for (int i = 0; i < checks.size(); i++) {
+            checks.get(i).checkDocument(document, documentStates[i], context, collected);
+        }
+        // Пустой документ анализатор не проверяет и возвращает нулевые метрики - так же и здесь
+        metrics = text.trim().isEmpty() ? new TextMetrics(0, 0, 0, 0, 0) : collected.metrics;
+
+        Map<FindingKey, Long> previous = new HashMap<>();
+        for (Finding finding : documentFindings) {
+            if (previous.putIfAbsent(FindingKey.of(finding, finding.error().getPosition()), finding.id()) != null) {
+                changes.remove(finding.id());
+            }
+        }
+        documentFindings.clear();
+        for (TypedFinding typed : collected.findings) {
+            Long id = previous.remove(FindingKey.of(typed.type(), typed.error(), typed.error().getPosition()));
+            if (id == null) {
+                id = nextFindingId++;
+                changes.add(id);
+            }
+            documentFindings.add(new Finding(id, typed.type(), typed.error()));
+        }
+        previous.values().forEach(changes::remove);
+    }
+
+    private void shiftDocumentFindings(Edit edit, Changes changes) {
+        for (int i = documentFindings.size() - 1; i >= 0; i--) {
+            Finding finding = documentFindings.get(i);
+            int position = finding.error().getPosition();
+            if (position < 0) continue;
+
+            int shifted = shift(position, edit);
+            if (shifted < 0) {
+                documentFindings.remove(i);
+                changes.remove(finding.id());
+            } else if (shifted != position) {
+                documentFindings.set(i, new Finding(finding.id(), finding.type(), finding.error().withPosition(shifted)));
+            }
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private void subtractStates(SentenceState sentence) {
+        for (int i = 0; i < documentStates.length; i++) {
+            DocumentState state = documentStates[i];
+            if (state != null && !staleStates.contains(i) && !state.subtract(sentence.states[i])) {
+                staleStates.add(i);
+            }
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private void addStates(SentenceState sentence) {
+        for (int i = 0; i < documentStates.length; i++) {
+            DocumentState state = documentStates[i];
+            if (state != null && !staleStates.contains(i)) {
+                state.merge(sentence.states[i]);
+            }
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private void rebuildStates() {
+        for (int i : staleStates) {
+            DocumentState state = checks.get(i).newDocumentState();
+            for (SentenceState sentence : sentences) {
+                if (sentence.start != sentence.statesStart) {
+                    for (DocumentState<?> sentenceState : sentence.states) {
+                        if (sentenceState != null) sentenceState.shift(sentence.start - sentence.statesStart);
+                    }
+                    sentence.statesStart = sentence.start;
+                }
+                state.merge(sentence.states[i]);
+            }
+            documentStates[i] = state;
+        }
+        staleStates.clear();
+    }
+
+    private List<SessionFinding> added(Changes changes) {
+        List<SessionFinding> added = new ArrayList<>(changes.added.size());
+        for (SentenceState sentence : changes.touched) {
+            if (!sentence.live) continue;
+            for (Finding finding : sentence.findings) {
+                if (changes.added.contains(finding.id())) {
+                    added.add(sentence.toSessionFinding(finding));
+                }
+            }
+        }
+        for (Finding finding : documentFindings) {
+            if (changes.added.contains(finding.id())) {
+                added.add(new SessionFinding(finding.id(), finding.type(), finding.error()));
+            }
+        }
+        added.sort(Comparator.comparingInt((SessionFinding finding) -> finding.finding().getPosition())
+                .thenComparingLong(SessionFinding::id));
+        return added;
+    }
+
+    // Предложение, которому принадлежит позиция: последнее, начинающееся не позже нее
+    private int ownerOf(int position) {
+        int low = 0;
+        int high = sentences.size() - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (sentences.get(middle).start <= position) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return low;
+    }
+
+    // Начало диапазона предложения index в тексте до правки (диапазоны начинаются до места правки)
+    private int start(int index) {
+        return sentences.get(index).start;
+    }
+
+    // Конец диапазона предложения index в тексте после правки: начало следующего предложения или конец текста
+    private int end(int index, String newText, int delta) {
+        return index + 1 < sentences.size() ? sentences.get(index + 1).start + delta : newText.length();
+    }
+
+    // Позиция после правки или -1, если символ в этой позиции удален
+    private static int shift(int position, Edit edit) {
+        if (position < edit.offset()) return position;
+        if (position >= edit.offset() + edit.deleteLength()) return position + edit.insertion().length() - edit.deleteLength();
+        return -1;
+    }
+
+    private record Finding(long id, String type, TextError error) {}
+
+    private record TypedFinding(String type, TextError error) {}
+
+    // Находка совпадает с прежней, если после правки она того же типа, на том же месте и с тем же описанием
+    private record FindingKey(String type, String code, String text, String description, int position) {
+
+        static FindingKey of(Finding finding, int position) {
+            return of(finding.type(), finding.error(), position);
+        }
+
+        static FindingKey of(String type, TextError error, int position) {
+            return new FindingKey(type, error.getErrorCode(), error.getText(), error.getDescription(), position);
+        }
+    }
+
+    private static final class SentenceState {
+        // Начало диапазона предложения в текущем тексте, на момент анализа и для позиций в states
+        int start;
+        final int analyzedStart;
+        int statesStart;
+        final List<Finding> findings;
+        final DocumentState<?>[] states;
+        boolean live = true;
+
+        SentenceState(int start, List<Finding> findings, DocumentState<?>[] states) {
+            this.start = start;
+            this.analyzedStart = start;
+            this.statesStart = start;
+            this.findings = findings;
+            this.states = states;
+        }
+
+        int absolutePosition(Finding finding) {
+            return finding.error().getPosition() + start - analyzedStart;
+        }
+
+        SessionFinding toSessionFinding(Finding finding) {
+            TextError error = start == analyzedStart ? finding.error() : finding.error().withPosition(absolutePosition(finding));
+            return new SessionFinding(finding.id(), finding.type(), error);
+        }
+    }
+
+    // Добавленные и удаленные за запрос находки; находка, добавленная и удаленная в одном запросе, не передается
+    private static final class Changes {
+        final Set<Long> added = new LinkedHashSet<>();
+        final List<Long> removed = new ArrayList<>();
+        final List<SentenceState> touched = new ArrayList<>();
+        int sentences;
+        int chars;
+
+        void add(long id) {
+            added.add(id);
+        }
+
+        void remove(long id) {
+            if (!added.remove(id)) {
+                removed.add(id);
+            }
+        }
+    }
+
+    // Находки сессии хранятся объектами: их сравнивают с прежними и отдают клиенту в разностях
+    private static final class TypedFindings implements Findings {
+        final String source;
+        final List<TypedFinding> findings = new ArrayList<>();
+        TextMetrics metrics;
+
+        TypedFindings(String source) {
+            this.source = source;
+        }
+
+        @Override
+        public void add(int kind, int start, int end, int argument, Object detail) {
+            TextError error = FindingKinds.materialize(kind, source, start, end, argument, detail);
+            findings.add(new TypedFinding(FindingKinds.get(kind).type().id(), error));
+        }
+
+        @Override
+        public void metrics(TextMetrics metrics) {
+            this.metrics = metrics;
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package ru.freeomsk.textanalyzer.session;
+
+// Правка документа: удалить deleteLength символов с позиции offset и вставить insertText.
+// Позиции - в тексте после предыдущих правок того же запроса
+public record Edit(int offset, int deleteLength, String insertText) {
+
+    String insertion() {
+        return insertText == null ? "" : insertText;
+    }
+}
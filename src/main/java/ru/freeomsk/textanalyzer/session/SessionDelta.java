@@ -0,0 +1,18 @@
+package ru.freeomsk.textanalyzer.session;
+
+import ru.freeomsk.textanalyzer.model.TextMetrics;
+
+import java.util.List;
+
+// Изменения находок после правок. Находки вне повторно проанализированных предложений не передаются:
+// клиент сдвигает их сам - позиции не раньше offset + deleteLength смещаются на insertText.length() - deleteLength.
+// metrics - метрики документа после правок (null, если их не запрашивали)
+public record SessionDelta(String sessionId,
+                           long version,
+                           int length,
+                           List<SessionFinding> added,
+                           List<Long> removed,
+                           TextMetrics metrics,
+                           int reanalyzedSentences,
+                           int reanalyzedChars,
+                           long elapsedMicros) {}
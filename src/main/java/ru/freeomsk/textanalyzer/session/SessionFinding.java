@@ -0,0 +1,6 @@
+package ru.freeomsk.textanalyzer.session;
+
+import ru.freeomsk.textanalyzer.model.TextError;
+
+// Находка документа с постоянным в пределах сессии идентификатором; type - тип события потокового анализа
+public record SessionFinding(long id, String type, TextError finding) {}
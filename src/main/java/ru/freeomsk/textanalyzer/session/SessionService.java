@@ -0,0 +1,90 @@
+package ru.freeomsk.textanalyzer.session;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import ru.freeomsk.textanalyzer.check.AnalysisPlan;
+import ru.freeomsk.textanalyzer.rules.RuleService;
+import ru.freeomsk.textanalyzer.service.AdvancedTextAnalyzer;
+import ru.freeomsk.textanalyzer.service.DictionaryService;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Сессии редактора: документ хранится на сервере, клиент присылает правки и получает изменения находок.
+// Сессии, к которым не обращались дольше idle-timeout, закрываются; при превышении max
+// закрывается сессия, к которой дольше всего не обращались
+@Service
+public class SessionService {
+
+    private final AdvancedTextAnalyzer textAnalyzer;
+    private final DictionaryService dictionaryService;
+    private final RuleService ruleService;
+    private final int maxSessions;
+    private final Duration idleTimeout;
+
+    private final Map<String, DocumentSession> sessions = new ConcurrentHashMap<>();
+
+    public SessionService(AdvancedTextAnalyzer textAnalyzer,
+                          DictionaryService dictionaryService,
+                          RuleService ruleService,
+                          @Value("${sessions.max:1000}") int maxSessions,
+                          @Value("${sessions.idle-timeout:30m}") Duration idleTimeout) {
+        this.textAnalyzer = textAnalyzer;
+        this.dictionaryService = dictionaryService;
+        this.ruleService = ruleService;
+        this.maxSessions = Math.max(1, maxSessions);
+        this.idleTimeout = idleTimeout;
+    }
+
+    // checks и suggestions - как в запросе /analyze; выбор проверок действует до закрытия сессии
+    public SessionDelta open(String text, String language, List<String> checks, Boolean suggestions) {
+        String error = textAnalyzer.validateOptions(language, checks);
+        if (error != null) {
+            throw new IllegalArgumentException(error);
+        }
+        AnalysisPlan plan = textAnalyzer.plan(checks, suggestions);
+
+        evictIdle();
+        DocumentSession session = new DocumentSession(UUID.randomUUID().toString(), language, plan);
+        SessionDelta delta = session.open(text == null ? "" : text, dictionaryService.getDictionarySnapshot(),
+                ruleService.current());
+        sessions.put(session.getId(), session);
+        return delta;
+    }
+
+    // null - сессии нет (закрыта или не существовала)
+    public SessionDelta edit(String id, Long version, List<Edit> edits) {
+        DocumentSession session = sessions.get(id);
+        if (session == null) return null;
+        return session.apply(version, edits == null ? List.of() : edits, dictionaryService.getDictionarySnapshot(),
+                ruleService.current());
+    }
+
+    public SessionState getState(String id) {
+        DocumentSession session = sessions.get(id);
+        return session == null ? null : session.state();
+    }
+
+    public boolean close(String id) {
+        return sessions.remove(id) != null;
+    }
+
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    private void evictIdle() {
+        long deadline = System.currentTimeMillis() - idleTimeout.toMillis();
+        sessions.values().removeIf(session -> session.getLastAccessMillis() < deadline);
+
+        while (sessions.size() >= maxSessions) {
+            sessions.values().stream()
+                    .min(Comparator.comparingLong(DocumentSession::getLastAccessMillis))
+                    .ifPresent(session -> sessions.remove(session.getId()));
+        }
+    }
+}
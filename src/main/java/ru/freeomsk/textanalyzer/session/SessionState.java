@@ -0,0 +1,14 @@
+package ru.freeomsk.textanalyzer.session;
+
+import ru.freeomsk.textanalyzer.model.TextMetrics;
+
+import java.util.List;
+
+// Полное состояние документа сессии, например для восстановления клиента после потери изменений
+public record SessionState(String sessionId,
+                           long version,
+                           int length,
+                           String language,
+                           List<String> checks,
+                           List<SessionFinding> findings,
+                           TextMetrics metrics) {}
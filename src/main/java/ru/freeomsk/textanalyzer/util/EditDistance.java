@@ -0,0 +1,222 @@
+package ru.freeomsk.textanalyzer.util;
+
+public final class EditDistance {
+
+    // Длина слова, до которой используется битово-параллельный алгоритм (Майерс/Хюррё)
+    private static final int BIT_PARALLEL_LIMIT = 64;
+
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    private EditDistance() {
+    }
+
+    public static int levenshtein(CharSequence x, CharSequence y) {
+        return distance(x, y, Math.max(x.length(), y.length()), false);
+    }
+
+    // Возвращает maxDistance + 1, если расстояние превышает порог
+    public static int levenshtein(CharSequence x, CharSequence y, int maxDistance) {
+        return distance(x, y, maxDistance, false);
+    }
+
+    public static int damerau(CharSequence x, CharSequence y) {
+        return distance(x, y, Math.max(x.length(), y.length()), true);
+    }
+
+    // Расстояние с учетом перестановки соседних букв - самой частой опечатки при наборе.
+    // Возвращает maxDistance + 1, если расстояние превышает порог
+    public static int damerau(CharSequence x, CharSequence y, int maxDistance) {
+        return distance(x, y, maxDistance, true);
+    }
+
+    private static int distance(CharSequence x, CharSequence y, int maxDistance, boolean transpositions) {
+        // Образцом служит более короткая строка
+        CharSequence pattern = x.length() <= y.length() ? x : y;
+        CharSequence text = pattern == x ? y : x;
+
+        if (text.length() - pattern.length() > maxDistance) {
+            return maxDistance + 1;
+        }
+        if (pattern.isEmpty()) {
+            return text.length();
+        }
+
+        if (pattern.length() <= BIT_PARALLEL_LIMIT) {
+            return bitParallel(pattern, text, maxDistance, transpositions);
+        }
+        return banded(pattern, text, maxDistance, transpositions);
+    }
+
+    private static int bitParallel(CharSequence pattern, CharSequence text, int maxDistance,
+                                   boolean transpositions) {
+        int m = pattern.length();
+        int n = text.length();
+        PatternMasks masks = SCRATCH.get().masks;
+        masks.build(pattern);
+
+        try {
+            long vp = -1L;
+            long vn = 0L;
+            long d0 = 0L;
+            long previousEq = 0L;
+            long last = 1L << (m - 1);
+            int score = m;
+
+            for (int j = 0; j < n; j++) {
+                long eq = masks.get(text.charAt(j));
+                long x = eq | vn;
+
+                if (transpositions) {
+                    long tr = (((~d0) & eq) << 1) & previousEq;
+                    d0 = (((eq & vp) + vp) ^ vp) | x | tr;
+                    previousEq = eq;
+                } else {
+                    d0 = (((x & vp) + vp) ^ vp) | x;
+                }
+
+                long hp = vn | ~(d0 | vp);
+                long hn = d0 & vp;
+
+                if ((hp & last) != 0) {
+                    score++;
+                } else if ((hn & last) != 0) {
+                    score--;
+                }
+
+                // Оставшиеся символы могут уменьшить расстояние не более чем на единицу каждый
+                if (score - (n - j - 1) > maxDistance) {
+                    return maxDistance + 1;
+                }
+
+                hp = (hp << 1) | 1L;
+                hn = hn << 1;
+                vp = hn | ~(d0 | hp);
+                vn = hp & d0;
+            }
+
+            return Math.min(score, maxDistance + 1);
+        } finally {
+            masks.clear(pattern);
+        }
+    }
+
+    private static int banded(CharSequence pattern, CharSequence text, int maxDistance,
+                              boolean transpositions) {
+        int m = pattern.length();
+        int n = text.length();
+        int limit = maxDistance + 1;
+
+        Scratch scratch = SCRATCH.get();
+        int[] beforePrevious = scratch.row(0, n + 1);
+        int[] previous = scratch.row(1, n + 1);
+        int[] current = scratch.row(2, n + 1);
+
+        for (int j = 0; j <= n; j++) {
+            previous[j] = Math.min(j, limit);
+        }
+
+        for (int i = 1; i <= m; i++) {
+            // Вне диагональной полосы ширины 2 * maxDistance + 1 значения заведомо больше порога
+            int from = Math.max(1, i - maxDistance);
+            int to = Math.min(n, i + maxDistance);
+
+            current[from - 1] = from == 1 ? Math.min(i, limit) : limit;
+            if (to < n) {
+                current[to + 1] = limit;
+            }
+
+            char patternChar = pattern.charAt(i - 1);
+            int rowMin = current[from - 1];
+
+            for (int j = from; j <= to; j++) {
+                char textChar = text.charAt(j - 1);
+                int cost = patternChar == textChar ? 0 : 1;
+                int value = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+
+                if (transpositions && i > 1 && j > 1
+                        && patternChar == text.charAt(j - 2) && pattern.charAt(i - 2) == textChar) {
+                    value = Math.min(value, beforePrevious[j - 2] + 1);
+                }
+
+                current[j] = Math.min(value, limit);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+
+            if (rowMin > maxDistance) {
+                return limit;
+            }
+
+            int[] swap = beforePrevious;
+            beforePrevious = previous;
+            previous = current;
+            current = swap;
+        }
+
+        return Math.min(previous[n], limit);
+    }
+
+    // Переиспользуемые буферы потока: строки матрицы и битовые маски образца
+    private static final class Scratch {
+        private final int[][] rows = new int[3][32];
+        private final PatternMasks masks = new PatternMasks();
+
+        int[] row(int index, int length) {
+            if (rows[index].length < length) {
+                rows[index] = new int[Math.max(length, rows[index].length * 2)];
+            }
+            int[] row = rows[index];
+            // Значения за пределами полосы должны быть "бесконечными"
+            java.util.Arrays.fill(row, 0, length, Integer.MAX_VALUE / 2);
+            return row;
+        }
+    }
+
+    // Маски вхождений символов образца: открытая адресация вместо таблицы на весь Unicode
+    private static final class PatternMasks {
+        private static final int CAPACITY = 128;
+
+        private final char[] keys = new char[CAPACITY];
+        private final boolean[] used = new boolean[CAPACITY];
+        private final long[] values = new long[CAPACITY];
+
+        void build(CharSequence pattern) {
+            for (int i = 0; i < pattern.length(); i++) {
+                int slot = slot(pattern.charAt(i));
+                keys[slot] = pattern.charAt(i);
+                used[slot] = true;
+                values[slot] |= 1L << i;
+            }
+        }
+
+        long get(char c) {
+            int slot = c & (CAPACITY - 1);
+            while (used[slot]) {
+                if (keys[slot] == c) {
+                    return values[slot];
+                }
+                slot = (slot + 1) & (CAPACITY - 1);
+            }
+            return 0L;
+        }
+
+        void clear(CharSequence pattern) {
+            for (int i = 0; i < pattern.length(); i++) {
+                int slot = pattern.charAt(i) & (CAPACITY - 1);
+                // Очищаем всю цепочку пробирования, начиная с исходного слота
+                while (used[slot]) {
+                    used[slot] = false;
+                    values[slot] = 0L;
+                    slot = (slot + 1) & (CAPACITY - 1);
+                }
+            }
+        }
+
+        private int slot(char c) {
+            int slot = c & (CAPACITY - 1);
+            while (used[slot] && keys[slot] != c) {
+                slot = (slot + 1) & (CAPACITY - 1);
+            }
+            return slot;
+        }
+    }
+}
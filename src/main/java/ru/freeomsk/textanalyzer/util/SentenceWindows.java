@@ -0,0 +1,134 @@
+package ru.freeomsk.textanalyzer.util;
+
+import java.io.IOException;
+import java.io.Reader;
+
+// Чтение большого текста из потока окнами целых предложений. Символы читаются в кольцевой буфер
+// фиксированного размера, поэтому память не зависит от длины текста. Окно - содержимое буфера:
+// немного текста перед диапазоном (для правил, которые смотрят на знаки перед словом), диапазон
+// предложений [from, to) и следующее за ним предложение, чтобы конец диапазона определялся так же,
+// как при токенизации всего текста. Предложение длиннее буфера делится по пробелу
+public final class SentenceWindows {
+
+    // Текст перед следующим диапазоном, который остается в буфере
+    private static final int CONTEXT_CHARS = 256;
+    public static final int MIN_CAPACITY = 4 * CONTEXT_CHARS;
+
+    private final Reader reader;
+    private final char[] buffer;
+    // Позиции в окнах и находках - int, поэтому текст длиннее не читается
+    private final long maxLength;
+    // Позиция первого символа буфера в тексте и его индекс в массиве
+    private long start;
+    private int head;
+    private int size;
+    // Конец последнего выданного диапазона
+    private long analyzed;
+    private boolean eof;
+
+    public SentenceWindows(Reader reader, int capacity) {
+        this(reader, capacity, Integer.MAX_VALUE);
+    }
+
+    SentenceWindows(Reader reader, int capacity, long maxLength) {
+        if (capacity < MIN_CAPACITY) {
+            throw new IllegalArgumentException("Размер буфера должен быть не меньше " + MIN_CAPACITY + " символов");
+        }
+        this.reader = reader;
+        this.buffer = new char[capacity];
+        this.maxLength = maxLength;
+    }
+
+    // Следующее окно или null, если текст закончился
+    public Window next() throws IOException {
+        discardBefore(analyzed - CONTEXT_CHARS);
+        fill();
+
+        int from = (int) (analyzed - start);
+        if (eof && from == size) {
+            return null;
+        }
+        if (start + size > maxLength) {
+            throw new IOException("Текст длиннее " + maxLength + " символов");
+        }
+
+        int to = eof ? size : cut(from);
+        analyzed = start + to;
+        return new Window(contents(), Math.toIntExact(start), from, to);
+    }
+
+    // Длина прочитанного текста; после последнего окна - длина всего текста, не больше Integer.MAX_VALUE
+    public int length() {
+        return Math.toIntExact(start + size);
+    }
+
+    // Конец диапазона: предпоследний конец предложения в буфере, за последним из них еще нужно
+    // следующее предложение. Если в буфере нет двух концов предложений, диапазон заканчивается
+    // на единственном конце предложения или на последнем пробеле
+    private int cut(int from) {
+        int last = -1;
+        int previous = -1;
+        int lastSpace = -1;
+        int i = from;
+        while (i < size) {
+            char c = charAt(i);
+            if (TextTokenizer.isSentenceTerminator(c)) {
+                int end = i + 1;
+                while (end < size && TextTokenizer.isSentenceTerminator(charAt(end))) {
+                    end++;
+                }
+                // Конец предложения известен, только если после знаков уже прочитан пробел
+                if (end < size && Character.isWhitespace(charAt(end))) {
+                    previous = last;
+                    last = end;
+                }
+                i = end;
+                continue;
+            }
+            if (Character.isWhitespace(c) && i > from) {
+                lastSpace = i;
+            }
+            i++;
+        }
+
+        if (previous > from) return previous;
+        if (last > from) return last;
+        if (lastSpace > from) return lastSpace;
+        return size;
+    }
+
+    private void fill() throws IOException {
+        while (size < buffer.length && !eof) {
+            int tail = (head + size) % buffer.length;
+            int count = Math.min(buffer.length - size, buffer.length - tail);
+            int read = reader.read(buffer, tail, count);
+            if (read < 0) {
+                eof = true;
+            } else {
+                size += read;
+            }
+        }
+    }
+
+    private void discardBefore(long position) {
+        int count = (int) Math.max(0, Math.min(size, position - start));
+        head = (head + count) % buffer.length;
+        size -= count;
+        start += count;
+    }
+
+    private char charAt(int index) {
+        return buffer[(head + index) % buffer.length];
+    }
+
+    private String contents() {
+        int first = Math.min(size, buffer.length - head);
+        StringBuilder text = new StringBuilder(size);
+        text.append(buffer, head, first);
+        text.append(buffer, 0, size - first);
+        return text.toString();
+    }
+
+    // text - содержимое буфера, offset - позиция его начала в тексте; диапазон [from, to) - в позициях text
+    public record Window(String text, int offset, int from, int to) {}
+}
@@ -0,0 +1,170 @@
+package ru.freeomsk.textanalyzer.util;
+
+import ru.freeomsk.textanalyzer.model.Sentence;
+import ru.freeomsk.textanalyzer.model.Token;
+import ru.freeomsk.textanalyzer.model.TokenizedText;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public final class TextTokenizer {
+
+    private TextTokenizer() {
+    }
+
+    // Один линейный проход по символам: слова и предложения со смещениями
+    public static TokenizedText tokenize(String text) {
+        if (text == null || text.isEmpty()) {
+            return new TokenizedText(text == null ? "" : text, List.of(), List.of());
+        }
+        return tokenize(text, 0, text.length());
+    }
+
+    // Токенизация диапазона [from, to), который начинается с начала предложения (или пробелов перед ним)
+    // и заканчивается перед началом предложения или концом текста. Конец предложения определяется
+    // по символам за пределами диапазона, как при токенизации всего текста
+    public static TokenizedText tokenize(String text, int from, int to) {
+        List<Token> tokens = new ArrayList<>((to - from) / 6 + 1);
+        List<Sentence> sentences = new ArrayList<>();
+
+        int length = text.length();
+        int sentenceStart = -1;
+        int sentenceFirstToken = 0;
+        int lastNonSpace = -1;
+        int i = from;
+
+        while (i < to) {
+            char c = text.charAt(i);
+
+            if (Character.isWhitespace(c)) {
+                i++;
+                continue;
+            }
+
+            if (sentenceStart < 0) {
+                sentenceStart = i;
+                sentenceFirstToken = tokens.size();
+            }
+
+            if (Character.isLetterOrDigit(c)) {
+                int end = scanWord(text, i);
+                tokens.add(createToken(text, i, end));
+                lastNonSpace = end - 1;
+                i = end;
+                continue;
+            }
+
+            if (isSentenceTerminator(c)) {
+                int end = i + 1;
+                while (end < length && isSentenceTerminator(text.charAt(end))) {
+                    end++;
+                }
+                // Конец предложения - серия знаков, за которой следует пробел или конец текста
+                if (end == length || Character.isWhitespace(text.charAt(end))) {
+                    sentences.add(new Sentence(sentenceStart, end, sentenceFirstToken, tokens.size()));
+                    sentenceStart = -1;
+                }
+                lastNonSpace = end - 1;
+                i = end;
+                continue;
+            }
+
+            lastNonSpace = i;
+            i++;
+        }
+
+        if (sentenceStart >= 0) {
+            sentences.add(new Sentence(sentenceStart, lastNonSpace + 1, sentenceFirstToken, tokens.size()));
+        }
+
+        return new TokenizedText(text, tokens, sentences, from, to, to == length ? length : sentenceEnd(text, to));
+    }
+
+    // Конец предложения, начинающегося в позиции from: серия знаков конца предложения перед пробелом
+    private static int sentenceEnd(String text, int from) {
+        int length = text.length();
+        int i = from;
+        while (i < length) {
+            if (!isSentenceTerminator(text.charAt(i))) {
+                i++;
+                continue;
+            }
+            int end = i + 1;
+            while (end < length && isSentenceTerminator(text.charAt(end))) {
+                end++;
+            }
+            if (end == length || Character.isWhitespace(text.charAt(end))) {
+                return end;
+            }
+            i = end;
+        }
+        return length;
+    }
+
+    // Конец последнего слова перед позицией position (0, если слов перед ней нет)
+    public static int wordEndBefore(String text, int position) {
+        int i = position;
+        while (i > 0 && !Character.isLetterOrDigit(text.charAt(i - 1))) {
+            i--;
+        }
+        return i;
+    }
+
+    // Кириллические буквы слова в нижнем регистре, без знаков и других алфавитов
+    public static String normalize(String word) {
+        StringBuilder normalized = null;
+        int length = word.length();
+
+        for (int i = 0; i < length; i++) {
+            char c = Character.toLowerCase(word.charAt(i));
+            boolean keep = isCyrillic(c);
+
+            if (normalized == null) {
+                if (keep && c == word.charAt(i)) {
+                    continue;
+                }
+                normalized = new StringBuilder(length);
+                normalized.append(word, 0, i);
+            }
+            if (keep) {
+                normalized.append(c);
+            }
+        }
+
+        return normalized == null ? word : normalized.toString();
+    }
+
+    public static boolean isCyrillic(char c) {
+        return (c >= 'а' && c <= 'я') || c == 'ё';
+    }
+
+    private static int scanWord(String text, int start) {
+        int length = text.length();
+        int end = start + 1;
+
+        while (end < length) {
+            char c = text.charAt(end);
+            if (Character.isLetterOrDigit(c)) {
+                end++;
+            } else if ((c == '-' || c == '\'') && end + 1 < length
+                    && Character.isLetterOrDigit(text.charAt(end + 1))) {
+                // Дефис и апостроф внутри слова: "какой-то", "д'Артаньян"
+                end += 2;
+            } else {
+                break;
+            }
+        }
+
+        return end;
+    }
+
+    private static Token createToken(String text, int start, int end) {
+        String word = text.substring(start, end);
+        String lower = word.toLowerCase();
+        return new Token(word, start, end, lower, normalize(lower));
+    }
+
+    static boolean isSentenceTerminator(char c) {
+        return c == '.' || c == '!' || c == '?' || c == '…';
+    }
+}
@@ -1,33 +1,58 @@
 package ru.freeomsk.textanalyzer.util;
 
-import java.util.Arrays;
+import ru.freeomsk.textanalyzer.model.Token;
+import ru.freeomsk.textanalyzer.model.TokenizedText;
+
 import java.util.List;
+import java.util.Set;
 
 public class TextUtils {
 
+    private static final Set<String> WATER_WORDS = Set.of(
+            "является", "являются", "можно", "нужно", "должен",
+            "какой-то", "некоторый", "очень", "довольно", "именно",
+            "данный", "определенный", "некий", "собственно", "скажем"
+    );
+
     public static double calculateReadabilityIndex(String text) {
         if (text == null || text.trim().isEmpty()) {
             return 0;
         }
+        return calculateReadabilityIndex(TextTokenizer.tokenize(text));
+    }
 
-        String[] sentences = text.split("[.!?]+");
-        if (sentences.length == 0) return 0;
+    public static double calculateReadabilityIndex(TokenizedText text) {
+        int sentenceCount = text.getSentenceCount();
+        if (sentenceCount == 0) return 0;
 
-        String[] words = text.split("\\s+");
-        if (words.length == 0) return 0;
+        List<Token> words = text.getTokens();
+        if (words.isEmpty()) return 0;
 
-        double avgSentenceLength = (double) words.length / sentences.length;
+        long complexWords = 0;
+        for (Token word : words) {
+            if (isComplexWord(word)) {
+                complexWords++;
+            }
+        }
 
-        long complexWords = Arrays.stream(words)
-                .filter(word -> countSyllables(word) > 3)
-                .count();
+        return readabilityIndex(sentenceCount, words.size(), complexWords);
+    }
 
-        double complexWordRatio = (double) complexWords / words.length;
+    // Индекс по счетчикам, которые можно собирать по частям текста
+    public static double readabilityIndex(long sentenceCount, long wordCount, long complexWords) {
+        if (sentenceCount == 0 || wordCount == 0) return 0;
+
+        double avgSentenceLength = (double) wordCount / sentenceCount;
+        double complexWordRatio = (double) complexWords / wordCount;
 
         double score = 100 - avgSentenceLength - (complexWordRatio * 100);
         return Math.max(0, Math.min(100, score));
     }
 
+    public static boolean isComplexWord(Token word) {
+        return countSyllables(word.lower()) > 3;
+    }
+
     public static int countSyllables(String word) {
         if (word == null || word.isEmpty()) return 0;
 
@@ -35,8 +60,8 @@ public class TextUtils {
         int count = 0;
         boolean lastWasVowel = false;
 
-        for (char c : lowerWord.toCharArray()) {
-            boolean isVowel = "аеёиоуыэюя".indexOf(c) >= 0;
+        for (int i = 0; i < lowerWord.length(); i++) {
+            boolean isVowel = "аеёиоуыэюя".indexOf(lowerWord.charAt(i)) >= 0;
             if (isVowel && !lastWasVowel) {
                 count++;
             }
@@ -50,24 +75,38 @@ public class TextUtils {
         if (text == null || text.trim().isEmpty()) {
             return 0;
         }
+        return calculateWaterPercentage(TextTokenizer.tokenize(text));
+    }
 
-        List<String> waterWords = Arrays.asList(
-                "является", "являются", "можно", "нужно", "должен",
-                "какой-то", "некоторый", "очень", "довольно", "именно",
-                "данный", "определенный", "некий", "собственно", "скажем"
-        );
+    public static double calculateWaterPercentage(TokenizedText text) {
+        int wordCount = 0;
+        int waterWordsCount = 0;
 
-        List<String> words = Arrays.stream(text.toLowerCase().split("\\s+"))
-                .filter(word -> word.length() > 2)
-                .toList();
+        for (Token token : text.getTokens()) {
+            if (isCountedForWater(token)) {
+                wordCount++;
+                if (isWaterWord(token)) {
+                    waterWordsCount++;
+                }
+            }
+        }
 
-        if (words.isEmpty()) return 0;
+        return waterPercentage(wordCount, waterWordsCount);
+    }
+
+    public static double waterPercentage(long wordCount, long waterWordsCount) {
+        if (wordCount == 0) return 0;
+
+        return (double) waterWordsCount / wordCount * 100;
+    }
 
-        long waterWordsCount = words.stream()
-                .filter(waterWords::contains)
-                .count();
+    // Короткие слова (предлоги, союзы) в долю "воды" не входят
+    public static boolean isCountedForWater(Token token) {
+        return token.length() > 2;
+    }
 
-        return (double) waterWordsCount / words.size() * 100;
+    public static boolean isWaterWord(Token token) {
+        return WATER_WORDS.contains(token.lower());
     }
 
     public static int calculateLevenshteinDistance(String x, String y) {
@@ -75,24 +114,22 @@ public class TextUtils {
             throw new IllegalArgumentException("Strings must not be null");
         }
 
-        int[][] dp = new int[x.length() + 1][y.length() + 1];
-
-        for (int i = 0; i <= x.length(); i++) {
-            for (int j = 0; j <= y.length(); j++) {
-                if (i == 0) {
-                    dp[i][j] = j;
-                } else if (j == 0) {
-                    dp[i][j] = i;
-                } else {
-                    int cost = x.charAt(i - 1) == y.charAt(j - 1) ? 0 : 1;
-                    dp[i][j] = Math.min(
-                            Math.min(dp[i - 1][j] + 1, dp[i][j - 1] + 1),
-                            dp[i - 1][j - 1] + cost
-                    );
-                }
-            }
-        }
+        return EditDistance.levenshtein(x, y);
+    }
 
-        return dp[x.length()][y.length()];
+    // 64-битный хеш содержимого текста для ключей кэша: по умножению на символ
+    // и финальное перемешивание (fmix64 из MurmurHash3)
+    public static long contentHash(CharSequence text) {
+        long hash = 0x9E3779B97F4A7C15L ^ text.length();
+        for (int i = 0; i < text.length(); i++) {
+            hash = (hash ^ text.charAt(i)) * 0xff51afd7ed558ccdL;
+            hash = Long.rotateLeft(hash, 29);
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,75 @@
+package ru.freeomsk.textanalyzer.dictionary;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Пользовательские слова, добавленные по одному и пачками, дают те же подсказки, что и добавленные сразу
+class DictionarySnapshotTest {
+
+    private static final String LETTERS = "абвгдежзийклмнопрстуфхцчшщыьэюя";
+
+    @Test
+    void incrementalAdditionsMatchSingleBuild() {
+        Random random = new Random(1);
+        DictionaryImage.Loaded image = RussianDictionaryService.compile(
+                RussianDictionaryService.createBasicRussianDictionary());
+        DictionarySnapshot snapshot = new DictionarySnapshot(1, image.automaton(), image.suggestionIndex(),
+                List.of(), Morphology.empty(), Set.of(), Map.of());
+
+        List<String> added = new ArrayList<>();
+        for (int step = 0; step < 300; step++) {
+            List<String> batch = new ArrayList<>();
+            int count = random.nextInt(4) == 0 ? 1 + random.nextInt(20) : 1;
+            for (int i = 0; i < count; i++) {
+                // Повторы и слова основного словаря не добавляются
+                String word = random.nextInt(10) == 0 && !added.isEmpty()
+                        ? added.get(random.nextInt(added.size()))
+                        : word(random);
+                batch.add(word);
+                if (!snapshot.containsWord(word) && !added.contains(word)) {
+                    added.add(word);
+                }
+            }
+            long version = snapshot.getVersion();
+            int size = snapshot.size();
+            snapshot = snapshot.withCustomWords(batch);
+
+            assertThat(snapshot.getCustomWords()).isEqualTo(added);
+            assertThat(snapshot.getCustomWordCount()).isEqualTo(added.size());
+            assertThat(snapshot.getVersion()).isEqualTo(snapshot.size() == size ? version : version + 1);
+        }
+
+        DictionarySnapshot single = new DictionarySnapshot(1, image.automaton(), image.suggestionIndex(),
+                added, Morphology.empty(), Set.of(), Map.of());
+        for (String word : added) {
+            assertThat(snapshot.containsWord(word)).isTrue();
+        }
+        for (int i = 0; i < 2000; i++) {
+            String input = i % 2 == 0 ? typo(random, added.get(random.nextInt(added.size()))) : word(random);
+            assertThat(snapshot.containsWord(input)).isEqualTo(single.containsWord(input));
+            assertThat(snapshot.getSuggestions(input)).as(input).isEqualTo(single.getSuggestions(input));
+        }
+    }
+
+    private static String word(Random random) {
+        StringBuilder word = new StringBuilder();
+        int length = 3 + random.nextInt(6);
+        for (int i = 0; i < length; i++) {
+            word.append(LETTERS.charAt(random.nextInt(LETTERS.length())));
+        }
+        return word.toString();
+    }
+
+    private static String typo(Random random, String word) {
+        StringBuilder text = new StringBuilder(word);
+        text.setCharAt(random.nextInt(text.length()), LETTERS.charAt(random.nextInt(LETTERS.length())));
+        return text.toString();
+    }
+}
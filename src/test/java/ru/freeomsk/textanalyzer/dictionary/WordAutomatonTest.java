@@ -0,0 +1,124 @@
+package ru.freeomsk.textanalyzer.dictionary;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import ru.freeomsk.textanalyzer.util.EditDistance;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Автомат и индекс подсказок, собранные из встроенного списка слов, сверяются с множеством слов и полным перебором
+class WordAutomatonTest {
+
+    private static final int DISTANCE = DictionarySnapshot.MAX_SUGGESTION_DISTANCE;
+
+    private static Set<String> words;
+    private static List<String> sorted;
+    private static WordAutomaton automaton;
+    private static SuggestionIndex index;
+
+    @BeforeAll
+    static void build() throws IOException {
+        words = new HashSet<>(RussianDictionaryService.createBasicRussianDictionary());
+        try (InputStream in = new ClassPathResource(RussianDictionaryService.WORD_LIST_RESOURCE).getInputStream()) {
+            words.addAll(RussianDictionaryService.readWordList(in));
+        }
+        sorted = new ArrayList<>(new TreeSet<>(words));
+
+        DictionaryImage.Loaded loaded = RussianDictionaryService.compile(words);
+        automaton = loaded.automaton();
+        index = loaded.suggestionIndex();
+    }
+
+    @Test
+    void containsEveryWordAndNoOthers() {
+        assertThat(automaton.size()).isEqualTo(words.size());
+        for (String word : words) {
+            assertThat(automaton.contains(word)).as(word).isTrue();
+            // Префиксы и продолжения слов есть в автомате только если они сами слова
+            String prefix = word.substring(0, word.length() - 1);
+            assertThat(automaton.contains(prefix)).as(prefix).isEqualTo(words.contains(prefix));
+            assertThat(automaton.contains(word + "ъ")).isEqualTo(words.contains(word + "ъ"));
+        }
+        for (String word : List.of("", "приветт", "првиет", "qwerty", "абырвалг", "ь")) {
+            assertThat(automaton.contains(word)).as(word).isEqualTo(words.contains(word));
+        }
+    }
+
+    @Test
+    void forEachListsWordsInSortedOrder() {
+        List<String> listed = new ArrayList<>();
+        automaton.forEach(listed::add);
+        assertThat(listed).isEqualTo(sorted);
+    }
+
+    @Test
+    void wordIdsAreDense() {
+        // Номер слова - его место в алфавитном порядке, номера идут подряд с нуля
+        for (int id = 0; id < sorted.size(); id++) {
+            String word = sorted.get(id);
+            assertThat(automaton.indexOf(word)).as(word).isEqualTo(id);
+            assertThat(automaton.wordAt(id)).isEqualTo(word);
+        }
+        assertThat(automaton.indexOf("абырвалг")).isEqualTo(-1);
+    }
+
+    @Test
+    void lookupMatchesBruteForce() {
+        Random random = new Random(1);
+        List<String> inputs = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            inputs.add(misspell(random, sorted.get(random.nextInt(sorted.size()))));
+        }
+        inputs.addAll(List.of("првиет", "малако", "спосибо", "абырвалг", "а", "здраствуйте"));
+
+        for (String input : inputs) {
+            for (int limit : new int[]{3, Integer.MAX_VALUE}) {
+                assertThat(index.lookup(input, DISTANCE, limit).suggestions()).as(input)
+                        .isEqualTo(bruteForce(input, DISTANCE, limit));
+            }
+            assertThat(index.lookup(input, 1, Integer.MAX_VALUE).suggestions()).as(input)
+                    .isEqualTo(bruteForce(input, 1, Integer.MAX_VALUE));
+        }
+    }
+
+    private static List<SuggestionIndex.Suggestion> bruteForce(String input, int distance, int limit) {
+        List<SuggestionIndex.Suggestion> matches = new ArrayList<>();
+        for (String word : sorted) {
+            int wordDistance = EditDistance.damerau(input, word);
+            if (wordDistance <= distance) {
+                matches.add(new SuggestionIndex.Suggestion(word, wordDistance));
+            }
+        }
+        matches.sort(SuggestionIndex.Suggestion.ORDER);
+        return matches.size() > limit ? matches.subList(0, limit) : matches;
+    }
+
+    // Одна-три правки: вставка, удаление, замена или перестановка соседних букв
+    private static String misspell(Random random, String word) {
+        String letters = "абвгдежзийклмнопрстуфхцчшщъыьэюя";
+        StringBuilder text = new StringBuilder(word);
+        int edits = 1 + random.nextInt(3);
+        for (int i = 0; i < edits && !text.isEmpty(); i++) {
+            int position = random.nextInt(text.length());
+            char letter = letters.charAt(random.nextInt(letters.length()));
+            switch (random.nextInt(4)) {
+                case 0 -> text.insert(position, letter);
+                case 1 -> text.deleteCharAt(position);
+                case 2 -> text.setCharAt(position, letter);
+                default -> {
+                    if (position + 1 < text.length()) {
+                        char c = text.charAt(position);
+                        text.setCharAt(position, text.charAt(position + 1));
+                        text.setCharAt(position + 1, c);
+                    }
+                }
+            }
+        }
+        return text.toString();
+    }
+}
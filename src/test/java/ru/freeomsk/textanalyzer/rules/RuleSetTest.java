@@ -0,0 +1,117 @@
+package ru.freeomsk.textanalyzer.rules;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import ru.freeomsk.textanalyzer.model.TokenizedText;
+import ru.freeomsk.textanalyzer.util.TextTokenizer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Встроенные правила (rules/analysis_rules.txt): совпадения на примерах и поиск по фрагментам
+class RuleSetTest {
+
+    private static final List<String> SENTENCES = List.of(
+            "Я буду читать книгу.",
+            "Он думал о книга.",
+            "Мы ушли без тебе.",
+            "Он ушел потом потом.",
+            "Отчеты были написаны.",
+            "Привет ,мир",
+            "Привет,мир.",
+            "Два  пробела.",
+            "Он думал о книге.",
+            "Потом, потом.",
+            "Что?!",
+            "Конец . ");
+
+    private static RuleSet ruleSet;
+
+    @BeforeAll
+    static void load() throws IOException {
+        try (InputStream in = new ClassPathResource("rules/analysis_rules.txt").getInputStream()) {
+            ruleSet = RuleSet.load(in);
+        }
+    }
+
+    @Test
+    void wordRules() {
+        assertThat(matches("Я буду читать книгу")).containsExactly("GRAM_VERB_FORM 2 буду читать");
+        assertThat(matches("Он думал о книга")).containsExactly("GRAM_CASE_USAGE 9 о книга");
+        assertThat(matches("Мы ушли без тебе")).containsExactly("GRAM_CASE_USAGE 8 без тебе");
+        assertThat(matches("Он ушел потом потом")).containsExactly("STYLE_REPETITION 8 потом потом");
+        assertThat(matches("Отчеты были написаны")).containsExactly("STYLE_PASSIVE 7 были написаны");
+        // Повтор без учета регистра; три одинаковых слова - одно совпадение, совпадения правила не пересекаются
+        assertThat(matches("Потом потом")).containsExactly("STYLE_REPETITION 0 Потом потом");
+        assertThat(matches("да да да")).containsExactly("STYLE_REPETITION 0 да да");
+
+        assertThat(matches("Он думал о книге")).isEmpty();
+        assertThat(matches("Я буду читал")).isEmpty();
+        assertThat(matches("Он был дома")).isEmpty();
+        // Шаблон слов продолжается только через пробелы
+        assertThat(matches("Потом, потом")).isEmpty();
+    }
+
+    @Test
+    void charRules() {
+        // Из пересекающихся совпадений остается правило, которое раньше в файле
+        assertThat(matches("Привет ,мир")).containsExactly("PUNC_SPACE_BEFORE 6  ,");
+        assertThat(matches("Привет,мир")).containsExactly("PUNC_MISSING_SPACE_AFTER 6 ,");
+        assertThat(matches("Два  пробела")).containsExactly("PUNC_MULTIPLE_SPACES 3   ");
+        assertThat(matches("Что?! Да")).containsExactly("PUNC_MISSING_SPACE_AFTER 3 ?");
+        // Точка в конце текста тоже без пробела после нее
+        assertThat(matches("Конец.Начало.")).containsExactly(
+                "PUNC_MISSING_SPACE_AFTER 5 .", "PUNC_MISSING_SPACE_AFTER 12 .");
+        assertThat(matches("Конец . ")).containsExactly("PUNC_SPACE_BEFORE 5  .");
+        assertThat(matches("Все хорошо")).isEmpty();
+    }
+
+    @Test
+    void slicesMatchWholeText() {
+        Random random = new Random(1);
+        for (int attempt = 0; attempt < 200; attempt++) {
+            StringBuilder source = new StringBuilder();
+            int count = 1 + random.nextInt(30);
+            for (int i = 0; i < count; i++) {
+                if (!source.isEmpty()) {
+                    source.append(List.of(" ", "  ", "\n", " \n ").get(random.nextInt(4)));
+                }
+                source.append(SENTENCES.get(random.nextInt(SENTENCES.size())));
+            }
+            String text = source.toString();
+            TokenizedText whole = TextTokenizer.tokenize(text);
+
+            // Фрагменты случайной длины, покрывающие текст, как при анализе по частям
+            List<String> sliced = new ArrayList<>();
+            int sentenceCount = whole.getSentenceCount();
+            for (int from = 0; from < sentenceCount; ) {
+                int to = Math.min(sentenceCount, from + 1 + random.nextInt(4));
+                sliced.addAll(matches(whole.slice(from, to)));
+                from = to;
+            }
+
+            assertThat(sliced).as(text).containsExactlyInAnyOrderElementsOf(matches(whole));
+        }
+    }
+
+    private static List<String> matches(String text) {
+        return matches(TextTokenizer.tokenize(text));
+    }
+
+    private static List<String> matches(TokenizedText text) {
+        RuleMatches matches = ruleSet.match(text);
+        List<String> result = new ArrayList<>();
+        for (RuleCategory category : RuleCategory.values()) {
+            for (RuleMatch match : matches.of(category)) {
+                result.add(match.rule().code() + " " + match.start() + " " + match.text(text.getText()));
+            }
+        }
+        return result;
+    }
+}
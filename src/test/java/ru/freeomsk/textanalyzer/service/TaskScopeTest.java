@@ -0,0 +1,59 @@
+package ru.freeomsk.textanalyzer.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Подзадача, отмененная из-за ошибки соседней, должна сообщать об исходной ошибке, а не об отмене
+class TaskScopeTest {
+
+    @Test
+    void joinOfCancelledSiblingReportsFailure() throws Exception {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+             TaskScope scope = new TaskScope(executor, System.nanoTime() + TimeUnit.SECONDS.toNanos(30))) {
+            CountDownLatch started = new CountDownLatch(1);
+            Future<Object> sibling = scope.fork(() -> {
+                started.countDown();
+                Thread.sleep(TimeUnit.SECONDS.toMillis(30));
+                return null;
+            });
+            started.await();
+            Future<Object> failing = scope.fork(() -> {
+                throw new IllegalStateException("ошибка проверки");
+            });
+
+            // Ожидание начинается с отмененной соседней подзадачи
+            assertThatThrownBy(() -> scope.join(sibling))
+                    .isInstanceOf(ExecutionException.class)
+                    .cause().isInstanceOf(IllegalStateException.class).hasMessage("ошибка проверки");
+            assertThatThrownBy(() -> scope.join(failing))
+                    .isInstanceOf(ExecutionException.class)
+                    .cause().hasMessage("ошибка проверки");
+            assertThatThrownBy(scope::checkpoint)
+                    .isInstanceOf(ExecutionException.class)
+                    .cause().hasMessage("ошибка проверки");
+        }
+    }
+
+    @Test
+    void cancellationWithoutFailureStaysCancellation() throws Exception {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+             TaskScope scope = new TaskScope(executor, System.nanoTime() + TimeUnit.SECONDS.toNanos(30))) {
+            Future<Object> task = scope.fork(() -> {
+                Thread.sleep(TimeUnit.SECONDS.toMillis(30));
+                return null;
+            });
+            scope.cancel();
+            assertThatThrownBy(() -> scope.join(task)).isInstanceOf(CancellationException.class);
+            assertThatThrownBy(scope::checkpoint).isInstanceOf(CancellationException.class);
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package ru.freeomsk.textanalyzer.session;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.freeomsk.textanalyzer.model.AnalysisEvent;
+import ru.freeomsk.textanalyzer.model.AnalysisResult;
+import ru.freeomsk.textanalyzer.model.SpellingError;
+import ru.freeomsk.textanalyzer.model.TextError;
+import ru.freeomsk.textanalyzer.model.TextMetrics;
+import ru.freeomsk.textanalyzer.service.AdvancedTextAnalyzer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// После каждой правки находки сессии должны совпадать с анализом всего получившегося текста заново
+@SpringBootTest(properties = {"analysis.warmup.enabled=false", "reload.enabled=false"})
+class DocumentSessionTest {
+
+    private static final List<String> SENTENCES = List.of(
+            "Я буду читатт книгу.",
+            "Он был написан  быстро ,а потом потом ушел.",
+            "\"Кавычка (скобка.",
+            "Мы пошли в магазин и купили хлеб!",
+            "Кошка спит на диване; собака лает.",
+            "Были сделаны выводы и были написаны отчеты.",
+            "Очень очень можно нужно является.",
+            "Что?!",
+            "Конец");
+    private static final List<String> PIECES = List.of(" ", "  ", ".", ", ", "!", "\"", "(", ")", "слово",
+            "потом потом", "были написаны", " Новое предложение. ", "а", "\n", "?", "ттт");
+
+    @Autowired
+    private SessionService sessionService;
+
+    @Autowired
+    private AdvancedTextAnalyzer textAnalyzer;
+
+    @Test
+    void randomEditsMatchFullAnalysis() {
+        for (int seed = 1; seed <= 3; seed++) {
+            Random random = new Random(seed);
+            StringBuilder text = new StringBuilder();
+            for (int i = 0; i < 20; i++) {
+                if (!text.isEmpty()) text.append(random.nextInt(5) == 0 ? "\n" : " ");
+                text.append(SENTENCES.get(random.nextInt(SENTENCES.size())));
+            }
+
+            String id = sessionService.open(text.toString(), "ru", null, null).sessionId();
+            assertMatchesAnalysis(id, text.toString(), "открытие");
+
+            for (int step = 0; step < 150; step++) {
+                List<Edit> edits = new ArrayList<>();
+                int count = 1 + random.nextInt(3);
+                for (int i = 0; i < count; i++) {
+                    Edit edit = randomEdit(random, text.toString());
+                    edits.add(edit);
+                    text.replace(edit.offset(), edit.offset() + edit.deleteLength(), edit.insertion());
+                }
+                sessionService.edit(id, null, edits);
+                assertMatchesAnalysis(id, text.toString(), "шаг " + step + ", правки " + edits);
+            }
+            sessionService.close(id);
+        }
+    }
+
+    @Test
+    void blankDocument() {
+        String id = sessionService.open("  ", "ru", null, null).sessionId();
+        assertMatchesAnalysis(id, "  ", "открытие");
+        sessionService.edit(id, null, List.of(new Edit(1, 0, "\n\n  ")));
+        assertMatchesAnalysis(id, " \n\n   ", "пробелы");
+        sessionService.edit(id, null, List.of(new Edit(0, 0, "Кошка спит.")));
+        assertMatchesAnalysis(id, "Кошка спит. \n\n   ", "предложение");
+        sessionService.edit(id, null, List.of(new Edit(0, 11, "")));
+        assertMatchesAnalysis(id, " \n\n   ", "удаление");
+        sessionService.close(id);
+    }
+
+    private static Edit randomEdit(Random random, String text) {
+        int length = text.length();
+        switch (random.nextInt(6)) {
+            case 0 -> {
+                // Вставка в начало документа
+                return new Edit(0, 0, piece(random));
+            }
+            case 1 -> {
+                // Дописывание в конец
+                return new Edit(length, 0, random.nextBoolean() ? piece(random) : " " + sentence(random));
+            }
+            case 2 -> {
+                // Удаление целого предложения вместе с пробелами после него
+                int start = sentenceStart(text, random.nextInt(length + 1));
+                int end = sentenceEnd(text, start);
+                return new Edit(start, end - start, random.nextInt(3) == 0 ? sentence(random) + " " : "");
+            }
+            default -> {
+                int offset = random.nextInt(length + 1);
+                int deleteLength = Math.min(List.of(0, 0, 1, 1, 2, 5, 20).get(random.nextInt(7)), length - offset);
+                return new Edit(offset, deleteLength, random.nextInt(10) < 7 ? piece(random) : "");
+            }
+        }
+    }
+
+    private static int sentenceStart(String text, int position) {
+        int start = position;
+        while (start > 0 && !isSentenceGap(text, start - 1)) start--;
+        while (start < text.length() && Character.isWhitespace(text.charAt(start))) start++;
+        return start;
+    }
+
+    private static int sentenceEnd(String text, int start) {
+        int end = start;
+        while (end < text.length() && !isSentenceGap(text, end)) end++;
+        while (end < text.length() && Character.isWhitespace(text.charAt(end))) end++;
+        return end;
+    }
+
+    // Пробел после знака конца предложения
+    private static boolean isSentenceGap(String text, int position) {
+        return Character.isWhitespace(text.charAt(position)) && position > 0
+                && ".!?".indexOf(text.charAt(position - 1)) >= 0;
+    }
+
+    private static String piece(Random random) {
+        return PIECES.get(random.nextInt(PIECES.size()));
+    }
+
+    private static String sentence(Random random) {
+        return SENTENCES.get(random.nextInt(SENTENCES.size()));
+    }
+
+    private void assertMatchesAnalysis(String id, String text, String description) {
+        SessionState state = sessionService.getState(id);
+        AnalysisResult expected = textAnalyzer.analyzeText(text, "ru");
+
+        List<String> expectedFindings = new ArrayList<>();
+        expected.getSpellingErrors().forEach(error -> expectedFindings.add(key(AnalysisEvent.SPELLING, error)));
+        expected.getGrammarErrors().forEach(error -> expectedFindings.add(key(AnalysisEvent.GRAMMAR, error)));
+        expected.getPunctuationErrors().forEach(error -> expectedFindings.add(key(AnalysisEvent.PUNCTUATION, error)));
+        expected.getStyleIssues().forEach(error -> expectedFindings.add(key(AnalysisEvent.STYLE, error)));
+        List<String> findings = state.findings().stream()
+                .map(finding -> key(finding.type(), finding.finding()))
+                .toList();
+
+        assertThat(state.length()).as(description).isEqualTo(text.length());
+        assertThat(findings).as(description).containsExactlyInAnyOrderElementsOf(expectedFindings);
+        assertThat(metrics(state.metrics())).as(description).isEqualTo(metrics(expected.getMetrics()));
+    }
+
+    private static String key(String type, TextError error) {
+        String key = type + " " + error.getErrorCode() + " " + error.getPosition() + " "
+                + error.getText() + " " + error.getDescription();
+        return error instanceof SpellingError spelling ? key + " " + spelling.getSuggestions() : key;
+    }
+
+    private static List<Object> metrics(TextMetrics metrics) {
+        return List.of(metrics.getCharCount(), metrics.getWordCount(), metrics.getSentenceCount(),
+                metrics.getReadabilityIndex(), metrics.getWaterPercentage());
+    }
+}
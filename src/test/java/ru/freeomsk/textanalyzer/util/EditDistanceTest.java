@@ -0,0 +1,139 @@
+package ru.freeomsk.textanalyzer.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Битово-параллельный алгоритм, полоса и ранний выход сверяются с обычной таблицей расстояний
+class EditDistanceTest {
+
+    private static final String ALPHABET = "абвгде";
+
+    @Test
+    void matchesReferenceOnRandomStrings() {
+        Random random = new Random(1);
+        for (int i = 0; i < 5000; i++) {
+            // Длины больше 64 проверяют вычисление по полосе
+            String x = randomString(random, random.nextInt(i % 10 == 0 ? 150 : 70));
+            String y = mutate(random, x);
+            int levenshtein = reference(x, y, false);
+            int damerau = reference(x, y, true);
+
+            assertThat(EditDistance.levenshtein(x, y)).as("%s / %s", x, y).isEqualTo(levenshtein);
+            assertThat(EditDistance.damerau(x, y)).as("%s / %s", x, y).isEqualTo(damerau);
+
+            int maxDistance = random.nextInt(6);
+            assertThat(EditDistance.levenshtein(x, y, maxDistance)).as("%s / %s, порог %d", x, y, maxDistance)
+                    .isEqualTo(Math.min(levenshtein, maxDistance + 1));
+            assertThat(EditDistance.damerau(x, y, maxDistance)).as("%s / %s, порог %d", x, y, maxDistance)
+                    .isEqualTo(Math.min(damerau, maxDistance + 1));
+        }
+    }
+
+    @Test
+    void distanceAtAndJustOverThreshold() {
+        Random random = new Random(2);
+        for (int i = 0; i < 2000; i++) {
+            String x = randomString(random, 1 + random.nextInt(i % 2 == 0 ? 40 : 120));
+            String y = mutate(random, x);
+            int damerau = reference(x, y, true);
+            int levenshtein = reference(x, y, false);
+
+            // Порог равен расстоянию - расстояние; на единицу меньше - maxDistance + 1
+            assertThat(EditDistance.damerau(x, y, damerau)).isEqualTo(damerau);
+            assertThat(EditDistance.levenshtein(x, y, levenshtein)).isEqualTo(levenshtein);
+            if (damerau > 0) {
+                assertThat(EditDistance.damerau(x, y, damerau - 1)).isEqualTo(damerau);
+            }
+            if (levenshtein > 0) {
+                assertThat(EditDistance.levenshtein(x, y, levenshtein - 1)).isEqualTo(levenshtein);
+            }
+        }
+    }
+
+    @Test
+    void adjacentTranspositions() {
+        assertThat(EditDistance.damerau("привет", "пирвет")).isEqualTo(1);
+        assertThat(EditDistance.levenshtein("привет", "пирвет")).isEqualTo(2);
+        assertThat(EditDistance.damerau("ab", "ba")).isEqualTo(1);
+        // Ограниченное расстояние: подстрока не редактируется дважды
+        assertThat(EditDistance.damerau("ca", "abc")).isEqualTo(3);
+
+        Random random = new Random(3);
+        for (int i = 0; i < 1000; i++) {
+            String x = randomString(random, 2 + random.nextInt(130));
+            int position = random.nextInt(x.length() - 1);
+            String y = x.substring(0, position) + x.charAt(position + 1) + x.charAt(position) + x.substring(position + 2);
+            int expected = reference(x, y, true);
+
+            assertThat(expected).isLessThanOrEqualTo(1);
+            assertThat(EditDistance.damerau(x, y)).as("%s / %s", x, y).isEqualTo(expected);
+            assertThat(EditDistance.damerau(x, y, 1)).as("%s / %s", x, y).isEqualTo(expected);
+            assertThat(EditDistance.levenshtein(x, y)).as("%s / %s", x, y).isEqualTo(reference(x, y, false));
+        }
+    }
+
+    @Test
+    void emptyStrings() {
+        assertThat(EditDistance.levenshtein("", "")).isZero();
+        assertThat(EditDistance.damerau("", "слово")).isEqualTo(5);
+        assertThat(EditDistance.levenshtein("слово", "", 2)).isEqualTo(3);
+    }
+
+    // Расстояние Левенштейна или с перестановками соседних символов (optimal string alignment) по полной таблице
+    private static int reference(String x, String y, boolean transpositions) {
+        int[][] d = new int[x.length() + 1][y.length() + 1];
+        for (int i = 0; i <= x.length(); i++) d[i][0] = i;
+        for (int j = 0; j <= y.length(); j++) d[0][j] = j;
+        for (int i = 1; i <= x.length(); i++) {
+            for (int j = 1; j <= y.length(); j++) {
+                int cost = x.charAt(i - 1) == y.charAt(j - 1) ? 0 : 1;
+                d[i][j] = Math.min(Math.min(d[i - 1][j] + 1, d[i][j - 1] + 1), d[i - 1][j - 1] + cost);
+                if (transpositions && i > 1 && j > 1
+                        && x.charAt(i - 1) == y.charAt(j - 2) && x.charAt(i - 2) == y.charAt(j - 1)) {
+                    d[i][j] = Math.min(d[i][j], d[i - 2][j - 2] + 1);
+                }
+            }
+        }
+        return d[x.length()][y.length()];
+    }
+
+    private static String randomString(Random random, int length) {
+        StringBuilder text = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            text.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        }
+        return text.toString();
+    }
+
+    // Несколько вставок, удалений, замен и перестановок: расстояния в основном небольшие, как у опечаток
+    private static String mutate(Random random, String source) {
+        if (random.nextInt(10) == 0) {
+            return randomString(random, random.nextInt(source.length() + 2));
+        }
+        StringBuilder text = new StringBuilder(source);
+        int edits = random.nextInt(5);
+        for (int i = 0; i < edits; i++) {
+            int position = text.isEmpty() ? 0 : random.nextInt(text.length());
+            switch (random.nextInt(4)) {
+                case 0 -> text.insert(position, ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+                case 1 -> {
+                    if (!text.isEmpty()) text.deleteCharAt(position);
+                }
+                case 2 -> {
+                    if (!text.isEmpty()) text.setCharAt(position, ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+                }
+                default -> {
+                    if (position + 1 < text.length()) {
+                        char c = text.charAt(position);
+                        text.setCharAt(position, text.charAt(position + 1));
+                        text.setCharAt(position + 1, c);
+                    }
+                }
+            }
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,49 @@
+package ru.freeomsk.textanalyzer.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SentenceWindowsTest {
+
+    private static final int CAPACITY = SentenceWindows.MIN_CAPACITY;
+
+    @Test
+    void rangesCoverWholeText() throws IOException {
+        String text = "Первое предложение текста. Второе, чуть длиннее! ".repeat(200);
+        SentenceWindows windows = new SentenceWindows(new StringReader(text), CAPACITY);
+
+        StringBuilder ranges = new StringBuilder();
+        SentenceWindows.Window window;
+        while ((window = windows.next()) != null) {
+            ranges.append(window.text(), window.from(), window.to());
+            assertThat(window.offset() + window.to()).isEqualTo(ranges.length());
+        }
+
+        assertThat(ranges.toString()).isEqualTo(text);
+        assertThat(windows.length()).isEqualTo(text.length());
+    }
+
+    @Test
+    void rejectsTextLongerThanLimit() throws IOException {
+        String text = "Предложение. ".repeat(1000);
+        SentenceWindows windows = new SentenceWindows(new StringReader(text), CAPACITY, text.length() - 1);
+
+        assertThatThrownBy(() -> {
+            while (windows.next() != null) {
+                assertThat(windows.length()).isLessThan(text.length());
+            }
+        }).isInstanceOf(IOException.class).hasMessageContaining("Текст длиннее");
+
+        // Текст ровно по пределу читается целиком
+        SentenceWindows exact = new SentenceWindows(new StringReader(text), CAPACITY, text.length());
+        while (exact.next() != null) {
+            assertThat(exact.length()).isLessThanOrEqualTo(text.length());
+        }
+        assertThat(exact.length()).isEqualTo(text.length());
+    }
+}